@@ -15,6 +15,10 @@ public class IssueMetadata {
     private final int nonSelfCommentCount;
     private final boolean isUpdated;
 
+    // The ETags of the events and comments as they were downloaded, or null if they have none
+    private final String eventsETag;
+    private final String commentsETag;
+
     // Constructor for default use when initializing TurboIssue
     public IssueMetadata() {
         events = new ArrayList<>();
@@ -22,24 +26,34 @@ public class IssueMetadata {
         nonSelfUpdatedAt = LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.ofHours(0));
         nonSelfCommentCount = 0;
         isUpdated = false;
+        eventsETag = null;
+        commentsETag = null;
     }
 
-    // Copy constructor used in TurboIssue
+    // Copy constructor
     public IssueMetadata(IssueMetadata other) {
         this.events = new ArrayList<>(other.events);
         this.comments = new ArrayList<>(other.comments);
         this.nonSelfUpdatedAt = other.nonSelfUpdatedAt;
         this.nonSelfCommentCount  = other.nonSelfCommentCount;
         this.isUpdated = other.isUpdated;
+        this.eventsETag = other.eventsETag;
+        this.commentsETag = other.commentsETag;
     }
 
-    // Constructor used in DownloadMetadataTask
     public IssueMetadata(List<TurboIssueEvent> events, List<Comment> comments) {
+        this(events, comments, null, null);
+    }
+
+    // Constructor used in MetadataFetcher
+    public IssueMetadata(List<TurboIssueEvent> events, List<Comment> comments, String eventsETag, String commentsETag) {
         this.events = events;
         this.comments = comments;
         this.nonSelfUpdatedAt = LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.ofHours(0)); // Not calculated yet
         this.nonSelfCommentCount = 0; // Not calculated yet
         this.isUpdated = false;
+        this.eventsETag = eventsETag;
+        this.commentsETag = commentsETag;
     }
 
     // Constructor used in Logic
@@ -49,6 +63,8 @@ public class IssueMetadata {
         this.nonSelfUpdatedAt = nonSelfUpdatedAt; // Calculated just prior to calling this constructor
         this.nonSelfCommentCount = nonSelfCommentCount; // Calculated just prior to calling
         this.isUpdated = true;
+        this.eventsETag = other.eventsETag;
+        this.commentsETag = other.commentsETag;
     }
 
     // Constructor used in MultiModel
@@ -58,6 +74,8 @@ public class IssueMetadata {
         this.nonSelfUpdatedAt = nonSelfUpdatedAt; // After creation date reconciliation
         this.nonSelfCommentCount  = other.nonSelfCommentCount;
         this.isUpdated = other.isUpdated;
+        this.eventsETag = other.eventsETag;
+        this.commentsETag = other.commentsETag;
     }
 
     public String summarise() {
@@ -84,6 +102,14 @@ public class IssueMetadata {
         return isUpdated;
     }
 
+    public String getEventsETag() {
+        return eventsETag;
+    }
+
+    public String getCommentsETag() {
+        return commentsETag;
+    }
+
     @Override
     public String toString() {
         return "Events: " + events.toString() + ", " + "comments: " + comments.toString();
@@ -1,5 +1,6 @@
 package backend;
 
+import backend.binary.Codec;
 import backend.resource.Model;
 import backend.resource.MultiModel;
 import backend.resource.TurboIssue;
@@ -18,8 +19,10 @@ import util.events.testevents.ClearLogicModelEventHandler;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
@@ -42,7 +45,9 @@ public class Logic {
         this.prefs = prefs;
         this.models = new MultiModel(prefs);
 
-        repoIO = new RepoIO(isTestMode, enableTestJSON);
+        repoIO = new RepoIO(isTestMode, enableTestJSON, Codec.fromName(prefs.getStoreCodec()), prefs.getRepoSource());
+        repoIO.setRedownloadHandler(this::replaceRedownloadedRepository);
+        repoIO.setProvisionalModelHandler(this::showProvisionalRepository);
         loginController = new LoginController(this);
 
         // Only relevant to testing, need a different event type to avoid race condition
@@ -86,11 +91,51 @@ public class Logic {
             .collect(Collectors.toList()))
                 .thenApply(models::replace)
                 .thenRun(this::updateUI)
+                .thenRun(this::logSourcePoolStatistics)
                 .thenCompose(n -> getRateLimitResetTime())
                 .thenApply(this::updateRemainingRate)
                 .exceptionally(Futures::log);
     }
 
+    /**
+     * Swaps in a repository which was downloaded again after its store was found to be corrupted.
+     */
+    private void replaceRedownloadedRepository(Model model) {
+        List<Model> toReplace = models.toModels();
+        if (toReplace.removeIf(existing -> existing.getRepoId().equalsIgnoreCase(model.getRepoId()))) {
+            toReplace.add(model);
+            models.replace(toReplace);
+            updateUI();
+        }
+    }
+
+    /**
+     * Shows what there is of a repository which is still being downloaded. Metadata is only
+     * downloaded for its issues once it has finished downloading, as a provisional model may be
+     * followed by another within a fraction of a second.
+     */
+    private void showProvisionalRepository(Model model) {
+        if (models.addProvisional(model)) {
+            updateUIAndShow();
+        }
+    }
+
+    /**
+     * Writes out any repository saves which are still pending.
+     */
+    public void onAppQuit() {
+        repoIO.flushPendingSaves();
+    }
+
+    /**
+     * Logs how busy the repository source has been, which is only of interest while debugging.
+     */
+    private void logSourcePoolStatistics() {
+        if (logger.isDebugEnabled()) {
+            logger.debug(repoIO.getSourcePoolStatistics());
+        }
+    }
+
     public CompletableFuture<Boolean> openPrimaryRepository(String repoId) {
         return openRepository(repoId, true);
     }
@@ -111,6 +156,7 @@ public class Logic {
         models.queuePendingRepository(repoId);
         return isRepositoryValid(repoId).thenCompose(valid -> {
             if (!valid) {
+                abandonPendingRepository(repoId);
                 return Futures.unit(false);
             } else {
                 logger.info("Opening " + repoId);
@@ -122,11 +168,24 @@ public class Logic {
                         .thenCompose(n -> getRateLimitResetTime())
                         .thenApply(this::updateRemainingRate)
                         .thenApply(rateLimits -> true)
-                        .exceptionally(withResult(false));
+                        .exceptionally(e -> {
+                            abandonPendingRepository(repoId);
+                            return false;
+                        });
             }
         });
     }
 
+    /**
+     * Stops waiting for a repository which could not be opened, so that opening it may be retried.
+     * Any provisional model shown for it is taken down.
+     */
+    private void abandonPendingRepository(String repoId) {
+        if (models.removePending(repoId)) {
+            updateUI();
+        }
+    }
+
     public CompletableFuture<Boolean> getIssueMetadata(String repoId, List<Integer> issues) {
         String message = "Getting metadata for " + repoId + "...";
         logger.info("Getting metadata for issues " + issues);
@@ -134,7 +193,7 @@ public class Logic {
 
         String currentUser = prefs.getLastLoginUsername();
 
-        return repoIO.getIssueMetadata(repoId, issues).thenApply(this::processNonSelfUpdate)
+        return repoIO.getIssueMetadata(repoId, getUpdateTimes(repoId, issues)).thenApply(this::processNonSelfUpdate)
             .thenApply(metadata -> {
                 String updatedMessage = "Received metadata from " + repoId + "!";
                 UI.status.displayMessage(updatedMessage);
@@ -148,6 +207,20 @@ public class Logic {
             .exceptionally(withResult(false));
     }
 
+    /**
+     * Returns the time each of the given issues was last updated, by issue id, for those
+     * issues which are in the repository's model.
+     */
+    private Map<Integer, LocalDateTime> getUpdateTimes(String repoId, List<Integer> issues) {
+        Map<Integer, LocalDateTime> updateTimes = new HashMap<>();
+        Model model = models.get(repoId);
+        if (model != null) {
+            issues.forEach(id -> model.getIssueById(id)
+                    .ifPresent(issue -> updateTimes.put(id, issue.getUpdatedAt())));
+        }
+        return updateTimes;
+    }
+
     // Adds update times to the metadata map
     private Map<Integer, IssueMetadata> processNonSelfUpdate(Map<Integer, IssueMetadata> metadata) {
         String currentUser = prefs.getLastLoginUsername();
@@ -204,6 +277,20 @@ public class Logic {
         models.setDefaultRepo(repoId);
     }
 
+    /**
+     * Marks an issue as read at the given time, or as unread, remembering it across sessions.
+     * Panels are then filtered again, as whether they show the issue may depend on it.
+     */
+    public void setMarkedReadAt(TurboIssue issue, Optional<LocalDateTime> markedReadAt) {
+        if (markedReadAt.isPresent()) {
+            prefs.setMarkedReadAt(issue.getRepoId(), issue.getId(), markedReadAt.get());
+        } else {
+            prefs.clearMarkedReadAt(issue.getRepoId(), issue.getId());
+        }
+        models.setMarkedReadAt(issue, markedReadAt);
+        updateUIAndShow();
+    }
+
     public String getDefaultRepo() {
         return models.getDefaultRepo();
     }
@@ -244,20 +331,19 @@ public class Logic {
 
     /**
      * Dispatches a PUT request to the GitHub API to replace the given issue's labels.
-     * At the same time, immediately change the GUI to pre-empt this change.
-     *
-     * Assumes that the model object is shared among GUI and Logic.
+     * Once GitHub accepts it, the issue is relabelled in the models and shown in the GUI
+     * without waiting for the next refresh.
      *
      * @param issue The issue whose labels are to be replaced
      * @param labels The labels to be applied to the given issue
-     * @return The list of labels on the issue after the request is received by GitHub
+     * @return true if GitHub accepted the request
      */
     public CompletableFuture<Boolean> replaceIssueLabels(TurboIssue issue, List<String> labels) {
         logger.info(HTLog.format(issue.getRepoId(), "Applying labels " + labels + " to " + issue));
 
         return repoIO.replaceIssueLabels(issue, labels).handle((resultLabels, ex) -> {
             if (ex == null) {
-                issue.setLabels(labels);
+                models.replaceIssueLabels(issue, labels);
                 updateUIAndShow();
                 return true;
             } else {
@@ -0,0 +1,223 @@
+package backend;
+
+import backend.interfaces.RepoStore;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializer;
+import com.google.gson.reflect.TypeToken;
+import github.TurboIssueEvent;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.egit.github.core.Comment;
+import util.HTLog;
+import util.Utility;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps the metadata (events and comments) downloaded for issues, so that it need not be downloaded
+ * again for issues which have not been updated since, even after a restart.
+ *
+ * Each repository's metadata is kept in a file alongside its store file, keyed by issue id and
+ * the time the issue was last updated when its metadata was downloaded. The file is read when
+ * the repository's metadata is first asked for, and rewritten whenever metadata is added to it.
+ *
+ * The ETags of the events and comments are kept too, so that once an issue has been updated,
+ * they can be downloaded again only if they have changed.
+ */
+public class MetadataCache {
+
+    private static final Logger logger = HTLog.get(MetadataCache.class);
+
+    public static final String METADATA_EXTENSION = "metadata";
+
+    private static final Type CACHE_TYPE = new TypeToken<Map<Integer, CachedMetadata>>() {}.getType();
+
+    // Dates are kept as timestamps, as Gson's default date format depends on the locale
+    private static final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(Date.class, (JsonSerializer<Date>) (date, type, context) ->
+                    new JsonPrimitive(date.getTime()))
+            .registerTypeAdapter(Date.class, (JsonDeserializer<Date>) (json, type, context) ->
+                    new Date(json.getAsLong()))
+            .create();
+
+    private final boolean isEnabled;
+
+    // All reading and writing of the cache is done on this thread, in the order requested
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "MetadataCache");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Only accessed from the executor
+    private final Map<String, Map<Integer, CachedMetadata>> caches = new HashMap<>();
+
+    private static class CachedMetadata {
+        public final String updatedAt;
+        public final List<TurboIssueEvent> events;
+        public final List<Comment> comments;
+        public final String eventsETag;
+        public final String commentsETag;
+
+        public CachedMetadata(LocalDateTime updatedAt, IssueMetadata metadata) {
+            this.updatedAt = updatedAt.toString();
+            this.events = metadata.getEvents();
+            this.comments = metadata.getComments();
+            this.eventsETag = metadata.getEventsETag();
+            this.commentsETag = metadata.getCommentsETag();
+        }
+
+        public IssueMetadata toIssueMetadata() {
+            return new IssueMetadata(new ArrayList<>(events), new ArrayList<>(comments), eventsETag, commentsETag);
+        }
+
+        public boolean isCurrent(LocalDateTime issueUpdatedAt) {
+            return issueUpdatedAt != null && updatedAt.equals(issueUpdatedAt.toString())
+                    && events != null && comments != null;
+        }
+    }
+
+    /**
+     * @param isEnabled false if nothing is to be cached, e.g. when repositories are not stored either
+     */
+    public MetadataCache(boolean isEnabled) {
+        this.isEnabled = isEnabled;
+    }
+
+    /**
+     * Looks up the metadata of the given issues.
+     * @param issues the time each issue was last updated, by issue id
+     * @return the cached metadata of those issues which have not been updated since it was downloaded
+     */
+    public CompletableFuture<Map<Integer, IssueMetadata>> get(String repoId, Map<Integer, LocalDateTime> issues) {
+        if (!isEnabled) {
+            return CompletableFuture.completedFuture(new HashMap<>());
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            Map<Integer, CachedMetadata> cache = getCache(repoId);
+            Map<Integer, IssueMetadata> result = new HashMap<>();
+            issues.forEach((id, updatedAt) -> {
+                CachedMetadata cached = cache.get(id);
+                if (cached != null && cached.isCurrent(updatedAt)) {
+                    result.put(id, cached.toIssueMetadata());
+                }
+            });
+            return result;
+        }, executor);
+    }
+
+    /**
+     * Looks up the metadata of the given issues, whether or not the issues have been updated since
+     * it was downloaded.
+     * @return the cached metadata of those issues which have any
+     */
+    public CompletableFuture<Map<Integer, IssueMetadata>> getOutdated(String repoId, List<Integer> issueIds) {
+        if (!isEnabled) {
+            return CompletableFuture.completedFuture(new HashMap<>());
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            Map<Integer, CachedMetadata> cache = getCache(repoId);
+            Map<Integer, IssueMetadata> result = new HashMap<>();
+            issueIds.forEach(id -> {
+                CachedMetadata cached = cache.get(id);
+                if (cached != null && cached.events != null && cached.comments != null) {
+                    result.put(id, cached.toIssueMetadata());
+                }
+            });
+            return result;
+        }, executor);
+    }
+
+    /**
+     * Adds newly downloaded metadata to the cache, and writes the repository's cache out.
+     * @param issues the time each issue was last updated when its metadata was downloaded, by issue id
+     */
+    public CompletableFuture<Void> put(String repoId, Map<Integer, IssueMetadata> metadata,
+                                       Map<Integer, LocalDateTime> issues) {
+        if (!isEnabled) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> {
+            Map<Integer, CachedMetadata> cache = getCache(repoId);
+            metadata.forEach((id, issueMetadata) -> {
+                LocalDateTime updatedAt = issues.get(id);
+                if (updatedAt == null) {
+                    cache.remove(id);
+                } else {
+                    cache.put(id, new CachedMetadata(updatedAt, issueMetadata));
+                }
+            });
+            write(repoId, cache);
+        }, executor);
+    }
+
+    private Map<Integer, CachedMetadata> getCache(String repoId) {
+        Map<Integer, CachedMetadata> cache = caches.get(repoId);
+        if (cache == null) {
+            cache = read(repoId);
+            caches.put(repoId, cache);
+        }
+        return cache;
+    }
+
+    private static Map<Integer, CachedMetadata> read(String repoId) {
+        Optional<Path> path = getMetadataPath(repoId);
+        if (!path.isPresent() || !Files.isRegularFile(path.get())) {
+            return new HashMap<>();
+        }
+        try {
+            Optional<Map<Integer, CachedMetadata>> cache = Utility.readFile(path.get().toString(),
+                    reader -> gson.<Map<Integer, CachedMetadata>>fromJson(reader, CACHE_TYPE));
+            if (cache.isPresent()) {
+                logger.info(HTLog.format(repoId, "Loaded metadata of " + cache.get().size() + " issues from cache"));
+                return new HashMap<>(cache.get());
+            }
+        } catch (JsonParseException e) {
+            logger.error(HTLog.format(repoId, "Metadata cache is corrupted"));
+        }
+        return new HashMap<>();
+    }
+
+    private static void write(String repoId, Map<Integer, CachedMetadata> cache) {
+        Optional<Path> path = getMetadataPath(repoId);
+        if (!path.isPresent()) {
+            logger.error(HTLog.format(repoId, "Unable to write metadata cache"));
+            return;
+        }
+        try {
+            Utility.writeFileAtomically(path.get(), channel -> {
+                Writer writer = new BufferedWriter(
+                        Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1));
+                gson.toJson(cache, CACHE_TYPE, writer);
+                writer.flush();
+            });
+        } catch (IOException | JsonParseException e) {
+            logger.error(HTLog.format(repoId, "Unable to write metadata cache"), e);
+        }
+    }
+
+    private static Optional<Path> getMetadataPath(String repoId) {
+        return RepoStore.getRepoPath(repoId, METADATA_EXTENSION).map(Paths::get);
+    }
+}
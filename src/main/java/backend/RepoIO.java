@@ -1,27 +1,31 @@
 package backend;
 
 import backend.github.GitHubSource;
+import backend.github.GraphQLSource;
 import backend.interfaces.RepoSource;
+import backend.binary.BinaryStore;
+import backend.binary.Codec;
 import backend.interfaces.RepoStore;
-import backend.json.JSONStore;
 import backend.json.JSONStoreStub;
 import backend.resource.Model;
 import backend.resource.TurboIssue;
-import backend.resource.serialization.SerializableModel;
 import backend.stub.DummySource;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.logging.log4j.Logger;
 import ui.UI;
 import util.HTLog;
+import util.InstrumentedExecutor;
 import util.events.ShowErrorDialogEvent;
 import util.events.UpdateProgressEvent;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static util.Futures.withResult;
@@ -31,26 +35,50 @@ public class RepoIO {
     private static final Logger logger = HTLog.get(RepoIO.class);
 
     private final RepoSource repoSource;
-    private final JSONStore jsonStore;
+    private final RepoStore repoStore;
+    private final WriteBehindQueue writeBehindQueue;
+    private final MetadataCache metadataCache;
+    private Consumer<Model> redownloadHandler = model -> {};
+    private Consumer<Model> provisionalModelHandler = model -> {};
 
     private List<String> storedRepos;
 
     private static final int MAX_REDOWNLOAD_TRIES = 2;
 
     public RepoIO(boolean isTestMode, boolean enableTestJSON) {
+        this(isTestMode, enableTestJSON, Codec.DEFAULT);
+    }
+
+    public RepoIO(boolean isTestMode, boolean enableTestJSON, Codec storeCodec) {
+        this(isTestMode, enableTestJSON, storeCodec, "");
+    }
+
+    /**
+     * @param sourceName the name of the source to download repositories from, or an empty string
+     *                   for the default
+     */
+    public RepoIO(boolean isTestMode, boolean enableTestJSON, Codec storeCodec, String sourceName) {
         if (isTestMode) {
             repoSource = new DummySource();
             RepoStore.enableTestDirectory();
+        } else if (sourceName.equalsIgnoreCase(GraphQLSource.NAME)) {
+            repoSource = new GraphQLSource();
         } else {
+            if (!sourceName.isEmpty()) {
+                logger.warn("Unknown repository source " + sourceName + "; using GitHub");
+            }
             repoSource = new GitHubSource();
         }
         if (isTestMode && !enableTestJSON) {
-            jsonStore = new JSONStoreStub();
+            repoStore = new JSONStoreStub();
             storedRepos = new ArrayList<>();
+            metadataCache = new MetadataCache(false);
         } else {
-            jsonStore = new JSONStore();
-            storedRepos = new ArrayList<>(jsonStore.getStoredRepos());
+            repoStore = new BinaryStore(storeCodec);
+            storedRepos = new ArrayList<>(repoStore.getStoredRepos());
+            metadataCache = new MetadataCache(true);
         }
+        writeBehindQueue = new WriteBehindQueue(repoStore);
     }
 
     public List<String> getStoredRepos() {
@@ -71,24 +99,21 @@ public class RepoIO {
         Optional<String> matchingRepoName = storedRepos.stream().filter(repoName ->
                 repoName.equalsIgnoreCase(repoId)).findFirst();
         if (matchingRepoName.isPresent()) {
-            // TODO avoid CI deadlock in the .exceptionally call. Explanation:
-            /* loadRepoFromStoreAsync will execute in jsonStore's single thread pool, and if
-             it has an exception then downloadRepoFromSourceBlocking will also run there. Eventually,
-             this results in jsonStore.saveRepository in updateModel being placed as another Task on the
-             same thread pool. However, since the current task is still carrying out and waiting for the second
-             task to complete, the program gets deadlocked on the CI.
-             One example of how this can happen is when storedRepos contains the repo name but the json was
-             deleted while the program is still running. */
+            // Falls back to downloading without blocking, as the failed load completes on a store thread
+            // which the download's own save may have to wait for
             String repoToLoad = matchingRepoName.get();
             return loadRepoFromStoreAsync(repoToLoad)
-                    .exceptionally(e -> downloadRepoFromSourceBlocking(repoToLoad));
+                    .handle((model, e) -> e == null
+                            ? CompletableFuture.completedFuture(model)
+                            : downloadRepoFromSourceAsync(repoToLoad))
+                    .thenCompose(future -> future);
         } else {
             return downloadRepoFromSourceAsync(repoId);
         }
     }
 
     private CompletableFuture<Model> loadRepoFromStoreAsync(String repoId) {
-        return jsonStore.loadRepository(repoId)
+        return repoStore.loadRepository(repoId)
                 .thenCompose(this::updateModel);
     }
 
@@ -98,26 +123,17 @@ public class RepoIO {
 
     private CompletableFuture<Model> downloadRepoFromSourceAsync(String repoId, int remainingTries) {
         UI.status.displayMessage("Downloading " + repoId);
-        return repoSource.downloadRepository(repoId)
+        return repoSource.downloadRepository(repoId, provisionalModelHandler)
                 .thenCompose(newModel -> updateModel(newModel, remainingTries))
                 .thenApply(model -> {
+                    // A download is costly to redo, so it is written out without waiting
+                    writeBehindQueue.flush(model.getRepoId());
                     storedRepos.add(repoId);
                     return model;
                 })
                 .exceptionally(withResult(new Model(repoId)));
     }
 
-    private Model downloadRepoFromSourceBlocking(String repoId) {
-        try {
-            return downloadRepoFromSourceAsync(repoId).get();
-        } catch (ExecutionException | InterruptedException e) {
-            logger.info("Error while downloading " + repoId);
-            logger.error(e.getLocalizedMessage());
-
-            return new Model(repoId);
-        }
-    }
-
     public CompletableFuture<Model> updateModel(Model model) {
         return updateModel(model, MAX_REDOWNLOAD_TRIES);
     }
@@ -125,44 +141,98 @@ public class RepoIO {
     public CompletableFuture<Model> updateModel(Model model, int remainingTries) {
         return repoSource.updateModel(model)
             .thenApply(newModel -> {
-                boolean corruptedJson = false;
                 if (!model.equals(newModel)) {
-                    try {
-                        corruptedJson =
-                                jsonStore.saveRepository(newModel.getRepoId(), new SerializableModel(newModel)).get();
-                    } catch (InterruptedException | ExecutionException ex) {
-                        corruptedJson = true;
-                    }
+                    writeBehindQueue.save(model, newModel).thenAccept(corrupted -> {
+                        if (corrupted) {
+                            onStoreCorrupted(newModel.getRepoId(), remainingTries);
+                        }
+                    });
                 } else {
                     logger.info(HTLog.format(model.getRepoId(),
                             "Nothing changed; not writing to store"));
                 }
-                if (corruptedJson && remainingTries > 0) {
-                    return downloadRepoFromSourceAsync(model.getRepoId(), remainingTries - 1).join();
-                } else {
-                    if (corruptedJson && remainingTries == 0) {
-                        UI.events.triggerEvent(new ShowErrorDialogEvent("Could not sync " + model.getRepoId(),
-                                "We were not able to sync with GitHub to retrieve and store data for the repository "
-                                + model.getRepoId()
-                                + ". Please let us know if you encounter this issue consistently."
-                        ));
-                    } else {
-                        UI.status.displayMessage(model.getRepoId() + " is up to date!");
-                    }
-                    UI.events.triggerEvent(new UpdateProgressEvent(model.getRepoId()));
-                    return newModel;
-                }
+                UI.status.displayMessage(model.getRepoId() + " is up to date!");
+                UI.events.triggerEvent(new UpdateProgressEvent(model.getRepoId()));
+                return newModel;
             }).exceptionally(withResult(new Model(model.getRepoId())));
     }
 
-    public CompletableFuture<Map<Integer, IssueMetadata>> getIssueMetadata(String repoId, List<Integer> issues) {
-        return repoSource.downloadMetadata(repoId, issues);
+    /**
+     * Saves are written behind, so corruption is only found out about after the updated model has
+     * been handed back. The repository is downloaded again and passed to the redownload handler.
+     */
+    private void onStoreCorrupted(String repoId, int remainingTries) {
+        if (remainingTries > 0) {
+            logger.warn(HTLog.format(repoId, "Store corrupted; downloading repository again"));
+            downloadRepoFromSourceAsync(repoId, remainingTries - 1).thenAccept(redownloadHandler);
+        } else {
+            UI.events.triggerEvent(new ShowErrorDialogEvent("Could not sync " + repoId,
+                    "We were not able to sync with GitHub to retrieve and store data for the repository "
+                    + repoId
+                    + ". Please let us know if you encounter this issue consistently."
+            ));
+        }
+    }
+
+    /**
+     * Sets the handler for repositories which had to be downloaded again after their store was corrupted.
+     */
+    public void setRedownloadHandler(Consumer<Model> redownloadHandler) {
+        this.redownloadHandler = redownloadHandler;
+    }
+
+    /**
+     * Sets the handler for models of repositories being downloaded which are usable, but do not have
+     * their issues yet.
+     */
+    public void setProvisionalModelHandler(Consumer<Model> provisionalModelHandler) {
+        this.provisionalModelHandler = provisionalModelHandler;
+    }
+
+    /**
+     * Writes out saves which are still waiting in the write-behind queue, e.g. before quitting.
+     */
+    public void flushPendingSaves() {
+        writeBehindQueue.flushAll();
+    }
+
+    /**
+     * Gets the metadata of the given issues, only downloading it for issues which have been updated
+     * since their metadata was last downloaded. Even then, the events and comments of such issues
+     * are only downloaded if they have changed. Issues whose metadata could not be downloaded are
+     * left out, so the metadata last cached for them is kept.
+     * @param issues the time each issue was last updated, by issue id
+     */
+    public CompletableFuture<Map<Integer, IssueMetadata>> getIssueMetadata(String repoId,
+                                                                          Map<Integer, LocalDateTime> issues) {
+        return metadataCache.get(repoId, issues).thenCompose(cached -> {
+            List<Integer> toDownload = issues.keySet().stream()
+                    .filter(id -> !cached.containsKey(id))
+                    .collect(Collectors.toList());
+            logger.info(HTLog.format(repoId, "Metadata of " + cached.size() + " issues found in cache, "
+                    + toDownload.size() + " to download"));
+            if (toDownload.isEmpty()) {
+                return CompletableFuture.completedFuture(cached);
+            }
+            return metadataCache.getOutdated(repoId, toDownload)
+                    .thenCompose(outdated -> repoSource.downloadMetadata(repoId, toDownload, outdated))
+                    .thenApply(downloaded -> {
+                        metadataCache.put(repoId, downloaded, issues);
+                        Map<Integer, IssueMetadata> metadata = new HashMap<>(cached);
+                        metadata.putAll(downloaded);
+                        return metadata;
+                    });
+        });
     }
 
     public CompletableFuture<List<String>> replaceIssueLabels(TurboIssue issue, List<String> labels) {
         return repoSource.replaceIssueLabels(issue, labels);
     }
 
+    public List<InstrumentedExecutor.Statistics> getSourcePoolStatistics() {
+        return repoSource.getPoolStatistics();
+    }
+
     public CompletableFuture<ImmutablePair<Integer, Long>> getRateLimitResetTime() {
         return repoSource.getRateLimitResetTime();
     }
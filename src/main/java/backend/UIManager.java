@@ -1,5 +1,7 @@
 package backend;
 
+import backend.interfaces.IModel;
+import backend.resource.ModelDelta;
 import backend.resource.MultiModel;
 import javafx.application.Platform;
 import org.apache.commons.lang3.tuple.ImmutablePair;
@@ -15,13 +17,21 @@ public class UIManager {
         this.ui = ui;
     }
 
+    /**
+     * Shows the models, along with what has changed in them since they were last shown.
+     * The view is taken after the delta, so that it is at least as recent; changes made in between
+     * are also in the next delta.
+     */
     public void update(MultiModel models, boolean hasMetadata) {
+        ModelDelta delta = models.takeDelta();
+        IModel view = models.getView();
         Platform.runLater(() ->
-            ui.triggerEvent(new ModelUpdatedEvent(models, hasMetadata)));
+            ui.triggerEvent(new ModelUpdatedEvent(view, delta, hasMetadata)));
     }
 
     public void updateNow(MultiModel models) {
-        ui.triggerEvent(new ModelUpdatedEvent(models, false));
+        ModelDelta delta = models.takeDelta();
+        ui.triggerEvent(new ModelUpdatedEvent(models.getView(), delta, false));
     }
 
     public void updateRateLimits(ImmutablePair<Integer, Long> rateLimits) {
@@ -0,0 +1,122 @@
+package backend;
+
+import backend.interfaces.RepoStore;
+import backend.resource.Model;
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Sits in front of a RepoStore so that saving a repository does not wait for the disk.
+ *
+ * Saves are held back until a repository has not been saved again for a short while. Saves of
+ * a repository which arrive in the meantime are coalesced into one, which takes the repository
+ * from the state before the first to the state after the last. Pending saves are also flushed
+ * when the application quits.
+ */
+public class WriteBehindQueue {
+
+    private static final Logger logger = HTLog.get(WriteBehindQueue.class);
+
+    public static final long IDLE_FLUSH_DELAY_MS = 1000;
+    private static final long QUIT_FLUSH_TIMEOUT_S = 10;
+
+    private final RepoStore store;
+    private final long idleFlushDelay;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "WriteBehindQueue");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Guarded by this
+    private final Map<String, PendingSave> pendingSaves = new HashMap<>();
+
+    private static class PendingSave {
+        public final Model previous;
+        public Model updated;
+        public ScheduledFuture<?> flush;
+        public CompletableFuture<Boolean> response = new CompletableFuture<>();
+
+        public PendingSave(Model previous, Model updated) {
+            this.previous = previous;
+            this.updated = updated;
+        }
+    }
+
+    public WriteBehindQueue(RepoStore store) {
+        this(store, IDLE_FLUSH_DELAY_MS);
+    }
+
+    public WriteBehindQueue(RepoStore store, long idleFlushDelay) {
+        this.store = store;
+        this.idleFlushDelay = idleFlushDelay;
+    }
+
+    /**
+     * Queues a save of a repository which was previously in the given state.
+     * @return a future which completes, once the save has been written, with true on corruption.
+     *         Only the last of the saves which were coalesced reports corruption; the others complete
+     *         with false as soon as they are superseded, so that it is handled once per write.
+     */
+    public synchronized CompletableFuture<Boolean> save(Model previous, Model updated) {
+        String repoId = updated.getRepoId();
+        PendingSave pending = pendingSaves.get(repoId);
+        if (pending == null) {
+            pending = new PendingSave(previous, updated);
+            pendingSaves.put(repoId, pending);
+        } else {
+            logger.info(HTLog.format(repoId, "Coalescing with pending save"));
+            pending.updated = updated;
+            pending.flush.cancel(false);
+            pending.response.complete(false);
+            pending.response = new CompletableFuture<>();
+        }
+        pending.flush = timer.schedule(() -> flush(repoId), idleFlushDelay, TimeUnit.MILLISECONDS);
+        return pending.response;
+    }
+
+    /**
+     * Hands a repository's pending save, if any, to the store without waiting for it to go idle.
+     * This is done while holding the lock, so that saves reach the store in the order they were queued.
+     * @return a future which completes, once the save has been written, with true on corruption
+     */
+    public synchronized CompletableFuture<Boolean> flush(String repoId) {
+        PendingSave pending = pendingSaves.remove(repoId);
+        if (pending == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        pending.flush.cancel(false);
+        CompletableFuture<Boolean> response = pending.response;
+        store.saveRepositoryChanges(repoId, pending.previous, pending.updated)
+                .whenComplete((corrupted, e) -> response.complete(e != null || corrupted));
+        return response;
+    }
+
+    /**
+     * Writes out all pending saves, waiting for them to complete.
+     */
+    public void flushAll() {
+        List<CompletableFuture<Boolean>> flushes = new ArrayList<>();
+        synchronized (this) {
+            new ArrayList<>(pendingSaves.keySet()).forEach(repoId -> flushes.add(flush(repoId)));
+        }
+        try {
+            CompletableFuture.allOf(flushes.toArray(new CompletableFuture[flushes.size()]))
+                    .get(QUIT_FLUSH_TIMEOUT_S, TimeUnit.SECONDS);
+        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            logger.error("Unable to write all pending saves to the store", e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package backend.binary;
+
+import backend.UpdateSignature;
+import backend.interfaces.StoreTask;
+import backend.resource.Model;
+import backend.resource.serialization.SerializableModel;
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Appends the changes between two states of a repository to its journal, falling back to
+ * writing a full snapshot when the previous state is not the one on disk.
+ */
+class AppendTask extends StoreTask {
+
+    private static final Logger logger = HTLog.get(AppendTask.class);
+
+    private final BinaryStore store;
+    public final Model previous;
+    public final Model updated;
+    public final CompletableFuture<Boolean> response;
+
+    public AppendTask(BinaryStore store, String repoId, Model previous, Model updated,
+                      CompletableFuture<Boolean> response) {
+        super(repoId);
+        this.store = store;
+        this.previous = previous;
+        this.updated = updated;
+        this.response = response;
+    }
+
+    @Override
+    public void run() {
+        Optional<JournalRecord> record = getRecord();
+        Optional<Path> journal = BinaryStore.getJournalPath(repoId);
+        if (!record.isPresent() || !journal.isPresent()) {
+            response.complete(WriteTask.save(store, repoId, new SerializableModel(updated)));
+            return;
+        }
+
+        try {
+            Journal.append(journal.get(), record.get());
+        } catch (IOException e) {
+            logger.error(HTLog.format(repoId, "Unable to append to journal; writing snapshot instead"), e);
+            response.complete(WriteTask.save(store, repoId, new SerializableModel(updated)));
+            return;
+        }
+        logger.info(HTLog.format(repoId, "Appended " + record.get().changes.getIssues().size()
+                + " changed issue(s) to journal"));
+        store.setPersistedSignature(repoId, updated.getUpdateSignature());
+
+        // Queued before responding, so that compaction happens before any task the caller queues next
+        store.compactIfNeeded(repoId);
+        response.complete(false);
+    }
+
+    private Optional<JournalRecord> getRecord() {
+        UpdateSignature base = previous.getUpdateSignature();
+        Optional<UpdateSignature> persisted = store.getPersistedSignature(repoId);
+        boolean isOnDisk = persisted.isPresent() && JournalRecord.isSameState(persisted.get(), base);
+        if (base.isEmpty() || updated.getUpdateSignature().isEmpty() || !isOnDisk) {
+            return Optional.empty();
+        }
+        return JournalRecord.between(previous, updated);
+    }
+}
@@ -0,0 +1,248 @@
+package backend.binary;
+
+import backend.UpdateSignature;
+import backend.resource.Model;
+import backend.resource.TurboIssue;
+import backend.resource.TurboLabel;
+import backend.resource.TurboMilestone;
+import backend.resource.TurboUser;
+import util.exceptions.BinaryLoadException;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+import static backend.binary.BinaryModelWriter.HEADERLESS_VERSION;
+import static backend.binary.BinaryModelWriter.MAGIC;
+import static backend.binary.BinaryModelWriter.NONE;
+import static backend.binary.BinaryModelWriter.NO_TIME;
+import static backend.binary.BinaryModelWriter.UNCOMPRESSED_VERSION;
+import static backend.binary.BinaryModelWriter.VERSION;
+
+/**
+ * Decodes the binary snapshot format written by {@link BinaryModelWriter} into a Model.
+ */
+public class BinaryModelReader {
+
+    private ByteBuffer in;
+
+    private String repoId;
+    private String[] logins;
+    private String[] labelNames;
+
+    private final int version;
+
+    // The codec the body was compressed with, or null if the body follows the header as it is
+    private final Codec codec;
+
+    public BinaryModelReader(ByteBuffer in) {
+        this(in, VERSION, null);
+    }
+
+    private BinaryModelReader(ByteBuffer in, int version, Codec codec) {
+        this.in = in;
+        this.version = version;
+        this.codec = codec;
+    }
+
+    /**
+     * Reads a complete snapshot, verifying its checksum.
+     * @throws BinaryLoadException if the data is not a snapshot of a supported version, is truncated,
+     *         or does not match its checksum
+     */
+    public static Model readSnapshot(ByteBuffer in) throws BinaryLoadException {
+        int version;
+        Codec codec = null;
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new BinaryLoadException();
+            }
+            version = in.getInt();
+            if (version == VERSION || version == UNCOMPRESSED_VERSION) {
+                int expectedChecksum = in.getInt();
+                CRC32 checksum = new CRC32();
+                checksum.update(in.duplicate());
+                if ((int) checksum.getValue() != expectedChecksum) {
+                    throw new BinaryLoadException();
+                }
+            } else if (version != HEADERLESS_VERSION) {
+                throw new BinaryLoadException();
+            }
+            if (version == VERSION) {
+                codec = Codec.fromId(in.get());
+            }
+        } catch (BufferUnderflowException e) {
+            throw new BinaryLoadException();
+        }
+        return new BinaryModelReader(in, version, codec).read();
+    }
+
+    /**
+     * Reads a model written by {@link BinaryModelWriter#write}.
+     * @throws BinaryLoadException if the data is truncated or otherwise invalid
+     */
+    public Model read() throws BinaryLoadException {
+        try {
+            repoId = readString();
+            if (version != HEADERLESS_VERSION) {
+                in.getInt(); // Issue count, which is only needed when reading the header alone
+            }
+            UpdateSignature signature = readSignature();
+            if (codec != null) {
+                in = codec.decode(in);
+            }
+
+            logins = readTable();
+            labelNames = readTable();
+
+            List<TurboUser> users = new ArrayList<>();
+            for (int i = in.getInt(); i > 0; i--) {
+                users.add(readUser());
+            }
+            List<TurboLabel> labels = new ArrayList<>();
+            for (int i = in.getInt(); i > 0; i--) {
+                labels.add(readLabel());
+            }
+            List<TurboMilestone> milestones = new ArrayList<>();
+            for (int i = in.getInt(); i > 0; i--) {
+                milestones.add(readMilestone());
+            }
+            List<TurboIssue> issues = new ArrayList<>();
+            for (int i = in.getInt(); i > 0; i--) {
+                issues.add(readIssue());
+            }
+
+            return new Model(repoId, issues, labels, milestones, users, signature);
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException
+                | NegativeArraySizeException | NullPointerException e) {
+            throw new BinaryLoadException();
+        }
+    }
+
+    UpdateSignature readSignature() {
+        if (!readBoolean()) {
+            return UpdateSignature.EMPTY;
+        }
+        String issuesETag = readString();
+        String labelsETag = readString();
+        String milestonesETag = readString();
+        String collaboratorsETag = readString();
+        Date lastCheckTime = new Date(in.getLong());
+        return new UpdateSignature(issuesETag, labelsETag, milestonesETag, collaboratorsETag, lastCheckTime);
+    }
+
+    private String[] readTable() {
+        String[] table = new String[in.getInt()];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = readString();
+        }
+        return table;
+    }
+
+    private TurboUser readUser() {
+        String login = lookup(logins, in.getInt());
+        String realName = readString();
+        String avatarURL = readString();
+        return new TurboUser(repoId, login, realName, avatarURL);
+    }
+
+    private TurboLabel readLabel() {
+        String name = lookup(labelNames, in.getInt());
+        String colour = readString();
+        return new TurboLabel(repoId, colour, name);
+    }
+
+    private TurboMilestone readMilestone() {
+        TurboMilestone milestone = new TurboMilestone(repoId, in.getInt(), readString());
+        milestone.setDueDate(readDate());
+        milestone.setDescription(readString());
+        milestone.setOpen(readBoolean());
+        milestone.setOpenIssues(in.getInt());
+        milestone.setClosedIssues(in.getInt());
+        return milestone;
+    }
+
+    private TurboIssue readIssue() {
+        int id = in.getInt();
+        String title = readString();
+        String creator = lookup(logins, in.getInt());
+        LocalDateTime createdAt = readTime();
+        boolean isPullRequest = readBoolean();
+
+        TurboIssue.Builder issue = new TurboIssue.Builder(repoId, id)
+            .setTitle(title)
+            .setCreator(creator)
+            .setCreatedAt(createdAt)
+            .setPullRequest(isPullRequest);
+        readDescription(issue);
+        issue.setUpdatedAt(readTime())
+            .setCommentCount(in.getInt())
+            .setOpen(readBoolean());
+
+        int assignee = in.getInt();
+        if (assignee != NONE) {
+            issue.setAssignee(lookup(logins, assignee));
+        }
+        List<String> labels = new ArrayList<>();
+        for (int i = in.getInt(); i > 0; i--) {
+            labels.add(lookup(labelNames, in.getInt()));
+        }
+        issue.setLabels(labels);
+        if (readBoolean()) {
+            issue.setMilestone(in.getInt());
+        }
+        return issue.build();
+    }
+
+    /**
+     * Descriptions make up most of a snapshot, but are only needed once an issue is viewed or
+     * filtered on, so they are handed over undecoded. This saves decoding them, not memory: their
+     * bytes are copied onto the heap here, so nothing refers to the snapshot once it has been read.
+     */
+    private void readDescription(TurboIssue.Builder issue) {
+        int length = in.getInt();
+        if (length == NONE) {
+            issue.setDescription(null);
+        } else {
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            issue.setEncodedDescription(bytes);
+        }
+    }
+
+    private static String lookup(String[] table, int index) {
+        return index == NONE ? null : table[index];
+    }
+
+    private boolean readBoolean() {
+        return in.get() != 0;
+    }
+
+    private LocalDateTime readTime() {
+        long seconds = in.getLong();
+        return seconds == NO_TIME ? null : LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+    }
+
+    private Optional<LocalDate> readDate() {
+        long days = in.getLong();
+        return days == NO_TIME ? Optional.empty() : Optional.of(LocalDate.ofEpochDay(days));
+    }
+
+    String readString() {
+        int length = in.getInt();
+        if (length == NONE) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
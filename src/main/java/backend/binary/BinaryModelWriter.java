@@ -0,0 +1,255 @@
+package backend.binary;
+
+import backend.UpdateSignature;
+import backend.resource.serialization.SerializableIssue;
+import backend.resource.serialization.SerializableLabel;
+import backend.resource.serialization.SerializableMilestone;
+import backend.resource.serialization.SerializableModel;
+import backend.resource.serialization.SerializableUser;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Encodes a SerializableModel into the binary snapshot format read by {@link BinaryModelReader}.
+ *
+ * Layout (all integers big-endian):
+ *
+ *   magic, version, checksum, codec,
+ *   repoId, issue count, update signature,
+ *   login table, label name table,
+ *   users, labels, milestones, issues
+ *
+ * Everything up to the update signature forms the header, which is all that needs to be read
+ * to discover stored repositories (see {@link SnapshotHeader}). The rest of the snapshot is
+ * compressed with the given {@link Codec}. The checksum is the CRC32 of everything following it,
+ * as stored. Journal records embed models uncompressed, without the magic, version, checksum
+ * and codec.
+ *
+ * Strings are length-prefixed UTF-8 (a length of -1 denotes null). Logins and label names
+ * are interned into tables once and referred to by index everywhere else. Timestamps are
+ * stored as epoch seconds and dates as epoch days; sub-second precision is not kept.
+ */
+public class BinaryModelWriter {
+
+    public static final int MAGIC = 0x48545342; // "HTSB"
+    public static final int VERSION = 3;
+
+    // Version 2 snapshots have no codec, and are never compressed
+    public static final int UNCOMPRESSED_VERSION = 2;
+
+    // Version 1 snapshots have no checksum or issue count either
+    public static final int HEADERLESS_VERSION = 1;
+
+    static final int CHECKSUM_OFFSET = 8;
+
+    public static final int NONE = -1;
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    private DataOutputStream out;
+
+    private final Map<String, Integer> logins = new LinkedHashMap<>();
+    private final Map<String, Integer> labelNames = new LinkedHashMap<>();
+
+    public BinaryModelWriter(DataOutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes a complete snapshot of the model to the start of the channel.
+     */
+    public static void writeSnapshot(FileChannel channel, SerializableModel model, Codec codec) throws IOException {
+        OutputStream file = Channels.newOutputStream(channel);
+        DataOutputStream header = new DataOutputStream(file);
+        header.writeInt(MAGIC);
+        header.writeInt(VERSION);
+        header.writeInt(0); // Filled in once the rest has been written
+
+        CRC32 checksum = new CRC32();
+        OutputStream checked = new CheckedOutputStream(new FilterOutputStream(file) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                // The channel is left open for the checksum to be filled in
+                flush();
+            }
+        }, checksum);
+
+        BinaryModelWriter writer = new BinaryModelWriter(new DataOutputStream(new BufferedOutputStream(checked)));
+        writer.out.writeByte(codec.id);
+        writer.writeHeader(model);
+        writer.out.flush();
+        try (DataOutputStream body = new DataOutputStream(new BufferedOutputStream(codec.encode(checked)))) {
+            writer.out = body;
+            writer.writeBody(model);
+        }
+
+        ByteBuffer value = ByteBuffer.allocate(Integer.BYTES);
+        value.putInt((int) checksum.getValue());
+        value.flip();
+        channel.write(value, CHECKSUM_OFFSET);
+    }
+
+    /**
+     * Writes the model alone, without the magic, version and checksum of a snapshot.
+     */
+    public void write(SerializableModel model) throws IOException {
+        writeHeader(model);
+        writeBody(model);
+    }
+
+    private void writeHeader(SerializableModel model) throws IOException {
+        writeString(model.repoId);
+        out.writeInt(model.issues.size());
+        writeSignature(model.updateSignature);
+    }
+
+    private void writeBody(SerializableModel model) throws IOException {
+        internStrings(model);
+
+        writeTable(logins);
+        writeTable(labelNames);
+
+        out.writeInt(model.users.size());
+        for (SerializableUser user : model.users) {
+            writeUser(user);
+        }
+        out.writeInt(model.labels.size());
+        for (SerializableLabel label : model.labels) {
+            writeLabel(label);
+        }
+        out.writeInt(model.milestones.size());
+        for (SerializableMilestone milestone : model.milestones) {
+            writeMilestone(milestone);
+        }
+        out.writeInt(model.issues.size());
+        for (SerializableIssue issue : model.issues) {
+            writeIssue(issue);
+        }
+        out.flush();
+    }
+
+    private void internStrings(SerializableModel model) {
+        model.users.forEach(user -> intern(logins, user.getLoginName()));
+        model.labels.forEach(label -> intern(labelNames, label.getActualName()));
+        model.issues.forEach(issue -> {
+            intern(logins, issue.getCreator());
+            issue.getAssignee().ifPresent(assignee -> intern(logins, assignee));
+            issue.getLabels().forEach(label -> intern(labelNames, label));
+        });
+    }
+
+    private static void intern(Map<String, Integer> table, String value) {
+        if (value != null && !table.containsKey(value)) {
+            table.put(value, table.size());
+        }
+    }
+
+    private static int indexOf(Map<String, Integer> table, String value) {
+        return value == null ? NONE : table.get(value);
+    }
+
+    private void writeTable(Map<String, Integer> table) throws IOException {
+        out.writeInt(table.size());
+        for (String value : table.keySet()) {
+            writeString(value);
+        }
+    }
+
+    void writeSignature(UpdateSignature signature) throws IOException {
+        boolean isPresent = signature != null && !signature.isEmpty();
+        out.writeBoolean(isPresent);
+        if (isPresent) {
+            writeString(signature.issuesETag);
+            writeString(signature.labelsETag);
+            writeString(signature.milestonesETag);
+            writeString(signature.collaboratorsETag);
+            out.writeLong(signature.lastCheckTime.getTime());
+        }
+    }
+
+    private void writeUser(SerializableUser user) throws IOException {
+        out.writeInt(indexOf(logins, user.getLoginName()));
+        writeString(user.getRealName());
+        writeString(user.getAvatarURL());
+    }
+
+    private void writeLabel(SerializableLabel label) throws IOException {
+        out.writeInt(indexOf(labelNames, label.getActualName()));
+        writeString(label.getColour());
+    }
+
+    private void writeMilestone(SerializableMilestone milestone) throws IOException {
+        out.writeInt(milestone.getId());
+        writeString(milestone.getTitle());
+        writeDate(milestone.getDueDate());
+        writeString(milestone.getDescription());
+        out.writeBoolean(milestone.isOpen());
+        out.writeInt(milestone.getOpenIssues());
+        out.writeInt(milestone.getClosedIssues());
+    }
+
+    private void writeIssue(SerializableIssue issue) throws IOException {
+        out.writeInt(issue.getId());
+        writeString(issue.getTitle());
+        out.writeInt(indexOf(logins, issue.getCreator()));
+        writeTime(issue.getCreatedAt());
+        out.writeBoolean(issue.isPullRequest());
+        writeString(issue.getDescription());
+        writeTime(issue.getUpdatedAt());
+        out.writeInt(issue.getCommentCount());
+        out.writeBoolean(issue.isOpen());
+        out.writeInt(indexOf(logins, orNull(issue.getAssignee())));
+        out.writeInt(issue.getLabels().size());
+        for (String label : issue.getLabels()) {
+            out.writeInt(indexOf(labelNames, label));
+        }
+        Integer milestone = orNull(issue.getMilestone());
+        out.writeBoolean(milestone != null);
+        if (milestone != null) {
+            out.writeInt(milestone);
+        }
+    }
+
+    private static <T> T orNull(Optional<T> value) {
+        return value == null ? null : value.orElse(null);
+    }
+
+    private void writeTime(LocalDateTime time) throws IOException {
+        out.writeLong(time == null ? NO_TIME : time.toEpochSecond(ZoneOffset.UTC));
+    }
+
+    private void writeDate(Optional<LocalDate> date) throws IOException {
+        LocalDate value = orNull(date);
+        out.writeLong(value == null ? NO_TIME : value.toEpochDay());
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NONE);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+}
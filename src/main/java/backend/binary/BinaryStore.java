@@ -0,0 +1,227 @@
+package backend.binary;
+
+import backend.UpdateSignature;
+import backend.interfaces.RepoStore;
+import backend.json.JSONStore;
+import backend.resource.Model;
+import backend.resource.serialization.SerializableModel;
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+import util.exceptions.BinaryLoadException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static com.google.common.io.Files.getFileExtension;
+
+/**
+ * A RepoStore which keeps each repository as a compact binary snapshot (see {@link BinaryModelWriter}).
+ *
+ * Incremental changes are appended to a journal next to the snapshot instead of rewriting it
+ * (see {@link Journal}). Loading replays the journal over the snapshot, and once the journal grows
+ * past a fraction of the snapshot's size, it is folded into a new snapshot in the background.
+ * Snapshots are written to a temporary file which is then renamed over the old one, so a write cut
+ * short leaves the previous snapshot and journal in place; anything else is caught by checksums.
+ *
+ * Snapshots are compressed with the store's {@link Codec}. Snapshots found compressed with another
+ * codec, or not compressed at all because they predate codecs, are rewritten in the background.
+ *
+ * Stored repositories are discovered by reading just the header of each snapshot. Repositories
+ * which only exist in the legacy JSON store are migrated to the binary format in the background
+ * once discovered (or on first load, if sooner), after which the JSON file is removed.
+ */
+public class BinaryStore extends RepoStore {
+
+    private static final Logger logger = HTLog.get(BinaryStore.class);
+
+    public static final String BINARY_EXTENSION = "bin";
+    public static final String JOURNAL_EXTENSION = "journal";
+
+    // Journals smaller than this are never compacted, however small the snapshot
+    private static final long MIN_COMPACTION_SIZE = 64 * 1024;
+
+    private final JSONStore legacyStore = new JSONStore();
+    private final Codec codec;
+
+    // The update signature of the state last read from or written to disk, per repository.
+    // Only accessed from within store tasks, which run one at a time for any one repository.
+    private final Map<String, UpdateSignature> persistedSignatures = new ConcurrentHashMap<>();
+
+    // Migrations from the JSON store which are still in progress
+    private final Map<String, CompletableFuture<Model>> migrations = new ConcurrentHashMap<>();
+
+    public BinaryStore() {
+        this(Codec.DEFAULT);
+    }
+
+    public BinaryStore(Codec codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    public CompletableFuture<Model> loadRepository(String repoId) {
+        Optional<CompletableFuture<Model>> migration = getMigration(repoId);
+        if (migration.isPresent()) {
+            return migration.get();
+        }
+        CompletableFuture<Model> response = new CompletableFuture<>();
+        addTask(new ReadTask(this, repoId, response));
+        return response;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> saveRepository(String repoId, SerializableModel model) {
+        CompletableFuture<Boolean> response = new CompletableFuture<>();
+        addTask(new WriteTask(this, repoId, model, response));
+        return response;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> saveRepositoryChanges(String repoId, Model previous, Model updated) {
+        CompletableFuture<Boolean> response = new CompletableFuture<>();
+        addTask(new AppendTask(this, repoId, previous, updated, response));
+        return response;
+    }
+
+    /**
+     * Returns the repository's migration from the legacy JSON store if it is in progress, or starts
+     * it if the repository is only stored there. Migrations only stop being tracked once the JSON
+     * file is gone, so this is never mistaken for a repository which still needs migrating.
+     */
+    private synchronized Optional<CompletableFuture<Model>> getMigration(String repoId) {
+        CompletableFuture<Model> inProgress = migrations.get(repoId);
+        if (inProgress != null) {
+            return Optional.of(inProgress);
+        }
+        if (exists(repoId, BINARY_EXTENSION) || !exists(repoId, JSON_EXTENSION)) {
+            return Optional.empty();
+        }
+        CompletableFuture<Model> migration = migrateRepository(repoId);
+        migrations.put(repoId, migration);
+        migration.whenComplete((model, e) -> migrations.remove(repoId, migration));
+        return Optional.of(migration);
+    }
+
+    /**
+     * Loads a repository from the legacy JSON store and rewrites it as a binary snapshot.
+     * The JSON file is only removed once the snapshot has been written successfully.
+     */
+    private CompletableFuture<Model> migrateRepository(String repoId) {
+        logger.info(HTLog.format(repoId, "Migrating JSON store to binary store"));
+        return legacyStore.loadRepository(repoId)
+                .thenCompose(model -> saveRepository(repoId, new SerializableModel(model))
+                        .thenApply(corrupted -> {
+                            if (!corrupted && !legacyStore.deleteRepository(repoId)) {
+                                logger.warn(HTLog.format(repoId, "Unable to remove migrated JSON file"));
+                            }
+                            return model;
+                        }));
+    }
+
+    @Override
+    public List<String> getStoredRepos() {
+        ensureDirectoryExists();
+        List<String> storedRepos;
+        try {
+            storedRepos = Files.list(Paths.get(RepoStore.directory))
+                    .filter(Files::isRegularFile)
+                    .filter(p -> getFileExtension(String.valueOf(p.getFileName()))
+                            .equalsIgnoreCase(BINARY_EXTENSION))
+                    .map(this::getRepositoryIdFromBinary)
+                    .filter(Optional::isPresent)
+                    .map(Optional::get)
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            logger.error("Unable to open stored repository directory. ");
+            storedRepos = new ArrayList<>();
+        }
+
+        // Parsing a JSON file in full is the only way to find out which repository it holds,
+        // so it is only done once before migrating it
+        for (String repoId : legacyStore.getStoredRepos()) {
+            if (!storedRepos.contains(repoId)) {
+                storedRepos.add(repoId);
+                getMigration(repoId).ifPresent(migration -> migration.exceptionally(e -> {
+                    logger.error(HTLog.format(repoId, "Unable to migrate JSON store to binary store"));
+                    return null;
+                }));
+            }
+        }
+        return storedRepos;
+    }
+
+    /**
+     * Reads only the snapshot's header, instead of decoding the whole snapshot.
+     * Snapshots in an older format, or compressed with another codec, are rewritten in the background.
+     */
+    private Optional<String> getRepositoryIdFromBinary(Path p) {
+        SnapshotHeader header;
+        try {
+            header = SnapshotHeader.read(p);
+        } catch (IOException | BinaryLoadException e) {
+            logger.error("Unable to load repository from " + p.getFileName());
+            return Optional.empty();
+        }
+        if (!String.valueOf(p.getFileName()).equalsIgnoreCase(escapeRepoName(header.repoId, BINARY_EXTENSION))) {
+            logger.error("Unable to load repository from " + p.getFileName());
+            return Optional.empty();
+        }
+
+        if (header.isCurrent() && header.codec == codec) {
+            logger.info("Adding " + p.getFileName() + " to stored repository list ("
+                    + header.issueCount + " issues). ");
+        } else {
+            logger.info("Adding " + p.getFileName() + " to stored repository list; rebuilding it. ");
+            addTask(new RebuildTask(this, header.repoId, header.hasCurrentJournal()));
+        }
+        return Optional.of(header.repoId);
+    }
+
+    Codec getCodec() {
+        return codec;
+    }
+
+    static Optional<Path> getBinaryPath(String repoId) {
+        return getRepoPath(repoId, BINARY_EXTENSION).map(Paths::get);
+    }
+
+    static Optional<Path> getJournalPath(String repoId) {
+        return getRepoPath(repoId, JOURNAL_EXTENSION).map(Paths::get);
+    }
+
+    Optional<UpdateSignature> getPersistedSignature(String repoId) {
+        return Optional.ofNullable(persistedSignatures.get(repoId));
+    }
+
+    void setPersistedSignature(String repoId, UpdateSignature signature) {
+        persistedSignatures.put(repoId, signature);
+    }
+
+    void clearPersistedSignature(String repoId) {
+        persistedSignatures.remove(repoId);
+    }
+
+    /**
+     * Queues a compaction of the repository's journal if it has grown past half the size of its snapshot.
+     */
+    void compactIfNeeded(String repoId) {
+        Optional<Path> snapshot = getBinaryPath(repoId);
+        Optional<Path> journal = getJournalPath(repoId);
+        if (!snapshot.isPresent() || !journal.isPresent()) {
+            return;
+        }
+        long snapshotSize = snapshot.get().toFile().length();
+        if (journal.get().toFile().length() > Math.max(MIN_COMPACTION_SIZE, snapshotSize / 2)) {
+            addTask(new CompactTask(this, repoId));
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package backend.binary;
+
+import util.exceptions.BinaryLoadException;
+
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A fast LZ77 compression scheme along the lines of LZ4, which trades some compression for speed:
+ * no entropy coding, and a single hash probe per position when looking for matches.
+ *
+ * Data is compressed in independent blocks, each stored as its uncompressed length, its stored
+ * length and then its contents. A block whose lengths are equal is stored as is, which is done
+ * whenever compressing it would not make it smaller.
+ *
+ * Within a block, the data is a series of sequences, each made up of:
+ *
+ *   a token, whose high 4 bits are the number of literals and low 4 bits the match length less 4
+ *     (15 in either meaning that the rest of the value follows, in bytes of up to 255),
+ *   the literals, copied as they are,
+ *   the offset of the match, backwards from the current position, as 2 little-endian bytes
+ *
+ * The last sequence of a block consists of literals only.
+ */
+final class BlockCompression {
+
+    static final int BLOCK_SIZE = 256 * 1024;
+
+    private static final int MIN_MATCH = 4;
+    private static final int MAX_OFFSET = 0xffff;
+
+    // Matches do not extend into the last bytes of a block, and are not looked for close to the
+    // end, so that the last sequence always has a few literals
+    private static final int LAST_LITERALS = 5;
+    private static final int MATCH_SEARCH_LIMIT = 12;
+
+    private static final int HASH_BITS = 16;
+
+    // The further we get without finding a match, the further ahead we skip
+    private static final int SKIP_STRENGTH = 6;
+
+    private static final int RUN_MASK = 15;
+
+    private BlockCompression() {
+    }
+
+    /**
+     * Buffers what is written to it, and writes it out compressed one block at a time.
+     */
+    static class BlockOutputStream extends FilterOutputStream {
+
+        private final DataOutputStream blocks;
+        private final byte[] buffer = new byte[BLOCK_SIZE];
+        private final byte[] compressed = new byte[maxCompressedLength(BLOCK_SIZE)];
+        private final int[] hashTable = new int[1 << HASH_BITS];
+        private int count = 0;
+
+        BlockOutputStream(OutputStream out) {
+            super(out);
+            blocks = new DataOutputStream(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                writeBlock();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length) {
+                    writeBlock();
+                }
+                int length = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, length);
+                count += length;
+                off += length;
+                len -= length;
+            }
+        }
+
+        /**
+         * Only flushes what has already been compressed; blocks are not cut short before they are full.
+         */
+        @Override
+        public void flush() throws IOException {
+            blocks.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (count > 0) {
+                writeBlock();
+            }
+            super.close();
+        }
+
+        private void writeBlock() throws IOException {
+            int length = compress(buffer, count, compressed, hashTable);
+            blocks.writeInt(count);
+            if (length < count) {
+                blocks.writeInt(length);
+                blocks.write(compressed, 0, length);
+            } else {
+                blocks.writeInt(count);
+                blocks.write(buffer, 0, count);
+            }
+            count = 0;
+        }
+    }
+
+    static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Compresses the first {@code length} bytes of the source into the destination, which must have
+     * room for {@link #maxCompressedLength} bytes.
+     * @return the compressed length
+     */
+    static int compress(byte[] src, int length, byte[] dst, int[] hashTable) {
+        Arrays.fill(hashTable, -1);
+        int anchor = 0;
+        int out = 0;
+        int matchLimit = length - LAST_LITERALS;
+        int searchLimit = length - MATCH_SEARCH_LIMIT;
+
+        int i = 0;
+        while (i < searchLimit) {
+            int sequence = readInt(src, i);
+            int hash = (sequence * -1640531535) >>> (Integer.SIZE - HASH_BITS);
+            int candidate = hashTable[hash];
+            hashTable[hash] = i;
+
+            if (candidate < 0 || i - candidate > MAX_OFFSET || readInt(src, candidate) != sequence) {
+                i += 1 + ((i - anchor) >>> SKIP_STRENGTH);
+                continue;
+            }
+
+            int matchLength = MIN_MATCH;
+            while (i + matchLength < matchLimit && src[candidate + matchLength] == src[i + matchLength]) {
+                matchLength++;
+            }
+
+            int token = out++;
+            out = writeLiterals(src, anchor, i - anchor, dst, token, out);
+            int offset = i - candidate;
+            dst[out++] = (byte) offset;
+            dst[out++] = (byte) (offset >>> 8);
+            int extraLength = matchLength - MIN_MATCH;
+            dst[token] |= (byte) Math.min(extraLength, RUN_MASK);
+            if (extraLength >= RUN_MASK) {
+                out = writeLength(dst, out, extraLength - RUN_MASK);
+            }
+
+            i += matchLength;
+            anchor = i;
+        }
+
+        int token = out++;
+        return writeLiterals(src, anchor, length - anchor, dst, token, out);
+    }
+
+    private static int writeLiterals(byte[] src, int start, int count, byte[] dst, int token, int out) {
+        dst[token] = (byte) (Math.min(count, RUN_MASK) << 4);
+        if (count >= RUN_MASK) {
+            out = writeLength(dst, out, count - RUN_MASK);
+        }
+        System.arraycopy(src, start, dst, out, count);
+        return out + count;
+    }
+
+    private static int writeLength(byte[] dst, int out, int length) {
+        for (; length >= 0xff; length -= 0xff) {
+            dst[out++] = (byte) 0xff;
+        }
+        dst[out++] = (byte) length;
+        return out;
+    }
+
+    private static int readInt(byte[] src, int i) {
+        return (src[i] & 0xff) | (src[i + 1] & 0xff) << 8 | (src[i + 2] & 0xff) << 16 | (src[i + 3] & 0xff) << 24;
+    }
+
+    /**
+     * Decompresses blocks until the end of the input.
+     * @throws BinaryLoadException if the blocks are truncated or otherwise invalid
+     */
+    static ByteBuffer decode(ByteBuffer in) throws BinaryLoadException {
+        try {
+            // The blocks are sized up first, so that they can be decompressed straight into one array
+            ByteBuffer blocks = in.slice();
+            long totalLength = 0;
+            while (blocks.hasRemaining()) {
+                totalLength += blocks.getInt();
+                int storedLength = blocks.getInt();
+                blocks.position(blocks.position() + storedLength);
+            }
+            if (totalLength > Integer.MAX_VALUE) {
+                throw new BinaryLoadException();
+            }
+
+            byte[] result = new byte[(int) totalLength];
+            byte[] compressed = new byte[maxCompressedLength(BLOCK_SIZE)];
+            int out = 0;
+            while (in.hasRemaining()) {
+                int length = in.getInt();
+                int storedLength = in.getInt();
+                if (length < 0 || storedLength > length) {
+                    throw new BinaryLoadException();
+                }
+                if (storedLength == length) {
+                    in.get(result, out, length);
+                } else {
+                    if (storedLength > compressed.length) {
+                        compressed = new byte[storedLength];
+                    }
+                    in.get(compressed, 0, storedLength);
+                    decompress(compressed, storedLength, result, out, length);
+                }
+                out += length;
+            }
+            return ByteBuffer.wrap(result);
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException
+                | NegativeArraySizeException e) {
+            throw new BinaryLoadException();
+        }
+    }
+
+    private static void decompress(byte[] src, int length, byte[] dst, int start, int decompressedLength)
+            throws BinaryLoadException {
+        int end = start + decompressedLength;
+        int in = 0;
+        int out = start;
+        while (true) {
+            int token = src[in++] & 0xff;
+
+            int literals = token >>> 4;
+            if (literals == RUN_MASK) {
+                int value;
+                do {
+                    value = src[in++] & 0xff;
+                    literals += value;
+                } while (value == 0xff);
+            }
+            if (out + literals > end || in + literals > length) {
+                throw new BinaryLoadException();
+            }
+            System.arraycopy(src, in, dst, out, literals);
+            in += literals;
+            out += literals;
+            if (in == length) {
+                break;
+            }
+
+            int offset = (src[in++] & 0xff) | (src[in++] & 0xff) << 8;
+            int matchLength = token & RUN_MASK;
+            if (matchLength == RUN_MASK) {
+                int value;
+                do {
+                    value = src[in++] & 0xff;
+                    matchLength += value;
+                } while (value == 0xff);
+            }
+            matchLength += MIN_MATCH;
+
+            int match = out - offset;
+            if (offset == 0 || match < start || out + matchLength > end) {
+                throw new BinaryLoadException();
+            }
+            if (offset >= matchLength) {
+                System.arraycopy(dst, match, dst, out, matchLength);
+            } else {
+                // The match overlaps what it produces, e.g. a run of one repeated byte
+                for (int i = 0; i < matchLength; i++) {
+                    dst[out + i] = dst[match + i];
+                }
+            }
+            out += matchLength;
+        }
+        if (out != end) {
+            throw new BinaryLoadException();
+        }
+    }
+}
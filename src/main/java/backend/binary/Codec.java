@@ -0,0 +1,151 @@
+package backend.binary;
+
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+import util.exceptions.BinaryLoadException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The compression applied to the bulk of a snapshot, i.e. everything after its header
+ * (see {@link BinaryModelWriter}).
+ */
+public enum Codec {
+
+    /**
+     * Leaves the snapshot uncompressed, so that it can be decoded straight from a mapping of the file
+     * without first being decompressed onto the heap.
+     */
+    NONE(0) {
+        @Override
+        OutputStream encode(OutputStream out) {
+            return out;
+        }
+
+        @Override
+        ByteBuffer decode(ByteBuffer in) {
+            return in;
+        }
+    },
+
+    /**
+     * Gives the smallest snapshots, at the cost of slower saves and loads.
+     */
+    GZIP(1) {
+        @Override
+        OutputStream encode(OutputStream out) throws IOException {
+            return new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+
+        @Override
+        ByteBuffer decode(ByteBuffer in) throws BinaryLoadException {
+            return inflate(in);
+        }
+    },
+
+    /**
+     * Compresses in independent blocks with a fast LZ77 scheme (see {@link BlockCompression}),
+     * which is decoded several times faster than GZIP.
+     */
+    BLOCK(2) {
+        @Override
+        OutputStream encode(OutputStream out) {
+            return new BlockCompression.BlockOutputStream(out);
+        }
+
+        @Override
+        ByteBuffer decode(ByteBuffer in) throws BinaryLoadException {
+            return BlockCompression.decode(in);
+        }
+    };
+
+    private static final Logger logger = HTLog.get(Codec.class);
+
+    // Trades decoding straight from the mapping for smaller snapshots; the decompressed body only
+    // lives on the heap while a snapshot is read
+    public static final Codec DEFAULT = BLOCK;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int GZIP_TRAILER_SIZE = 8;
+
+    public final int id;
+
+    Codec(int id) {
+        this.id = id;
+    }
+
+    /**
+     * Wraps the output in a stream which compresses whatever is written to it. Closing the returned
+     * stream finishes the compressed data and closes the output.
+     */
+    abstract OutputStream encode(OutputStream out) throws IOException;
+
+    /**
+     * Decompresses the remainder of the input.
+     * @throws BinaryLoadException if the input is not valid compressed data
+     */
+    abstract ByteBuffer decode(ByteBuffer in) throws BinaryLoadException;
+
+    static Codec fromId(int id) throws BinaryLoadException {
+        for (Codec codec : values()) {
+            if (codec.id == id) {
+                return codec;
+            }
+        }
+        throw new BinaryLoadException();
+    }
+
+    /**
+     * Returns the codec with the given name (ignoring case), or the default codec if there is none.
+     */
+    public static Codec fromName(String name) {
+        for (Codec codec : values()) {
+            if (codec.name().equalsIgnoreCase(name)) {
+                return codec;
+            }
+        }
+        if (name != null && !name.isEmpty()) {
+            logger.warn("Unknown store codec " + name + "; using " + DEFAULT.name());
+        }
+        return DEFAULT;
+    }
+
+    /**
+     * Decompresses a GZIP member straight into an array of the right size, which is known from its trailer.
+     */
+    private static ByteBuffer inflate(ByteBuffer in) throws BinaryLoadException {
+        if (in.remaining() < GZIP_TRAILER_SIZE) {
+            throw new BinaryLoadException();
+        }
+        byte[] compressed = new byte[in.remaining()];
+        in.get(compressed);
+
+        // The uncompressed size is the last field of the trailer, in little-endian order
+        int size = ByteBuffer.wrap(compressed, compressed.length - Integer.BYTES, Integer.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN).getInt();
+        if (size < 0) {
+            throw new BinaryLoadException();
+        }
+
+        byte[] uncompressed = new byte[size];
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed), BUFFER_SIZE)) {
+            for (int read = 0; read < size; ) {
+                int count = gzip.read(uncompressed, read, size - read);
+                if (count < 0) {
+                    throw new BinaryLoadException();
+                }
+                read += count;
+            }
+        } catch (IOException e) {
+            throw new BinaryLoadException();
+        }
+        return ByteBuffer.wrap(uncompressed);
+    }
+}
@@ -0,0 +1,34 @@
+package backend.binary;
+
+import backend.interfaces.StoreTask;
+import backend.resource.serialization.SerializableModel;
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+import util.exceptions.RepoStoreException;
+
+/**
+ * Folds a repository's journal into a new snapshot.
+ */
+class CompactTask extends StoreTask {
+
+    private static final Logger logger = HTLog.get(CompactTask.class);
+
+    private final BinaryStore store;
+
+    public CompactTask(BinaryStore store, String repoId) {
+        super(repoId);
+        this.store = store;
+    }
+
+    @Override
+    public void run() {
+        try {
+            SerializableModel model = new SerializableModel(ReadTask.load(repoId));
+            if (!WriteTask.save(store, repoId, model)) {
+                logger.info(HTLog.format(repoId, "Compacted journal into snapshot"));
+            }
+        } catch (RepoStoreException e) {
+            logger.error(HTLog.format(repoId, "Unable to compact journal"));
+        }
+    }
+}
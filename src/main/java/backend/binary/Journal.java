@@ -0,0 +1,103 @@
+package backend.binary;
+
+import backend.resource.Model;
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+import util.exceptions.BinaryLoadException;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of JournalRecords kept next to a repository's snapshot.
+ *
+ * Each record is framed as its length, the CRC32 of its contents, then the contents, so that
+ * a record torn by a crash mid-append can be detected and discarded.
+ */
+final class Journal {
+
+    private static final Logger logger = HTLog.get(Journal.class);
+
+    private static final int FRAME_HEADER_SIZE = 8;
+
+    private Journal() {}
+
+    public static void append(Path path, JournalRecord record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        record.write(new DataOutputStream(bytes));
+
+        CRC32 checksum = new CRC32();
+        checksum.update(bytes.toByteArray(), 0, bytes.size());
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND)))) {
+            out.writeInt(bytes.size());
+            out.writeInt((int) checksum.getValue());
+            bytes.writeTo(out);
+        }
+    }
+
+    /**
+     * Replays the journal at the given path over a snapshot. Records which do not follow on
+     * from the state built up so far are left over from before the last compaction, and are skipped.
+     *
+     * Replay stops at the first torn or corrupted record, and the journal is truncated there
+     * so that records appended later remain reachable.
+     */
+    public static Model replay(Path path, Model snapshot) throws IOException {
+        Model model = snapshot;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Keep reading until the whole journal is in memory
+            }
+            buffer.flip();
+
+            int validLength = 0;
+            int applied = 0;
+            while (buffer.remaining() >= FRAME_HEADER_SIZE) {
+                int length = buffer.getInt();
+                int expectedChecksum = buffer.getInt();
+                if (length < 0 || length > buffer.remaining()) {
+                    break;
+                }
+
+                CRC32 checksum = new CRC32();
+                checksum.update(buffer.array(), buffer.position(), length);
+                if ((int) checksum.getValue() != expectedChecksum) {
+                    break;
+                }
+
+                ByteBuffer contents = buffer.slice();
+                contents.limit(length);
+                buffer.position(buffer.position() + length);
+                validLength = buffer.position();
+
+                try {
+                    JournalRecord record = JournalRecord.read(contents);
+                    if (record.follows(model)) {
+                        model = record.applyTo(model);
+                        applied++;
+                    }
+                } catch (BinaryLoadException e) {
+                    logger.error(HTLog.format(snapshot.getRepoId(), "Skipping unreadable journal record"));
+                }
+            }
+
+            if (validLength < channel.size()) {
+                logger.warn(HTLog.format(snapshot.getRepoId(), "Discarding torn journal record"));
+                channel.truncate(validLength);
+            }
+            logger.info(HTLog.format(snapshot.getRepoId(), "Replayed " + applied + " journal record(s)"));
+        }
+        return model;
+    }
+}
@@ -0,0 +1,144 @@
+package backend.binary;
+
+import backend.UpdateSignature;
+import backend.resource.Model;
+import backend.resource.TurboIssue;
+import backend.resource.serialization.SerializableModel;
+import util.exceptions.BinaryLoadException;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The changes between two successive states of a repository, as appended to its journal.
+ *
+ * Issues are only ever updated in place or appended to a model, so a record holds just the
+ * issues which changed. Labels, milestones and users are small and are replaced wholesale
+ * whenever they change.
+ */
+class JournalRecord {
+
+    public final UpdateSignature baseSignature;
+    public final Model changes;
+    public final boolean labelsChanged;
+    public final boolean milestonesChanged;
+    public final boolean usersChanged;
+
+    private JournalRecord(UpdateSignature baseSignature, Model changes,
+                          boolean labelsChanged, boolean milestonesChanged, boolean usersChanged) {
+        this.baseSignature = baseSignature;
+        this.changes = changes;
+        this.labelsChanged = labelsChanged;
+        this.milestonesChanged = milestonesChanged;
+        this.usersChanged = usersChanged;
+    }
+
+    /**
+     * Computes the record which takes previous to updated.
+     * @return empty if the change cannot be expressed as a record, e.g. because issues were
+     *         removed or reordered; a full snapshot should be written instead
+     */
+    public static Optional<JournalRecord> between(Model previous, Model updated) {
+        List<TurboIssue> before = previous.getIssues();
+        List<TurboIssue> after = updated.getIssues();
+        if (after.size() < before.size()) {
+            return Optional.empty();
+        }
+
+        List<TurboIssue> changedIssues = new ArrayList<>();
+        for (int i = 0; i < after.size(); i++) {
+            TurboIssue issue = after.get(i);
+            if (i < before.size()) {
+                if (before.get(i).getId() != issue.getId()) {
+                    return Optional.empty();
+                }
+                if (before.get(i).equals(issue)) {
+                    continue;
+                }
+            }
+            changedIssues.add(issue);
+        }
+
+        boolean labelsChanged = !previous.getLabels().equals(updated.getLabels());
+        boolean milestonesChanged = !previous.getMilestones().equals(updated.getMilestones());
+        boolean usersChanged = !previous.getUsers().equals(updated.getUsers());
+
+        Model changes = new Model(updated.getRepoId(), changedIssues,
+                labelsChanged ? updated.getLabels() : new ArrayList<>(),
+                milestonesChanged ? updated.getMilestones() : new ArrayList<>(),
+                usersChanged ? updated.getUsers() : new ArrayList<>(),
+                updated.getUpdateSignature());
+        return Optional.of(new JournalRecord(previous.getUpdateSignature(), changes,
+                labelsChanged, milestonesChanged, usersChanged));
+    }
+
+    /**
+     * Returns true if this record was computed from the given state of the repository.
+     */
+    public boolean follows(Model model) {
+        return isSameState(baseSignature, model.getUpdateSignature());
+    }
+
+    /**
+     * Unlike UpdateSignature#equals, also compares last-check times, as successive updates
+     * which found no changes on GitHub share the same ETags.
+     */
+    public static boolean isSameState(UpdateSignature a, UpdateSignature b) {
+        return a.equals(b) && a.lastCheckTime.equals(b.lastCheckTime);
+    }
+
+    public Model applyTo(Model model) {
+        List<TurboIssue> issues = new ArrayList<>(model.getIssues());
+        Map<Integer, Integer> positions = new HashMap<>();
+        for (int i = 0; i < issues.size(); i++) {
+            positions.put(issues.get(i).getId(), i);
+        }
+        for (TurboIssue issue : changes.getIssues()) {
+            Integer position = positions.get(issue.getId());
+            if (position == null) {
+                issues.add(issue);
+            } else {
+                issues.set(position, issue);
+            }
+        }
+
+        return new Model(model.getRepoId(), issues,
+                labelsChanged ? changes.getLabels() : model.getLabels(),
+                milestonesChanged ? changes.getMilestones() : model.getMilestones(),
+                usersChanged ? changes.getUsers() : model.getUsers(),
+                changes.getUpdateSignature());
+    }
+
+    public void write(DataOutputStream out) throws IOException {
+        BinaryModelWriter writer = new BinaryModelWriter(out);
+        writer.writeSignature(baseSignature);
+        out.writeBoolean(labelsChanged);
+        out.writeBoolean(milestonesChanged);
+        out.writeBoolean(usersChanged);
+        writer.write(new SerializableModel(changes));
+    }
+
+    public static JournalRecord read(ByteBuffer in) throws BinaryLoadException {
+        BinaryModelReader reader = new BinaryModelReader(in);
+        UpdateSignature baseSignature;
+        boolean labelsChanged;
+        boolean milestonesChanged;
+        boolean usersChanged;
+        try {
+            baseSignature = reader.readSignature();
+            labelsChanged = in.get() != 0;
+            milestonesChanged = in.get() != 0;
+            usersChanged = in.get() != 0;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new BinaryLoadException();
+        }
+        return new JournalRecord(baseSignature, reader.read(), labelsChanged, milestonesChanged, usersChanged);
+    }
+}
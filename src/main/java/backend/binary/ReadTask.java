@@ -0,0 +1,114 @@
+package backend.binary;
+
+import backend.interfaces.StoreTask;
+import backend.resource.Model;
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+import util.PlatformSpecific;
+import util.exceptions.BinaryLoadException;
+import util.exceptions.RepoStoreException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+class ReadTask extends StoreTask {
+
+    private static final Logger logger = HTLog.get(ReadTask.class);
+
+    private final BinaryStore store;
+    public final CompletableFuture<Model> response;
+
+    public ReadTask(BinaryStore store, String repoId, CompletableFuture<Model> response) {
+        super(repoId);
+        this.store = store;
+        this.response = response;
+    }
+
+    @Override
+    public void run() {
+        try {
+            Model model = load(repoId);
+            store.setPersistedSignature(repoId, model.getUpdateSignature());
+            response.complete(model);
+        } catch (RepoStoreException e) {
+            logger.error(HTLog.format(repoId, "Unable to load from store"));
+            store.clearPersistedSignature(repoId);
+            response.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Loads repository data from the binary store into a new Model, replaying its journal
+     * over the snapshot if there is one.
+     * @param repoId the string id of the repository to be loaded
+     * @return a new Model containing data for the requested repository.
+     * @throws BinaryLoadException when the repository's snapshot cannot be
+     *         retrieved from the local store or is corrupted
+     */
+    static Model load(String repoId) throws RepoStoreException {
+        Model snapshot = loadSnapshot(repoId);
+
+        Optional<Path> journal = BinaryStore.getJournalPath(repoId);
+        if (!journal.isPresent() || !Files.isRegularFile(journal.get())) {
+            return snapshot;
+        }
+        try {
+            return Journal.replay(journal.get(), snapshot);
+        } catch (IOException e) {
+            // The snapshot is still consistent on its own; the next update will catch up from it
+            logger.error(HTLog.format(repoId, "Unable to replay journal"), e);
+            return snapshot;
+        }
+    }
+
+    static Model loadSnapshot(String repoId) throws RepoStoreException {
+        Optional<Path> path = BinaryStore.getBinaryPath(repoId);
+        if (!path.isPresent()) {
+            logger.error("Unable to load " + repoId + " from binary store");
+            throw new BinaryLoadException();
+        }
+
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path.get(), StandardOpenOption.READ)) {
+            buffer = mapOrRead(channel);
+        } catch (IOException e) {
+            logger.error("Unable to load " + repoId + " from binary store");
+            throw new BinaryLoadException();
+        }
+
+        try {
+            Model model = BinaryModelReader.readSnapshot(buffer);
+            logger.info(HTLog.format(repoId, "Data loaded from binary store"));
+            return model;
+        } catch (BinaryLoadException e) {
+            logger.error(HTLog.format(repoId, "Binary data is corrupted"));
+            throw e;
+        }
+    }
+
+    /**
+     * Memory-maps the snapshot, so that it is not read into a heap array of its own. Only snapshots
+     * stored uncompressed (Codec.NONE) are decoded straight from the mapping; compressed ones,
+     * including those of the default codec, are decompressed onto the heap first, so that only their
+     * header is read from the mapping. Either way the mapping is not used after loading.
+     * Windows does not allow a file to be replaced while a mapping of it is still alive (i.e. until
+     * it is garbage-collected), so the snapshot is read into memory there instead.
+     */
+    private static ByteBuffer mapOrRead(FileChannel channel) throws IOException {
+        if (!PlatformSpecific.isOnWindows()) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // Keep reading until the whole file is in memory
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
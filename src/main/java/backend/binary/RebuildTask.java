@@ -0,0 +1,41 @@
+package backend.binary;
+
+import backend.interfaces.StoreTask;
+import backend.resource.serialization.SerializableModel;
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+import util.exceptions.RepoStoreException;
+
+/**
+ * Rewrites a snapshot which is in an older format, or compressed with a codec other than the store's.
+ *
+ * The journal of a snapshot which predates headers was written in the same older format, so is
+ * discarded rather than replayed; the next update catches up from the snapshot's update signature
+ * instead. Other journals are folded into the new snapshot.
+ */
+class RebuildTask extends StoreTask {
+
+    private static final Logger logger = HTLog.get(RebuildTask.class);
+
+    private final BinaryStore store;
+    private final boolean replayJournal;
+
+    public RebuildTask(BinaryStore store, String repoId, boolean replayJournal) {
+        super(repoId);
+        this.store = store;
+        this.replayJournal = replayJournal;
+    }
+
+    @Override
+    public void run() {
+        try {
+            SerializableModel model = new SerializableModel(
+                    replayJournal ? ReadTask.load(repoId) : ReadTask.loadSnapshot(repoId));
+            if (!WriteTask.save(store, repoId, model)) {
+                logger.info(HTLog.format(repoId, "Rebuilt snapshot"));
+            }
+        } catch (RepoStoreException e) {
+            logger.error(HTLog.format(repoId, "Unable to rebuild snapshot"));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package backend.binary;
+
+import backend.UpdateSignature;
+import util.exceptions.BinaryLoadException;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static backend.binary.BinaryModelWriter.HEADERLESS_VERSION;
+import static backend.binary.BinaryModelWriter.MAGIC;
+import static backend.binary.BinaryModelWriter.UNCOMPRESSED_VERSION;
+import static backend.binary.BinaryModelWriter.VERSION;
+
+/**
+ * The header at the start of a snapshot, which identifies it without the rest having to be decoded.
+ */
+class SnapshotHeader {
+
+    // Enough for any realistic repository id and set of ETags; longer headers are read in full
+    private static final int EXPECTED_HEADER_SIZE = 4096;
+
+    public static final int UNKNOWN_ISSUE_COUNT = -1;
+
+    public final int version;
+    public final Codec codec;
+    public final String repoId;
+    public final int issueCount;
+    public final UpdateSignature updateSignature;
+
+    private SnapshotHeader(int version, Codec codec, String repoId, int issueCount,
+                           UpdateSignature updateSignature) {
+        this.version = version;
+        this.codec = codec;
+        this.repoId = repoId;
+        this.issueCount = issueCount;
+        this.updateSignature = updateSignature;
+    }
+
+    /**
+     * Returns false if the snapshot is in an older format, and should be rewritten.
+     */
+    public boolean isCurrent() {
+        return version == VERSION;
+    }
+
+    /**
+     * Returns true if the snapshot's journal, if any, is in the current format.
+     * Journals were last changed along with snapshot headers.
+     */
+    public boolean hasCurrentJournal() {
+        return version != HEADERLESS_VERSION;
+    }
+
+    public static SnapshotHeader read(Path path) throws IOException, BinaryLoadException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            try {
+                return read(readPrefix(channel, Math.min(channel.size(), EXPECTED_HEADER_SIZE)));
+            } catch (BufferUnderflowException e) {
+                return read(readPrefix(channel, channel.size()));
+            }
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new BinaryLoadException();
+        }
+    }
+
+    private static SnapshotHeader read(ByteBuffer in) throws BinaryLoadException {
+        if (in.getInt() != MAGIC) {
+            throw new BinaryLoadException();
+        }
+        int version = in.getInt();
+        if (version == VERSION || version == UNCOMPRESSED_VERSION) {
+            in.getInt(); // Checksum; verified only when the whole snapshot is read
+        } else if (version != HEADERLESS_VERSION) {
+            throw new BinaryLoadException();
+        }
+        Codec codec = version == VERSION ? Codec.fromId(in.get()) : Codec.NONE;
+
+        BinaryModelReader reader = new BinaryModelReader(in);
+        String repoId = reader.readString();
+        if (repoId == null) {
+            throw new BinaryLoadException();
+        }
+        int issueCount = version == HEADERLESS_VERSION ? UNKNOWN_ISSUE_COUNT : in.getInt();
+        return new SnapshotHeader(version, codec, repoId, issueCount, reader.readSignature());
+    }
+
+    private static ByteBuffer readPrefix(FileChannel channel, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        channel.position(0);
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // Keep reading until the prefix is in memory
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,69 @@
+package backend.binary;
+
+import backend.interfaces.StoreTask;
+import backend.resource.serialization.SerializableModel;
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+import util.Utility;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+class WriteTask extends StoreTask {
+
+    private static final Logger logger = HTLog.get(WriteTask.class);
+
+    private final BinaryStore store;
+    public final SerializableModel toSave;
+    public final CompletableFuture<Boolean> response;
+
+    public WriteTask(BinaryStore store, String repoName, SerializableModel toSave,
+                     CompletableFuture<Boolean> response) {
+        super(repoName);
+        this.store = store;
+        this.toSave = toSave;
+        this.response = response;
+    }
+
+    @Override
+    public void run() {
+        response.complete(save(store, repoId, toSave));
+    }
+
+    /**
+     * Writes a full snapshot of the repository, superseding its journal.
+     * Returns true on corruption.
+     */
+    static boolean save(BinaryStore store, String repoId, SerializableModel model) {
+        Optional<Path> path = BinaryStore.getBinaryPath(repoId);
+        Optional<Path> journal = BinaryStore.getJournalPath(repoId);
+        if (!path.isPresent() || !journal.isPresent()) {
+            logger.error(HTLog.format(repoId, "Unable to write to binary store"));
+            store.clearPersistedSignature(repoId);
+            return true;
+        }
+        try {
+            // The previous snapshot and its journal stay intact until the new snapshot is complete
+            Utility.writeFileAtomically(path.get(),
+                    channel -> BinaryModelWriter.writeSnapshot(channel, model, store.getCodec()));
+        } catch (IOException e) {
+            logger.error(HTLog.format(repoId, "Unable to write to binary store"), e);
+            store.clearPersistedSignature(repoId);
+            return true;
+        }
+        logger.info(HTLog.format(repoId, "Written to binary store"));
+
+        // Records left in the journal no longer follow on from the snapshot, so would be skipped
+        // on replay anyway; removing them only saves space
+        try {
+            Files.deleteIfExists(journal.get());
+        } catch (IOException e) {
+            logger.warn(HTLog.format(repoId, "Unable to remove superseded journal"));
+        }
+        store.setPersistedSignature(repoId, model.updateSignature);
+        return false;
+    }
+}
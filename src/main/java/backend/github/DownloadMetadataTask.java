@@ -3,12 +3,9 @@ package backend.github;
 import backend.IssueMetadata;
 import backend.interfaces.Repo;
 import backend.interfaces.TaskRunner;
-import github.TurboIssueEvent;
 import org.apache.logging.log4j.Logger;
-import org.eclipse.egit.github.core.Comment;
 import util.HTLog;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -19,29 +16,32 @@ public class DownloadMetadataTask extends GitHubRepoTask<Map<Integer, IssueMetad
 
     private final String repoId;
     private final List<Integer> issueIds;
+    private final Map<Integer, IssueMetadata> previousMetadata;
+    private final MetadataFetcher metadataFetcher;
 
-    public DownloadMetadataTask(TaskRunner taskRunner, Repo repo, String repoId,
-                                List<Integer> issueIds) {
+    public DownloadMetadataTask(TaskRunner taskRunner, Repo repo, String repoId, List<Integer> issueIds,
+                                Map<Integer, IssueMetadata> previousMetadata, MetadataFetcher metadataFetcher) {
         super(taskRunner, repo);
         this.repoId = repoId;
         this.issueIds = issueIds;
+        this.previousMetadata = previousMetadata;
+        this.metadataFetcher = metadataFetcher;
     }
 
     @Override
     public void run() {
-        Map<Integer, IssueMetadata> result = new HashMap<>();
-
-        issueIds.forEach(id -> {
-            List<TurboIssueEvent> events = repo.getEvents(repoId, id);
-            List<Comment> comments = repo.getComments(repoId, id);
-            IssueMetadata metadata = new IssueMetadata(events, comments);
-            result.put(id, metadata);
+        metadataFetcher.fetch(repo, repoId, issueIds, previousMetadata).whenComplete((result, e) -> {
+            if (e != null) {
+                logger.error(HTLog.format(repoId, "Unable to download metadata"), e);
+                response.completeExceptionally(e);
+                return;
+            }
+
+            logger.info(HTLog.format(repoId, "Downloaded " + result.entrySet().stream()
+                .map(entry -> "(" + entry.getValue().summarise() + ") for #" + entry.getKey())
+                .collect(Collectors.joining(", "))));
+
+            response.complete(result);
         });
-
-        logger.info(HTLog.format(repoId, "Downloaded " + result.entrySet().stream()
-            .map(entry -> "(" + entry.getValue().summarise() + ") for #" + entry.getKey())
-            .collect(Collectors.joining(", "))));
-
-        response.complete(result);
     }
 }
@@ -7,27 +7,129 @@ import backend.resource.*;
 import org.apache.logging.log4j.Logger;
 import util.HTLog;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
+/**
+ * Downloads a repository's issues, labels, milestones and users at the same time.
+ *
+ * Issues take by far the longest to download, so a provisional model with everything but the issues
+ * is handed to the given handler as soon as the rest is in, for the UI to make use of in the meantime.
+ * Further provisional models with the issues downloaded so far follow as pages of issues come in,
+ * at most a few times a second.
+ *
+ * Once the response is cancelled, or any resource fails to download, no further pages of issues
+ * are requested, and resources whose requests have not yet started are not requested at all.
+ * Requests already in progress still run to completion, but their results are thrown away.
+ */
 public class DownloadRepoTask extends GitHubRepoTask<Model> {
 
     private static final Logger logger = HTLog.get(DownloadRepoTask.class);
 
     private final String repoId;
+    private final Consumer<Model> provisionalModelHandler;
+
+    // Provisional models are handed out at most this often, as each one is filtered and shown in full
+    private static final long PROVISIONAL_MODEL_INTERVAL = 300;
+
+    // Guarded by this
+    private final Map<Integer, TurboIssue> downloadedIssues = new LinkedHashMap<>();
+    private long lastProvisionalModelTime = 0;
+
+    // Everything in a provisional model but its issues
+    private CompletableFuture<List<TurboLabel>> labels;
+    private CompletableFuture<List<TurboMilestone>> milestones;
+    private CompletableFuture<List<TurboUser>> users;
 
     public DownloadRepoTask(TaskRunner taskRunner, Repo repo, String repoId) {
+        this(taskRunner, repo, repoId, model -> {});
+    }
+
+    public DownloadRepoTask(TaskRunner taskRunner, Repo repo, String repoId, Consumer<Model> provisionalModelHandler) {
         super(taskRunner, repo);
         this.repoId = repoId;
+        this.provisionalModelHandler = provisionalModelHandler;
     }
 
     @Override
     public void run() {
-        List<TurboIssue> issues = repo.getIssues(repoId);
-        List<TurboLabel> labels = repo.getLabels(repoId);
-        List<TurboMilestone> milestones = repo.getMilestones(repoId);
-        List<TurboUser> users = repo.getCollaborators(repoId);
-        Model result = new Model(repoId, issues, labels, milestones, users, UpdateSignature.EMPTY);
-        logger.info(HTLog.format(repoId, "Downloaded " + result.summarise()));
-        response.complete(result);
+        labels = download(() -> repo.getLabels(repoId));
+        milestones = download(() -> repo.getMilestones(repoId));
+        users = download(() -> repo.getCollaborators(repoId));
+        CompletableFuture<List<TurboIssue>> issues =
+            download(() -> repo.getIssues(repoId, this::issuesDownloaded, response::isDone));
+
+        // Whatever has not started downloading is of no use once the download has been cancelled or has failed
+        response.whenComplete((result, e) -> {
+            if (e != null) {
+                logger.info(HTLog.format(repoId, response.isCancelled() ? "Download cancelled" : "Download failed"));
+                issues.cancel(false);
+                labels.cancel(false);
+                milestones.cancel(false);
+                users.cancel(false);
+            }
+        });
+
+        CompletableFuture.allOf(labels, milestones, users).thenRun(() -> {
+            if (!issues.isDone()) {
+                publishProvisionalModel(true);
+            }
+        });
+
+        CompletableFuture.allOf(issues, labels, milestones, users).whenComplete((done, e) -> {
+            if (e != null) {
+                response.completeExceptionally(e);
+                return;
+            }
+            Model result = new Model(repoId, issues.join(), labels.join(), milestones.join(), users.join(),
+                UpdateSignature.EMPTY);
+            logger.info(HTLog.format(repoId, "Downloaded " + result.summarise()));
+            response.complete(result);
+        });
+    }
+
+    private void issuesDownloaded(List<TurboIssue> page) {
+        synchronized (this) {
+            // Pages may overlap, if issues are created while they are being downloaded
+            page.forEach(issue -> downloadedIssues.putIfAbsent(issue.getId(), issue));
+        }
+        publishProvisionalModel(false);
+    }
+
+    /**
+     * Hands a model of what has been downloaded so far to the provisional model handler, once
+     * everything but the issues is in.
+     * @param isForced true if the model is to be handed out even if another has just been
+     */
+    private synchronized void publishProvisionalModel(boolean isForced) {
+        boolean isReady = labels.isDone() && milestones.isDone() && users.isDone()
+            && !labels.isCompletedExceptionally() && !milestones.isCompletedExceptionally()
+            && !users.isCompletedExceptionally();
+        long now = System.currentTimeMillis();
+        if (!isReady || response.isDone() || !isForced && now - lastProvisionalModelTime < PROVISIONAL_MODEL_INTERVAL) {
+            return;
+        }
+        lastProvisionalModelTime = now;
+
+        Model provisional = new Model(repoId, new ArrayList<>(downloadedIssues.values()), labels.join(),
+            milestones.join(), users.join(), UpdateSignature.EMPTY);
+        logger.info(HTLog.format(repoId, "Downloaded provisional " + provisional.summarise()));
+        provisionalModelHandler.accept(provisional);
+    }
+
+    private <T> CompletableFuture<T> download(Supplier<T> resource) {
+        CompletableFuture<T> result = CompletableFuture.supplyAsync(resource, taskRunner::execute);
+        // One resource failing to download fails the whole download
+        result.whenComplete((items, e) -> {
+            if (e != null) {
+                response.completeExceptionally(e);
+            }
+        });
+        return result;
     }
 }
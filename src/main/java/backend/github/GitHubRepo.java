@@ -7,6 +7,7 @@ import backend.resource.TurboLabel;
 import backend.resource.TurboMilestone;
 import backend.resource.TurboUser;
 import github.GitHubClientExtended;
+import github.GitHubEventsResponse;
 import github.IssueServiceExtended;
 import github.LabelServiceFixed;
 import github.TurboIssueEvent;
@@ -24,12 +25,22 @@ import org.eclipse.egit.github.core.service.IssueService;
 import org.eclipse.egit.github.core.service.MilestoneService;
 import ui.UI;
 import util.HTLog;
+import util.InstrumentedExecutor;
+import util.Utility;
+import util.exceptions.IncompleteDownloadException;
 import util.events.UpdateProgressEvent;
 
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiFunction;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static org.eclipse.egit.github.core.client.IGitHubConstants.SEGMENT_REPOS;
@@ -37,13 +48,35 @@ public class GitHubRepo implements Repo {
 
     private static final Logger logger = HTLog.get(GitHubRepo.class);
 
-    private final GitHubClientExtended client = new GitHubClientExtended();
-    private final IssueServiceExtended issueService = new IssueServiceExtended(client);
-    private final CollaboratorService collaboratorService = new CollaboratorService(client);
-    private final LabelServiceFixed labelService = new LabelServiceFixed(client);
-    private final MilestoneService milestoneService = new MilestoneService(client);
+    private final GitHubClientExtended client;
+    private final IssueServiceExtended issueService;
+    private final CollaboratorService collaboratorService;
+    private final LabelServiceFixed labelService;
+    private final MilestoneService milestoneService;
+
+    // The most pages of issues to download at once, shared between repositories so that
+    // downloading several at once does not open too many connections
+    public static final int PAGE_DOWNLOAD_THREADS = 4;
+
+    // Pages of issues are downloaded on this, which must not be what getIssues is called on, as
+    // getIssues waits for the pages
+    private final Executor pageExecutor;
 
     public GitHubRepo() {
+        this(new GitHubClientExtended());
+    }
+
+    public GitHubRepo(GitHubClientExtended client) {
+        this(client, new InstrumentedExecutor(GitHubRepo.class.getSimpleName() + "-pages", PAGE_DOWNLOAD_THREADS));
+    }
+
+    public GitHubRepo(GitHubClientExtended client, Executor pageExecutor) {
+        this.client = client;
+        this.pageExecutor = pageExecutor;
+        issueService = new IssueServiceExtended(client);
+        collaboratorService = new CollaboratorService(client);
+        labelService = new LabelServiceFixed(client);
+        milestoneService = new MilestoneService(client);
     }
 
     @Override
@@ -148,57 +181,167 @@ public class GitHubRepo implements Repo {
 
     @Override
     public List<TurboIssue> getIssues(String repoId) {
+        return getIssues(repoId, page -> {}, () -> false);
+    }
+
+    /**
+     * Downloads the first page of issues, which tells us how many pages there are, then the rest
+     * of the pages concurrently. Issues are returned in page order, whichever order the pages
+     * arrive in, but are handed to the page handler as each page arrives.
+     *
+     * Later updates only fetch issues updated since, so issues left out of the download would never
+     * be fetched. The download thus fails as a whole if any page cannot be downloaded, including
+     * when there are more pages than the rate limit allows for. Pages which have not been requested
+     * by then are not requested at all, so as not to use up the rate limit for nothing.
+     * @throws IncompleteDownloadException if not all pages could be downloaded
+     */
+    @Override
+    public List<TurboIssue> getIssues(String repoId, Consumer<List<TurboIssue>> pageHandler,
+                                      BooleanSupplier isCancelled) {
+        RepositoryId repository = RepositoryId.createFromId(repoId);
         Map<String, String> filters = new HashMap<>();
         filters.put(IssueService.FIELD_FILTER, "all");
         filters.put(IssueService.FILTER_STATE, "all");
-        return getAll(issueService.pageIssues(RepositoryId.createFromId(repoId), filters), repoId).stream()
-            .map(i -> new TurboIssue(repoId, i))
-            .collect(Collectors.toList());
-    }
+        PageIterator<Issue> iterator = issueService.pageIssues(repository, filters);
 
-    private List<Issue> getAll(PageIterator<Issue> iterator, String repoId) {
-        List<Issue> elements = new ArrayList<>();
+        List<TurboIssue> firstPage;
+        try {
+            firstPage = toTurboIssues(repoId, iterator.next());
+        } catch (NoSuchPageException e) {
+            logPageException(e);
+            throw new IncompleteDownloadException(HTLog.format(repoId, "Unable to download issues"), e);
+        }
 
-        // Assume there is at least one page
-        int knownLastPage = 1;
+        // iterator.getLastPage() returns the 1-based index of the last page, except when we are
+        // actually on the last page, in which case it returns -1
+        int lastPage = Math.max(iterator.getLastPage(), 1);
+        checkRateLimit(repoId, lastPage);
+        PageProgress progress = new PageProgress(repoId, lastPage);
+        progress.pageDownloaded(firstPage.size());
+        pageHandler.accept(firstPage);
+
+        // Once a page has failed, or the download has been cancelled, the remaining pages are of no use
+        AtomicBoolean hasFailed = new AtomicBoolean(false);
+        BooleanSupplier isAbandoned = () -> hasFailed.get() || isCancelled.getAsBoolean();
+        List<CompletableFuture<List<TurboIssue>>> pages = new ArrayList<>();
+        pages.add(CompletableFuture.completedFuture(firstPage));
+        for (int page = 2; page <= lastPage; page++) {
+            pages.add(getPage(repository, filters, page, progress, pageHandler, isAbandoned, hasFailed));
+        }
 
+        // Issues created during the download push others onto later pages, where they would be
+        // downloaded again
+        Map<Integer, TurboIssue> elements = new LinkedHashMap<>();
         try {
-            while (iterator.hasNext()) {
-                Collection<Issue> additions = iterator.next();
-                elements.addAll(additions);
-
-                // Compute progress
-
-                // iterator.getLastPage() only has a value after iterator.next() is called,
-                // so it's used directly in this loop. It returns the 1-based index of the last
-                // page, except when we are actually on the last page, in which case it returns -1.
-                // This portion deals with all these quirks.
-
-                knownLastPage = Math.max(knownLastPage, iterator.getLastPage());
-                int totalIssueCount = knownLastPage * PagedRequest.PAGE_SIZE;
-                // Total is approximate: always >= the actual amount
-                assert totalIssueCount >= elements.size();
-
-                float progress = ((float) elements.size() / (float) totalIssueCount);
-                UI.events.triggerEvent(new UpdateProgressEvent(repoId, progress));
-                logger.info(HTLog.format(repoId, "Loaded %d issues (%.0f%% done)",
-                    elements.size(), progress * 100));
+            for (CompletableFuture<List<TurboIssue>> page : pages) {
+                page.join().forEach(issue -> elements.putIfAbsent(issue.getId(), issue));
+            }
+        } catch (CompletionException e) {
+            if (isCancelled.getAsBoolean()) {
+                throw new CancellationException(HTLog.format(repoId, "Issue download cancelled"));
             }
+            throw new IncompleteDownloadException(HTLog.format(repoId, "Unable to download all pages of issues"),
+                e.getCause());
+        } finally {
             UI.events.triggerEvent(new UpdateProgressEvent(repoId));
-        } catch (NoSuchPageException pageException) {
+        }
+        return new ArrayList<>(elements.values());
+    }
+
+    private CompletableFuture<List<TurboIssue>> getPage(RepositoryId repository, Map<String, String> filters,
+                                                        int page, PageProgress progress,
+                                                        Consumer<List<TurboIssue>> pageHandler,
+                                                        BooleanSupplier isAbandoned, AtomicBoolean hasFailed) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (isAbandoned.getAsBoolean()) {
+                throw new CancellationException();
+            }
             try {
-                throw pageException.getCause();
-            } catch (IOException e) {
-                HTLog.error(logger, e);
+                List<TurboIssue> issues = toTurboIssues(repository.generateId(),
+                    issueService.pageIssues(repository, filters, page, PagedRequest.PAGE_SIZE).next());
+                progress.pageDownloaded(issues.size());
+                pageHandler.accept(issues);
+                return issues;
+            } catch (NoSuchPageException e) {
+                hasFailed.set(true);
+                logPageException(e);
+                throw e;
             }
+        }, pageExecutor);
+    }
+
+    private static List<TurboIssue> toTurboIssues(String repoId, Collection<Issue> issues) {
+        return issues.stream()
+            .map(i -> new TurboIssue(repoId, i))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Checks that the remaining pages of issues may all be downloaded before the rate limit runs out,
+     * so that the download is not given up on part of the way through.
+     * @throws IncompleteDownloadException if they may not
+     */
+    private void checkRateLimit(String repoId, int pageCount) {
+        if (pageCount <= 1) {
+            return;
+        }
+        ImmutablePair<Integer, Long> rateLimit;
+        try {
+            rateLimit = client.getRateLimitResetTime();
+        } catch (IOException e) {
+            // Should the limit run out, the pages which fail fail the download
+            HTLog.error(logger, e);
+            return;
+        }
+        // The first page has already been counted against the limit
+        if (rateLimit.left + 1 < pageCount) {
+            throw new IncompleteDownloadException(HTLog.format(repoId,
+                "Only %d of %d pages of issues can be downloaded before the rate limit is reset at %s",
+                rateLimit.left + 1, pageCount, Utility.dateToLocalDateTime(new Date(rateLimit.right))));
+        }
+    }
+
+    private static void logPageException(NoSuchPageException pageException) {
+        try {
+            throw pageException.getCause();
+        } catch (IOException e) {
+            HTLog.error(logger, e);
+        }
+    }
+
+    /**
+     * Tracks the progress of an issue download, whose pages may be downloaded in any order.
+     */
+    private static class PageProgress {
+        private final String repoId;
+        private final int pageCount;
+        private int pagesDownloaded = 0;
+        private int issuesDownloaded = 0;
+
+        PageProgress(String repoId, int pageCount) {
+            this.repoId = repoId;
+            this.pageCount = pageCount;
+            if (pageCount > 1) {
+                logger.info(HTLog.format(repoId, "Downloading %d pages of issues", pageCount));
+            }
+        }
+
+        synchronized void pageDownloaded(int issueCount) {
+            pagesDownloaded++;
+            issuesDownloaded += issueCount;
+
+            // All pages but the last are full, so the total is known to within a page
+            float progress = (float) pagesDownloaded / pageCount;
+            UI.events.triggerEvent(new UpdateProgressEvent(repoId, progress));
+            logger.info(HTLog.format(repoId, "Loaded %d issues (%.0f%% done)", issuesDownloaded, progress * 100));
         }
-        return elements;
     }
 
     public List<TurboIssueEvent> getEvents(String repoId, int issueId) {
         try {
-            return issueService.getIssueEvents(RepositoryId.createFromId(repoId), issueId)
-                .getTurboIssueEvents();
+            return getUpdatedEvents(repoId, issueId, null)
+                .map(events -> events.left)
+                .orElseGet(ArrayList::new);
         } catch (IOException e) {
             HTLog.error(logger, e);
             return new ArrayList<>();
@@ -207,13 +350,37 @@ public class GitHubRepo implements Repo {
 
     public List<Comment> getComments(String repoId, int issueId) {
         try {
-            return issueService.getComments(RepositoryId.createFromId(repoId), issueId);
+            return getUpdatedComments(repoId, issueId, null)
+                .map(comments -> comments.left)
+                .orElseGet(ArrayList::new);
         } catch (IOException e) {
             HTLog.error(logger, e);
             return new ArrayList<>();
         }
     }
 
+    @Override
+    public Optional<ImmutablePair<List<TurboIssueEvent>, String>> getUpdatedEvents(String repoId, int issueId,
+                                                                                 String eTag) throws IOException {
+        Optional<GitHubEventsResponse> response =
+            issueService.getIssueEvents(RepositoryId.createFromId(repoId), issueId, eTag);
+        if (!response.isPresent()) {
+            logger.info(HTLog.format(repoId, "Events of #%d unchanged", issueId));
+        }
+        return response.map(events -> new ImmutablePair<>(events.getTurboIssueEvents(), events.getETag()));
+    }
+
+    @Override
+    public Optional<ImmutablePair<List<Comment>, String>> getUpdatedComments(String repoId, int issueId,
+                                                                           String eTag) throws IOException {
+        Optional<ImmutablePair<List<Comment>, String>> response =
+            issueService.getComments(RepositoryId.createFromId(repoId), issueId, eTag);
+        if (!response.isPresent()) {
+            logger.info(HTLog.format(repoId, "Comments of #%d unchanged", issueId));
+        }
+        return response;
+    }
+
     @Override
     public List<Label> setLabels(String repoId, int issueId, List<String> labels) throws IOException {
         return labelService.setLabels(
@@ -3,6 +3,7 @@ package backend.github;
 import backend.interfaces.Repo;
 import backend.interfaces.RepoTask;
 import backend.interfaces.TaskRunner;
+import backend.resource.ChangeSet;
 
 import java.util.Date;
 import java.util.List;
@@ -15,17 +16,21 @@ public abstract class GitHubRepoTask<R> extends RepoTask<R> {
 
     public static class Result<TR> {
         public final List<TR> items;
+        // How the items differ from those they were updated from
+        public final ChangeSet<TR> changes;
         public final String eTag;
         public final Date lastCheckTime;
 
-        public Result(List<TR> items, String eTag, Date lastCheckTime) {
+        public Result(List<TR> items, ChangeSet<TR> changes, String eTag, Date lastCheckTime) {
             this.items = items;
+            this.changes = changes;
             this.eTag = eTag;
             this.lastCheckTime = new Date(lastCheckTime.getTime());
         }
 
-        public Result(List<TR> items, String eTag) {
+        public Result(List<TR> items, ChangeSet<TR> changes, String eTag) {
             this.items = items;
+            this.changes = changes;
             this.eTag = eTag;
             this.lastCheckTime = null;
         }
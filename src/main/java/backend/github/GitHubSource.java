@@ -4,27 +4,69 @@ import backend.IssueMetadata;
 import backend.UserCredentials;
 import backend.interfaces.Repo;
 import backend.interfaces.RepoSource;
+import backend.interfaces.RepoTask;
 import backend.resource.Model;
 import backend.resource.TurboIssue;
+import github.GitHubClientExtended;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.logging.log4j.Logger;
 import util.HTLog;
+import util.InstrumentedExecutor;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public class GitHubSource extends RepoSource {
 
     private static final Logger logger = HTLog.get(GitHubSource.class);
 
-    private final Repo gitHub = new GitHubRepo();
+    // The most requests for issue metadata to make at once
+    private static final int METADATA_REQUEST_PARALLELISM = 8;
+
+    protected final Repo gitHub;
+
+    // Pages of issues are downloaded apart from the tasks which ask for them, which wait for them
+    private final InstrumentedExecutor pagePool =
+        new InstrumentedExecutor(getClass().getSimpleName() + "-pages", GitHubRepo.PAGE_DOWNLOAD_THREADS);
+    private final MetadataFetcher metadataFetcher = new MetadataFetcher(this, METADATA_REQUEST_PARALLELISM);
+
+    // Tasks start when the scheduler says so; the work they hand off is executed straight away
+    private final RequestScheduler scheduler = new RequestScheduler(this::execute);
+
+    public GitHubSource() {
+        this(new GitHubClientExtended());
+    }
+
+    public GitHubSource(GitHubClientExtended client) {
+        gitHub = new GitHubRepo(client, pagePool);
+        client.setRateLimitListener(scheduler);
+    }
+
+    @Override
+    public <R> RepoTask<R> addTask(RepoTask<R> task) {
+        return addTask(task, RequestScheduler.Priority.BACKGROUND);
+    }
+
+    protected <R> RepoTask<R> addTask(RepoTask<R> task, RequestScheduler.Priority priority) {
+        scheduler.schedule(task, priority);
+        return task;
+    }
 
     @Override
     public String getName() {
         return "GitHub";
     }
 
+    @Override
+    public List<InstrumentedExecutor.Statistics> getPoolStatistics() {
+        List<InstrumentedExecutor.Statistics> statistics = new ArrayList<>(super.getPoolStatistics());
+        statistics.add(pagePool.getStatistics());
+        return statistics;
+    }
+
     @Override
     public CompletableFuture<Boolean> login(UserCredentials credentials) {
         CompletableFuture<Boolean> response = new CompletableFuture<>();
@@ -40,8 +82,10 @@ public class GitHubSource extends RepoSource {
     }
 
     @Override
-    public CompletableFuture<Model> downloadRepository(String repoId) {
-        return addTask(new DownloadRepoTask(this, gitHub, repoId)).response;
+    public CompletableFuture<Model> downloadRepository(String repoId, Consumer<Model> provisionalModelHandler) {
+        // Repositories are downloaded when the user opens them
+        return addTask(new DownloadRepoTask(this, gitHub, repoId, provisionalModelHandler),
+            RequestScheduler.Priority.VISIBLE).response;
     }
 
     @Override
@@ -50,23 +94,29 @@ public class GitHubSource extends RepoSource {
     }
 
     @Override
-    public CompletableFuture<Map<Integer, IssueMetadata>> downloadMetadata(String repoId, List<Integer> issues) {
-        return addTask(new DownloadMetadataTask(this, gitHub, repoId, issues)).response;
+    public CompletableFuture<Map<Integer, IssueMetadata>> downloadMetadata(
+        String repoId, List<Integer> issues, Map<Integer, IssueMetadata> previousMetadata) {
+
+        // Metadata is downloaded for the issues in panels
+        return addTask(new DownloadMetadataTask(this, gitHub, repoId, issues, previousMetadata,
+            metadataFetcher), RequestScheduler.Priority.VISIBLE).response;
     }
 
     @Override
     public CompletableFuture<Boolean> isRepositoryValid(String repoId) {
-        return addTask(new RepoValidityTask(this, gitHub, repoId)).response;
+        return addTask(new RepoValidityTask(this, gitHub, repoId), RequestScheduler.Priority.INTERACTIVE).response;
     }
 
     @Override
     public CompletableFuture<List<String>> replaceIssueLabels(TurboIssue issue, List<String> labels) {
-        return addTask(new ReplaceIssueLabelsTask(this, gitHub, issue.getRepoId(), issue.getId(), labels)).response;
+        return addTask(new ReplaceIssueLabelsTask(this, gitHub, issue.getRepoId(), issue.getId(), labels),
+            RequestScheduler.Priority.INTERACTIVE).response;
     }
 
-@Override
+    @Override
     public CompletableFuture<ImmutablePair<Integer, Long>> getRateLimitResetTime() {
-        return addTask(new CheckRateLimitTask(this, gitHub)).response;
+        // Free of charge, and what it learns lets held back tasks go sooner
+        return addTask(new CheckRateLimitTask(this, gitHub), RequestScheduler.Priority.INTERACTIVE).response;
     }
 
 }
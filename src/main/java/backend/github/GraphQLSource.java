@@ -0,0 +1,127 @@
+package backend.github;
+
+import backend.IssueMetadata;
+import backend.resource.Model;
+import backend.resource.TurboIssue;
+import github.GitHubClientExtended;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Downloads and updates repositories through GitHub's GraphQL API, which gives a page of issues
+ * together with their comments and events in a single request. Everything else, including the
+ * metadata of issues with too many comments or events to fit, goes through the REST API as before.
+ */
+public class GraphQLSource extends GitHubSource {
+
+    public static final String NAME = "GraphQL";
+
+    // Only the metadata of issues shown in panels is ever asked for, which is seldom more than this
+    public static final int MAX_KEPT_METADATA = 1000;
+
+    private final RepositoryQuery query;
+    private final int maxKeptMetadata;
+
+    // Metadata which came with issues, by repository and issue id, kept until it is asked for.
+    // Only that of the most recently updated issues of each repository is kept.
+    private final Map<String, Map<Integer, IssueMetadata>> downloadedMetadata = new ConcurrentHashMap<>();
+
+    public GraphQLSource() {
+        this(new GitHubClientExtended());
+    }
+
+    public GraphQLSource(GitHubClientExtended client) {
+        this(client, MAX_KEPT_METADATA);
+    }
+
+    public GraphQLSource(GitHubClientExtended client, int maxKeptMetadata) {
+        super(client);
+        query = new RepositoryQuery(client);
+        this.maxKeptMetadata = maxKeptMetadata;
+    }
+
+    @Override
+    public String getName() {
+        return "GitHub (GraphQL)";
+    }
+
+    @Override
+    public CompletableFuture<Model> downloadRepository(String repoId, Consumer<Model> provisionalModelHandler) {
+        return addTask(new QueryRepoTask(this, gitHub, query, repoId, provisionalModelHandler,
+            result -> metadataDownloaded(repoId, result, true)), RequestScheduler.Priority.VISIBLE).response;
+    }
+
+    @Override
+    public CompletableFuture<Model> updateModel(Model model) {
+        return addTask(new QueryRepoTask(this, gitHub, query, model,
+            result -> metadataDownloaded(model.getRepoId(), result, false))).response;
+    }
+
+    /**
+     * Hands out the metadata which came with the issues where possible, and downloads the rest.
+     * Metadata which came with the issues has no ETags, so the first time it is downloaded again
+     * over REST, the requests cannot be conditional.
+     */
+    @Override
+    public CompletableFuture<Map<Integer, IssueMetadata>> downloadMetadata(
+        String repoId, List<Integer> issues, Map<Integer, IssueMetadata> previousMetadata) {
+
+        Map<Integer, IssueMetadata> result = new HashMap<>();
+        List<Integer> toDownload = new ArrayList<>();
+        Map<Integer, IssueMetadata> downloaded = downloadedMetadata.getOrDefault(repoId, new HashMap<>());
+        synchronized (downloaded) {
+            issues.forEach(id -> {
+                IssueMetadata metadata = downloaded.remove(id);
+                if (metadata == null) {
+                    toDownload.add(id);
+                } else {
+                    result.put(id, metadata);
+                }
+            });
+        }
+        if (toDownload.isEmpty()) {
+            return CompletableFuture.completedFuture(result);
+        }
+        return super.downloadMetadata(repoId, toDownload, previousMetadata).thenApply(rest -> {
+            result.putAll(rest);
+            return result;
+        });
+    }
+
+    private void metadataDownloaded(String repoId, RepositoryQuery.Result result, boolean isFullDownload) {
+        Map<Integer, IssueMetadata> downloaded = downloadedMetadata.computeIfAbsent(repoId, id -> newMetadataCache());
+        synchronized (downloaded) {
+            if (isFullDownload) {
+                downloaded.clear();
+            }
+            // Whatever came with an earlier version of a changed issue is out of date
+            result.issues.forEach(issue -> downloaded.remove(issue.getId()));
+            // Added from the least recently updated issue on, so that those are the first to be dropped
+            result.issues.stream()
+                .filter(issue -> result.metadata.containsKey(issue.getId()))
+                .sorted(Comparator.comparing(TurboIssue::getUpdatedAt))
+                .forEach(issue -> downloaded.put(issue.getId(), result.metadata.get(issue.getId())));
+        }
+    }
+
+    /**
+     * @return a map of metadata by issue id which drops the entry added longest ago once it holds
+     *         more than the most metadata to keep
+     */
+    private Map<Integer, IssueMetadata> newMetadataCache() {
+        return new LinkedHashMap<Integer, IssueMetadata>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, IssueMetadata> eldest) {
+                return size() > maxKeptMetadata;
+            }
+        };
+    }
+}
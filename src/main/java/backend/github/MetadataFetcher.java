@@ -0,0 +1,162 @@
+package backend.github;
+
+import backend.IssueMetadata;
+import backend.interfaces.Repo;
+import backend.interfaces.TaskRunner;
+import github.TurboIssueEvent;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.egit.github.core.Comment;
+import util.HTLog;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Downloads the metadata (events and comments) of issues, making up to a fixed number of
+ * requests at once.
+ *
+ * Requests are queued per repository, and the queues take turns, so that the metadata of a
+ * few issues in one repository is not held up behind that of many issues in another.
+ */
+public class MetadataFetcher {
+
+    private static final Logger logger = HTLog.get(MetadataFetcher.class);
+
+    /**
+     * A request for items, conditional on them having changed since they had the given ETag.
+     */
+    @FunctionalInterface
+    private interface ConditionalRequest<T> {
+        Optional<ImmutablePair<List<T>, String>> get(String eTag) throws IOException;
+    }
+
+    private final TaskRunner taskRunner;
+    private final int parallelism;
+
+    // Guarded by this. The repository at the front makes the next request, then goes to the back.
+    private final LinkedHashMap<String, Queue<Runnable>> queues = new LinkedHashMap<>();
+    private int requestsInProgress = 0;
+
+    /**
+     * @param taskRunner runs the requests
+     * @param parallelism the most requests to make at once
+     */
+    public MetadataFetcher(TaskRunner taskRunner, int parallelism) {
+        assert parallelism > 0;
+        this.taskRunner = taskRunner;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Downloads the events and comments of the given issues.
+     * @return the metadata of each issue whose metadata could be downloaded, by issue id
+     */
+    public CompletableFuture<Map<Integer, IssueMetadata>> fetch(Repo repo, String repoId, List<Integer> issueIds) {
+        return fetch(repo, repoId, issueIds, new HashMap<>());
+    }
+
+    /**
+     * Downloads the events and comments of the given issues, unless they are unchanged from those
+     * previously downloaded.
+     * @param previousMetadata the metadata of some of the issues as previously downloaded, by issue id
+     * @return the metadata of each issue whose metadata could be downloaded, by issue id. Issues for which
+     * a request failed are left out, rather than being given metadata which is not theirs.
+     */
+    public CompletableFuture<Map<Integer, IssueMetadata>> fetch(Repo repo, String repoId, List<Integer> issueIds,
+                                                                Map<Integer, IssueMetadata> previousMetadata) {
+        Map<Integer, CompletableFuture<Optional<IssueMetadata>>> metadata = new LinkedHashMap<>();
+        issueIds.forEach(id -> {
+            Optional<IssueMetadata> previous = Optional.ofNullable(previousMetadata.get(id));
+            CompletableFuture<ImmutablePair<List<TurboIssueEvent>, String>> events = request(repoId, () ->
+                getUpdated(previous.map(IssueMetadata::getEvents), previous.map(IssueMetadata::getEventsETag),
+                    eTag -> repo.getUpdatedEvents(repoId, id, eTag)));
+            CompletableFuture<ImmutablePair<List<Comment>, String>> comments = request(repoId, () ->
+                getUpdated(previous.map(IssueMetadata::getComments), previous.map(IssueMetadata::getCommentsETag),
+                    eTag -> repo.getUpdatedComments(repoId, id, eTag)));
+            metadata.put(id, events.thenCombine(comments, (updatedEvents, updatedComments) ->
+                new IssueMetadata(updatedEvents.left, updatedComments.left, updatedEvents.right,
+                    updatedComments.right))
+                .handle((issueMetadata, e) -> {
+                    if (e != null) {
+                        logger.error(HTLog.format(repoId, "Unable to download metadata of #%d", id), e);
+                        return Optional.<IssueMetadata>empty();
+                    }
+                    return Optional.of(issueMetadata);
+                }));
+        });
+
+        return CompletableFuture.allOf(metadata.values().toArray(new CompletableFuture[metadata.size()]))
+            .thenApply(done -> {
+                Map<Integer, IssueMetadata> result = new HashMap<>();
+                metadata.forEach((id, issueMetadata) -> issueMetadata.join()
+                    .ifPresent(downloaded -> result.put(id, downloaded)));
+                return result;
+            });
+    }
+
+    /**
+     * Makes a request for items which is conditional on them having changed, if they were
+     * previously downloaded with an ETag.
+     * @return the items and their ETag
+     */
+    private static <T> ImmutablePair<List<T>, String> getUpdated(
+        Optional<List<T>> previousItems, Optional<String> previousETag,
+        ConditionalRequest<T> request) throws IOException {
+
+        Optional<ImmutablePair<List<T>, String>> updated = request.get(previousETag.orElse(null));
+        if (updated.isPresent()) {
+            return updated.get();
+        }
+        // Only a request with an ETag can find the items unchanged
+        return new ImmutablePair<>(previousItems.get(), previousETag.get());
+    }
+
+    private synchronized <T> CompletableFuture<T> request(String repoId, Callable<T> request) {
+        CompletableFuture<T> response = new CompletableFuture<>();
+        queues.computeIfAbsent(repoId, id -> new ArrayDeque<>()).add(() -> {
+            try {
+                response.complete(request.call());
+            } catch (Exception e) {
+                response.completeExceptionally(e);
+            }
+        });
+        startRequests();
+        return response;
+    }
+
+    private synchronized void startRequests() {
+        while (requestsInProgress < parallelism && !queues.isEmpty()) {
+            Iterator<Map.Entry<String, Queue<Runnable>>> nextQueue = queues.entrySet().iterator();
+            Map.Entry<String, Queue<Runnable>> queue = nextQueue.next();
+            nextQueue.remove();
+            Runnable request = queue.getValue().remove();
+            if (!queue.getValue().isEmpty()) {
+                queues.put(queue.getKey(), queue.getValue());
+            }
+
+            requestsInProgress++;
+            taskRunner.execute(() -> {
+                try {
+                    request.run();
+                } finally {
+                    requestFinished();
+                }
+            });
+        }
+    }
+
+    private synchronized void requestFinished() {
+        requestsInProgress--;
+        startRequests();
+    }
+}
@@ -0,0 +1,111 @@
+package backend.github;
+
+import backend.UpdateSignature;
+import backend.interfaces.Repo;
+import backend.interfaces.TaskRunner;
+import backend.resource.KeyedMerge;
+import backend.resource.Model;
+import backend.resource.ModelChanges;
+import backend.resource.TurboIssue;
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Downloads a repository with a RepositoryQuery, or brings a model of it up to date with one.
+ *
+ * What was downloaded is also handed to the given handler, as the comments and events which came
+ * with the issues are not attached to them: they are only wanted for some issues, some of the time.
+ */
+public class QueryRepoTask extends GitHubRepoTask<Model> {
+
+    private static final Logger logger = HTLog.get(QueryRepoTask.class);
+
+    private final RepositoryQuery query;
+    private final String repoId;
+    private final Optional<Model> model;
+    private final Consumer<Model> provisionalModelHandler;
+    private final Consumer<RepositoryQuery.Result> resultHandler;
+
+    /**
+     * Downloads a repository.
+     */
+    public QueryRepoTask(TaskRunner taskRunner, Repo repo, RepositoryQuery query, String repoId,
+                         Consumer<Model> provisionalModelHandler,
+                         Consumer<RepositoryQuery.Result> resultHandler) {
+        super(taskRunner, repo);
+        this.query = query;
+        this.repoId = repoId;
+        this.model = Optional.empty();
+        this.provisionalModelHandler = provisionalModelHandler;
+        this.resultHandler = resultHandler;
+    }
+
+    /**
+     * Updates a model with the issues changed since it was last updated.
+     */
+    public QueryRepoTask(TaskRunner taskRunner, Repo repo, RepositoryQuery query, Model model,
+                         Consumer<RepositoryQuery.Result> resultHandler) {
+        super(taskRunner, repo);
+        this.query = query;
+        this.repoId = model.getRepoId();
+        this.model = Optional.of(model);
+        this.provisionalModelHandler = provisional -> {};
+        this.resultHandler = resultHandler;
+    }
+
+    @Override
+    public void run() {
+        // A model which has never been updated has no time to download changes since
+        Optional<Date> updatedSince = model
+            .map(Model::getUpdateSignature)
+            .filter(signature -> !signature.isEmpty())
+            .map(signature -> signature.lastCheckTime);
+
+        RepositoryQuery.Result result;
+        try {
+            result = query.download(repoId, updatedSince, partial -> {
+                Model provisional = toModel(partial);
+                logger.info(HTLog.format(repoId, "Downloaded provisional " + provisional.summarise()));
+                provisionalModelHandler.accept(provisional);
+            });
+        } catch (IOException e) {
+            logger.error(HTLog.format(repoId, "Unable to query repository"), e);
+            response.completeExceptionally(e);
+            return;
+        }
+
+        resultHandler.accept(result);
+        Model updated = toModel(result);
+        Optional<ModelChanges> changes = model.flatMap(updated::getChangesFrom);
+        if (changes.isPresent()) {
+            logger.info(HTLog.format(repoId, "Updated model with %s (%s)", updated.summarise(), changes.get()));
+        } else {
+            logger.info(HTLog.format(repoId, "Downloaded " + updated.summarise()));
+        }
+        response.complete(updated);
+    }
+
+    private Model toModel(RepositoryQuery.Result result) {
+        // ETags play no part in queries; changes are asked for by time alone
+        UpdateSignature signature = new UpdateSignature(null, null, null, null, result.queryTime);
+        if (!model.isPresent()) {
+            return new Model(repoId, result.issues, result.labels, result.milestones, result.users, signature);
+        }
+
+        // Labels, milestones and users come in full, and are few, so they are simply compared
+        Model existing = model.get();
+        KeyedMerge.Result<TurboIssue> issues = TurboIssue.reconcile(repoId, existing.getIssues(), result.issues);
+        ModelChanges changes = new ModelChanges(repoId, issues.changes,
+            KeyedMerge.LABELS.diff(existing.getLabels(), result.labels),
+            KeyedMerge.MILESTONES.diff(existing.getMilestones(), result.milestones),
+            KeyedMerge.USERS.diff(existing.getUsers(), result.users));
+        return new Model(repoId, issues.items, result.labels, result.milestones, result.users, signature,
+            existing, changes);
+    }
+}
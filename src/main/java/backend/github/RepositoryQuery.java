@@ -0,0 +1,383 @@
+package backend.github;
+
+import backend.IssueMetadata;
+import backend.resource.TurboIssue;
+import backend.resource.TurboLabel;
+import backend.resource.TurboMilestone;
+import backend.resource.TurboUser;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import github.GitHubClientExtended;
+import github.IssueEventType;
+import github.TurboIssueEvent;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.egit.github.core.Comment;
+import org.eclipse.egit.github.core.Issue;
+import org.eclipse.egit.github.core.Label;
+import org.eclipse.egit.github.core.Milestone;
+import org.eclipse.egit.github.core.PullRequest;
+import org.eclipse.egit.github.core.RepositoryId;
+import org.eclipse.egit.github.core.User;
+import util.HTLog;
+import util.IOUtilities;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Downloads a repository's issues, together with their comments and events, and its labels,
+ * milestones and users, with one GraphQL query per page instead of a REST request per page of each
+ * resource and two more per issue.
+ *
+ * The resources are turned into the same objects the REST API gives, so that they make the
+ * same models. The comments and events of an issue with more than a page of either are left out,
+ * to be downloaded separately.
+ */
+public class RepositoryQuery {
+
+    private static final Logger logger = HTLog.get(RepositoryQuery.class);
+
+    private static final String QUERY_RESOURCE = "/graphql/repository.graphql";
+
+    // Issues and pull requests per page; each comes with up to a hundred comments and events
+    public static final int PAGE_SIZE = 50;
+
+    // The login GitHub shows in place of deleted users
+    private static final String GHOST_LOGIN = "ghost";
+
+    private final GitHubClientExtended client;
+    private final String query;
+
+    /**
+     * What has been downloaded of a repository.
+     */
+    public static class Result {
+        public final List<TurboIssue> issues;
+        public final List<TurboLabel> labels;
+        public final List<TurboMilestone> milestones;
+        public final List<TurboUser> users;
+
+        // By issue id, for those issues whose comments and events were downloaded in full
+        public final Map<Integer, IssueMetadata> metadata;
+
+        // When the download began, according to GitHub
+        public final Date queryTime;
+
+        public Result(List<TurboIssue> issues, List<TurboLabel> labels, List<TurboMilestone> milestones,
+                      List<TurboUser> users, Map<Integer, IssueMetadata> metadata, Date queryTime) {
+            this.issues = issues;
+            this.labels = labels;
+            this.milestones = milestones;
+            this.users = users;
+            this.metadata = metadata;
+            this.queryTime = new Date(queryTime.getTime());
+        }
+    }
+
+    /**
+     * One of the paginated lists the query selects from.
+     */
+    private static class Connection {
+        public final String name;
+        public String cursor = null;
+        public boolean hasMore = true;
+
+        public Connection(String name) {
+            this.name = name;
+        }
+    }
+
+    public RepositoryQuery(GitHubClientExtended client) {
+        this.client = client;
+        this.query = readQuery();
+    }
+
+    /**
+     * Downloads a repository page by page.
+     *
+     * @param updatedSince if present, only issues updated since then are downloaded
+     * @param pageHandler given what has been downloaded so far, after each page but the last
+     * @return everything downloaded
+     * @throws IOException if any page fails to download
+     */
+    public Result download(String repoId, Optional<Date> updatedSince, Consumer<Result> pageHandler)
+        throws IOException {
+
+        RepositoryId repository = RepositoryId.createFromId(repoId);
+        Connection issueConnection = new Connection("issues");
+        Connection pullRequestConnection = new Connection("pullRequests");
+        Connection labelConnection = new Connection("labels");
+        Connection milestoneConnection = new Connection("milestones");
+        Connection userConnection = new Connection("assignableUsers");
+
+        // Issues updated during the download may show up on more than one page
+        Map<Integer, TurboIssue> issues = new LinkedHashMap<>();
+        Map<Integer, IssueMetadata> metadata = new HashMap<>();
+        List<TurboLabel> labels = new ArrayList<>();
+        List<TurboMilestone> milestones = new ArrayList<>();
+        List<TurboUser> users = new ArrayList<>();
+        Date queryTime = null;
+        int pages = 0;
+
+        while (true) {
+            Map<String, Object> variables = new HashMap<>();
+            variables.put("owner", repository.getOwner());
+            variables.put("name", repository.getName());
+            variables.put("pageSize", PAGE_SIZE);
+            updatedSince.ifPresent(since -> variables.put("issuesSince", since.toInstant().toString()));
+            addPageVariables(variables, "issues", "Issues", issueConnection);
+            addPageVariables(variables, "pullRequests", "PullRequests", pullRequestConnection);
+            addPageVariables(variables, "labels", "Labels", labelConnection);
+            addPageVariables(variables, "milestones", "Milestones", milestoneConnection);
+            addPageVariables(variables, "users", "Users", userConnection);
+
+            ImmutablePair<JsonObject, Date> response = client.query(query, variables);
+            if (queryTime == null) {
+                queryTime = response.right;
+            }
+            pages++;
+            JsonObject repositoryData = response.left.getAsJsonObject("repository");
+            if (repositoryData == null) {
+                throw new IOException("Repository " + repoId + " not found");
+            }
+
+            for (JsonElement node : nextPage(repositoryData, issueConnection)) {
+                addIssue(repoId, node.getAsJsonObject(), false, updatedSince, issues, metadata, issueConnection);
+            }
+            for (JsonElement node : nextPage(repositoryData, pullRequestConnection)) {
+                addIssue(repoId, node.getAsJsonObject(), true, updatedSince, issues, metadata,
+                    pullRequestConnection);
+            }
+            for (JsonElement node : nextPage(repositoryData, labelConnection)) {
+                labels.add(new TurboLabel(repoId, toLabel(node.getAsJsonObject())));
+            }
+            for (JsonElement node : nextPage(repositoryData, milestoneConnection)) {
+                milestones.add(new TurboMilestone(repoId, toMilestone(node.getAsJsonObject())));
+            }
+            for (JsonElement node : nextPage(repositoryData, userConnection)) {
+                users.add(new TurboUser(repoId, toUser(node.getAsJsonObject())));
+            }
+
+            Result result = new Result(new ArrayList<>(issues.values()), new ArrayList<>(labels),
+                new ArrayList<>(milestones), new ArrayList<>(users), new HashMap<>(metadata), queryTime);
+            if (!issueConnection.hasMore && !pullRequestConnection.hasMore && !labelConnection.hasMore
+                && !milestoneConnection.hasMore && !userConnection.hasMore) {
+                logger.info(HTLog.format(repoId, "Queried %d issue(s) in %d page(s)", issues.size(), pages));
+                return result;
+            }
+            pageHandler.accept(result);
+        }
+    }
+
+    private static void addPageVariables(Map<String, Object> variables, String prefix, String suffix,
+                                         Connection connection) {
+        variables.put(prefix + "Cursor", connection.cursor);
+        variables.put("hasMore" + suffix, connection.hasMore);
+    }
+
+    /**
+     * Takes the nodes of the next page of a connection from the data, and moves the connection on
+     * to the page after.
+     */
+    private static JsonArray nextPage(JsonObject repositoryData, Connection connection) {
+        if (!connection.hasMore) {
+            return new JsonArray();
+        }
+        JsonObject page = repositoryData.getAsJsonObject(connection.name);
+        JsonObject pageInfo = page.getAsJsonObject("pageInfo");
+        connection.hasMore = pageInfo.get("hasNextPage").getAsBoolean();
+        connection.cursor = getString(pageInfo, "endCursor");
+        return page.getAsJsonArray("nodes");
+    }
+
+    private static void addIssue(String repoId, JsonObject node, boolean isPullRequest, Optional<Date> updatedSince,
+                                 Map<Integer, TurboIssue> issues, Map<Integer, IssueMetadata> metadata,
+                                 Connection connection) {
+
+        Issue issue = toIssue(node, isPullRequest);
+
+        // Pull requests cannot be filtered by update time, but come most recently updated first
+        if (updatedSince.isPresent() && issue.getUpdatedAt().before(updatedSince.get())) {
+            connection.hasMore = false;
+            return;
+        }
+
+        issues.put(issue.getNumber(), new TurboIssue(repoId, issue));
+        Optional<IssueMetadata> issueMetadata = toMetadata(node);
+        if (issueMetadata.isPresent()) {
+            metadata.put(issue.getNumber(), issueMetadata.get());
+        } else {
+            metadata.remove(issue.getNumber());
+        }
+    }
+
+    private static Issue toIssue(JsonObject node, boolean isPullRequest) {
+        Issue issue = new Issue()
+            .setNumber(node.get("number").getAsInt())
+            .setTitle(getString(node, "title"))
+            .setBody(getString(node, "body"))
+            .setCreatedAt(getDate(node, "createdAt"))
+            .setUpdatedAt(getDate(node, "updatedAt"))
+            // Merged pull requests are closed, as far as the REST API is concerned
+            .setState(node.get("state").getAsString().equals("OPEN") ? TurboIssue.STATE_OPEN : TurboIssue.STATE_CLOSED)
+            .setUser(toUser(getObject(node, "author")))
+            .setComments(node.getAsJsonObject("comments").get("totalCount").getAsInt());
+
+        JsonArray assignees = node.getAsJsonObject("assignees").getAsJsonArray("nodes");
+        if (assignees.size() > 0) {
+            issue.setAssignee(toUser(assignees.get(0).getAsJsonObject()));
+        }
+        JsonObject milestone = getObject(node, "milestone");
+        if (milestone != null) {
+            issue.setMilestone(new Milestone().setNumber(milestone.get("number").getAsInt()));
+        }
+        List<Label> labels = new ArrayList<>();
+        for (JsonElement label : node.getAsJsonObject("labels").getAsJsonArray("nodes")) {
+            labels.add(new Label().setName(getString(label.getAsJsonObject(), "name")));
+        }
+        issue.setLabels(labels);
+        if (isPullRequest) {
+            issue.setPullRequest(new PullRequest().setUrl(getString(node, "url")));
+        }
+        return issue;
+    }
+
+    /**
+     * @return the comments and events of an issue, if they were all downloaded with it
+     */
+    private static Optional<IssueMetadata> toMetadata(JsonObject node) {
+        JsonObject comments = node.getAsJsonObject("comments");
+        JsonObject events = node.getAsJsonObject("timelineItems");
+        if (comments.getAsJsonObject("pageInfo").get("hasNextPage").getAsBoolean()
+            || events.getAsJsonObject("pageInfo").get("hasNextPage").getAsBoolean()) {
+            return Optional.empty();
+        }
+
+        List<TurboIssueEvent> issueEvents = new ArrayList<>();
+        for (JsonElement event : events.getAsJsonArray("nodes")) {
+            issueEvents.add(toEvent(event.getAsJsonObject()));
+        }
+        List<Comment> issueComments = new ArrayList<>();
+        for (JsonElement comment : comments.getAsJsonArray("nodes")) {
+            issueComments.add(toComment(comment.getAsJsonObject()));
+        }
+        return Optional.of(new IssueMetadata(issueEvents, issueComments));
+    }
+
+    private static TurboIssueEvent toEvent(JsonObject node) {
+        String typeName = node.get("__typename").getAsString().replaceAll("Event$", "");
+        IssueEventType type = typeName.equals("RenamedTitle")
+            ? IssueEventType.Renamed
+            : IssueEventType.valueOf(typeName);
+        TurboIssueEvent event = new TurboIssueEvent(toUser(getObject(node, "actor")), type,
+            getDate(node, "createdAt"));
+
+        switch (type) {
+        case Renamed:
+            event.setRenamedFrom(getString(node, "previousTitle"));
+            event.setRenamedTo(getString(node, "currentTitle"));
+            break;
+        case Milestoned:
+        case Demilestoned:
+            event.setMilestoneTitle(getString(node, "milestoneTitle"));
+            break;
+        case Labeled:
+        case Unlabeled:
+            JsonObject label = node.getAsJsonObject("label");
+            event.setLabelName(getString(label, "name"));
+            event.setLabelColour(getString(label, "color"));
+            break;
+        case Assigned:
+        case Unassigned:
+            event.setAssignedUser(toUser(getObject(node, "assignee")));
+            break;
+        default:
+            break;
+        }
+        return event;
+    }
+
+    private static Comment toComment(JsonObject node) {
+        return new Comment()
+            .setId(node.get("databaseId").getAsLong())
+            .setBody(getString(node, "body"))
+            .setCreatedAt(getDate(node, "createdAt"))
+            .setUpdatedAt(getDate(node, "updatedAt"))
+            .setUrl(getString(node, "url"))
+            .setUser(toUser(getObject(node, "author")));
+    }
+
+    private static Label toLabel(JsonObject node) {
+        return new Label()
+            .setName(getString(node, "name"))
+            .setColor(getString(node, "color"));
+    }
+
+    private static Milestone toMilestone(JsonObject node) {
+        return new Milestone()
+            .setNumber(node.get("number").getAsInt())
+            .setTitle(getString(node, "title"))
+            .setDescription(getString(node, "description"))
+            .setDueOn(getDate(node, "dueOn"))
+            .setState(node.get("state").getAsString().equals("OPEN") ? "open" : "closed")
+            // The REST API counts pull requests as issues
+            .setOpenIssues(getTotalCount(node, "openIssues") + getTotalCount(node, "openPullRequests"))
+            .setClosedIssues(getTotalCount(node, "closedIssues") + getTotalCount(node, "closedPullRequests"));
+    }
+
+    /**
+     * @param node a user, or null for a user who has been deleted
+     */
+    private static User toUser(JsonObject node) {
+        if (node == null) {
+            return new User().setLogin(GHOST_LOGIN);
+        }
+        return new User()
+            .setLogin(getString(node, "login"))
+            .setName(getString(node, "name"))
+            .setAvatarUrl(getString(node, "avatarUrl"));
+    }
+
+    private static int getTotalCount(JsonObject node, String member) {
+        return node.getAsJsonObject(member).get("totalCount").getAsInt();
+    }
+
+    private static JsonObject getObject(JsonObject node, String member) {
+        JsonElement element = node.get(member);
+        return element == null || element.isJsonNull() ? null : element.getAsJsonObject();
+    }
+
+    private static String getString(JsonObject node, String member) {
+        JsonElement element = node.get(member);
+        return element == null || element.isJsonNull() ? null : element.getAsString();
+    }
+
+    private static Date getDate(JsonObject node, String member) {
+        String date = getString(node, member);
+        return date == null ? null : Date.from(Instant.parse(date));
+    }
+
+    private static String readQuery() {
+        try (InputStream stream = RepositoryQuery.class.getResourceAsStream(QUERY_RESOURCE)) {
+            if (stream == null) {
+                throw new IOException(QUERY_RESOURCE + " is missing");
+            }
+            return new String(IOUtilities.inputStreamToByteArrayOutputStream(stream).toByteArray(),
+                StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read " + QUERY_RESOURCE, e);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package backend.github;
+
+import backend.interfaces.RepoTask;
+import github.GitHubClientExtended;
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+import util.Utility;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when tasks against GitHub start, by how urgent they are and how much of the rate limit
+ * is left.
+ *
+ * Interactive tasks start straight away. Other tasks take turns in priority order, a few at a
+ * time. Background tasks are spread out over the rest of the rate limit period once little of the
+ * limit is left, and wait for the limit to be reset once only a reserve for the user's own actions
+ * is left, so that refreshes do not use up the requests the user needs.
+ *
+ * The rate limit is learnt from the headers of every response, through the client it is
+ * registered with.
+ */
+public class RequestScheduler implements GitHubClientExtended.RateLimitListener {
+
+    private static final Logger logger = HTLog.get(RequestScheduler.class);
+
+    public enum Priority {
+        // Changes the user is waiting on, e.g. to an issue's labels
+        INTERACTIVE,
+        // What the user is looking at, e.g. the metadata of the issues in panels
+        VISIBLE,
+        // Refreshes the user has not asked for
+        BACKGROUND
+    }
+
+    // The most tasks other than interactive ones in progress at once
+    public static final int MAX_TASKS_IN_PROGRESS = 4;
+
+    // Below this fraction of the limit, background tasks are spread out
+    private static final double LOW_QUOTA_FRACTION = 0.2;
+
+    // The fraction of the limit, up to a number of requests, kept back from background tasks
+    private static final double RESERVED_QUOTA_FRACTION = 0.05;
+    private static final int MAX_RESERVED_REQUESTS = 100;
+
+    private static class RateLimit {
+        public final int remaining;
+        public final int limit;
+        public final long resetTime;
+
+        public RateLimit(int remaining, int limit, long resetTime) {
+            this.remaining = remaining;
+            this.limit = limit;
+            this.resetTime = resetTime;
+        }
+
+        public int getReserve() {
+            return Math.min(MAX_RESERVED_REQUESTS, (int) (limit * RESERVED_QUOTA_FRACTION));
+        }
+    }
+
+    private static class QueuedTask implements Comparable<QueuedTask> {
+        public final RepoTask<?> task;
+        public final Priority priority;
+        public final long sequenceNumber;
+
+        public QueuedTask(RepoTask<?> task, Priority priority, long sequenceNumber) {
+            this.task = task;
+            this.priority = priority;
+            this.sequenceNumber = sequenceNumber;
+        }
+
+        @Override
+        public int compareTo(QueuedTask other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequenceNumber, other.sequenceNumber);
+        }
+    }
+
+    private final Executor executor;
+
+    // Starts tasks which were held back once they may go
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "RequestScheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Guarded by this
+    private final PriorityQueue<QueuedTask> queue = new PriorityQueue<>();
+    private final Map<String, RateLimit> rateLimits = new HashMap<>();
+    private long nextSequenceNumber = 0;
+    private int tasksInProgress = 0;
+    private long lastBackgroundStart = 0;
+    private boolean isThrottled = false;
+    private ScheduledFuture<?> wakeUp = null;
+
+    /**
+     * @param executor runs the tasks
+     */
+    public RequestScheduler(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Starts the task when its turn comes.
+     */
+    public synchronized void schedule(RepoTask<?> task, Priority priority) {
+        queue.add(new QueuedTask(task, priority, nextSequenceNumber++));
+        startTasks();
+    }
+
+    @Override
+    public synchronized void rateLimitUpdated(String resource, int remaining, int limit, long resetTime) {
+        rateLimits.put(resource, new RateLimit(remaining, limit, resetTime));
+        startTasks();
+    }
+
+    public synchronized int getQueueLength() {
+        return queue.size();
+    }
+
+    private synchronized void startTasks() {
+        while (!queue.isEmpty()) {
+            QueuedTask next = queue.peek();
+            if (next.priority != Priority.INTERACTIVE) {
+                if (tasksInProgress >= MAX_TASKS_IN_PROGRESS) {
+                    return;
+                }
+                long delay = getDelay(next.priority, System.currentTimeMillis());
+                if (delay > 0) {
+                    wakeUpIn(delay);
+                    return;
+                }
+            }
+            queue.remove();
+            start(next);
+        }
+    }
+
+    private void start(QueuedTask next) {
+        if (next.priority == Priority.BACKGROUND) {
+            lastBackgroundStart = System.currentTimeMillis();
+        }
+        if (next.priority != Priority.INTERACTIVE) {
+            tasksInProgress++;
+            next.task.response.whenComplete((result, e) -> taskFinished());
+        }
+        executor.execute(() -> {
+            try {
+                next.task.run();
+            } catch (RuntimeException e) {
+                // Otherwise the task would hold on to its turn
+                HTLog.error(logger, e);
+                next.task.response.completeExceptionally(e);
+            }
+        });
+    }
+
+    private synchronized void taskFinished() {
+        tasksInProgress--;
+        startTasks();
+    }
+
+    /**
+     * @return how long a task of the given priority must wait before it may start, in milliseconds
+     */
+    private long getDelay(Priority priority, long now) {
+        long delay = 0;
+        boolean isLow = false;
+        for (Map.Entry<String, RateLimit> entry : rateLimits.entrySet()) {
+            RateLimit rateLimit = entry.getValue();
+            long untilReset = rateLimit.resetTime - now;
+            if (untilReset <= 0) {
+                continue;
+            }
+            if (priority == Priority.VISIBLE) {
+                // Only held back when any request would be refused
+                if (rateLimit.remaining <= 0) {
+                    delay = Math.max(delay, untilReset);
+                }
+                continue;
+            }
+
+            int available = rateLimit.remaining - rateLimit.getReserve();
+            boolean isResourceLow = true;
+            if (available <= 0) {
+                delay = Math.max(delay, untilReset);
+            } else if (rateLimit.remaining < rateLimit.limit * LOW_QUOTA_FRACTION) {
+                delay = Math.max(delay, lastBackgroundStart + untilReset / available - now);
+            } else {
+                isResourceLow = false;
+            }
+            isLow = isLow || isResourceLow;
+            if (isResourceLow && !isThrottled) {
+                logger.info(String.format("Only %d of %d %s requests left until %s; slowing down background tasks",
+                    rateLimit.remaining, rateLimit.limit, entry.getKey(),
+                    Utility.dateToLocalDateTime(new Date(rateLimit.resetTime))));
+            }
+        }
+        if (priority == Priority.BACKGROUND) {
+            isThrottled = isLow;
+        }
+        return delay;
+    }
+
+    private void wakeUpIn(long delay) {
+        if (wakeUp != null && !wakeUp.isDone() && wakeUp.getDelay(TimeUnit.MILLISECONDS) <= delay) {
+            return;
+        }
+        if (wakeUp != null) {
+            wakeUp.cancel(false);
+        }
+        wakeUp = timer.schedule(this::startTasks, delay, TimeUnit.MILLISECONDS);
+    }
+}
@@ -2,6 +2,8 @@ package backend.github;
 
 import backend.interfaces.Repo;
 import backend.interfaces.TaskRunner;
+import backend.resource.ChangeSet;
+import backend.resource.KeyedMerge;
 import backend.resource.Model;
 import backend.resource.TurboIssue;
 import org.apache.commons.lang3.tuple.ImmutableTriple;
@@ -33,10 +35,10 @@ public class UpdateIssuesTask extends GitHubRepoTask<GitHubRepoTask.Result<Turbo
         logger.info(HTLog.format(model.getRepoId(), "%s issue(s)) changed%s",
             changed.size(), changed.isEmpty() ? "" : ": " + changed));
 
-        List<TurboIssue> updated = changed.isEmpty()
-            ? existing
+        KeyedMerge.Result<TurboIssue> updated = changed.isEmpty()
+            ? new KeyedMerge.Result<>(existing, ChangeSet.empty())
             : TurboIssue.reconcile(model.getRepoId(), existing, changed);
 
-        response.complete(new Result<>(updated, changes.middle, changes.right));
+        response.complete(new Result<>(updated.items, updated.changes, changes.middle, changes.right));
     }
 }
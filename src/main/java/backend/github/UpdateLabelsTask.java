@@ -2,6 +2,8 @@ package backend.github;
 
 import backend.interfaces.Repo;
 import backend.interfaces.TaskRunner;
+import backend.resource.ChangeSet;
+import backend.resource.KeyedMerge;
 import backend.resource.Model;
 import backend.resource.TurboLabel;
 import org.apache.commons.lang3.tuple.ImmutablePair;
@@ -36,6 +38,10 @@ public class UpdateLabelsTask extends GitHubRepoTask<GitHubRepoTask.Result<Turbo
             ? model.getLabels()
             : new ArrayList<>(changed);
 
-        response.complete(new Result<>(updated, changes.right));
+        // These are replaced as a whole when they change, and are few, so they are simply compared
+        ChangeSet<TurboLabel> updates = changed.isEmpty()
+            ? ChangeSet.empty()
+            : KeyedMerge.LABELS.diff(model.getLabels(), updated);
+        response.complete(new Result<>(updated, updates, changes.right));
     }
 }
@@ -7,8 +7,12 @@ import backend.resource.*;
 import org.apache.logging.log4j.Logger;
 import util.HTLog;
 
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletableFuture;
 
+/**
+ * Updates a model's issues, labels, milestones and users at the same time, without waiting for
+ * them on a thread of its own.
+ */
 public class UpdateModelTask extends GitHubRepoTask<Model> {
 
     private static final Logger logger = HTLog.get(UpdateModelTask.class);
@@ -32,23 +36,31 @@ public class UpdateModelTask extends GitHubRepoTask<Model> {
         taskRunner.execute(milestonesTask);
         taskRunner.execute(usersTask);
 
-        try {
-            GitHubRepoTask.Result<TurboIssue> issuesResult = issuesTask.response.get();
-            GitHubRepoTask.Result<TurboLabel> labelsResult = labelsTask.response.get();
-            GitHubRepoTask.Result<TurboMilestone> milestonesResult = milestonesTask.response.get();
-            GitHubRepoTask.Result<TurboUser> usersResult = usersTask.response.get();
+        CompletableFuture.allOf(issuesTask.response, labelsTask.response, milestonesTask.response,
+            usersTask.response).whenComplete((done, e) -> {
+                if (e != null) {
+                    // The model stays as it was, to be updated again next time
+                    logger.error(HTLog.format(model.getRepoId(), "Unable to update model"), e);
+                    response.complete(model);
+                    return;
+                }
+                GitHubRepoTask.Result<TurboIssue> issuesResult = issuesTask.response.join();
+                GitHubRepoTask.Result<TurboLabel> labelsResult = labelsTask.response.join();
+                GitHubRepoTask.Result<TurboMilestone> milestonesResult = milestonesTask.response.join();
+                GitHubRepoTask.Result<TurboUser> usersResult = usersTask.response.join();
 
-            UpdateSignature newSignature =
-                new UpdateSignature(issuesResult.eTag, labelsResult.eTag,
-                    milestonesResult.eTag, usersResult.eTag, issuesResult.lastCheckTime);
+                UpdateSignature newSignature =
+                    new UpdateSignature(issuesResult.eTag, labelsResult.eTag,
+                        milestonesResult.eTag, usersResult.eTag, issuesResult.lastCheckTime);
 
-            Model result = new Model(model.getRepoId(), issuesResult.items,
-                labelsResult.items, milestonesResult.items, usersResult.items, newSignature);
+                ModelChanges changes = new ModelChanges(model.getRepoId(), issuesResult.changes,
+                    labelsResult.changes, milestonesResult.changes, usersResult.changes);
+                Model result = new Model(model.getRepoId(), issuesResult.items,
+                    labelsResult.items, milestonesResult.items, usersResult.items, newSignature, model, changes);
 
-            logger.info(HTLog.format(model.getRepoId(), "Updated model with " + result.summarise()));
-            response.complete(result);
-        } catch (InterruptedException | ExecutionException e) {
-            HTLog.error(logger, e);
-        }
+                logger.info(HTLog.format(model.getRepoId(), "Updated model with %s (%s)",
+                    result.summarise(), changes));
+                response.complete(result);
+            });
     }
 }
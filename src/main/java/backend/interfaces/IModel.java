@@ -7,16 +7,17 @@ import java.util.Optional;
 import java.util.function.Predicate;
 
 /**
- * Only implemented by MultiModel.
+ * A read-only view of the models, implemented by MultiModel and by the views of
+ * it which ModelUpdatedEvents carry to the UI.
  * This interface's purpose is to hide the public methods of MultiModel from
- * the UI.
+ * the UI, so it only has methods which read.
   */
 public interface IModel extends IBaseModel {
     String getDefaultRepo();
-    void setDefaultRepo(String repoId);
     Optional<Model> getModelById(String repoId);
     Optional<TurboUser> getAssigneeOfIssue(TurboIssue issue);
     List<TurboLabel> getLabelsOfIssue(TurboIssue issue);
     List<TurboLabel> getLabelsOfIssue(TurboIssue issue, Predicate<TurboLabel> predicate);
     Optional<TurboMilestone> getMilestoneOfIssue(TurboIssue issue);
+    IssueState getStateOfIssue(TurboIssue issue);
 }
@@ -14,12 +14,27 @@ import org.eclipse.egit.github.core.Label;
 import java.io.IOException;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 public interface Repo {
 
     boolean login(UserCredentials credentials);
 
     List<TurboIssue> getIssues(String repoId);
+
+    /**
+     * Like getIssues, but also hands the issues to the given handler in batches as they are downloaded,
+     * for repositories which download them in several requests.
+     * @param isCancelled checked before each further request, which is not made once it returns true
+     * @throws java.util.concurrent.CancellationException if the download was cancelled before it was done
+     */
+    default List<TurboIssue> getIssues(String repoId, Consumer<List<TurboIssue>> pageHandler,
+                                       BooleanSupplier isCancelled) {
+        return getIssues(repoId);
+    }
+
     List<TurboLabel> getLabels(String repoId);
     List<TurboMilestone> getMilestones(String repoId);
     List<TurboUser> getCollaborators(String repoId);
@@ -34,6 +49,28 @@ public interface Repo {
     List<TurboIssueEvent> getEvents(String repoId, int issueId);
     List<Comment> getComments(String repoId, int issueId);
 
+    /**
+     * Gets the events of an issue if they have changed since they had the given ETag.
+     * @param eTag may be null
+     * @return the events and their ETag (which may be null), or empty if they have not changed
+     * @throws IOException if the events could not be downloaded
+     */
+    default Optional<ImmutablePair<List<TurboIssueEvent>, String>> getUpdatedEvents(String repoId, int issueId,
+                                                                                  String eTag) throws IOException {
+        return Optional.of(new ImmutablePair<>(getEvents(repoId, issueId), null));
+    }
+
+    /**
+     * Gets the comments on an issue if they have changed since they had the given ETag.
+     * @param eTag may be null
+     * @return the comments and their ETag (which may be null), or empty if they have not changed
+     * @throws IOException if the comments could not be downloaded
+     */
+    default Optional<ImmutablePair<List<Comment>, String>> getUpdatedComments(String repoId, int issueId,
+                                                                            String eTag) throws IOException {
+        return Optional.of(new ImmutablePair<>(getComments(repoId, issueId), null));
+    }
+
     boolean isRepositoryValid(String repoId);
     List<Label> setLabels(String repoId, int issueId, List<String> labels) throws IOException;
     ImmutablePair<Integer, Long> getRateLimitResetTime() throws IOException;
@@ -5,16 +5,21 @@ import backend.UserCredentials;
 import backend.resource.Model;
 import backend.resource.TurboIssue;
 import org.apache.commons.lang3.tuple.ImmutablePair;
+import util.InstrumentedExecutor;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 public abstract class RepoSource implements TaskRunner {
 
-    private final ExecutorService pool = Executors.newCachedThreadPool();
+    // Enough for a few repositories to be downloaded or updated at once, alongside metadata downloads.
+    // Tasks must not wait on other tasks they give to the pool, as they may be queued behind them.
+    private static final int POOL_THREADS = 16;
+
+    private final InstrumentedExecutor pool = new InstrumentedExecutor(getClass().getSimpleName(), POOL_THREADS);
 
     @Override
     public <R> RepoTask<R> addTask(RepoTask<R> task) {
@@ -27,16 +32,33 @@ public abstract class RepoSource implements TaskRunner {
         pool.execute(r);
     }
 
+    /**
+     * @return what each of the source's pools is doing and has done
+     */
+    public List<InstrumentedExecutor.Statistics> getPoolStatistics() {
+        return Collections.singletonList(pool.getStatistics());
+    }
+
     public abstract String getName();
 
     public abstract CompletableFuture<Boolean> login(UserCredentials credentials);
 
-    public abstract CompletableFuture<Model> downloadRepository(String repoId);
+    /**
+     * @param provisionalModelHandler given models of the repository while it is being downloaded: first
+     *                                without its issues, if that is ready before them, then with the
+     *                                issues downloaded so far, at most every so often
+     */
+    public abstract CompletableFuture<Model> downloadRepository(String repoId,
+                                                                Consumer<Model> provisionalModelHandler);
 
     public abstract CompletableFuture<Model> updateModel(Model model);
 
+    /**
+     * @param previousMetadata the metadata of some of the issues as previously downloaded, by issue id,
+     *                         which is returned for those whose metadata has not changed since
+     */
     public abstract CompletableFuture<Map<Integer, IssueMetadata>>
-        downloadMetadata(String repoId, List<Integer> issues);
+        downloadMetadata(String repoId, List<Integer> issues, Map<Integer, IssueMetadata> previousMetadata);
 
     public abstract CompletableFuture<Boolean> isRepositoryValid(String repoId);
 
@@ -5,44 +5,117 @@ import backend.resource.serialization.SerializableModel;
 import util.Utility;
 
 import java.io.File;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public abstract class RepoStore {
 
     protected static String directory = "store";
     public static final String TEST_DIRECTORY = "store/test";
-    private final ExecutorService pool = Executors.newSingleThreadExecutor();
+    public static final String JSON_EXTENSION = "json";
+    private final ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+
+    // The last task queued for each repository (by case-insensitive id, like their store files);
+    // tasks for the same repository run in the order queued, while tasks for different repositories
+    // run in parallel
+    private final Map<String, CompletableFuture<Void>> lastTasks = new ConcurrentHashMap<>();
 
     public static String escapeRepoName(String repoName) {
-        return repoName.replace("/", "-") + ".json";
+        return escapeRepoName(repoName, JSON_EXTENSION);
+    }
+
+    public static String escapeRepoName(String repoName, String extension) {
+        return repoName.replace("/", "-") + "." + extension;
     }
 
     protected void addTask(StoreTask task) {
-        pool.execute(task);
+        String key = task.repoId.toLowerCase();
+        CompletableFuture<Void> next = lastTasks.compute(key, (repoId, lastTask) ->
+                (lastTask == null ? CompletableFuture.<Void>completedFuture(null) : lastTask)
+                        .exceptionally(e -> null)
+                        .thenRunAsync(task, pool));
+        next.whenComplete((result, e) -> lastTasks.remove(key, next));
     }
 
     public abstract CompletableFuture<Model> loadRepository(String repoId);
     public abstract CompletableFuture<Boolean> saveRepository(String repoId, SerializableModel model);
 
+    /**
+     * Saves a repository which was previously in the given state. Stores which can persist
+     * the changes incrementally should override this; by default the whole model is saved.
+     */
+    public CompletableFuture<Boolean> saveRepositoryChanges(String repoId, Model previous, Model updated) {
+        return saveRepository(repoId, new SerializableModel(updated));
+    }
+
+    /**
+     * Returns the ids of the repositories that can be loaded from this store.
+     */
+    public abstract List<String> getStoredRepos();
+
     private static Optional<String> getRepoPath(String repoId) {
+        return getRepoPath(repoId, JSON_EXTENSION);
+    }
+
+    /**
+     * Returns the path of the repository's file with the given extension, which may not exist yet.
+     */
+    public static Optional<String> getRepoPath(String repoId, String extension) {
         if (ensureDirectoryExists()) {
-            String newRepoName = RepoStore.escapeRepoName(repoId);
+            String newRepoName = RepoStore.escapeRepoName(repoId, extension);
             return Optional.of(new File(RepoStore.directory, newRepoName).getAbsolutePath());
         }
         return Optional.empty();
     }
 
+    /**
+     * Returns true if the repository has a store file with the given extension.
+     */
+    protected static boolean exists(String repoId, String extension) {
+        return getRepoPath(repoId, extension).map(File::new).map(File::isFile).orElse(false);
+    }
+
+    /**
+     * Deletes the repository's store file with the given extension, if any.
+     * Returns true if there is no such file after the call.
+     */
+    protected static boolean delete(String repoId, String extension) {
+        Optional<File> file = getRepoPath(repoId, extension).map(File::new);
+        return !file.isPresent() || !file.get().exists() || file.get().delete();
+    }
+
     public static boolean write(String repoId, String output, int issueCount) {
         return Utility.writeFile(getRepoPath(repoId).orElse(""), output, issueCount);
     }
 
+    /**
+     * Streams the output directly into the repository's store file.
+     * Returns true on corruption.
+     */
+    public static boolean write(String repoId, Consumer<Writer> output, int issueCount) {
+        return Utility.writeFile(getRepoPath(repoId).orElse(""), output, issueCount);
+    }
+
     public static Optional<String> read(String repoId) {
         return Utility.readFile(getRepoPath(repoId).orElse(""));
     }
 
+    /**
+     * Streams the repository's store file directly into the given parser.
+     */
+    public static <T> Optional<T> read(String repoId, Function<Reader, T> input) {
+        return Utility.readFile(getRepoPath(repoId).orElse(""), input);
+    }
+
     /**
      * Returns true on success.
      * @return
@@ -51,7 +124,9 @@ public abstract class RepoStore {
         File directory = new File(RepoStore.directory);
         boolean directoryNonExistent = !directory.exists() || !directory.isDirectory();
         if (directoryNonExistent) {
-            return directory.mkdirs();
+            // Another task may create the directory at the same time, in which case mkdirs fails
+            directory.mkdirs();
+            return directory.isDirectory();
         }
         return true;
     }
@@ -16,6 +16,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
@@ -40,12 +41,13 @@ public class JSONStore extends RepoStore {
         return response;
     }
 
+    @Override
     public List<String> getStoredRepos() {
         ensureDirectoryExists();
         try {
-            return Files.walk(Paths.get(RepoStore.directory), 1)
+            return Files.list(Paths.get(RepoStore.directory))
                     .filter(Files::isRegularFile)
-                    .filter(p -> getFileExtension(String.valueOf(p.getFileName())).equalsIgnoreCase("json"))
+                    .filter(p -> getFileExtension(String.valueOf(p.getFileName())).equalsIgnoreCase(JSON_EXTENSION))
                     .map(JSONStore::getRepositoryIdFromJson)
                     .filter(Optional::isPresent)
                     .map(Optional::get)
@@ -56,16 +58,24 @@ public class JSONStore extends RepoStore {
         }
     }
 
+    /**
+     * Removes the repository's JSON file from the store, e.g. after it has been migrated to another format.
+     * @return true if the file no longer exists
+     */
+    public boolean deleteRepository(String repoId) {
+        return delete(repoId, JSON_EXTENSION);
+    }
+
     private static Optional<String> getRepositoryIdFromJson(Path p) {
         try {
-            String repoId = new Model(
-                    (SerializableModel) new Gson().fromJson(Utility.readFile(String.valueOf(p.toAbsolutePath())).get(),
-                            new TypeToken<SerializableModel>() {}.getType())).getRepoId();
+            String repoId = new Model(Utility.readFile(String.valueOf(p.toAbsolutePath()), reader ->
+                    (SerializableModel) new Gson().fromJson(reader,
+                            new TypeToken<SerializableModel>() {}.getType())).get()).getRepoId();
             if (String.valueOf(p.getFileName()).equalsIgnoreCase(escapeRepoName(repoId))) {
                 logger.info("Adding " + p.getFileName() + " to stored repository list. ");
                 return Optional.of(repoId);
             }
-        } catch (NullPointerException | JsonParseException e) {
+        } catch (NullPointerException | NoSuchElementException | JsonParseException e) {
             logger.error("Unable to load repository from " + p.getFileName());
         }
         return Optional.empty();
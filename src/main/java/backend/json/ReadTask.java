@@ -45,7 +45,14 @@ class ReadTask extends StoreTask {
      *         retrieved from the local store or is corrupted
      */
     private Model load(String repoId) throws RepoStoreException {
-        Optional<String> input = RepoStore.read(repoId);
+        Optional<SerializableModel> input;
+        try {
+            input = RepoStore.read(repoId, reader ->
+                    new Gson().fromJson(reader, new TypeToken<SerializableModel>(){}.getType()));
+        } catch (JsonParseException e) {
+            logger.error(HTLog.format(repoId, "JSON data is corrupted"));
+            throw new JSONLoadException();
+        }
 
         if (!input.isPresent()) {
             logger.error("Unable to load " + repoId + " from JSON cache");
@@ -54,15 +61,11 @@ class ReadTask extends StoreTask {
             logger.info(HTLog.format(repoId, "Data loaded from JSON cache"));
 
             try {
-                SerializableModel sModel = new Gson().fromJson(input.get(),
-                        new TypeToken<SerializableModel>(){}.getType());
-
-                return new Model(sModel);
-            } catch (NullPointerException | JsonParseException e) {
+                return new Model(input.get());
+            } catch (NullPointerException e) {
                 logger.error(HTLog.format(repoId, "JSON data is corrupted"));
                 throw new JSONLoadException();
             }
         }
     }
 }
-
@@ -4,7 +4,7 @@ import backend.interfaces.RepoStore;
 import backend.interfaces.StoreTask;
 import backend.resource.serialization.SerializableModel;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
 import org.apache.logging.log4j.Logger;
 import util.HTLog;
 
@@ -29,10 +29,15 @@ class WriteTask extends StoreTask {
     }
 
     private boolean save(String repoId, SerializableModel model) {
-        String output = new Gson().toJson(model);
-        boolean corruptedJson = RepoStore.write(repoId, output, model.issues.size());
-        logger.info(HTLog.format(repoId, "Written to JSON store"));
-        return corruptedJson;
+        try {
+            boolean corruptedJson = RepoStore.write(repoId,
+                    writer -> new Gson().toJson(model, SerializableModel.class, writer), model.issues.size());
+            logger.info(HTLog.format(repoId, "Written to JSON store"));
+            return corruptedJson;
+        } catch (JsonIOException e) {
+            logger.error(HTLog.format(repoId, "Unable to write to JSON store"), e);
+            return true;
+        }
     }
 }
 
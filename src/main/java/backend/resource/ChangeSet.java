@@ -0,0 +1,79 @@
+package backend.resource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The items of one kind which were added to, changed in or removed from a repository.
+ * Added and changed items are as they are now; removed items are as they were.
+ *
+ * @param <T> the kind of item, e.g. TurboIssue
+ */
+public class ChangeSet<T> {
+
+    public final List<T> added;
+    public final List<T> changed;
+    public final List<T> removed;
+
+    public ChangeSet(List<T> added, List<T> changed, List<T> removed) {
+        this.added = Collections.unmodifiableList(new ArrayList<>(added));
+        this.changed = Collections.unmodifiableList(new ArrayList<>(changed));
+        this.removed = Collections.unmodifiableList(new ArrayList<>(removed));
+    }
+
+    public static <T> ChangeSet<T> empty() {
+        return new ChangeSet<>(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && changed.isEmpty() && removed.isEmpty();
+    }
+
+    /**
+     * @return the added and changed items, i.e. those which are new or different
+     */
+    public List<T> getAddedOrChanged() {
+        List<T> result = new ArrayList<>(added);
+        result.addAll(changed);
+        return result;
+    }
+
+    /**
+     * @return the items in this change set followed by those in the next; an item may then be
+     *         mentioned more than once
+     */
+    public ChangeSet<T> followedBy(ChangeSet<T> next) {
+        return new ChangeSet<>(concat(added, next.added), concat(changed, next.changed),
+            concat(removed, next.removed));
+    }
+
+    private static <T> List<T> concat(List<T> first, List<T> second) {
+        List<T> result = new ArrayList<>(first);
+        result.addAll(second);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d added, %d changed, %d removed", added.size(), changed.size(), removed.size());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ChangeSet<?> changeSet = (ChangeSet<?>) o;
+        return added.equals(changeSet.added) &&
+                changed.equals(changeSet.changed) &&
+                removed.equals(changeSet.removed);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = added.hashCode();
+        result = 31 * result + changed.hashCode();
+        result = 31 * result + removed.hashCode();
+        return result;
+    }
+}
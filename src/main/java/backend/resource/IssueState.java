@@ -0,0 +1,60 @@
+package backend.resource;
+
+import backend.IssueMetadata;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * The state of an issue which is not serialized: its metadata, and whether it has been read.
+ * Immutable; a change to the state of an issue replaces its state as a whole.
+ */
+public class IssueState {
+
+    public static final IssueState NONE = new IssueState(new IssueMetadata(), Optional.empty(), false);
+
+    private final IssueMetadata metadata;
+    private final Optional<LocalDateTime> markedReadAt;
+    private final boolean isCurrentlyRead;
+
+    private IssueState(IssueMetadata metadata, Optional<LocalDateTime> markedReadAt, boolean isCurrentlyRead) {
+        this.metadata = metadata;
+        this.markedReadAt = markedReadAt;
+        this.isCurrentlyRead = isCurrentlyRead;
+    }
+
+    public IssueMetadata getMetadata() {
+        return metadata;
+    }
+
+    public Optional<LocalDateTime> getMarkedReadAt() {
+        return markedReadAt;
+    }
+
+    public boolean isCurrentlyRead() {
+        return isCurrentlyRead;
+    }
+
+    public IssueState withMetadata(IssueMetadata metadata) {
+        return new IssueState(metadata, markedReadAt, isCurrentlyRead);
+    }
+
+    /**
+     * @return this state with the issue read at the given time, or unread if there is none
+     */
+    public IssueState withMarkedReadAt(Optional<LocalDateTime> markedReadAt) {
+        return new IssueState(metadata, markedReadAt, markedReadAt.isPresent());
+    }
+
+    /**
+     * @return this state with the issue read or not, keeping the time it was last marked read
+     */
+    public IssueState withCurrentlyRead(boolean isCurrentlyRead) {
+        return new IssueState(metadata, markedReadAt, isCurrentlyRead);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s, %s", isCurrentlyRead ? "read" : "unread", metadata.summarise());
+    }
+}
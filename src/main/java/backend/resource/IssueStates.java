@@ -0,0 +1,73 @@
+package backend.resource;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Thread-safe. The state of issues which is not serialized, kept apart from the (immutable) issues
+ * by repo and id, so that it carries over from one version of an issue to the next.
+ *
+ * The state of an issue is replaced as a whole, so readers see either all of a change or none of it.
+ */
+public class IssueStates {
+
+    private static final class Key {
+        private final String repoId;
+        private final int id;
+
+        private Key(String repoId, int id) {
+            // Repo ids are case-insensitive
+            this.repoId = repoId.toLowerCase();
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return id == key.id && repoId.equals(key.repoId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * repoId.hashCode() + id;
+        }
+    }
+
+    private final ConcurrentHashMap<Key, IssueState> states = new ConcurrentHashMap<>();
+
+    public IssueState get(String repoId, int id) {
+        return states.getOrDefault(new Key(repoId, id), IssueState.NONE);
+    }
+
+    public IssueState get(TurboIssue issue) {
+        return get(issue.getRepoId(), issue.getId());
+    }
+
+    /**
+     * Atomically replaces the state of an issue with the result of the given function.
+     */
+    public void update(String repoId, int id, UnaryOperator<IssueState> update) {
+        states.compute(new Key(repoId, id), (key, state) -> update.apply(state == null ? IssueState.NONE : state));
+    }
+
+    public void update(TurboIssue issue, UnaryOperator<IssueState> update) {
+        update(issue.getRepoId(), issue.getId(), update);
+    }
+
+    /**
+     * Forgets the state of an issue which is no longer in its repository.
+     */
+    public void remove(TurboIssue issue) {
+        states.remove(new Key(issue.getRepoId(), issue.getId()));
+    }
+
+    /**
+     * Forgets the state of every issue of a repository which is no longer open.
+     */
+    public void removeRepository(String repoId) {
+        String key = repoId.toLowerCase();
+        states.keySet().removeIf(state -> state.repoId.equals(key));
+    }
+}
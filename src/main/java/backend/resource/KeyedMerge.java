@@ -0,0 +1,127 @@
+package backend.resource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Merges lists of items which are told apart by a key, such as issues by id, in time linear in the
+ * number of items. Each merge reports exactly which items were added, changed or removed, judged by
+ * equality, so that what comes after an update need only look at those.
+ *
+ * @param <K> the type of key
+ * @param <T> the kind of item
+ */
+public class KeyedMerge<K, T> {
+
+    public static final KeyedMerge<Integer, TurboIssue> ISSUES = new KeyedMerge<>(TurboIssue::getId);
+    public static final KeyedMerge<String, TurboLabel> LABELS = new KeyedMerge<>(TurboLabel::getActualName);
+    public static final KeyedMerge<Integer, TurboMilestone> MILESTONES = new KeyedMerge<>(TurboMilestone::getId);
+    public static final KeyedMerge<String, TurboUser> USERS = new KeyedMerge<>(TurboUser::getLoginName);
+
+    /**
+     * The merged items, and how they differ from the items before.
+     */
+    public static class Result<T> {
+        public final List<T> items;
+        public final ChangeSet<T> changes;
+
+        public Result(List<T> items, ChangeSet<T> changes) {
+            this.items = items;
+            this.changes = changes;
+        }
+    }
+
+    private final Function<T, K> key;
+
+    public KeyedMerge(Function<T, K> key) {
+        this.key = key;
+    }
+
+    /**
+     * Applies the items which changed to the existing ones. An item replaces the existing item
+     * with the same key where there is one, and is appended otherwise, so nothing is removed
+     * and the existing order is kept.
+     *
+     * @param update combines an existing item (null if there is none) with the item which changed
+     *               into the item which takes its place
+     * @return the updated items; only those which differ from the existing ones are reported changed
+     */
+    public Result<T> update(List<T> existing, List<T> changed, BiFunction<T, T, T> update) {
+        List<T> items = new ArrayList<>(existing);
+        Map<K, Integer> positions = indexPositions(items);
+
+        // Changes are recorded by position, so that an item which changes twice is reported once
+        Set<Integer> addedPositions = new HashSet<>();
+        Set<Integer> changedPositions = new HashSet<>();
+        for (T item : changed) {
+            K itemKey = key.apply(item);
+            Integer position = positions.get(itemKey);
+            if (position == null) {
+                positions.put(itemKey, items.size());
+                addedPositions.add(items.size());
+                items.add(update.apply(null, item));
+            } else {
+                T updated = update.apply(items.get(position), item);
+                items.set(position, updated);
+                if (addedPositions.contains(position) || !updated.equals(existing.get(position))) {
+                    changedPositions.add(position);
+                } else {
+                    changedPositions.remove(position);
+                }
+            }
+        }
+
+        List<T> added = new ArrayList<>();
+        List<T> changedItems = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            if (addedPositions.contains(i)) {
+                added.add(items.get(i));
+            } else if (changedPositions.contains(i)) {
+                changedItems.add(items.get(i));
+            }
+        }
+        return new Result<>(items, new ChangeSet<>(added, changedItems, new ArrayList<>()));
+    }
+
+    /**
+     * @return the items added, changed and removed to get from before to after, in the order of the
+     *         list they are found in
+     */
+    public ChangeSet<T> diff(List<T> before, List<T> after) {
+        Map<K, T> remaining = new HashMap<>(before.size() * 4 / 3 + 1);
+        before.forEach(item -> remaining.putIfAbsent(key.apply(item), item));
+
+        List<T> added = new ArrayList<>();
+        List<T> changed = new ArrayList<>();
+        for (T item : after) {
+            K itemKey = key.apply(item);
+            if (!remaining.containsKey(itemKey)) {
+                added.add(item);
+            } else if (!item.equals(remaining.remove(itemKey))) {
+                changed.add(item);
+            }
+        }
+
+        List<T> removed = new ArrayList<>();
+        before.forEach(item -> {
+            if (remaining.remove(key.apply(item), item)) {
+                removed.add(item);
+            }
+        });
+        return new ChangeSet<>(added, changed, removed);
+    }
+
+    private Map<K, Integer> indexPositions(List<T> items) {
+        Map<K, Integer> positions = new HashMap<>(items.size() * 4 / 3 + 1);
+        for (int i = 0; i < items.size(); i++) {
+            positions.putIfAbsent(key.apply(items.get(i)), i);
+        }
+        return positions;
+    }
+}
@@ -4,11 +4,21 @@ import backend.UpdateSignature;
 import backend.interfaces.IBaseModel;
 import backend.resource.serialization.SerializableModel;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+/**
+ * An immutable snapshot of a repository. Issues, labels, users and milestones are indexed by the
+ * keys they are looked up by when the model is created, so that the lookups done for every issue
+ * when filtering and sorting do not scan the lists.
+ */
 @SuppressWarnings("unused")
 public class Model implements IBaseModel {
 
@@ -19,6 +29,18 @@ public class Model implements IBaseModel {
     private final List<TurboMilestone> milestones;
     private final List<TurboUser> users;
 
+    // Where keys are repeated, the first item with a key is the one found, as with a linear search
+    private final Map<Integer, TurboIssue> issuesById;
+    private final Map<String, TurboLabel> labelsByActualName;
+    private final Map<String, TurboUser> usersByLogin;
+    private final Map<Integer, TurboMilestone> milestonesById;
+    private final Map<String, TurboMilestone> milestonesByTitle;
+
+    // How this model differs from the model it was updated from, if any. That model is only weakly
+    // held, so that models do not keep those before them alive.
+    private final WeakReference<Model> updatedFrom;
+    private final ModelChanges changes;
+
     /**
      * Standard constructor.
      */
@@ -26,12 +48,30 @@ public class Model implements IBaseModel {
         List<TurboLabel> labels, List<TurboMilestone> milestones, List<TurboUser> users,
         UpdateSignature updateSignature) {
 
+        this(repoId, issues, labels, milestones, users, updateSignature, null, null);
+    }
+
+    /**
+     * Constructor for a model updated from another, which already knows how it differs from it.
+     */
+    public Model(String repoId, List<TurboIssue> issues,
+        List<TurboLabel> labels, List<TurboMilestone> milestones, List<TurboUser> users,
+        UpdateSignature updateSignature, Model updatedFrom, ModelChanges changes) {
+
+        this.updatedFrom = updatedFrom == null ? null : new WeakReference<>(updatedFrom);
+        this.changes = changes;
         this.updateSignature = updateSignature;
         this.repoId = repoId;
-        this.issues = issues;
-        this.labels = labels;
-        this.milestones = milestones;
-        this.users = users;
+        this.issues = Collections.unmodifiableList(new ArrayList<>(issues));
+        this.labels = Collections.unmodifiableList(new ArrayList<>(labels));
+        this.milestones = Collections.unmodifiableList(new ArrayList<>(milestones));
+        this.users = Collections.unmodifiableList(new ArrayList<>(users));
+
+        this.issuesById = index(this.issues, TurboIssue::getId);
+        this.labelsByActualName = index(this.labels, TurboLabel::getActualName);
+        this.usersByLogin = index(this.users, TurboUser::getLoginName);
+        this.milestonesById = index(this.milestones, TurboMilestone::getId);
+        this.milestonesByTitle = index(this.milestones, TurboMilestone::getTitle);
     }
 
     /**
@@ -41,53 +81,45 @@ public class Model implements IBaseModel {
     public Model(String repoId, List<TurboIssue> issues,
         List<TurboLabel> labels, List<TurboMilestone> milestones, List<TurboUser> users) {
 
-        this.updateSignature = UpdateSignature.EMPTY;
-        this.repoId = repoId;
-        this.issues = issues;
-        this.labels = labels;
-        this.milestones = milestones;
-        this.users = users;
+        this(repoId, issues, labels, milestones, users, UpdateSignature.EMPTY);
     }
 
     /**
      * Constructor for the empty model.
      */
     public Model(String repoId) {
-        this.updateSignature = UpdateSignature.EMPTY;
-        this.repoId = repoId;
-        this.issues = new ArrayList<>();
-        this.labels = new ArrayList<>();
-        this.milestones = new ArrayList<>();
-        this.users = new ArrayList<>();
+        this(repoId, new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
     }
 
     /**
      * Copy constructor.
      */
     public Model(Model model) {
-        this.updateSignature = model.updateSignature;
-        this.repoId = model.getRepoId();
-        this.issues = new ArrayList<>(model.getIssues());
-        this.labels = new ArrayList<>(model.getLabels());
-        this.milestones = new ArrayList<>(model.getMilestones());
-        this.users = new ArrayList<>(model.getUsers());
+        this(model.getRepoId(), model.getIssues(), model.getLabels(), model.getMilestones(), model.getUsers(),
+            model.updateSignature);
     }
 
     public Model(SerializableModel model) {
-        this.updateSignature = model.updateSignature;
-        this.repoId = model.repoId;
-        this.issues = model.issues.stream()
-            .map(i -> new TurboIssue(model.repoId, i))
-            .collect(Collectors.toList());
-        this.labels = model.labels.stream()
-            .map(l -> new TurboLabel(model.repoId, l))
-            .collect(Collectors.toList());
-        this.milestones = model.milestones.stream()
-            .map(m -> new TurboMilestone(model.repoId, m))
-            .collect(Collectors.toList());
-        this.users = model.users.stream()
-            .map(u -> new TurboUser(model.repoId, u))
-            .collect(Collectors.toList());
+        this(model.repoId,
+            model.issues.stream()
+                .map(i -> new TurboIssue(model.repoId, i))
+                .collect(Collectors.toList()),
+            model.labels.stream()
+                .map(l -> new TurboLabel(model.repoId, l))
+                .collect(Collectors.toList()),
+            model.milestones.stream()
+                .map(m -> new TurboMilestone(model.repoId, m))
+                .collect(Collectors.toList()),
+            model.users.stream()
+                .map(u -> new TurboUser(model.repoId, u))
+                .collect(Collectors.toList()),
+            model.updateSignature);
+    }
+
+    private static <K, V> Map<K, V> index(List<V> items, Function<V, K> key) {
+        Map<K, V> index = new HashMap<>(items.size() * 4 / 3 + 1);
+        items.forEach(item -> index.putIfAbsent(key.apply(item), item));
+        return index;
     }
 
     public String getRepoId() {
@@ -98,77 +130,74 @@ public class Model implements IBaseModel {
         return updateSignature;
     }
 
+    /**
+     * @return an unmodifiable view of the issues
+     */
     @Override
     public List<TurboIssue> getIssues() {
-        return new ArrayList<>(issues);
+        return issues;
     }
 
+    /**
+     * @return an unmodifiable view of the labels
+     */
     @Override
     public List<TurboLabel> getLabels() {
-        return new ArrayList<>(labels);
+        return labels;
     }
 
+    /**
+     * @return an unmodifiable view of the milestones
+     */
     @Override
     public List<TurboMilestone> getMilestones() {
-        return new ArrayList<>(milestones);
+        return milestones;
     }
 
+    /**
+     * @return an unmodifiable view of the users
+     */
     @Override
     public List<TurboUser> getUsers() {
-        return new ArrayList<>(users);
+        return users;
     }
 
     private void ______OPERATIONS_____() {
     }
 
+    /**
+     * @return how this model differs from the given one, if this model was updated from it and
+     *         knows the changes, which saves comparing the two
+     */
+    public Optional<ModelChanges> getChangesFrom(Model previous) {
+        return updatedFrom != null && updatedFrom.get() == previous
+            ? Optional.of(changes)
+            : Optional.empty();
+    }
+
     public Optional<TurboIssue> getIssueById(int issueId) {
         assert issueId >= 1 : "Invalid issue id " + issueId;
-        for (TurboIssue issue : getIssues()) {
-            if (issue.getId() == issueId) {
-                return Optional.of(issue);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(issuesById.get(issueId));
     }
 
     public Optional<TurboLabel> getLabelByActualName(String labelName) {
         assert labelName != null && !labelName.isEmpty() : "Invalid label name " + labelName;
-        for (TurboLabel label : getLabels()) {
-            if (label.getActualName().equals(labelName)) {
-                return Optional.of(label);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(labelsByActualName.get(labelName));
     }
 
     public Optional<TurboUser> getUserByLogin(String login) {
         assert login != null && !login.isEmpty() : "Invalid user name " + login;
-        for (TurboUser user : getUsers()) {
-            if (user.getLoginName().equals(login)) {
-                return Optional.of(user);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(usersByLogin.get(login));
     }
 
     public Optional<TurboMilestone> getMilestoneByTitle(String title) {
         assert title != null && !title.isEmpty() : "Invalid milestone title " + title;
-        for (TurboMilestone milestone : getMilestones()) {
-            if (milestone.getTitle().equals(title)) {
-                return Optional.of(milestone);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(milestonesByTitle.get(title));
     }
 
     public Optional<TurboMilestone> getMilestoneById(int id) {
         assert id >= 1 : "Invalid milestone id " + id;
-        for (TurboMilestone milestone : getMilestones()) {
-            if (milestone.getId() == id) {
-                return Optional.of(milestone);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(milestonesById.get(id));
     }
 
     public Optional<TurboMilestone> getMilestoneOfIssue(TurboIssue issue) {
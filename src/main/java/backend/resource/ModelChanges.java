@@ -0,0 +1,69 @@
+package backend.resource;
+
+/**
+ * The issues, labels, milestones and users which were added to, changed in or removed from a
+ * repository between two of its models.
+ */
+public class ModelChanges {
+
+    public final String repoId;
+    public final ChangeSet<TurboIssue> issues;
+    public final ChangeSet<TurboLabel> labels;
+    public final ChangeSet<TurboMilestone> milestones;
+    public final ChangeSet<TurboUser> users;
+
+    public ModelChanges(String repoId, ChangeSet<TurboIssue> issues, ChangeSet<TurboLabel> labels,
+                        ChangeSet<TurboMilestone> milestones, ChangeSet<TurboUser> users) {
+        this.repoId = repoId;
+        this.issues = issues;
+        this.labels = labels;
+        this.milestones = milestones;
+        this.users = users;
+    }
+
+    /**
+     * @return the changes which take before to after, found in time linear in the size of the models
+     */
+    public static ModelChanges between(Model before, Model after) {
+        assert before.getRepoId().equalsIgnoreCase(after.getRepoId());
+        return new ModelChanges(after.getRepoId(),
+            KeyedMerge.ISSUES.diff(before.getIssues(), after.getIssues()),
+            KeyedMerge.LABELS.diff(before.getLabels(), after.getLabels()),
+            KeyedMerge.MILESTONES.diff(before.getMilestones(), after.getMilestones()),
+            KeyedMerge.USERS.diff(before.getUsers(), after.getUsers()));
+    }
+
+    /**
+     * @return changes to the given issues of a repository and to nothing else
+     */
+    public static ModelChanges ofIssues(String repoId, ChangeSet<TurboIssue> issues) {
+        return new ModelChanges(repoId, issues, ChangeSet.empty(), ChangeSet.empty(), ChangeSet.empty());
+    }
+
+    /**
+     * @return these changes followed by the next changes to the same repository
+     */
+    public ModelChanges followedBy(ModelChanges next) {
+        assert repoId.equalsIgnoreCase(next.repoId);
+        return new ModelChanges(repoId, issues.followedBy(next.issues), labels.followedBy(next.labels),
+            milestones.followedBy(next.milestones), users.followedBy(next.users));
+    }
+
+    /**
+     * @return true if only issues changed, in which case issues which did not change still relate
+     *         to the same labels, milestones and users as before
+     */
+    public boolean isOnlyIssues() {
+        return labels.isEmpty() && milestones.isEmpty() && users.isEmpty();
+    }
+
+    public boolean isEmpty() {
+        return issues.isEmpty() && labels.isEmpty() && milestones.isEmpty() && users.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("issues: %s; labels: %s; milestones: %s; users: %s",
+            issues, labels, milestones, users);
+    }
+}
@@ -0,0 +1,104 @@
+package backend.resource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * What changed in the repositories of a MultiModel since it was last shown, by repository.
+ *
+ * A delta may mention an item more than once, e.g. an issue which was changed by one update
+ * and removed by the next, so those applying it should look up how the item is now.
+ * An unknown delta does not say what changed, so everything has to be looked at again.
+ */
+public class ModelDelta {
+
+    private static final ModelDelta NONE = new ModelDelta(new LinkedHashMap<>(), true);
+    private static final ModelDelta UNKNOWN = new ModelDelta(new LinkedHashMap<>(), false);
+
+    // Keyed by lowercased repo id, as repo ids are case-insensitive
+    private final Map<String, ModelChanges> changes;
+    private final boolean isKnown;
+
+    private ModelDelta(Map<String, ModelChanges> changes, boolean isKnown) {
+        this.changes = Collections.unmodifiableMap(changes);
+        this.isKnown = isKnown;
+    }
+
+    public static ModelDelta none() {
+        return NONE;
+    }
+
+    public static ModelDelta unknown() {
+        return UNKNOWN;
+    }
+
+    public static ModelDelta of(ModelChanges repoChanges) {
+        if (repoChanges.isEmpty()) {
+            return NONE;
+        }
+        Map<String, ModelChanges> changes = new LinkedHashMap<>();
+        changes.put(repoChanges.repoId.toLowerCase(), repoChanges);
+        return new ModelDelta(changes, true);
+    }
+
+    /**
+     * @return the changes in this delta followed by those in the next
+     */
+    public ModelDelta followedBy(ModelDelta next) {
+        if (!isKnown || !next.isKnown) {
+            return UNKNOWN;
+        }
+        if (next.changes.isEmpty()) {
+            return this;
+        }
+        Map<String, ModelChanges> combined = new LinkedHashMap<>(changes);
+        next.changes.forEach((repoId, repoChanges) -> combined.merge(repoId, repoChanges, ModelChanges::followedBy));
+        return new ModelDelta(combined, true);
+    }
+
+    public boolean isKnown() {
+        return isKnown;
+    }
+
+    public boolean isEmpty() {
+        return isKnown && changes.isEmpty();
+    }
+
+    /**
+     * @return true if it is known that only issues changed
+     */
+    public boolean isOnlyIssues() {
+        return isKnown && changes.values().stream().allMatch(ModelChanges::isOnlyIssues);
+    }
+
+    public List<ModelChanges> getChanges() {
+        return new ArrayList<>(changes.values());
+    }
+
+    /**
+     * @return the ids of the issues which were added, changed or removed, by repo id
+     */
+    public Map<String, Set<Integer>> getIssueIds() {
+        Map<String, Set<Integer>> result = new HashMap<>();
+        changes.values().forEach(repoChanges -> {
+            Set<Integer> ids = new HashSet<>();
+            repoChanges.issues.getAddedOrChanged().forEach(issue -> ids.add(issue.getId()));
+            repoChanges.issues.removed.forEach(issue -> ids.add(issue.getId()));
+            if (!ids.isEmpty()) {
+                result.put(repoChanges.repoId, ids);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return isKnown ? changes.values().toString() : "unknown";
+    }
+}
@@ -6,73 +6,316 @@ import prefs.Preferences;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
  * Thread-safe. The only top-level state in the application.
+ *
+ * The state is an immutable snapshot, which is replaced as a whole whenever something changes.
+ * Readers take the latest snapshot without locking, so they never wait on an update and never see
+ * one half-done. Updates are serialised, and copy only the maps of repositories, sharing the
+ * (immutable) models of repositories which did not change.
  */
 @SuppressWarnings("unused")
 public class MultiModel implements IModel {
 
-    private final HashMap<String, Model> models;
-    private final Preferences prefs;
+    /**
+     * A version of the state of all repositories.
+     */
+    private static final class Snapshot {
+        private final long version;
+
+        private final Map<String, Model> models;
+
+        // A pending repository is one that has been requested to load but has
+        // not finished loading. We keep track of it because we don't want repeated
+        // requests for the same repository to load it multiple times.
+        private final Set<String> pendingRepositories;
+
+        // Models of pending repositories which are usable while the rest of the repository downloads.
+        // They are shown, but are left out of toModels, so that they are neither updated nor replaced.
+        private final Map<String, Model> provisionalModels;
+
+        // Guaranteed to have a value throughout
+        private final String defaultRepo;
+
+        // What has changed since the models were last shown
+        private final ModelDelta unshownDelta;
+
+        private Snapshot(long version, Map<String, Model> models, Set<String> pendingRepositories,
+                         Map<String, Model> provisionalModels, String defaultRepo, ModelDelta unshownDelta) {
+            this.version = version;
+            this.models = Collections.unmodifiableMap(models);
+            this.pendingRepositories = Collections.unmodifiableSet(pendingRepositories);
+            this.provisionalModels = Collections.unmodifiableMap(provisionalModels);
+            this.defaultRepo = defaultRepo;
+            this.unshownDelta = unshownDelta;
+        }
+
+        private Model get(String repoId) {
+            return models.containsKey(repoId) ? models.get(repoId) : provisionalModels.get(repoId);
+        }
+
+        private Optional<String> findPendingRepository(String repoId) {
+            return pendingRepositories.stream()
+                    .filter(pendingRepo -> pendingRepo.equalsIgnoreCase(repoId))
+                    .findFirst();
+        }
+
+        private List<Model> getShownModels() {
+            List<Model> result = new ArrayList<>(models.values());
+            provisionalModels.forEach((repoId, model) -> {
+                if (!models.containsKey(repoId)) {
+                    result.add(model);
+                }
+            });
+            return result;
+        }
+    }
+
+    /**
+     * The repositories of one snapshot, so that everything read through it is of the same version.
+     * The state of issues is kept apart from snapshots, so it is always the latest.
+     */
+    private final class View implements IModel {
+        private final Snapshot pinned;
 
-    // A pending repository is one that has been requested to load but has
-    // not finished loading. We keep track of it because we don't want repeated
-    // requests for the same repository to load it multiple times.
-    private final HashSet<String> pendingRepositories;
+        private View(Snapshot pinned) {
+            this.pinned = pinned;
+        }
 
-    // Guaranteed to have a value throughout
-    private String defaultRepo = null;
+        @Override
+        public String getDefaultRepo() {
+            return pinned.defaultRepo;
+        }
+
+        @Override
+        public List<TurboIssue> getIssues() {
+            List<TurboIssue> result = new ArrayList<>();
+            pinned.getShownModels().forEach(m -> result.addAll(m.getIssues()));
+            return result;
+        }
+
+        @Override
+        public List<TurboLabel> getLabels() {
+            List<TurboLabel> result = new ArrayList<>();
+            pinned.getShownModels().forEach(m -> result.addAll(m.getLabels()));
+            return result;
+        }
+
+        @Override
+        public List<TurboMilestone> getMilestones() {
+            List<TurboMilestone> result = new ArrayList<>();
+            pinned.getShownModels().forEach(m -> result.addAll(m.getMilestones()));
+            return result;
+        }
+
+        @Override
+        public List<TurboUser> getUsers() {
+            List<TurboUser> result = new ArrayList<>();
+            pinned.getShownModels().forEach(m -> result.addAll(m.getUsers()));
+            return result;
+        }
+
+        @Override
+        public Optional<Model> getModelById(String repoId) {
+            return Optional.ofNullable(pinned.get(repoId));
+        }
+
+        @Override
+        public Optional<TurboUser> getAssigneeOfIssue(TurboIssue issue) {
+            return getModelById(issue.getRepoId())
+                .flatMap(m -> m.getAssigneeOfIssue(issue));
+        }
+
+        @Override
+        public List<TurboLabel> getLabelsOfIssue(TurboIssue issue, Predicate<TurboLabel> predicate) {
+            return getModelById(issue.getRepoId())
+                .flatMap(m -> Optional.of(m.getLabelsOfIssue(issue)))
+                .get().stream()
+                .filter(predicate)
+                .collect(Collectors.toList());
+        }
+
+        @Override
+        public List<TurboLabel> getLabelsOfIssue(TurboIssue issue) {
+            return getModelById(issue.getRepoId())
+                .flatMap(m -> Optional.of(m.getLabelsOfIssue(issue)))
+                .get();
+        }
+
+        @Override
+        public Optional<TurboMilestone> getMilestoneOfIssue(TurboIssue issue) {
+            return getModelById(issue.getRepoId())
+                .flatMap(m -> m.getMilestoneOfIssue(issue));
+        }
+
+        @Override
+        public IssueState getStateOfIssue(TurboIssue issue) {
+            return issueStates.get(issue);
+        }
+    }
+
+    private final Preferences prefs;
+    private final AtomicReference<Snapshot> snapshot;
+
+    // Kept apart from snapshots, as the state of issues changes independently of the models
+    private final IssueStates issueStates = new IssueStates();
 
     public MultiModel(Preferences prefs) {
-        this.models = new HashMap<>();
-        this.pendingRepositories = new HashSet<>();
         this.prefs = prefs;
+        this.snapshot = new AtomicReference<>(new Snapshot(0, new HashMap<>(), new HashSet<>(), new HashMap<>(),
+                null, ModelDelta.none()));
+    }
+
+    /**
+     * @return the version of the state, which increases whenever something changes
+     */
+    public long getVersion() {
+        return snapshot.get().version;
     }
 
     public synchronized MultiModel addPending(Model model) {
+        Snapshot current = snapshot.get();
         String repoId = model.getRepoId();
-        Optional<String> matchingRepoId = pendingRepositories.stream()
-                .filter(pendingRepo -> pendingRepo.equalsIgnoreCase(repoId))
-                .findFirst();
+        Optional<String> matchingRepoId = current.findPendingRepository(repoId);
         assert matchingRepoId.isPresent() : "No pending repository " + repoId + "!";
+
+        Set<String> pendingRepositories = new HashSet<>(current.pendingRepositories);
         pendingRepositories.remove(matchingRepoId.get());
-        add(model);
+        Map<String, Model> provisionalModels = new HashMap<>(current.provisionalModels);
+        Model provisionalModel = provisionalModels.remove(matchingRepoId.get());
+        Map<String, Model> models = new HashMap<>(current.models);
+        models.put(repoId, model);
+
         preprocessNewIssues(model);
+        ModelChanges changes = ModelChanges.between(
+            provisionalModel == null ? new Model(repoId) : provisionalModel, model);
+        pruneIssueStates(changes);
+        publish(new Snapshot(current.version + 1, models, pendingRepositories, provisionalModels,
+            current.defaultRepo, current.unshownDelta.followedBy(ModelDelta.of(changes))));
         return this;
     }
 
-    private synchronized MultiModel add(Model model) {
-        this.models.put(model.getRepoId(), model);
-        return this;
+    /**
+     * Shows a model of a repository which is still loading, until the repository is added.
+     * Does nothing if the repository is no longer pending.
+     * @return true if the model was added
+     */
+    public synchronized boolean addProvisional(Model model) {
+        Snapshot current = snapshot.get();
+        Optional<String> matchingRepoId = current.findPendingRepository(model.getRepoId());
+        if (!matchingRepoId.isPresent()) {
+            return false;
+        }
+
+        Map<String, Model> provisionalModels = new HashMap<>(current.provisionalModels);
+        Model previousModel = provisionalModels.put(matchingRepoId.get(), model);
+
+        preprocessNewIssues(model);
+        ModelChanges changes = ModelChanges.between(
+            previousModel == null ? new Model(model.getRepoId()) : previousModel, model);
+        pruneIssueStates(changes);
+        publish(new Snapshot(current.version + 1, current.models, current.pendingRepositories, provisionalModels,
+            current.defaultRepo, current.unshownDelta.followedBy(ModelDelta.of(changes))));
+        return true;
     }
 
-    public synchronized Model get(String repoId) {
-        return models.get(repoId);
+    public Model get(String repoId) {
+        return snapshot.get().get(repoId);
     }
 
-    public synchronized List<Model> toModels() {
-        return new ArrayList<>(models.values());
+    public List<Model> toModels() {
+        return new ArrayList<>(snapshot.get().models.values());
     }
 
     public synchronized MultiModel replace(List<Model> newModels) {
-        preprocessUpdatedIssues(newModels);
-        this.models.clear();
-        newModels.forEach(this::add);
+        Snapshot current = snapshot.get();
+        ModelDelta delta = current.unshownDelta.followedBy(preprocessUpdatedIssues(current, newModels));
+
+        Set<String> newRepoIds = newModels.stream().map(Model::getRepoId).collect(Collectors.toSet());
+        for (Model model : current.models.values()) {
+            if (!newRepoIds.contains(model.getRepoId())) {
+                delta = delta.followedBy(ModelDelta.of(ModelChanges.between(model, new Model(model.getRepoId()))));
+                issueStates.removeRepository(model.getRepoId());
+            }
+        }
+
+        Map<String, Model> models = new HashMap<>();
+        newModels.forEach(model -> models.put(model.getRepoId(), model));
+        publish(new Snapshot(current.version + 1, models, current.pendingRepositories, current.provisionalModels,
+            current.defaultRepo, delta));
         return this;
     }
 
     public synchronized void insertMetadata(String repoId, Map<Integer, IssueMetadata> metadata, String currentUser) {
-        models.get(repoId).getIssues().forEach(issue -> {
+        List<TurboIssue> changed = new ArrayList<>();
+        snapshot.get().models.get(repoId).getIssues().forEach(issue -> {
             if (metadata.containsKey(issue.getId())) {
                 IssueMetadata toBeInserted = metadata.get(issue.getId());
                 LocalDateTime nonSelfUpdatedAt = reconcileCreationDate(toBeInserted.getNonSelfUpdatedAt(),
                         issue.getCreatedAt(), currentUser, issue.getCreator());
-                issue.setMetadata(new IssueMetadata(toBeInserted, nonSelfUpdatedAt));
+                issueStates.update(issue,
+                    state -> state.withMetadata(new IssueMetadata(toBeInserted, nonSelfUpdatedAt)));
+                changed.add(issue);
             }
         });
+        recordChanges(ModelChanges.ofIssues(repoId,
+            new ChangeSet<>(new ArrayList<>(), changed, new ArrayList<>())));
+    }
+
+    /**
+     * Replaces the labels of an issue in a repository which is open, ahead of the next update.
+     * The issue is replaced by one with the given labels, in a model which replaces its repository's.
+     */
+    public synchronized void replaceIssueLabels(TurboIssue issue, List<String> labels) {
+        Snapshot current = snapshot.get();
+        Model model = current.models.get(issue.getRepoId());
+        Optional<TurboIssue> existingIssue = model == null ? Optional.empty() : model.getIssueById(issue.getId());
+        if (!existingIssue.isPresent()) {
+            return;
+        }
+
+        List<TurboIssue> issues = new ArrayList<>(model.getIssues());
+        TurboIssue relabelled = existingIssue.get().withLabels(labels);
+        issues.replaceAll(existing -> existing.getId() == issue.getId() ? relabelled : existing);
+        Map<String, Model> models = new HashMap<>(current.models);
+        models.put(model.getRepoId(), new Model(model.getRepoId(), issues, model.getLabels(), model.getMilestones(),
+            model.getUsers(), model.getUpdateSignature()));
+
+        ModelChanges changes = ModelChanges.ofIssues(model.getRepoId(),
+            new ChangeSet<>(new ArrayList<>(), Arrays.asList(relabelled), new ArrayList<>()));
+        publish(new Snapshot(current.version + 1, models, current.pendingRepositories, current.provisionalModels,
+            current.defaultRepo, current.unshownDelta.followedBy(ModelDelta.of(changes))));
+    }
+
+    /**
+     * @return what has changed since this was last called, which is then taken to have been shown
+     */
+    public synchronized ModelDelta takeDelta() {
+        Snapshot current = snapshot.get();
+        if (!current.unshownDelta.isEmpty()) {
+            publish(new Snapshot(current.version + 1, current.models, current.pendingRepositories,
+                current.provisionalModels, current.defaultRepo, ModelDelta.none()));
+        }
+        return current.unshownDelta;
+    }
+
+    private void recordChanges(ModelChanges changes) {
+        Snapshot current = snapshot.get();
+        publish(new Snapshot(current.version + 1, current.models, current.pendingRepositories,
+            current.provisionalModels, current.defaultRepo, current.unshownDelta.followedBy(ModelDelta.of(changes))));
+    }
+
+    /**
+     * Makes the given snapshot the current one. Only called while holding the lock on this, so that
+     * no update is lost to another.
+     */
+    private void publish(Snapshot next) {
+        assert Thread.holdsLock(this);
+        snapshot.set(next);
     }
 
     private static LocalDateTime reconcileCreationDate(LocalDateTime lastNonSelfUpdate,
@@ -96,124 +339,173 @@ public class MultiModel implements IModel {
     }
 
     @Override
-    public synchronized String getDefaultRepo() {
-        return defaultRepo;
+    public String getDefaultRepo() {
+        return snapshot.get().defaultRepo;
     }
 
-    @Override
     public synchronized void setDefaultRepo(String repoId) {
-        this.defaultRepo = repoId;
+        Snapshot current = snapshot.get();
+        publish(new Snapshot(current.version + 1, current.models, current.pendingRepositories,
+            current.provisionalModels, repoId, current.unshownDelta));
+    }
+
+    /**
+     * @return a read-only view of the repositories as they are now, which later updates leave alone
+     */
+    public IModel getView() {
+        return new View(snapshot.get());
     }
 
     @Override
-    public synchronized List<TurboIssue> getIssues() {
-        List<TurboIssue> result = new ArrayList<>();
-        models.values().forEach(m -> result.addAll(m.getIssues()));
-        return result;
+    public List<TurboIssue> getIssues() {
+        return getView().getIssues();
     }
 
     @Override
-    public synchronized List<TurboLabel> getLabels() {
-        List<TurboLabel> result = new ArrayList<>();
-        models.values().forEach(m -> result.addAll(m.getLabels()));
-        return result;
+    public List<TurboLabel> getLabels() {
+        return getView().getLabels();
     }
 
     @Override
-    public synchronized List<TurboMilestone> getMilestones() {
-        List<TurboMilestone> result = new ArrayList<>();
-        models.values().forEach(m -> result.addAll(m.getMilestones()));
-        return result;
+    public List<TurboMilestone> getMilestones() {
+        return getView().getMilestones();
     }
 
     @Override
-    public synchronized List<TurboUser> getUsers() {
-        List<TurboUser> result = new ArrayList<>();
-        models.values().forEach(m -> result.addAll(m.getUsers()));
-        return result;
+    public List<TurboUser> getUsers() {
+        return getView().getUsers();
     }
 
     @Override
     public Optional<Model> getModelById(String repoId) {
-        return models.containsKey(repoId)
-            ? Optional.of(models.get(repoId))
-            : Optional.empty();
+        return getView().getModelById(repoId);
     }
 
     @Override
     public Optional<TurboUser> getAssigneeOfIssue(TurboIssue issue) {
-        return getModelById(issue.getRepoId())
-            .flatMap(m -> m.getAssigneeOfIssue(issue));
+        return getView().getAssigneeOfIssue(issue);
     }
 
     @Override
     public List<TurboLabel> getLabelsOfIssue(TurboIssue issue, Predicate<TurboLabel> predicate) {
-        return getModelById(issue.getRepoId())
-            .flatMap(m -> Optional.of(m.getLabelsOfIssue(issue)))
-            .get().stream()
-            .filter(predicate)
-            .collect(Collectors.toList());
+        return getView().getLabelsOfIssue(issue, predicate);
     }
 
     @Override
     public List<TurboLabel> getLabelsOfIssue(TurboIssue issue) {
-        return getModelById(issue.getRepoId())
-            .flatMap(m -> Optional.of(m.getLabelsOfIssue(issue)))
-            .get();
+        return getView().getLabelsOfIssue(issue);
     }
 
     @Override
     public Optional<TurboMilestone> getMilestoneOfIssue(TurboIssue issue) {
-        return getModelById(issue.getRepoId())
-            .flatMap(m -> m.getMilestoneOfIssue(issue));
+        return getView().getMilestoneOfIssue(issue);
     }
 
-    public synchronized boolean isRepositoryPending(String repoId) {
-        return pendingRepositories.stream().anyMatch(pendingRepo -> pendingRepo.equalsIgnoreCase(repoId));
+    @Override
+    public IssueState getStateOfIssue(TurboIssue issue) {
+        return issueStates.get(issue);
     }
 
-    public void queuePendingRepository(String repoId) {
+    /**
+     * Marks an issue as read at the given time, or as unread. Which panels the issue is shown in
+     * may change with it, so it is taken to have changed in the next update.
+     */
+    public synchronized void setMarkedReadAt(TurboIssue issue, Optional<LocalDateTime> markedReadAt) {
+        issueStates.update(issue, state -> state.withMarkedReadAt(markedReadAt));
+
+        Optional<Model> model = Optional.ofNullable(snapshot.get().get(issue.getRepoId()));
+        Optional<TurboIssue> current = model.flatMap(m -> m.getIssueById(issue.getId()));
+        if (current.isPresent()) {
+            recordChanges(ModelChanges.ofIssues(model.get().getRepoId(),
+                new ChangeSet<>(new ArrayList<>(), Arrays.asList(current.get()), new ArrayList<>())));
+        }
+    }
+
+    /**
+     * Forgets a repository which is no longer being opened, along with any provisional model
+     * shown for it. Does nothing if the repository is not pending.
+     * @return true if the repository was pending
+     */
+    public synchronized boolean removePending(String repoId) {
+        Snapshot current = snapshot.get();
+        Optional<String> matchingRepoId = current.findPendingRepository(repoId);
+        if (!matchingRepoId.isPresent()) {
+            return false;
+        }
+
+        Set<String> pendingRepositories = new HashSet<>(current.pendingRepositories);
+        pendingRepositories.remove(matchingRepoId.get());
+        Map<String, Model> provisionalModels = new HashMap<>(current.provisionalModels);
+        Model provisionalModel = provisionalModels.remove(matchingRepoId.get());
+        issueStates.removeRepository(repoId);
+
+        ModelDelta unshownDelta = current.unshownDelta;
+        if (provisionalModel != null) {
+            unshownDelta = unshownDelta.followedBy(ModelDelta.of(
+                ModelChanges.between(provisionalModel, new Model(provisionalModel.getRepoId()))));
+        }
+        publish(new Snapshot(current.version + 1, current.models, pendingRepositories, provisionalModels,
+            current.defaultRepo, unshownDelta));
+        return true;
+    }
+
+    public boolean isRepositoryPending(String repoId) {
+        return snapshot.get().findPendingRepository(repoId).isPresent();
+    }
+
+    public synchronized void queuePendingRepository(String repoId) {
+        Snapshot current = snapshot.get();
+        Set<String> pendingRepositories = new HashSet<>(current.pendingRepositories);
         pendingRepositories.add(repoId);
+        publish(new Snapshot(current.version + 1, current.models, pendingRepositories,
+            current.provisionalModels, current.defaultRepo, current.unshownDelta));
     }
 
     /**
      * Called on new models which come in.
-     * Mutates TurboIssues with meta-information.
+     * Records the state of their issues.
      * @param model
      */
     private void preprocessNewIssues(Model model) {
         // All new issues which come in are not read, unless they already were according to prefs.
         for (TurboIssue issue : model.getIssues()) {
             Optional<LocalDateTime> time = prefs.getMarkedReadAt(model.getRepoId(), issue.getId());
-            issue.setMarkedReadAt(time);
-            issue.setIsCurrentlyRead(time.isPresent());
+            issueStates.update(issue, state -> state.withMarkedReadAt(time));
         }
     }
 
+    /**
+     * Forgets the state of issues which are no longer in their repository, so that the state of
+     * issues only ever covers those which are open.
+     */
+    private void pruneIssueStates(ModelChanges changes) {
+        changes.issues.removed.forEach(issueStates::remove);
+    }
+
     /**
      * Called on existing models that are updated.
-     * Mutates TurboIssues with meta-information.
+     * Records the state of their issues.
+     * @param current
      * @param newModels
+     * @return how the models changed
      */
-    private void preprocessUpdatedIssues(List<Model> newModels) {
+    private ModelDelta preprocessUpdatedIssues(Snapshot current, List<Model> newModels) {
         // Updates preferences with the results of issues that have been updated after a refresh.
         // This makes read issues show up again.
+        ModelDelta delta = ModelDelta.none();
         for (Model model : newModels) {
-            assert models.containsKey(model.getRepoId());
-            Model existingModel = models.get(model.getRepoId());
-            if (!existingModel.getIssues().equals(model.getIssues())) {
-                // Find issues that have changed and update preferences with them
-                for (int i = 1; i <= model.getIssues().size(); i++) {
-                    // TODO O(n^2), optimise by preprocessing into a map or sorting
-                    if (!existingModel.getIssueById(i).equals(model.getIssueById(i))) {
-                        assert model.getIssueById(i).isPresent();
-                        // It's no longer currently read, but it retains its updated time.
-                        // No changes to preferences.
-                        model.getIssueById(i).get().setIsCurrentlyRead(false);
-                    }
-                }
-            }
+            assert current.models.containsKey(model.getRepoId());
+            Model existingModel = current.models.get(model.getRepoId());
+            ModelChanges changes = model.getChangesFrom(existingModel)
+                .orElseGet(() -> ModelChanges.between(existingModel, model));
+            // New and changed issues are no longer currently read, but they retain their updated time.
+            // No changes to preferences.
+            changes.issues.getAddedOrChanged().forEach(issue ->
+                issueStates.update(issue, state -> state.withCurrentlyRead(false)));
+            pruneIssueStates(changes);
+            delta = delta.followedBy(ModelDelta.of(changes));
         }
+        return delta;
     }
 
     private void ______BOILERPLATE______() {
@@ -224,12 +516,12 @@ public class MultiModel implements IModel {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         MultiModel that = (MultiModel) o;
-        return models.equals(that.models);
+        return snapshot.get().models.equals(that.snapshot.get().models);
     }
 
     @Override
     public int hashCode() {
-        return models.hashCode();
+        return snapshot.get().models.hashCode();
     }
 
 }
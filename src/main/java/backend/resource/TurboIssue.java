@@ -1,19 +1,26 @@
 package backend.resource;
 
-import backend.IssueMetadata;
 import backend.resource.serialization.SerializableIssue;
 import org.eclipse.egit.github.core.Issue;
 import org.eclipse.egit.github.core.Label;
 import util.Utility;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
  * The guidelines in this class apply to all TurboResources.
+ *
+ * Issues are immutable, so they may be shared between the UI and the threads which update models.
+ * An issue which changes is replaced by another, made with a {@link Builder}. State which is not
+ * serialized, such as metadata and whether an issue has been read, is kept apart from issues;
+ * see {@link IssueState}.
  */
 @SuppressWarnings("unused")
 public class TurboIssue {
@@ -25,38 +32,28 @@ public class TurboIssue {
      * Must have reasonable, NON-NULL defaults.
      * Should be primitive types, or at least easily-serializable ones.
      * Should be specified in order.
-     * Should be immutable as much as possible.
+     * Should be immutable.
      */
     private void ______SERIALIZED_FIELDS______() {
     }
 
-    // Immutable
     private final int id;
     private final String creator;
     private final LocalDateTime createdAt;
     private final boolean isPullRequest;
-
-
-    // Mutable
-    private String title;
+    private final String title;
+    // Descriptions of issues loaded from the store are kept UTF-8 encoded until first accessed,
+    // and only then decoded, once
     private String description;
-    private LocalDateTime updatedAt;
-    private int commentCount;
-    private boolean isOpen;
-    private Optional<String> assignee;
-    private List<String> labels;
-    private Optional<Integer> milestone;
-
-    /**
-     * Metadata associated with issues that is not serialized.
-     */
-    private void ______TRANSIENT_FIELDS______() {
-    }
+    private volatile byte[] encodedDescription;
+    private final LocalDateTime updatedAt;
+    private final int commentCount;
+    private final boolean isOpen;
+    private final Optional<String> assignee;
+    private final List<String> labels;
+    private final Optional<Integer> milestone;
 
     private final String repoId;
-    private IssueMetadata metadata;
-    private Optional<LocalDateTime> markedReadAt;
-    private boolean isCurrentlyRead;
 
     private void ______CONSTRUCTORS______() {
     }
@@ -65,53 +62,38 @@ public class TurboIssue {
      * Default constructor: provides reasonable defaults for things.
      */
     public TurboIssue(String repoId, int id, String title) {
-        this.id = id;
-        this.creator = "";
-        this.createdAt = LocalDateTime.now();
-        this.isPullRequest = false;
-
-        mutableFieldDefaults();
-
-        this.title = title;
-        this.repoId = repoId;
+        this(new Builder(repoId, id).setTitle(title));
     }
 
-    /**
-     * Immutable-conscious constructor.
-     */
     public TurboIssue(String repoId, int id, String title,
                       String creator, LocalDateTime createdAt, boolean isPullRequest) {
-        this.id = id;
-        this.creator = creator;
-        this.createdAt = createdAt;
-        this.isPullRequest = isPullRequest;
-
-        mutableFieldDefaults();
-
-        this.title = title;
-        this.repoId = repoId;
+        this(new Builder(repoId, id)
+            .setTitle(title)
+            .setCreator(creator)
+            .setCreatedAt(createdAt)
+            .setPullRequest(isPullRequest));
     }
 
     // Copy constructor
     public TurboIssue(TurboIssue issue) {
-        this.id = issue.id;
-        this.title = issue.title;
-        this.creator = issue.creator;
-        this.createdAt = issue.createdAt;
-        this.isPullRequest = issue.isPullRequest;
-
-        this.description = issue.description;
-        this.updatedAt = issue.updatedAt;
-        this.commentCount = issue.commentCount;
-        this.isOpen = issue.isOpen;
-        this.assignee = issue.assignee;
-        this.labels = new ArrayList<>(issue.labels);
-        this.milestone = issue.milestone;
-
-        this.metadata = new IssueMetadata(issue.metadata);
-        this.repoId = issue.repoId;
-        this.markedReadAt = issue.markedReadAt;
-        this.isCurrentlyRead = issue.isCurrentlyRead;
+        this(new Builder(issue));
+    }
+
+    private TurboIssue(Builder builder) {
+        this.id = builder.id;
+        this.creator = builder.creator;
+        this.createdAt = builder.createdAt;
+        this.isPullRequest = builder.isPullRequest;
+        this.title = builder.title;
+        this.description = builder.description;
+        this.encodedDescription = builder.encodedDescription;
+        this.updatedAt = builder.updatedAt;
+        this.commentCount = builder.commentCount;
+        this.isOpen = builder.isOpen;
+        this.assignee = builder.assignee;
+        this.labels = Collections.unmodifiableList(new ArrayList<>(builder.labels));
+        this.milestone = builder.milestone;
+        this.repoId = builder.repoId;
     }
 
     public TurboIssue(String repoId, Issue issue) {
@@ -132,17 +114,14 @@ public class TurboIssue {
         this.assignee = issue.getAssignee() == null
             ? Optional.empty()
             : Optional.of(issue.getAssignee().getLogin());
-        this.labels = issue.getLabels().stream()
+        this.labels = Collections.unmodifiableList(issue.getLabels().stream()
             .map(Label::getName)
-            .collect(Collectors.toList());
+            .collect(Collectors.toList()));
         this.milestone = issue.getMilestone() == null
             ? Optional.empty()
             : Optional.of(issue.getMilestone().getNumber());
 
-        this.metadata = new IssueMetadata();
         this.repoId = repoId;
-        this.markedReadAt = Optional.empty();
-        this.isCurrentlyRead = false;
     }
 
     public TurboIssue(String repoId, SerializableIssue issue) {
@@ -157,13 +136,10 @@ public class TurboIssue {
         this.commentCount = issue.getCommentCount();
         this.isOpen = issue.isOpen();
         this.assignee = issue.getAssignee();
-        this.labels = issue.getLabels();
+        this.labels = Collections.unmodifiableList(new ArrayList<>(issue.getLabels()));
         this.milestone = issue.getMilestone();
 
-        this.metadata = new IssueMetadata();
         this.repoId = repoId;
-        this.markedReadAt = Optional.empty();
-        this.isCurrentlyRead = false;
     }
 
     private void ______CONSTRUCTOR_HELPER_FUNCTIONS______() {
@@ -173,36 +149,137 @@ public class TurboIssue {
         return issue.getPullRequest() != null && issue.getPullRequest().getUrl() != null;
     }
 
-    private void mutableFieldDefaults() {
-        this.title = "";
-        this.description = "";
-        this.updatedAt = LocalDateTime.now();
-        this.commentCount = 0;
-        this.isOpen = true;
-        this.assignee = Optional.empty();
-        this.labels = new ArrayList<>();
-        this.milestone = Optional.empty();
-
-        this.metadata = new IssueMetadata();
-        this.markedReadAt = Optional.empty();
-        this.isCurrentlyRead = false;
-    }
-
     /**
-     * Transient state may not always be transferred between issues. For example,
-     * when an issue is updated, the new issue is constructed from an external object,
-     * not an existing issue, so transient state on the old one is lost if the old issue
-     * is just replaced by the new. This method is required in such cases.
-     * @param fromIssue
+     * Makes issues, starting from reasonable defaults or from an existing issue.
      */
-    private void transferTransientState(TurboIssue fromIssue) {
-        this.metadata = fromIssue.metadata;
-        this.markedReadAt = fromIssue.markedReadAt;
-        this.isCurrentlyRead = fromIssue.isCurrentlyRead;
+    public static class Builder {
+        private final String repoId;
+        private final int id;
+        private String creator = "";
+        private LocalDateTime createdAt = LocalDateTime.now();
+        private boolean isPullRequest = false;
+        private String title = "";
+        private String description = "";
+        private byte[] encodedDescription = null;
+        private LocalDateTime updatedAt = LocalDateTime.now();
+        private int commentCount = 0;
+        private boolean isOpen = true;
+        private Optional<String> assignee = Optional.empty();
+        private List<String> labels = new ArrayList<>();
+        private Optional<Integer> milestone = Optional.empty();
+
+        public Builder(String repoId, int id) {
+            this.repoId = repoId;
+            this.id = id;
+        }
+
+        public Builder(TurboIssue issue) {
+            this.repoId = issue.repoId;
+            this.id = issue.id;
+            this.creator = issue.creator;
+            this.createdAt = issue.createdAt;
+            this.isPullRequest = issue.isPullRequest;
+            this.title = issue.title;
+            // Read before the description, so that a concurrent decode cannot be missed
+            this.encodedDescription = issue.encodedDescription;
+            this.description = issue.description;
+            this.updatedAt = issue.updatedAt;
+            this.commentCount = issue.commentCount;
+            this.isOpen = issue.isOpen;
+            this.assignee = issue.assignee;
+            this.labels = new ArrayList<>(issue.labels);
+            this.milestone = issue.milestone;
+        }
+
+        public Builder setCreator(String creator) {
+            this.creator = creator;
+            return this;
+        }
+
+        public Builder setCreatedAt(LocalDateTime createdAt) {
+            this.createdAt = createdAt;
+            return this;
+        }
+
+        public Builder setPullRequest(boolean isPullRequest) {
+            this.isPullRequest = isPullRequest;
+            return this;
+        }
+
+        public Builder setTitle(String title) {
+            this.title = title;
+            return this;
+        }
+
+        public Builder setDescription(String description) {
+            this.description = description;
+            this.encodedDescription = null;
+            return this;
+        }
+
+        /**
+         * Sets the description in its UTF-8 encoded form, deferring decoding until it is first accessed.
+         */
+        public Builder setEncodedDescription(byte[] encodedDescription) {
+            this.description = "";
+            this.encodedDescription = encodedDescription;
+            return this;
+        }
+
+        public Builder setUpdatedAt(LocalDateTime updatedAt) {
+            this.updatedAt = updatedAt;
+            return this;
+        }
+
+        public Builder setCommentCount(int commentCount) {
+            this.commentCount = commentCount;
+            return this;
+        }
+
+        public Builder setOpen(boolean isOpen) {
+            this.isOpen = isOpen;
+            return this;
+        }
+
+        public Builder setAssignee(String assignee) {
+            this.assignee = Optional.of(assignee);
+            return this;
+        }
+
+        public Builder setAssignee(TurboUser assignee) {
+            return setAssignee(assignee.getLoginName());
+        }
+
+        public Builder setLabels(List<String> labels) {
+            this.labels = new ArrayList<>(labels);
+            return this;
+        }
+
+        public Builder addLabel(String label) {
+            this.labels.add(label);
+            return this;
+        }
+
+        public Builder addLabel(TurboLabel label) {
+            return addLabel(label.getActualName());
+        }
+
+        public Builder setMilestone(Integer milestone) {
+            this.milestone = Optional.of(milestone);
+            return this;
+        }
+
+        public Builder setMilestone(TurboMilestone milestone) {
+            return setMilestone(milestone.getId());
+        }
+
+        public TurboIssue build() {
+            return new TurboIssue(this);
+        }
     }
 
     /**
-     * Conceptually, operations on issues. They should only modify non-serialized fields.
+     * Conceptually, operations on issues. They return new issues rather than modifying this one.
      */
     private void ______METHODS______() {
     }
@@ -213,41 +290,21 @@ public class TurboIssue {
     }
 
     /**
-     * Takes lists of TurboIssues and reconciles the changes between them,
-     * returning a list of TurboIssues with updates from the second.
+     * Takes lists of TurboIssues and reconciles the changes between them, applying changed issues
+     * to existing ones by id, in time linear in the number of issues.
+     * State which is not serialized is kept by repo and id, so it carries over to the changed issues.
+     * @return the reconciled issues, and which of them are new or differ from the existing ones
      */
-    public static List<TurboIssue> reconcile(String repoId, List<TurboIssue> existing, List<TurboIssue> changed) {
-        existing = new ArrayList<>(existing);
-        for (TurboIssue issue : changed) {
-            int id = issue.getId();
-
-            // TODO O(n^2), fix by preprocessing and copying into a map
-            Optional<Integer> corresponding = findIssueWithId(existing, id);
-            if (corresponding.isPresent()) {
-
-                // issue is constructed from an external Issue object.
-                // It won't have the transient state that its TurboIssue
-                // counterpart has, so we have to explicitly transfer it.
-                TurboIssue newIssue = new TurboIssue(issue);
-                newIssue.transferTransientState(existing.get(corresponding.get()));
-
-                existing.set(corresponding.get(), newIssue);
-            } else {
-                existing.add(new TurboIssue(issue));
-            }
-        }
-        return existing;
+    public static KeyedMerge.Result<TurboIssue> reconcile(String repoId, List<TurboIssue> existing,
+                                                          List<TurboIssue> changed) {
+        return KeyedMerge.ISSUES.update(existing, changed, (existingIssue, issue) -> issue);
     }
 
-    private static Optional<Integer> findIssueWithId(List<TurboIssue> existing, int id) {
-        int i = 0;
-        for (TurboIssue issue : existing) {
-            if (issue.getId() == id) {
-                return Optional.of(i);
-            }
-            ++i;
-        }
-        return Optional.empty();
+    /**
+     * @return this issue with the given labels in place of its own
+     */
+    public TurboIssue withLabels(List<String> labels) {
+        return new Builder(this).setLabels(labels).build();
     }
 
     private void ______BOILERPLATE______() {
@@ -271,85 +328,35 @@ public class TurboIssue {
     public String getTitle() {
         return title;
     }
-    public void setTitle(String title) {
-        this.title = title;
-    }
     public String getDescription() {
+        byte[] encoded = encodedDescription;
+        if (encoded != null) {
+            description = new String(encoded, StandardCharsets.UTF_8);
+            encodedDescription = null;
+        }
         return description;
     }
-    public void setDescription(String description) {
-        this.description = description;
-    }
     public LocalDateTime getUpdatedAt() {
         return updatedAt;
     }
-    public void setUpdatedAt(LocalDateTime updatedAt) {
-        this.updatedAt = updatedAt;
-    }
     public int getCommentCount() {
         return commentCount;
     }
-    public void setCommentCount(int commentCount) {
-        this.commentCount = commentCount;
-    }
     public boolean isOpen() {
         return isOpen;
     }
-    public void setOpen(boolean isOpen) {
-        this.isOpen = isOpen;
-    }
     public Optional<String> getAssignee() {
         return assignee;
     }
-    public void setAssignee(String assignee) {
-        this.assignee = Optional.of(assignee);
-    }
-    public void setAssignee(TurboUser assignee) {
-        setAssignee(assignee.getLoginName());
-    }
     public List<String> getLabels() {
         return labels;
     }
-    public void setLabels(List<String> labels) {
-        this.labels = labels;
-    }
-    public void addLabel(String label) {
-        this.labels.add(label);
-    }
-    public void addLabel(TurboLabel label) {
-        addLabel(label.getActualName());
-    }
     public Optional<Integer> getMilestone() {
         return milestone;
     }
-    public void setMilestone(Integer milestone) {
-        this.milestone = Optional.of(milestone);
-    }
-    public void setMilestone(TurboMilestone milestone) {
-        setMilestone(milestone.getId());
-    }
-    public IssueMetadata getMetadata() {
-        return metadata;
-    }
-    public void setMetadata(IssueMetadata metadata) {
-        this.metadata = metadata;
-    }
-    public Optional<LocalDateTime> getMarkedReadAt() {
-        return markedReadAt;
-    }
-    public void setMarkedReadAt(Optional<LocalDateTime> markedReadAt) {
-        this.markedReadAt = markedReadAt;
-    }
-    public boolean isCurrentlyRead() {
-        return isCurrentlyRead;
-    }
-    public void setIsCurrentlyRead(boolean isCurrentlyRead) {
-        this.isCurrentlyRead = isCurrentlyRead;
-    }
 
     /**
-     * Metadata is not considered for equality.
-     * In general only serialised fields are.
+     * Only serialised fields are considered for equality.
      */
     @Override
     public boolean equals(Object o) {
@@ -362,13 +369,24 @@ public class TurboIssue {
                 !(assignee != null ? !assignee.equals(issue.assignee) : issue.assignee != null) &&
                 !(createdAt != null ? !createdAt.equals(issue.createdAt) : issue.createdAt != null) &&
                 !(creator != null ? !creator.equals(issue.creator) : issue.creator != null) &&
-                !(description != null ? !description.equals(issue.description) : issue.description != null) &&
+                hasSameDescription(issue) &&
                 !(labels != null ? !labels.equals(issue.labels) : issue.labels != null) &&
                 !(milestone != null ? !milestone.equals(issue.milestone) : issue.milestone != null) &&
                 !(title != null ? !title.equals(issue.title) : issue.title != null) &&
-                !(updatedAt != null ? !updatedAt.equals(issue.updatedAt) : issue.updatedAt != null) &&
-                !(markedReadAt != null ? !markedReadAt.equals(issue.markedReadAt) : issue.markedReadAt != null) &&
-                isCurrentlyRead == issue.isCurrentlyRead;
+                !(updatedAt != null ? !updatedAt.equals(issue.updatedAt) : issue.updatedAt != null);
+    }
+
+    /**
+     * Compares descriptions without decoding them when both are still encoded.
+     */
+    private boolean hasSameDescription(TurboIssue issue) {
+        byte[] encoded = encodedDescription;
+        byte[] otherEncoded = issue.encodedDescription;
+        if (encoded != null && otherEncoded != null) {
+            return Arrays.equals(encoded, otherEncoded);
+        }
+        String description = getDescription();
+        return description != null ? description.equals(issue.getDescription()) : issue.getDescription() == null;
     }
 
     @Override
@@ -377,11 +395,9 @@ public class TurboIssue {
         result = 31 * result + (creator != null ? creator.hashCode() : 0);
         result = 31 * result + (createdAt != null ? createdAt.hashCode() : 0);
         result = 31 * result + (isPullRequest ? 1 : 0);
-        result = 31 * result + (isCurrentlyRead ? 1 : 0);
         result = 31 * result + (title != null ? title.hashCode() : 0);
-        result = 31 * result + (description != null ? description.hashCode() : 0);
+        result = 31 * result + (getDescription() != null ? getDescription().hashCode() : 0);
         result = 31 * result + (updatedAt != null ? updatedAt.hashCode() : 0);
-        result = 31 * result + (markedReadAt != null ? markedReadAt.hashCode() : 0);
         result = 31 * result + commentCount;
         result = 31 * result + (isOpen ? 1 : 0);
         result = 31 * result + (assignee != null ? assignee.hashCode() : 0);
@@ -16,6 +16,13 @@ public class TurboLabel implements Comparable<TurboLabel> {
     public static final String EXCLUSIVE_DELIMITER = ".";
     public static final String NONEXCLUSIVE_DELIMITER = "-";
 
+    // Escaping due to constants not being valid regexes
+    private static final Pattern DELIMITER_PATTERN = Pattern.compile(String.format("^[^\\%s\\%s]+(\\%s|\\%s)",
+        EXCLUSIVE_DELIMITER,
+        NONEXCLUSIVE_DELIMITER,
+        EXCLUSIVE_DELIMITER,
+        NONEXCLUSIVE_DELIMITER));
+
     private void ______SERIALIZED_FIELDS______() {
     }
 
@@ -67,13 +74,8 @@ public class TurboLabel implements Comparable<TurboLabel> {
 
     public static Optional<String> getDelimiter(String name) {
 
-        // Escaping due to constants not being valid regexes
-        Pattern p = Pattern.compile(String.format("^[^\\%s\\%s]+(\\%s|\\%s)",
-            EXCLUSIVE_DELIMITER,
-            NONEXCLUSIVE_DELIMITER,
-            EXCLUSIVE_DELIMITER,
-            NONEXCLUSIVE_DELIMITER));
-        Matcher m = p.matcher(name);
+        // Compiled once, as labels are looked at for every issue when filtering and sorting
+        Matcher m = DELIMITER_PATTERN.matcher(name);
 
         if (m.find()) {
             return Optional.of(m.group(1));
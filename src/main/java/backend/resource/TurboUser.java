@@ -40,6 +40,13 @@ public class TurboUser {
         this.repoId = repoId;
     }
 
+    public TurboUser(String repoId, String loginName, String realName, String avatarURL) {
+        this.loginName = loginName;
+        this.realName = realName;
+        this.avatarURL = avatarURL;
+        this.repoId = repoId;
+    }
+
     public TurboUser(String repoId, User user) {
         this.loginName = user.getLogin();
         this.realName = user.getName();
@@ -90,16 +97,17 @@ public class TurboUser {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         TurboUser that = (TurboUser) o;
-        return loginName.equals(that.loginName) &&
-                realName.equals(that.realName) &&
-                avatarURL.equals(that.avatarURL);
+        // Users from GitHub need not have a real name or avatar
+        return !(loginName != null ? !loginName.equals(that.loginName) : that.loginName != null) &&
+                !(realName != null ? !realName.equals(that.realName) : that.realName != null) &&
+                !(avatarURL != null ? !avatarURL.equals(that.avatarURL) : that.avatarURL != null);
     }
 
     @Override
     public int hashCode() {
-        int result = loginName.hashCode();
-        result = 31 * result + realName.hashCode();
-        result = 31 * result + avatarURL.hashCode();
+        int result = loginName != null ? loginName.hashCode() : 0;
+        result = 31 * result + (realName != null ? realName.hashCode() : 0);
+        result = 31 * result + (avatarURL != null ? avatarURL.hashCode() : 0);
         return result;
     }
 }
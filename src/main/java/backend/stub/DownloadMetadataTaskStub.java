@@ -1,13 +1,17 @@
 package backend.stub;
 
+import backend.IssueMetadata;
 import backend.github.DownloadMetadataTask;
+import backend.github.MetadataFetcher;
 import backend.interfaces.TaskRunner;
 
 import java.util.List;
+import java.util.Map;
 
 public class DownloadMetadataTaskStub extends DownloadMetadataTask {
 
-    public DownloadMetadataTaskStub(TaskRunner taskRunner, DummyRepo repo, String repoId, List<Integer> issueIds) {
-        super(taskRunner, repo, repoId, issueIds);
+    public DownloadMetadataTaskStub(TaskRunner taskRunner, DummyRepo repo, String repoId, List<Integer> issueIds,
+                                    Map<Integer, IssueMetadata> previousMetadata, MetadataFetcher metadataFetcher) {
+        super(taskRunner, repo, repoId, issueIds, previousMetadata, metadataFetcher);
     }
 }
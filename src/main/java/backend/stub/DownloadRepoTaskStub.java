@@ -2,10 +2,14 @@ package backend.stub;
 
 import backend.github.DownloadRepoTask;
 import backend.interfaces.TaskRunner;
+import backend.resource.Model;
+
+import java.util.function.Consumer;
 
 public class DownloadRepoTaskStub extends DownloadRepoTask {
 
-    public DownloadRepoTaskStub(TaskRunner taskRunner, DummyRepo repo, String repoId) {
-        super(taskRunner, repo, repoId);
+    public DownloadRepoTaskStub(TaskRunner taskRunner, DummyRepo repo, String repoId,
+                                Consumer<Model> provisionalModelHandler) {
+        super(taskRunner, repo, repoId, provisionalModelHandler);
     }
 }
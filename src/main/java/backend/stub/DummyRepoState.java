@@ -15,6 +15,7 @@ import org.eclipse.egit.github.core.User;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 public class DummyRepoState {
@@ -25,6 +26,8 @@ public class DummyRepoState {
     private TreeMap<String, TurboLabel> labels = new TreeMap<>();
     private TreeMap<Integer, TurboMilestone> milestones = new TreeMap<>();
     private TreeMap<String, TurboUser> users = new TreeMap<>();
+    // Issues are immutable, so their events and comments are kept alongside them
+    private TreeMap<Integer, IssueMetadata> metadata = new TreeMap<>();
 
     private TreeMap<Integer, TurboIssue> updatedIssues = new TreeMap<>();
     private TreeMap<String, TurboLabel> updatedLabels = new TreeMap<>();
@@ -36,9 +39,10 @@ public class DummyRepoState {
 
         for (int i = 0; i < 10; i++) {
             // Issue #7 is a PR
-            TurboIssue dummyIssue = (i != 6) ? makeDummyIssue() : makeDummyPR();
-            // All default issues are treated as if created a long time ago
-            dummyIssue.setUpdatedAt(LocalDateTime.of(2000 + i, 1, 1, 0, 0));
+            TurboIssue dummyIssue = ((i != 6) ? makeDummyIssue() : makeDummyPR())
+                // All default issues are treated as if created a long time ago
+                .setUpdatedAt(LocalDateTime.of(2000 + i, 1, 1, 0, 0))
+                .build();
             TurboLabel dummyLabel = makeDummyLabel();
             TurboMilestone dummyMilestone = makeDummyMilestone();
             TurboUser dummyUser = makeDummyUser();
@@ -52,21 +56,24 @@ public class DummyRepoState {
 
         // Issues #1-5 are assigned milestones 1-5 respectively
         for (int i = 1; i <= 5; i++) {
-            issues.get(i).setMilestone(milestones.get(i));
+            TurboMilestone milestone = milestones.get(i);
+            changeIssue(i, issue -> issue.setMilestone(milestone));
         }
 
         // Odd issues are assigned label 1, even issues are assigned label 2
         for (int i = 1; i <= 10; i++) {
-            issues.get(i).addLabel((i % 2 == 0) ? "Label 1" : "Label 2");
+            String label = (i % 2 == 0) ? "Label 1" : "Label 2";
+            changeIssue(i, issue -> issue.addLabel(label));
         }
 
         // We assign a colorful label to issue 10
         labels.put("Label 11", new TurboLabel(dummyRepoId, "ffa500", "Label 11"));
-        issues.get(10).addLabel("Label 11");
+        changeIssue(10, issue -> issue.addLabel("Label 11"));
 
         // Each user is assigned to his corresponding issue
         for (int i = 1; i <= 10; i++) {
-            issues.get(i).setAssignee("User " + i);
+            String assignee = "User " + i;
+            changeIssue(i, issue -> issue.setAssignee(assignee));
         }
 
         // Then put down three comments for issue 10
@@ -80,15 +87,14 @@ public class DummyRepoState {
         dummyComment2.setUser(new User().setLogin("User 2"));
         dummyComment3.setUser(new User().setLogin("User 3"));
         Comment[] dummyComments = { dummyComment1, dummyComment2, dummyComment3 };
-        issues.get(10).setMetadata(new IssueMetadata(
+        metadata.put(10, new IssueMetadata(
                 new ArrayList<>(),
                 new ArrayList<>(Arrays.asList(dummyComments))
         ));
-        issues.get(10).setCommentCount(3);
-        issues.get(10).setUpdatedAt(LocalDateTime.now());
+        changeIssue(10, issue -> issue.setCommentCount(3).setUpdatedAt(LocalDateTime.now()));
 
         // Issue 6 is closed
-        issues.get(6).setOpen(false);
+        changeIssue(6, issue -> issue.setOpen(false));
 
         // Label groups for testing label picker exclusivity
         labels.put("p.low", new TurboLabel(dummyRepoId, "p.low"));
@@ -98,6 +104,14 @@ public class DummyRepoState {
         labels.put("type.research", new TurboLabel(dummyRepoId, "type.research"));
     }
 
+    private void changeIssue(int issueId, UnaryOperator<TurboIssue.Builder> change) {
+        issues.put(issueId, change.apply(new TurboIssue.Builder(issues.get(issueId))).build());
+    }
+
+    private IssueMetadata getMetadata(int issueId) {
+        return metadata.getOrDefault(issueId, new IssueMetadata());
+    }
+
     protected ImmutableTriple<List<TurboIssue>, String, Date>
         getUpdatedIssues(String eTag, Date lastCheckTime) {
 
@@ -160,22 +174,19 @@ public class DummyRepoState {
         return new ArrayList<>(users.values());
     }
 
-    private TurboIssue makeDummyIssue() {
-        return new TurboIssue(dummyRepoId,
-                issues.size() + 1,
-                "Issue " + (issues.size() + 1),
-                "User " + (issues.size() + 1),
-                LocalDateTime.of(1999 + issues.size(), 1, 1, 0, 0),
-                false);
+    private TurboIssue.Builder makeDummyIssue() {
+        return new TurboIssue.Builder(dummyRepoId, issues.size() + 1)
+                .setTitle("Issue " + (issues.size() + 1))
+                .setCreator("User " + (issues.size() + 1))
+                .setCreatedAt(LocalDateTime.of(1999 + issues.size(), 1, 1, 0, 0));
     }
 
-    private TurboIssue makeDummyPR() {
-        return new TurboIssue(dummyRepoId,
-                issues.size() + 1,
-                "PR " + (issues.size() + 1),
-                "User " + (issues.size() + 1),
-                LocalDateTime.of(1999 + issues.size(), 1, 1, 0, 0),
-                true);
+    private TurboIssue.Builder makeDummyPR() {
+        return new TurboIssue.Builder(dummyRepoId, issues.size() + 1)
+                .setTitle("PR " + (issues.size() + 1))
+                .setCreator("User " + (issues.size() + 1))
+                .setCreatedAt(LocalDateTime.of(1999 + issues.size(), 1, 1, 0, 0))
+                .setPullRequest(true);
     }
 
     private TurboLabel makeDummyLabel() {
@@ -191,18 +202,16 @@ public class DummyRepoState {
     }
 
     protected List<TurboIssueEvent> getEvents(int issueId) {
-        TurboIssue issueToGet = issues.get(issueId);
-        if (issueToGet != null) {
-            return issueToGet.getMetadata().getEvents();
+        if (issues.containsKey(issueId)) {
+            return getMetadata(issueId).getEvents();
         }
         // Fail silently
         return new ArrayList<>();
     }
 
     protected List<Comment> getComments(int issueId) {
-        TurboIssue issueToGet = issues.get(issueId);
-        if (issueToGet != null) {
-            return issueToGet.getMetadata().getComments();
+        if (issues.containsKey(issueId)) {
+            return getMetadata(issueId).getComments();
         }
         // Fail silently
         return new ArrayList<>();
@@ -210,7 +219,7 @@ public class DummyRepoState {
 
     // UpdateEvent methods to directly mutate the repo state
     protected void makeNewIssue() {
-        TurboIssue toAdd = makeDummyIssue();
+        TurboIssue toAdd = makeDummyIssue().build();
         issues.put(toAdd.getId(), toAdd);
         updatedIssues.put(toAdd.getId(), toAdd);
     }
@@ -244,24 +253,19 @@ public class DummyRepoState {
     }
 
     private TurboIssue renameIssue(TurboIssue issueToUpdate, String updateText) {
-        // Not allowed to mutate issueToUpdate itself as it introduces immediate changes in the GUI.
-        TurboIssue updatedIssue = new TurboIssue(issueToUpdate);
-
-        updatedIssue.setTitle(updateText);
+        // Issues are immutable, so the GUI only sees the renamed issue once it is fetched as an update.
+        TurboIssue updatedIssue = new TurboIssue.Builder(issueToUpdate)
+                .setTitle(updateText)
+                .setUpdatedAt(LocalDateTime.now())
+                .build();
 
         // Add renamed event to events list of issue
-        List<TurboIssueEvent> eventsOfIssue = updatedIssue.getMetadata().getEvents();
-        // Not deep copy as the same TurboIssueEvent objects of issueToUpdate are the TurboIssueEvents
-        // of updatedIssue. Might create problems later if eventsOfIssue are to be mutable after downloading
-        // from repo (which should not be the case).
-        // (but this approach works if the metadata of the issue is not modified, which is the current case)
-        // TODO make TurboIssueEvent immutable
+        IssueMetadata metadataOfIssue = getMetadata(updatedIssue.getId());
+        List<TurboIssueEvent> eventsOfIssue = new ArrayList<>(metadataOfIssue.getEvents());
         eventsOfIssue.add(new TurboIssueEvent(new User().setLogin("test"),
                 IssueEventType.Renamed,
                 new Date()));
-        List<Comment> commentsOfIssue = updatedIssue.getMetadata().getComments();
-        updatedIssue.setMetadata(new IssueMetadata(eventsOfIssue, commentsOfIssue));
-        updatedIssue.setUpdatedAt(LocalDateTime.now());
+        metadata.put(updatedIssue.getId(), new IssueMetadata(eventsOfIssue, metadataOfIssue.getComments()));
 
         // Add to list of updated issues, and replace issueToUpdate in main issues store.
         updatedIssues.put(updatedIssue.getId(), updatedIssue);
@@ -293,6 +297,7 @@ public class DummyRepoState {
 
     protected TurboIssue deleteIssue(int itemId) {
         updatedIssues.remove(itemId);
+        metadata.remove(itemId);
         return issues.remove(itemId);
     }
 
@@ -312,12 +317,13 @@ public class DummyRepoState {
     }
 
     protected List<Label> setLabels(int issueId, List<String> labels) {
-        TurboIssue toSet = new TurboIssue(issues.get(issueId));
+        TurboIssue issueToSet = issues.get(issueId);
 
         // Update issue events
-        List<TurboIssueEvent> eventsOfIssue = toSet.getMetadata().getEvents();
+        IssueMetadata metadataOfIssue = getMetadata(issueId);
+        List<TurboIssueEvent> eventsOfIssue = new ArrayList<>(metadataOfIssue.getEvents());
         // TODO change to expression lambdas
-        List<String> labelsOfIssue = toSet.getLabels();
+        List<String> labelsOfIssue = issueToSet.getLabels();
         labelsOfIssue.forEach(labelName ->
                 eventsOfIssue.add(new TurboIssueEvent(new User().setLogin("test"),
                         IssueEventType.Unlabeled,
@@ -328,12 +334,13 @@ public class DummyRepoState {
                         IssueEventType.Labeled,
                         new Date()).setLabelName(labelName))
         );
-        List<Comment> commentsOfIssue = toSet.getMetadata().getComments();
-        toSet.setMetadata(new IssueMetadata(eventsOfIssue, commentsOfIssue));
-        toSet.setUpdatedAt(LocalDateTime.now());
+        metadata.put(issueId, new IssueMetadata(eventsOfIssue, metadataOfIssue.getComments()));
 
         // Actually setting label is done after updating issue events
-        toSet.setLabels(labels);
+        TurboIssue toSet = new TurboIssue.Builder(issueToSet)
+                .setUpdatedAt(LocalDateTime.now())
+                .setLabels(labels)
+                .build();
 
         // Then update the relevant state arrays to reflect changes in UI
         issues.put(issueId, toSet);
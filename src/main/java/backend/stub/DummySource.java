@@ -2,6 +2,7 @@ package backend.stub;
 
 import backend.IssueMetadata;
 import backend.UserCredentials;
+import backend.github.MetadataFetcher;
 import backend.interfaces.RepoSource;
 import backend.resource.Model;
 import backend.resource.TurboIssue;
@@ -11,10 +12,12 @@ import util.Futures;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public class DummySource extends RepoSource {
 
     private final DummyRepo dummy = new DummyRepo();
+    private final MetadataFetcher metadataFetcher = new MetadataFetcher(this, 1);
 
     @Override
     public String getName() {
@@ -29,8 +32,8 @@ public class DummySource extends RepoSource {
     }
 
     @Override
-    public CompletableFuture<Model> downloadRepository(String repoId) {
-        return addTask(new DownloadRepoTaskStub(this, dummy, repoId)).response;
+    public CompletableFuture<Model> downloadRepository(String repoId, Consumer<Model> provisionalModelHandler) {
+        return addTask(new DownloadRepoTaskStub(this, dummy, repoId, provisionalModelHandler)).response;
     }
 
     @Override
@@ -39,8 +42,11 @@ public class DummySource extends RepoSource {
     }
 
     @Override
-    public CompletableFuture<Map<Integer, IssueMetadata>> downloadMetadata(String repoId, List<Integer> issues) {
-        return addTask(new DownloadMetadataTaskStub(this, dummy, repoId, issues)).response;
+    public CompletableFuture<Map<Integer, IssueMetadata>> downloadMetadata(
+        String repoId, List<Integer> issues, Map<Integer, IssueMetadata> previousMetadata) {
+
+        return addTask(new DownloadMetadataTaskStub(this, dummy, repoId, issues, previousMetadata,
+            metadataFetcher)).response;
     }
 
     @Override
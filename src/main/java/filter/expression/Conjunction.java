@@ -70,7 +70,7 @@ public class Conjunction implements FilterExpression {
     }
 
     @Override
-    public void applyTo(TurboIssue issue, IModel model) throws QualifierApplicationException {
+    public void applyTo(TurboIssue.Builder issue, IModel model) throws QualifierApplicationException {
         left.applyTo(issue, model);
         right.applyTo(issue, model);
     }
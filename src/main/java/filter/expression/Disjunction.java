@@ -57,7 +57,7 @@ public class Disjunction implements FilterExpression {
     }
 
     @Override
-    public void applyTo(TurboIssue issue, IModel model) throws QualifierApplicationException {
+    public void applyTo(TurboIssue.Builder issue, IModel model) throws QualifierApplicationException {
         assert false;
     }
 
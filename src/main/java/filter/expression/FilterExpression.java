@@ -25,7 +25,7 @@ public interface FilterExpression {
     // an issue. This should be invoked for disjunctions and negations
     // (i.e. call the above method to check first).
 
-    void applyTo(TurboIssue issue, IModel model) throws QualifierApplicationException;
+    void applyTo(TurboIssue.Builder issue, IModel model) throws QualifierApplicationException;
 
     // Walks the syntax tree to get all the qualifier names that appear.
 
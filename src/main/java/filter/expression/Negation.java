@@ -49,7 +49,7 @@ public class Negation implements FilterExpression {
     }
 
     @Override
-    public void applyTo(TurboIssue issue, IModel model) throws QualifierApplicationException {
+    public void applyTo(TurboIssue.Builder issue, IModel model) throws QualifierApplicationException {
         assert false;
     }
 
@@ -1,6 +1,7 @@
 package filter.expression;
 
 import backend.interfaces.IModel;
+import backend.IssueMetadata;
 import backend.resource.TurboIssue;
 import backend.resource.TurboLabel;
 import backend.resource.TurboMilestone;
@@ -186,11 +187,11 @@ public class Qualifier implements FilterExpression {
         case "no":
             return satisfiesNoConditions(issue);
         case "is":
-            return satisfiesIsConditions(issue);
+            return satisfiesIsConditions(model, issue);
         case "created":
             return satisfiesCreationDate(issue);
         case "updated":
-            return satisfiesUpdatedHours(issue);
+            return satisfiesUpdatedHours(model, issue);
         case "repo":
             return satisfiesRepo(issue);
         default:
@@ -199,7 +200,7 @@ public class Qualifier implements FilterExpression {
     }
 
     @Override
-    public void applyTo(TurboIssue issue, IModel model) throws QualifierApplicationException {
+    public void applyTo(TurboIssue.Builder issue, IModel model) throws QualifierApplicationException {
         assert name != null && content != null;
 
         // The empty qualifier should not be applied to anything
@@ -404,8 +405,8 @@ public class Qualifier implements FilterExpression {
                 break;
             case "nonSelfUpdate":
                 if (isSortableByNonSelfUpdates) {
-                    comparator = (a, b) ->
-                        a.getMetadata().getNonSelfUpdatedAt().compareTo(b.getMetadata().getNonSelfUpdatedAt());
+                    comparator = (a, b) -> model.getStateOfIssue(a).getMetadata().getNonSelfUpdatedAt()
+                        .compareTo(model.getStateOfIssue(b).getMetadata().getNonSelfUpdatedAt());
                 } else {
                     comparator = (a, b) -> a.getUpdatedAt().compareTo(b.getUpdatedAt());
                 }
@@ -492,7 +493,7 @@ public class Qualifier implements FilterExpression {
         return false;
     }
 
-    private boolean satisfiesUpdatedHours(TurboIssue issue) {
+    private boolean satisfiesUpdatedHours(IModel model, TurboIssue issue) {
         NumberRange updatedRange;
 
         if (numberRange.isPresent()) {
@@ -505,9 +506,10 @@ public class Qualifier implements FilterExpression {
 
         int hoursSinceUpdate;
 
-        if (issue.getMetadata().isUpdated()) {
+        IssueMetadata metadata = model.getStateOfIssue(issue).getMetadata();
+        if (metadata.isUpdated()) {
             // Second time being filtered, we now have metadata from source, so we can use getNonSelfUpdatedAt.
-            hoursSinceUpdate = Utility.safeLongToInt(issue.getMetadata().getNonSelfUpdatedAt()
+            hoursSinceUpdate = Utility.safeLongToInt(metadata.getNonSelfUpdatedAt()
                     .until(getCurrentTime(), ChronoUnit.HOURS));
         } else {
             // First time being filtered (haven't gotten metadata from source yet).
@@ -556,7 +558,7 @@ public class Qualifier implements FilterExpression {
         return content.isPresent() && !satisfiesHasConditions(issue);
     }
 
-    private boolean satisfiesIsConditions(TurboIssue issue) {
+    private boolean satisfiesIsConditions(IModel model, TurboIssue issue) {
         if (!content.isPresent()) return false;
         switch (content.get()) {
         case "open":
@@ -570,9 +572,9 @@ public class Qualifier implements FilterExpression {
         case "unmerged":
             return issue.isPullRequest() && issue.isOpen();
         case "read":
-            return issue.isCurrentlyRead();
+            return model.getStateOfIssue(issue).isCurrentlyRead();
         case "unread":
-            return !issue.isCurrentlyRead();
+            return !model.getStateOfIssue(issue).isCurrentlyRead();
         default:
             return false;
         }
@@ -706,7 +708,7 @@ public class Qualifier implements FilterExpression {
         }
     }
 
-    private void applyMilestone(TurboIssue issue, IModel model) throws QualifierApplicationException {
+    private void applyMilestone(TurboIssue.Builder issue, IModel model) throws QualifierApplicationException {
         if (!content.isPresent()) {
             throw new QualifierApplicationException("Name of milestone to apply required");
         }
@@ -739,7 +741,7 @@ public class Qualifier implements FilterExpression {
             "Ambiguous filter: can apply any of the following milestones: " + milestones.toString());
     }
 
-    private void applyLabel(TurboIssue issue, IModel model) throws QualifierApplicationException {
+    private void applyLabel(TurboIssue.Builder issue, IModel model) throws QualifierApplicationException {
         if (!content.isPresent()) {
             throw new QualifierApplicationException("Name of label to apply required");
         }
@@ -772,7 +774,7 @@ public class Qualifier implements FilterExpression {
             "Ambiguous filter: can apply any of the following labels: " + labels.toString());
     }
 
-    private void applyAssignee(TurboIssue issue, IModel model) throws QualifierApplicationException {
+    private void applyAssignee(TurboIssue.Builder issue, IModel model) throws QualifierApplicationException {
         if (!content.isPresent()) {
             throw new QualifierApplicationException("Name of assignee to apply required");
         }
@@ -805,7 +807,7 @@ public class Qualifier implements FilterExpression {
             "Ambiguous filter: can apply any of the following assignees: " + assignees.toString());
     }
 
-    private void applyState(TurboIssue issue) throws QualifierApplicationException {
+    private void applyState(TurboIssue.Builder issue) throws QualifierApplicationException {
         if (!content.isPresent()) {
             throw new QualifierApplicationException("State to apply required");
         }
@@ -1,30 +1,93 @@
 package github;
 
-import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import com.google.gson.reflect.TypeToken;
 
-import org.apache.commons.io.input.NullInputStream;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.eclipse.egit.github.core.client.GitHubClient;
 import org.eclipse.egit.github.core.client.GitHubRequest;
 import org.eclipse.egit.github.core.client.GitHubResponse;
-import util.IOUtilities;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
 
 public class GitHubClientExtended extends GitHubClient {
     public static final int NO_UPDATE_RESPONSE_CODE = 304;
     protected static final int CONNECTION_TIMEOUT = 30000;
 
+    // The most idle connections to each host kept open for later requests to reuse, one for each
+    // thread of a repository source's pool, unless given with -Dhttp.maxConnections
+    public static final int DEFAULT_MAX_IDLE_CONNECTIONS = 16;
+
+    private static final String KEEP_ALIVE_PROPERTY = "http.keepAlive";
+    private static final String MAX_CONNECTIONS_PROPERTY = "http.maxConnections";
+
+    static {
+        configureConnectionPool();
+    }
+
+    // The API whose rate limit applies when a response does not say
+    public static final String CORE_RESOURCE = "core";
+
+    private static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+    private static final String ENCODING_GZIP = "gzip";
+
+    /**
+     * Receives the rate limit reported with each response.
+     */
+    public interface RateLimitListener {
+        /**
+         * @param resource the API the limit applies to, e.g. core or graphql
+         * @param resetTime when the limit is next reset, in milliseconds since the epoch
+         */
+        void rateLimitUpdated(String resource, int remaining, int limit, long resetTime);
+    }
+
+    private volatile RateLimitListener rateLimitListener = (resource, remaining, limit, resetTime) -> {};
+
     public GitHubClientExtended() {
     }
 
+    /**
+     * Has connections kept open once their response has been read, so that most requests reuse
+     * one instead of paying for a new TCP connection and TLS handshake. The pool is shared by all
+     * HttpURLConnections and is sized when the first connection is made, so this must happen
+     * before then. Values given on the command line are left alone.
+     */
+    private static void configureConnectionPool() {
+        if (System.getProperty(KEEP_ALIVE_PROPERTY) == null) {
+            System.setProperty(KEEP_ALIVE_PROPERTY, "true");
+        }
+        if (System.getProperty(MAX_CONNECTIONS_PROPERTY) == null) {
+            System.setProperty(MAX_CONNECTIONS_PROPERTY, String.valueOf(DEFAULT_MAX_IDLE_CONNECTIONS));
+        }
+    }
+
+    /**
+     * @return the most idle connections to each host kept open for reuse
+     */
+    public static int getMaxIdleConnections() {
+        return Integer.getInteger(MAX_CONNECTIONS_PROPERTY, DEFAULT_MAX_IDLE_CONNECTIONS);
+    }
+
+    /**
+     * Creates a client for a GitHub Enterprise instance (or a stand-in for GitHub in tests).
+     */
+    public GitHubClientExtended(String hostname, int port, String scheme) {
+        super(hostname, port, scheme);
+    }
+
     /**
      * Extends superclass method with connection timeout parameters.
      */
@@ -36,6 +99,61 @@ public class GitHubClientExtended extends GitHubClient {
         return connection;
     }
 
+    /**
+     * Extends superclass method to ask for responses to be compressed, which most of them are
+     * with gzip.
+     */
+    @Override
+    protected HttpURLConnection configureRequest(HttpURLConnection request) {
+        super.configureRequest(request);
+        request.setRequestProperty(HEADER_ACCEPT_ENCODING, ENCODING_GZIP);
+        return request;
+    }
+
+    public void setRateLimitListener(RateLimitListener rateLimitListener) {
+        this.rateLimitListener = rateLimitListener;
+    }
+
+    /**
+     * Extends superclass method to pass the rate limit on, along with when it is reset.
+     */
+    @Override
+    protected GitHubClient updateRateLimits(HttpURLConnection request) {
+        super.updateRateLimits(request);
+        String remaining = request.getHeaderField("X-RateLimit-Remaining");
+        String limit = request.getHeaderField("X-RateLimit-Limit");
+        String reset = request.getHeaderField("X-RateLimit-Reset");
+        if (remaining == null || limit == null || reset == null) {
+            return this;
+        }
+        String resource = request.getHeaderField("X-RateLimit-Resource");
+        try {
+            rateLimitListener.rateLimitUpdated(resource == null ? CORE_RESOURCE : resource,
+                Integer.parseInt(remaining), Integer.parseInt(limit),
+                Long.parseLong(reset) * 1000); // seconds to milliseconds
+        } catch (NumberFormatException e) {
+            // The headers are only informative, so a malformed one is as good as none
+        }
+        return this;
+    }
+
+    /**
+     * Closes the rest of a response which is not needed, so that the connection it came over goes
+     * back to the pool instead of being left open until it is garbage collected.
+     *
+     * @param request
+     */
+    public void discardResponse(HttpURLConnection request) {
+        try {
+            InputStream stream = getStream(request);
+            if (stream != null) {
+                stream.close();
+            }
+        } catch (IOException e) {
+            // The connection is closed instead, which is all that is lost
+        }
+    }
+
     /**
      * Utility method for creating a connection from a GitHubRequest.
      *
@@ -83,31 +201,110 @@ public class GitHubClientExtended extends GitHubClient {
      * @throws IOException
      */
     public GitHubEventsResponse getEvent(GitHubRequest request) throws IOException {
+        return getEvent(request, null).get();
+    }
+
+    /**
+     * Serves the same purpose as getEvent, but only if the events have changed since they had
+     * the given ETag.
+     *
+     * @param request
+     * @param eTag the ETag of the events when they were last fetched, without quotes; may be null
+     * @return response, or empty if the events have not changed
+     * @throws IOException
+     */
+    public Optional<GitHubEventsResponse> getEvent(GitHubRequest request, String eTag) throws IOException {
+        HttpURLConnection httpRequest = createConditionalGet(request, eTag);
+        final int code = httpRequest.getResponseCode();
+        updateRateLimits(httpRequest);
+        if (code == NO_UPDATE_RESPONSE_CODE) {
+            return Optional.empty();
+        } else if (isOk(code)) {
+            try (InputStream stream = getStream(httpRequest)) {
+                return Optional.of(GitHubEventsResponse.parse(httpRequest, stream, gson));
+            }
+        } else if (isEmpty(code)) {
+            GitHubResponse ghResponse = new GitHubResponse(httpRequest, null);
+            return Optional.of(new GitHubEventsResponse(ghResponse, new ArrayList<>()));
+        } else {
+            throw createException(getStream(httpRequest), code, httpRequest.getResponseMessage());
+        }
+    }
+
+    /**
+     * Serves the same purpose as GitHubClient::get, but only if the resource has changed since it
+     * had the given ETag. A response saying that it has not does not count towards the API limit.
+     *
+     * @param request
+     * @param eTag the ETag of the resource when it was last fetched, without quotes; may be null
+     * @return response, or empty if the resource has not changed
+     * @throws IOException
+     */
+    public Optional<GitHubResponse> getIfChanged(GitHubRequest request, String eTag) throws IOException {
+        HttpURLConnection httpRequest = createConditionalGet(request, eTag);
+        final int code = httpRequest.getResponseCode();
+        updateRateLimits(httpRequest);
+        if (code == NO_UPDATE_RESPONSE_CODE) {
+            return Optional.empty();
+        } else if (isOk(code)) {
+            return Optional.of(new GitHubResponse(httpRequest, getBody(request, getStream(httpRequest))));
+        } else if (isEmpty(code)) {
+            return Optional.of(new GitHubResponse(httpRequest, null));
+        } else {
+            throw createException(getStream(httpRequest), code, httpRequest.getResponseMessage());
+        }
+    }
+
+    private HttpURLConnection createConditionalGet(GitHubRequest request, String eTag) throws IOException {
         HttpURLConnection httpRequest = createGet(request.generateUri());
         String accept = request.getResponseContentType();
         if (accept != null)
             httpRequest.setRequestProperty(HEADER_ACCEPT, accept);
-        final int code = httpRequest.getResponseCode();
-        updateRateLimits(httpRequest);
-        if (isOk(code)) {
+        if (eTag != null && !eTag.isEmpty())
+            httpRequest.setRequestProperty("If-None-Match", "\"" + eTag + "\"");
+        return httpRequest;
+    }
 
-            // Copy the httpRequest input stream into a byte array
-            InputStream reqIS = getStream(httpRequest);
-            ByteArrayOutputStream buffer = IOUtilities.inputStreamToByteArrayOutputStream(reqIS);
-            InputStream reqIS2 = new ByteArrayInputStream(buffer.toByteArray());
-            InputStream reqIS3 = new ByteArrayInputStream(buffer.toByteArray());
+    /**
+     * Sends a query to the GraphQL API, which is found at /graphql on GitHub and at /api/graphql
+     * on GitHub Enterprise.
+     *
+     * @param query
+     * @param variables the values of the query's variables, by name
+     * @return the data selected by the query, and the time the server answered
+     * @throws IOException if the request fails, or the query has errors
+     */
+    public ImmutablePair<JsonObject, Date> query(String query, Map<String, Object> variables) throws IOException {
+        String uri = baseUri + (prefix == null ? "" : "/api") + "/graphql";
+        HttpURLConnection httpRequest = configureRequest((HttpURLConnection) new URL(uri).openConnection());
+        httpRequest.setRequestMethod(METHOD_POST);
+        httpRequest.setConnectTimeout(CONNECTION_TIMEOUT);
+        httpRequest.setReadTimeout(CONNECTION_TIMEOUT);
 
-            // The first copy is used to produce the GitHubResponse
-            GitHubResponse ghResponse = new GitHubResponse(httpRequest, getBody(request, reqIS2));
+        Map<String, Object> params = new HashMap<>();
+        params.put("query", query);
+        params.put("variables", variables);
+        sendParams(httpRequest, params);
 
-            // The second is parsed again for event-specific information
-            return new GitHubEventsResponse(ghResponse, reqIS3);
-        } else if (isEmpty(code)) {
-            GitHubResponse ghResponse = new GitHubResponse(httpRequest, null);
-            return new GitHubEventsResponse(ghResponse, new NullInputStream(0));
-        } else {
+        final int code = httpRequest.getResponseCode();
+        updateRateLimits(httpRequest);
+        if (!isOk(code)) {
             throw createException(getStream(httpRequest), code, httpRequest.getResponseMessage());
         }
+        JsonObject response = parseJson(getStream(httpRequest), JsonObject.class);
+
+        // A query which fails is still answered with 200 OK, with the reasons in place of the data
+        JsonElement errors = response.get("errors");
+        if (errors != null && errors.isJsonArray() && ((JsonArray) errors).size() > 0) {
+            StringBuilder messages = new StringBuilder();
+            for (JsonElement error : (JsonArray) errors) {
+                messages.append(messages.length() == 0 ? "" : "; ")
+                    .append(error.getAsJsonObject().get("message").getAsString());
+            }
+            throw new IOException("GraphQL query failed: " + messages);
+        }
+        Date date = httpRequest.getDate() == 0 ? new Date() : new Date(httpRequest.getDate());
+        return new ImmutablePair<>(response.getAsJsonObject("data"), date);
     }
 
     /**
@@ -122,17 +319,19 @@ public class GitHubClientExtended extends GitHubClient {
         HttpURLConnection httpRequest = createGet("/rate_limit");
         if (isOk(httpRequest.getResponseCode())) {
             // We extract from rate, which is similar to resources.core
-            String json = String.valueOf(
-                    IOUtilities.inputStreamToByteArrayOutputStream(getStream(httpRequest)));
             Map<String, Object> map =
-                    new Gson().fromJson(json, new TypeToken<Map<String, Object>>() {}.getType());
+                    parseJson(getStream(httpRequest), new TypeToken<Map<String, Object>>() {}.getType());
             Map<String, Double> mapRate = (Map<String, Double>) map.get("rate");
 
             long reset = mapRate.get("reset").longValue() * 1000; // seconds to milliseconds
             int remaining = mapRate.get("remaining").intValue();
+            if (mapRate.get("limit") != null) {
+                rateLimitListener.rateLimitUpdated(CORE_RESOURCE, remaining, mapRate.get("limit").intValue(), reset);
+            }
 
             return new ImmutablePair<>(remaining, reset);
         } else {
+            discardResponse(httpRequest);
             throw new IOException(httpRequest.getResponseCode() + " " + httpRequest.getResponseMessage());
         }
     }
@@ -154,11 +353,16 @@ public class GitHubClientExtended extends GitHubClient {
     }
 
     /**
-     * Overridden to make public.
+     * Overridden to make public, and to decompress the response as it is read if it was
+     * compressed.
      */
     @Override
     public InputStream getStream(HttpURLConnection request) throws IOException {
-        return super.getStream(request);
+        InputStream stream = super.getStream(request);
+        if (stream != null && ENCODING_GZIP.equalsIgnoreCase(request.getContentEncoding())) {
+            return new GZIPInputStream(stream);
+        }
+        return stream;
     }
 
     /**
@@ -1,23 +1,24 @@
 package github;
 
 import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
-import org.apache.commons.io.input.NullInputStream;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
 import org.eclipse.egit.github.core.IssueEvent;
 import org.eclipse.egit.github.core.User;
 import org.eclipse.egit.github.core.client.GitHubResponse;
+import util.Utility;
 
-import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.UnsupportedEncodingException;
-import java.lang.reflect.Type;
+import java.net.HttpURLConnection;
 import java.util.ArrayList;
-import java.util.Map;
-import java.util.Optional;
+import java.util.List;
 
 import static org.eclipse.egit.github.core.client.IGitHubConstants.CHARSET_UTF8;
 
@@ -27,92 +28,116 @@ import static org.eclipse.egit.github.core.client.IGitHubConstants.CHARSET_UTF8;
  */
 public class GitHubEventsResponse {
 
-    private static final Logger logger = LogManager.getLogger(GitHubEventsResponse.class.getName());
-
     private GitHubResponse response;
     private ArrayList<TurboIssueEvent> turboIssueEvents;
 
-    public GitHubEventsResponse(GitHubResponse response, InputStream jsonBody) {
+    public GitHubEventsResponse(GitHubResponse response, List<TurboIssueEvent> turboIssueEvents) {
         this.response = response;
-        this.turboIssueEvents = new ArrayList<>();
-        parseEventParameters(jsonBody);
+        this.turboIssueEvents = new ArrayList<>(turboIssueEvents);
     }
 
-    @SuppressWarnings("unchecked")
-    private void parseEventParameters(InputStream jsonBody) {
-        Gson gson = new Gson();
-        Type type = new TypeToken<Map<String, Object>[]>(){}.getType();
-        BufferedReader reader;
-        try {
-            reader = new BufferedReader(new InputStreamReader(jsonBody, CHARSET_UTF8));
-
-            Map<String, Object>[] eventsWithParameters = gson.fromJson(reader, type);
+    /**
+     * Reads the events in a response as it arrives. Each event is parsed once, into both the
+     * IssueEvent which makes up the body of the GitHubResponse and the TurboIssueEvent which adds
+     * its event-specific parameters.
+     *
+     * @param request the connection the response came over
+     * @param jsonBody the body of the response, which is not closed
+     * @param gson the Gson instance IssueEvents are deserialised with
+     * @return response
+     * @throws IOException
+     */
+    public static GitHubEventsResponse parse(HttpURLConnection request, InputStream jsonBody, Gson gson)
+        throws IOException {
 
-            if (eventsWithParameters == null) {
-                return;
+        List<IssueEvent> issueEvents = new ArrayList<>();
+        List<TurboIssueEvent> turboIssueEvents = new ArrayList<>();
+        try {
+            JsonReader reader = new JsonReader(new InputStreamReader(jsonBody, CHARSET_UTF8));
+            if (reader.peek() != JsonToken.NULL) {
+                JsonParser parser = new JsonParser();
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    JsonObject eventWithParameters = parser.parse(reader).getAsJsonObject();
+                    IssueEvent issueEvent = gson.fromJson(eventWithParameters, IssueEvent.class);
+                    issueEvents.add(issueEvent);
+                    turboIssueEvents.add(createTurboIssueEvent(issueEvent, eventWithParameters, gson));
+                }
+                reader.endArray();
             }
+        } catch (JsonParseException | IllegalStateException e) {
+            throw new IOException("Parse exception converting JSON to object", e);
+        }
+        return new GitHubEventsResponse(
+            new GitHubResponse(request, issueEvents.toArray(new IssueEvent[issueEvents.size()])),
+            turboIssueEvents);
+    }
 
-            IssueEvent[] issueEvents = (IssueEvent[]) response.getBody();
-
-            Map<String, String> parameters;
-            for (int i = 0; i < issueEvents.length; i++) {
-                TurboIssueEvent event = new TurboIssueEvent(
-                        issueEvents[i].getActor(),
-                        IssueEventType.fromString(issueEvents[i].getEvent()),
-                        issueEvents[i].getCreatedAt());
+    private static TurboIssueEvent createTurboIssueEvent(IssueEvent issueEvent, JsonObject eventWithParameters,
+                                                         Gson gson) {
+        TurboIssueEvent event = new TurboIssueEvent(
+                issueEvent.getActor(),
+                IssueEventType.fromString(issueEvent.getEvent()),
+                issueEvent.getCreatedAt());
 
-                switch (event.getType()) {
-                case Renamed:
-                    // two string keys: from, to
-                    parameters = (Map<String, String>) eventsWithParameters[i].get("rename");
-                    event.setRenamedFrom(parameters.get("from"));
-                    event.setRenamedTo(parameters.get("to"));
-                    break;
-                case Milestoned:
-                case Demilestoned:
-                    // one string key: title
-                    parameters = (Map<String, String>) eventsWithParameters[i].get("milestone");
-                    event.setMilestoneTitle(parameters.get("title"));
-                    break;
-                case Labeled:
-                case Unlabeled:
-                    // two string keys: name, color (hex, without #)
-                    parameters = (Map<String, String>) eventsWithParameters[i].get("label");
-                    event.setLabelColour(parameters.get("color"));
-                    event.setLabelName(parameters.get("name"));
-                    break;
-                case Assigned:
-                case Unassigned:
-                    // User object
-                    // re-serialise it using Gson
-                    Object assigneeMap = eventsWithParameters[i].get("assignee");
-                    String json = new Gson().toJson(assigneeMap);
-                    User user = gson.fromJson(json, User.class);
-                    event.setAssignedUser(user);
-                    break;
-                case Closed:
-                case Reopened:
-                case Locked:
-                case Unlocked:
-                    // No need to do anything
-                    break;
-                case Subscribed:
-                case Merged:
-                case HeadRefDeleted:
-                case HeadRefRestored:
-                case Referenced:
-                case Mentioned:
-                default:
-                    // Not yet implemented, or no events triggered
-                }
-                turboIssueEvents.add(event);
-            }
-        } catch (UnsupportedEncodingException e) {
-            logger.error(e.getLocalizedMessage(), e);
+        JsonObject parameters;
+        switch (event.getType()) {
+        case Renamed:
+            // two string keys: from, to
+            parameters = eventWithParameters.getAsJsonObject("rename");
+            event.setRenamedFrom(getString(parameters, "from"));
+            event.setRenamedTo(getString(parameters, "to"));
+            break;
+        case Milestoned:
+        case Demilestoned:
+            // one string key: title
+            parameters = eventWithParameters.getAsJsonObject("milestone");
+            event.setMilestoneTitle(getString(parameters, "title"));
+            break;
+        case Labeled:
+        case Unlabeled:
+            // two string keys: name, color (hex, without #)
+            parameters = eventWithParameters.getAsJsonObject("label");
+            event.setLabelColour(getString(parameters, "color"));
+            event.setLabelName(getString(parameters, "name"));
+            break;
+        case Assigned:
+        case Unassigned:
+            // User object, deserialised from the same tree
+            event.setAssignedUser(gson.fromJson(eventWithParameters.get("assignee"), User.class));
+            break;
+        case Closed:
+        case Reopened:
+        case Locked:
+        case Unlocked:
+            // No need to do anything
+            break;
+        case Subscribed:
+        case Merged:
+        case HeadRefDeleted:
+        case HeadRefRestored:
+        case Referenced:
+        case Mentioned:
+        default:
+            // Not yet implemented, or no events triggered
         }
+        return event;
+    }
+
+    private static String getString(JsonObject parameters, String key) {
+        JsonElement value = parameters == null ? null : parameters.get(key);
+        return value == null || value.isJsonNull() ? null : value.getAsString();
     }
 
     public ArrayList<TurboIssueEvent> getTurboIssueEvents() {
         return turboIssueEvents;
     }
+
+    /**
+     * Returns the ETag of the events, without quotes, or null if there is none.
+     */
+    public String getETag() {
+        String eTag = response.getHeader("ETag");
+        return eTag == null ? null : Utility.stripQuotes(eTag);
+    }
 }
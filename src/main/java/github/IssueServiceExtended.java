@@ -1,14 +1,23 @@
 package github;
 
+import com.google.gson.reflect.TypeToken;
+import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.eclipse.egit.github.core.*;
 import org.eclipse.egit.github.core.client.GitHubRequest;
 import org.eclipse.egit.github.core.client.GitHubResponse;
+import org.eclipse.egit.github.core.client.PageIterator;
+import org.eclipse.egit.github.core.client.PagedRequest;
 import org.eclipse.egit.github.core.service.IssueService;
+import util.Utility;
 
 import java.io.IOException;
 import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import static org.eclipse.egit.github.core.client.IGitHubConstants.*;
 
@@ -154,4 +163,72 @@ public class IssueServiceExtended extends IssueService{
         GitHubEventsResponse response = ghClient.getEvent(request);
         return response;
     }
+
+    /**
+     * Retrieves a list of all issue events, if they have changed since they had the given ETag.
+     * @param repository
+     * @param issueId
+     * @param eTag the ETag of the events when they were last retrieved, without quotes; may be null
+     * @return list of issue events, or empty if they have not changed
+     * @throws IOException
+     */
+    public Optional<GitHubEventsResponse> getIssueEvents(IRepositoryIdProvider repository, int issueId,
+                                                         String eTag) throws IOException {
+        GitHubRequest request = createRequest();
+        StringBuilder uri = new StringBuilder(SEGMENT_REPOS);
+        uri.append('/').append(repository.generateId());
+        uri.append(SEGMENT_ISSUES);
+        uri.append('/').append(issueId);
+        uri.append(SEGMENT_EVENTS);
+        request.setUri(uri);
+        request.setType(IssueEvent[].class);
+        return ghClient.getEvent(request, eTag);
+    }
+
+    /**
+     * Retrieves the comments on an issue, if they have changed since they had the given ETag.
+     * Comments which span several pages have no ETag, as that of the first page does not cover the rest.
+     * @param repository
+     * @param issueId
+     * @param eTag the ETag of the comments when they were last retrieved, without quotes; may be null
+     * @return the comments and their ETag (which may be null), or empty if they have not changed
+     * @throws IOException
+     */
+    @SuppressWarnings("unchecked")
+    public Optional<ImmutablePair<List<Comment>, String>> getComments(IRepositoryIdProvider repository,
+                                                                      int issueId, String eTag)
+        throws IOException {
+
+        PagedRequest<Comment> request = createCommentsRequest(repository, issueId, PagedRequest.PAGE_FIRST);
+        Optional<GitHubResponse> response = ghClient.getIfChanged(request, eTag);
+        if (!response.isPresent()) {
+            return Optional.empty();
+        }
+
+        List<Comment> comments = new ArrayList<>();
+        if (response.get().getBody() != null) {
+            comments.addAll((Collection<Comment>) response.get().getBody());
+        }
+        if (response.get().getNext() == null) {
+            String updatedETag = response.get().getHeader("ETag");
+            return Optional.of(new ImmutablePair<>(comments,
+                updatedETag == null ? null : Utility.stripQuotes(updatedETag)));
+        }
+
+        comments.addAll(getAll(new PageIterator<>(
+            createCommentsRequest(repository, issueId, PagedRequest.PAGE_FIRST + 1), ghClient)));
+        return Optional.of(new ImmutablePair<>(comments, null));
+    }
+
+    private PagedRequest<Comment> createCommentsRequest(IRepositoryIdProvider repository, int issueId, int page) {
+        PagedRequest<Comment> request = createPagedRequest(page, PagedRequest.PAGE_SIZE);
+        StringBuilder uri = new StringBuilder(SEGMENT_REPOS);
+        uri.append('/').append(repository.generateId());
+        uri.append(SEGMENT_ISSUES);
+        uri.append('/').append(issueId);
+        uri.append(SEGMENT_COMMENTS);
+        request.setUri(uri);
+        request.setType(new TypeToken<List<Comment>>() {}.getType());
+        return request;
+    }
 }
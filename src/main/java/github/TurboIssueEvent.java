@@ -1,7 +1,7 @@
 package github;
 
 import backend.resource.Model;
-import backend.resource.TurboIssue;
+import backend.resource.IssueState;
 import backend.resource.TurboLabel;
 import javafx.geometry.Insets;
 import javafx.scene.Node;
@@ -124,12 +124,12 @@ public class TurboIssueEvent {
         return text;
     }
 
-    public Node display(Model model, TurboIssue issue) {
+    public Node display(Model model, IssueState issueState) {
         String actorName = getActor().getLogin();
         String time = new PrettyTime().format(getDate());
 
-        boolean bold = issue.getMarkedReadAt().isPresent()
-            && issue.getMarkedReadAt().get().isBefore(Utility.dateToLocalDateTime(getDate()));
+        boolean bold = issueState.getMarkedReadAt().isPresent()
+            && issueState.getMarkedReadAt().get().isBefore(Utility.dateToLocalDateTime(getDate()));
 
         switch (getType()) {
             case Renamed: {
@@ -118,6 +118,9 @@ public class UpdateService<T> extends GitHubService {
 
             updateCheckTime(connection);
 
+            // The items are downloaded page by page over other requests
+            client.discardResponse(connection);
+
         } catch (IOException e) {
             logger.error(e.getLocalizedMessage(), e);
         }
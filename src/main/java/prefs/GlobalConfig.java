@@ -31,10 +31,34 @@ public class GlobalConfig {
     private Map<String, List<String>> boards = new HashMap<>();
     private Map<String, Map<Integer, LocalDateTime>> markedReadTimes = new HashMap<>();
     private Map<String, String> keyboardShortcuts = new HashMap<>();
+    private String storeCodec = "";
+    private String repoSource = "";
 
     public GlobalConfig() {
     }
 
+    /**
+     * Returns the name of the codec the repository store compresses with, or an empty string for the default.
+     */
+    public String getStoreCodec() {
+        return storeCodec == null ? "" : storeCodec;
+    }
+
+    public void setStoreCodec(String storeCodec) {
+        this.storeCodec = storeCodec;
+    }
+
+    /**
+     * Returns the name of the source repositories are downloaded from, or an empty string for the default.
+     */
+    public String getRepoSource() {
+        return repoSource == null ? "" : repoSource;
+    }
+
+    public void setRepoSource(String repoSource) {
+        this.repoSource = repoSource;
+    }
+
     public Map<String, String> getKeyboardShortcuts() {
         return new HashMap<>(keyboardShortcuts);
     }
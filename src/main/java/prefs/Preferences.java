@@ -119,4 +119,12 @@ public class Preferences {
     public void setKeyboardShortcuts(Map<String, String> keyboardShortcuts) {
         global.setKeyboardShortcuts(keyboardShortcuts);
     }
+
+    public String getStoreCodec() {
+        return global.getStoreCodec();
+    }
+
+    public String getRepoSource() {
+        return global.getRepoSource();
+    }
 }
@@ -1,6 +1,7 @@
 package ui;
 
 import backend.interfaces.IModel;
+import backend.resource.ModelDelta;
 import backend.resource.TurboIssue;
 import filter.expression.FilterExpression;
 import filter.expression.Qualifier;
@@ -35,6 +36,11 @@ public class GUIController {
     // Not to be modified from this point or any further in the GUI.
     private IModel multiModel;
 
+    // The issues of the multimodel, which panels filter and sort. It is kept up to date with the changes
+    // carried by each ModelUpdatedEvent, so that panels only filter and sort again the issues which changed.
+    private ObservableList<TurboIssue> allModelIssues = null;
+    private String lastDefaultRepo = null;
+
     public GUIController(UI ui, PanelControl panelControl, Label apiBox) {
         this.ui = ui;
         this.panelControl = panelControl;
@@ -54,8 +60,12 @@ public class GUIController {
     }
 
     /**
-     * The handler method for a ModelUpdatedEvent. It extracts the issues of the multimodel carried by the event,
-     * and then filters and sorts the issues to place each panel in PanelControl based on these issues.
+     * The handler method for a ModelUpdatedEvent. It brings the issues panels are based on up to date with the
+     * multimodel carried by the event, and then filters and sorts the issues to place in each panel in PanelControl.
+     *
+     * Where the event says only some issues changed, the panels' filtered and sorted lists are patched with those
+     * issues. Everything is filtered and sorted again when it does not, or when other resources or the default repo
+     * changed, as they can change which issues unchanged issues match.
      *
      * The filtering process also produces a list of issues to request metadata for, if e.hasMetadata is false
      * and their respective panels specify the display of metadata (through the UPDATED filter).
@@ -76,16 +86,30 @@ public class GUIController {
         // down to each ListPanelCard in order to display details about each issue such as labels and assignees.
         panelControl.updateModel(updatedModel);
 
-        // Extracts all issues from the multimodel. This is then filtered through each of the panels' filters
-        // to produce the appropriate list of issues to be displayed.
-        ObservableList<TurboIssue> allModelIssues = FXCollections.observableArrayList(updatedModel.getIssues());
+        boolean isPatchable = allModelIssues != null && e.delta.isOnlyIssues()
+                && Objects.equals(lastDefaultRepo, updatedModel.getDefaultRepo());
+        lastDefaultRepo = updatedModel.getDefaultRepo();
+
+        if (isPatchable) {
+            // Panels built on allModelIssues filter and sort the issues which change as they change.
+            patchIssues(updatedModel, e.delta);
+        } else {
+            // Extracts all issues from the multimodel. This is then filtered through each of the panels' filters
+            // to produce the appropriate list of issues to be displayed.
+            allModelIssues = FXCollections.observableArrayList(updatedModel.getIssues());
+        }
 
         // Populated in processPanel calls.
         HashMap<String, HashSet<Integer>> toUpdate = new HashMap<>();
 
         panelControl.getChildren().forEach(child -> {
             if (child instanceof FilterPanel) {
-                processPanel((FilterPanel) child, updatedModel, allModelIssues, toUpdate, e.hasMetadata);
+                FilterPanel panel = (FilterPanel) child;
+                if (isPatchable && !dependsOnMetadata(panel)) {
+                    panel.refreshItems(e.hasMetadata);
+                } else {
+                    processPanel(panel, updatedModel, allModelIssues, toUpdate, e.hasMetadata);
+                }
             }
         });
 
@@ -105,7 +129,9 @@ public class GUIController {
      * @param changedPanel The panel whose filter expression had been changed by the user.
      */
     public void panelFilterExpressionChanged(FilterPanel changedPanel) {
-        ObservableList<TurboIssue> allModelIssues = FXCollections.observableArrayList(multiModel.getIssues());
+        if (allModelIssues == null) {
+            allModelIssues = FXCollections.observableArrayList(multiModel.getIssues());
+        }
         HashMap<String, HashSet<Integer>> toUpdate = new HashMap<>();
 
         // This is not triggered by a (metadata) update, so we pass false into the call.
@@ -122,7 +148,8 @@ public class GUIController {
      * off metadata requests.
      *
      * updatedModel and allModelIssues are specified as separate arguments as the extraction of allModelIssues
-     * is O(n).
+     * is O(n). Panels which depend on metadata are based on a copy of allModelIssues, so that they do not show
+     * changes to it before the metadata for them comes.
      *
      * @param panelToProcess The panel whose filter expression will be used to filter issues.
      * @param updatedModel The model whose data will be used to display issue details.
@@ -150,8 +177,9 @@ public class GUIController {
         // Issues are filtered and sorted here. isMetadataUpdate and hasUpdatedQualifier are used to determine
         // whether to use an implicit non-self-update sorting order.
         TransformationList<TurboIssue, TurboIssue> filteredAndSortedIssues =
-                filterAndSortPanel(panelExpression, panelMetaQualifiers,
-                        updatedModel, allModelIssues, isMetadataUpdate && hasUpdatedQualifier);
+                filterAndSortPanel(panelExpression, panelMetaQualifiers, updatedModel,
+                        hasUpdatedQualifier ? FXCollections.observableArrayList(allModelIssues) : allModelIssues,
+                        isMetadataUpdate && hasUpdatedQualifier);
 
         // If the filter expression has an UPDATED qualifier, we must ensure that the issues have the relevant
         // metadata before showing them to the user. If not, we only tally the issues up for metadata update.
@@ -164,6 +192,50 @@ public class GUIController {
         }
     }
 
+    /**
+     * Brings allModelIssues up to date with the issues which changed according to the given delta, replacing,
+     * removing or adding each of them as it is now in the model. Panels' filtered and sorted lists are then
+     * updated for just those issues.
+     *
+     * @param updatedModel The model to look up the issues in.
+     * @param delta What changed in the model since the last ModelUpdatedEvent.
+     */
+    private void patchIssues(IModel updatedModel, ModelDelta delta) {
+        Map<String, Set<Integer>> changedIssues = delta.getIssueIds();
+        if (changedIssues.isEmpty()) {
+            return;
+        }
+
+        // Issues which are there already are replaced or removed in one pass; the rest are then added.
+        ListIterator<TurboIssue> issues = allModelIssues.listIterator();
+        while (issues.hasNext()) {
+            TurboIssue issue = issues.next();
+            Set<Integer> ids = changedIssues.get(issue.getRepoId());
+            if (ids != null && ids.remove(issue.getId())) {
+                Optional<TurboIssue> current = getIssue(updatedModel, issue.getRepoId(), issue.getId());
+                if (current.isPresent()) {
+                    issues.set(current.get());
+                } else {
+                    issues.remove();
+                }
+            }
+        }
+        changedIssues.forEach((repoId, ids) ->
+                ids.forEach(id -> getIssue(updatedModel, repoId, id).ifPresent(allModelIssues::add)));
+    }
+
+    private static Optional<TurboIssue> getIssue(IModel model, String repoId, int id) {
+        return model.getModelById(repoId).flatMap(repo -> repo.getIssueById(id));
+    }
+
+    /**
+     * Determines if a panel only shows issues once their metadata has come, in which case it is filtered and
+     * sorted again on every update. Which issues such panels show also depends on the time of the update.
+     */
+    private static boolean dependsOnMetadata(FilterPanel panel) {
+        return updatedQualifierExists(panel.getCurrentFilterExpression().find(Qualifier::isMetaQualifier));
+    }
+
     /**
      * Produces a list of issues, filtered and sorted from all issues from the given multimodel, based on
      * the given filter expression.
@@ -261,6 +261,9 @@ public class UI extends Application implements EventDispatcher {
         if (browserComponent != null) {
             browserComponent.onAppQuit();
         }
+        if (logic != null) {
+            logic.onAppQuit();
+        }
         if (!isTestMode() || isTestGlobalConfig()) {
             panels.saveSession();
             prefs.saveGlobalConfig();
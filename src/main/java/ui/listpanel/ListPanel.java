@@ -1,6 +1,7 @@
 package ui.listpanel;
 
 import backend.interfaces.IModel;
+import backend.resource.IssueState;
 import backend.resource.TurboIssue;
 import filter.expression.Qualifier;
 import javafx.scene.input.KeyEvent;
@@ -50,7 +51,7 @@ public class ListPanel extends FilterPanel {
         if (currentFilterExpression.getQualifierNames().contains(Qualifier.UPDATED) && hasMetadata) {
             return issueNonSelfCommentCounts.containsKey(issue.getId()) &&
                     Math.abs(
-                            issueNonSelfCommentCounts.get(issue.getId()) - issue.getMetadata().getNonSelfCommentCount()
+                            issueNonSelfCommentCounts.get(issue.getId()) - getNonSelfCommentCount(issue)
                     ) > 0;
         } else {
             return issueCommentCounts.containsKey(issue.getId()) &&
@@ -73,13 +74,17 @@ public class ListPanel extends FilterPanel {
                 }
             } else {
                 // We don't know about this issue, just put the current comment count.
-                issueNonSelfCommentCounts.put(issue.getId(), issue.getMetadata().getNonSelfCommentCount());
+                issueNonSelfCommentCounts.put(issue.getId(), getNonSelfCommentCount(issue));
                 issueCommentCounts.put(issue.getId(), issue.getCommentCount());
             }
         }
         return result;
     }
 
+    private int getNonSelfCommentCount(TurboIssue issue) {
+        return model.getStateOfIssue(issue).getMetadata().getNonSelfCommentCount();
+    }
+
     /**
      * Refreshes the list of issue cards shown to the user.
      *
@@ -118,7 +123,7 @@ public class ListPanel extends FilterPanel {
             // The refreshItems(false) call that follows will remove the highlighted effect of the comment bubble.
             // (if it was there before)
             issueCommentCounts.put(issue.getId(), issue.getCommentCount());
-            issueNonSelfCommentCounts.put(issue.getId(), issue.getMetadata().getNonSelfCommentCount());
+            issueNonSelfCommentCounts.put(issue.getId(), getNonSelfCommentCount(issue));
             // We assume we already have metadata, so we pass true to avoid refreshItems from trying to get
             // metadata after clicking.
             refreshItems(true);
@@ -159,11 +164,7 @@ public class ListPanel extends FilterPanel {
                     return;
                 }
                 TurboIssue issue = item.get();
-                LocalDateTime now = LocalDateTime.now();
-                ui.prefs.setMarkedReadAt(issue.getRepoId(), issue.getId(), now);
-                issue.setMarkedReadAt(Optional.of(now));
-                issue.setIsCurrentlyRead(true);
-                parentPanelControl.refresh();
+                ui.logic.setMarkedReadAt(issue, Optional.of(LocalDateTime.now()));
                 listView.selectNextItem();
             }
             if (event.getCode() == KeyboardShortcuts.markAsUnread) {
@@ -172,10 +173,7 @@ public class ListPanel extends FilterPanel {
                     return;
                 }
                 TurboIssue issue = item.get();
-                ui.prefs.clearMarkedReadAt(issue.getRepoId(), issue.getId());
-                issue.setMarkedReadAt(Optional.empty());
-                issue.setIsCurrentlyRead(false);
-                parentPanelControl.refresh();
+                ui.logic.setMarkedReadAt(issue, Optional.empty());
             }
             if (event.getCode() == KeyboardShortcuts.SHOW_DOCS) {
                 ui.getBrowserComponent().showDocs();
@@ -286,4 +284,8 @@ public class ListPanel extends FilterPanel {
     public TurboIssue getSelectedIssue() {
         return listView.getSelectedItem().get();
     }
+
+    public IssueState getStateOfSelectedIssue() {
+        return model.getStateOfIssue(getSelectedIssue());
+    }
 }
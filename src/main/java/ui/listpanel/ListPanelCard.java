@@ -35,6 +35,7 @@ public class ListPanelCard extends VBox {
      */
 
     private final TurboIssue issue;
+    private final IssueState issueState;
     private final Model model;
     private FlowPane issueDetails = new FlowPane();
     private FilterPanel parentPanel;
@@ -46,13 +47,15 @@ public class ListPanelCard extends VBox {
      *
      * @param model
      * @param issue
+     * @param issueState
      * @param parentPanel
      * @param issuesWithNewComments
      */
-    public ListPanelCard(Model model, TurboIssue issue, FilterPanel parentPanel, HashSet<Integer>
-            issuesWithNewComments) {
+    public ListPanelCard(Model model, TurboIssue issue, IssueState issueState, FilterPanel parentPanel,
+                         HashSet<Integer> issuesWithNewComments) {
         this.model = model;
         this.issue = issue;
+        this.issueState = issueState;
         this.parentPanel = parentPanel;
         this.issuesWithNewComments = issuesWithNewComments;
         setup();
@@ -64,7 +67,7 @@ public class ListPanelCard extends VBox {
         issueTitle.setWrapText(true);
         issueTitle.getStyleClass().add("issue-panel-name");
 
-        if (issue.isCurrentlyRead()) {
+        if (issueState.isCurrentlyRead()) {
             issueTitle.getStyleClass().add("issue-panel-name-read");
         }
 
@@ -93,7 +96,7 @@ public class ListPanelCard extends VBox {
     private Node getEventDisplay(TurboIssue issue, final int withinHours) {
         final LocalDateTime now = LocalDateTime.now();
 
-        List<TurboIssueEvent> eventsWithinDuration = issue.getMetadata().getEvents().stream()
+        List<TurboIssueEvent> eventsWithinDuration = issueState.getMetadata().getEvents().stream()
             .filter(event -> {
                 LocalDateTime eventTime = Utility.longToLocalDateTime(event.getDate().getTime());
                 int hours = Utility.safeLongToInt(eventTime.until(now, ChronoUnit.HOURS));
@@ -101,7 +104,7 @@ public class ListPanelCard extends VBox {
             })
             .collect(Collectors.toList());
 
-        List<Comment> commentsWithinDuration = issue.getMetadata().getComments().stream()
+        List<Comment> commentsWithinDuration = issueState.getMetadata().getComments().stream()
             .filter(comment -> {
                 LocalDateTime created = Utility.longToLocalDateTime(comment.getCreatedAt().getTime());
                 int hours = Utility.safeLongToInt(created.until(now, ChronoUnit.HOURS));
@@ -109,7 +112,7 @@ public class ListPanelCard extends VBox {
             })
             .collect(Collectors.toList());
 
-        return layoutEvents(model, issue, eventsWithinDuration, commentsWithinDuration);
+        return layoutEvents(model, issueState, eventsWithinDuration, commentsWithinDuration);
     }
 
     /**
@@ -118,7 +121,7 @@ public class ListPanelCard extends VBox {
      * @param comments
      * @return
      */
-    private static Node layoutEvents(Model model, TurboIssue issue,
+    private static Node layoutEvents(Model model, IssueState issueState,
                                      List<TurboIssueEvent> events, List<Comment> comments) {
         VBox result = new VBox();
         result.setSpacing(3);
@@ -126,7 +129,7 @@ public class ListPanelCard extends VBox {
 
         // Events
         events.stream()
-            .map(e -> e.display(model, issue))
+            .map(e -> e.display(model, issueState))
             .forEach(e -> result.getChildren().add(e));
 
         // Comments
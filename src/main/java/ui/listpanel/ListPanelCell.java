@@ -39,7 +39,8 @@ public class ListPanelCell extends ListCell<TurboIssue> {
         Optional<Model> currentModel = model.getModelById(issue.getRepoId());
         assert currentModel.isPresent() : "Invalid repo id " + issue.getRepoId()
             + " for issue " + issue.getId();
-        setGraphic(new ListPanelCard(currentModel.get(), issue, parent, issuesWithNewComments));
+        setGraphic(new ListPanelCard(currentModel.get(), issue, model.getStateOfIssue(issue), parent,
+            issuesWithNewComments));
         this.setId(issue.getRepoId() + "_col" + parentPanelIndex + "_" + issue.getId());
     }
 
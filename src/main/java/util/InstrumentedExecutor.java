@@ -0,0 +1,101 @@
+package util;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of at most a fixed number of named daemon threads, which keeps track of how many tasks
+ * are waiting and running, and of how long they wait to start and take to run.
+ *
+ * Tasks queue up once every thread is busy, so a task which waits for another task given to the
+ * same pool may wait forever; it should instead compose with the other task's result.
+ */
+public class InstrumentedExecutor extends ThreadPoolExecutor {
+
+    // Idle threads are let go after this many seconds
+    private static final long KEEP_ALIVE_TIME = 60;
+
+    private final String name;
+    private final LatencyHistogram waitTimes = new LatencyHistogram();
+    private final LatencyHistogram runTimes = new LatencyHistogram();
+
+    /**
+     * A snapshot of what the pool is doing and has done.
+     */
+    public static class Statistics {
+        public final String name;
+        public final int queueDepth;
+        public final int activeCount;
+        public final int poolSize;
+        public final LatencyHistogram waitTimes;
+        public final LatencyHistogram runTimes;
+
+        public Statistics(String name, int queueDepth, int activeCount, int poolSize,
+                          LatencyHistogram waitTimes, LatencyHistogram runTimes) {
+            this.name = name;
+            this.queueDepth = queueDepth;
+            this.activeCount = activeCount;
+            this.poolSize = poolSize;
+            this.waitTimes = new LatencyHistogram(waitTimes);
+            this.runTimes = new LatencyHistogram(runTimes);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d active of %d thread(s), %d queued; waited %s; ran %s",
+                name, activeCount, poolSize, queueDepth, waitTimes, runTimes);
+        }
+    }
+
+    /**
+     * @param name the prefix of the names of the pool's threads
+     * @param threads the most threads to run tasks on at once
+     */
+    public InstrumentedExecutor(String name, int threads) {
+        super(threads, threads, KEEP_ALIVE_TIME, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+            new NamedThreadFactory(name));
+        allowCoreThreadTimeOut(true);
+        this.name = name;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        long submitted = System.nanoTime();
+        super.execute(() -> {
+            long started = System.nanoTime();
+            waitTimes.record(started - submitted, TimeUnit.NANOSECONDS);
+            try {
+                command.run();
+            } finally {
+                runTimes.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    public int getQueueDepth() {
+        return getQueue().size();
+    }
+
+    public Statistics getStatistics() {
+        return new Statistics(name, getQueueDepth(), getActiveCount(), getPoolSize(), waitTimes, runTimes);
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String name;
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        public NamedThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
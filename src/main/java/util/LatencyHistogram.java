@@ -0,0 +1,96 @@
+package util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts durations in buckets which double in width: under 1ms, under 2ms, under 4ms, and so on
+ * up to about a minute and a half, beyond which everything goes in the last bucket.
+ *
+ * This class is thread-safe; a histogram which is recorded to while it is read may be read
+ * part-way through a recording.
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKET_COUNT = 18;
+
+    private final AtomicLongArray counts;
+
+    public LatencyHistogram() {
+        counts = new AtomicLongArray(BUCKET_COUNT);
+    }
+
+    // Copy constructor
+    public LatencyHistogram(LatencyHistogram other) {
+        counts = new AtomicLongArray(BUCKET_COUNT);
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, other.counts.get(i));
+        }
+    }
+
+    public void record(long duration, TimeUnit unit) {
+        long millis = unit.toMillis(duration);
+        int bucket = millis <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(millis);
+        counts.incrementAndGet(Math.min(bucket, BUCKET_COUNT - 1));
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * @param fraction between 0 and 1, e.g. 0.99 for the 99th percentile
+     * @return the duration in milliseconds which at least the given fraction of those recorded
+     * were shorter than, or Long.MAX_VALUE if it is beyond the last bucket; 0 if nothing was recorded
+     */
+    public long getPercentile(double fraction) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT - 1; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return getUpperBound(i);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * @return the number of durations in each bucket, shortest first
+     */
+    public long[] getBucketCounts() {
+        long[] result = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            result[i] = counts.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * @return the duration in milliseconds which everything in the bucket is shorter than
+     */
+    public static long getUpperBound(int bucket) {
+        return 1L << bucket;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d (p50 %s, p90 %s, p99 %s)", getCount(),
+            formatPercentile(0.5), formatPercentile(0.9), formatPercentile(0.99));
+    }
+
+    private String formatPercentile(double fraction) {
+        long percentile = getPercentile(fraction);
+        return percentile == Long.MAX_VALUE
+            ? ">=" + getUpperBound(BUCKET_COUNT - 2) + "ms"
+            : "<" + percentile + "ms";
+    }
+}
@@ -4,13 +4,22 @@ import java.awt.Dimension;
 import java.awt.GraphicsEnvironment;
 import java.awt.Rectangle;
 import java.awt.Toolkit;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -20,6 +29,8 @@ import java.time.ZoneId;
 import java.util.Date;
 import java.util.Optional;
 import java.util.TimeZone;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -39,6 +50,8 @@ public class Utility {
 
     private static final Logger logger = LogManager.getLogger(Utility.class.getName());
 
+    public static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
     public static boolean isWellFormedRepoId(String owner, String repo) {
         return !(owner == null || owner.isEmpty() || repo == null || repo.isEmpty())
                 && isWellFormedRepoId(RepositoryId.create(owner, repo).generateId());
@@ -63,20 +76,47 @@ public class Utility {
     }
 
     /**
+     * Streams the given file through a buffered UTF-8 reader into the given parser, so that the
+     * contents never have to be held in memory as a single String.
+     * Exceptions thrown by the parser are propagated to the caller.
+     * @param fileName
+     * @param parser
+     * @return the parsed result, or Optional.empty() if the file cannot be read or nothing was parsed
+     */
+    public static <T> Optional<T> readFile(String fileName, Function<Reader, T> parser) {
+        boolean validPath = !(fileName == null || fileName.isEmpty());
+        if (validPath) {
+            try (BufferedReader reader =
+                         Files.newBufferedReader(new File(fileName).toPath(), StandardCharsets.UTF_8)) {
+                return Optional.ofNullable(parser.apply(reader));
+            } catch (IOException e) {
+                logger.error(e.getLocalizedMessage(), e);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Streams content into the given file through a buffered UTF-8 writer, so that the
+     * content never has to be built up as a single String.
+     * Exceptions thrown by the content writer are propagated to the caller.
      * Returns true on JSON corruption.
-     * TODO remove JSON-specific parts
      * @param fileName
      * @param content
      * @param issueCount
      * @return
      */
-    public static boolean writeFile(String fileName, String content, int issueCount) {
+    public static boolean writeFile(String fileName, Consumer<Writer> content, int issueCount) {
         boolean validPath = !(fileName == null || fileName.isEmpty());
         if (validPath) {
             try {
-                PrintWriter writer = new PrintWriter(fileName, "UTF-8");
-                writer.println(content);
-                writer.close();
+                writeFileAtomically(Paths.get(fileName), channel -> {
+                    BufferedWriter writer = new BufferedWriter(
+                            Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1));
+                    content.accept(writer);
+                    writer.newLine();
+                    writer.flush();
+                });
 
                 long sizeAfterWrite = Files.size(Paths.get(fileName));
                 return processFileGrowth(sizeAfterWrite, issueCount, fileName);
@@ -88,6 +128,52 @@ public class Utility {
         return false;
     }
 
+    /**
+     * Returns true on JSON corruption.
+     * TODO remove JSON-specific parts
+     * @param fileName
+     * @param content
+     * @param issueCount
+     * @return
+     */
+    public static boolean writeFile(String fileName, String content, int issueCount) {
+        return writeFile(fileName, writer -> {
+            PrintWriter printer = new PrintWriter(writer);
+            printer.print(content);
+            printer.flush();
+        }, issueCount);
+    }
+
+    /**
+     * Writes the content to a temporary file alongside the given one, which then replaces it in a
+     * single rename. Should the write be interrupted, the file is left as it was before.
+     * @throws IOException if the content could not be written, in which case the temporary file is removed
+     */
+    public static void writeFileAtomically(Path path, FileContent content) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + TEMPORARY_FILE_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            content.writeTo(channel);
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        try {
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * The content of a file written by {@link #writeFileAtomically}.
+     */
+    @FunctionalInterface
+    public interface FileContent {
+        void writeTo(FileChannel channel) throws IOException;
+    }
+
     private static boolean processFileGrowth(long sizeAfterWrite, int issueCount, String fileName) {
         // The average issue is about 0.75KB in size. If the total filesize is more than (2 * issueCount KB),
         // we consider the json to have exploded as the file is unusually large.
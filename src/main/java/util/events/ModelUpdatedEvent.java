@@ -1,14 +1,24 @@
 package util.events;
 
 import backend.interfaces.IModel;
-import backend.resource.MultiModel;
+import backend.resource.ModelDelta;
 
 public class ModelUpdatedEvent extends Event {
     public final IModel model;
+    public final ModelDelta delta;
     public final boolean hasMetadata;
 
-    public ModelUpdatedEvent(MultiModel models, boolean hasMetadata) {
-        this.model = models;
+    /**
+     * @param model a view of the models which stays as it is, so that everything done with the event
+     *              sees the same version of them
+     */
+    public ModelUpdatedEvent(IModel model, ModelDelta delta, boolean hasMetadata) {
+        this.model = model;
+        this.delta = delta;
         this.hasMetadata = hasMetadata;
     }
+
+    public ModelUpdatedEvent(IModel model, boolean hasMetadata) {
+        this(model, ModelDelta.unknown(), hasMetadata);
+    }
 }
@@ -0,0 +1,18 @@
+package util.exceptions;
+
+/**
+ * Thrown when only some of a repository's items could be downloaded, so that what was downloaded
+ * is not taken to be all there is.
+ */
+public class IncompleteDownloadException extends RuntimeException {
+
+    private static final long serialVersionUID = 2519046231573064512L;
+
+    public IncompleteDownloadException(String message) {
+        super(message);
+    }
+
+    public IncompleteDownloadException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,77 @@
+package benchmarks;
+
+import backend.binary.BinaryStore;
+import backend.binary.Codec;
+import backend.interfaces.RepoStore;
+import backend.resource.Model;
+import backend.resource.serialization.SerializableModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the size of a large repository's snapshot, and the time taken to save and load it,
+ * for each store codec. Run with {@code gradle benchmark -Pinclude=CodecBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CodecBenchmark {
+
+    private static final String REPO = "benchmark/codec";
+
+    @Param({"NONE", "GZIP", "BLOCK"})
+    public String codec;
+
+    @Param({"50000"})
+    public int issueCount;
+
+    private BinaryStore store;
+    private SerializableModel model;
+
+    @Setup(Level.Trial)
+    public void setup() throws ExecutionException, InterruptedException {
+        RepoStore.enableTestDirectory();
+        store = new BinaryStore(Codec.valueOf(codec));
+        model = new SerializableModel(SyntheticModels.create(REPO, issueCount));
+        store.saveRepository(REPO, model).get();
+
+        System.out.printf("%n%s snapshot of %d issues: %d bytes%n", codec, issueCount, storeFile().length());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        storeFile().delete();
+    }
+
+    @Benchmark
+    public boolean save() throws ExecutionException, InterruptedException {
+        return store.saveRepository(REPO, model).get();
+    }
+
+    @Benchmark
+    public Model load() throws ExecutionException, InterruptedException {
+        return store.loadRepository(REPO).get();
+    }
+
+    private static File storeFile() {
+        return new File(RepoStore.TEST_DIRECTORY, RepoStore.escapeRepoName(REPO, BinaryStore.BINARY_EXTENSION));
+    }
+}
@@ -0,0 +1,106 @@
+package benchmarks;
+
+import backend.github.GitHubRepo;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import github.GitHubClientExtended;
+import org.eclipse.egit.github.core.Comment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the time taken to download the comments of an issue, a typical small request, over
+ * connections kept open for reuse with that taken when every request opens a new connection, as
+ * happens when responses are not read to the end. The local server stands in for GitHub, so only
+ * the cost of a TCP connection is measured; over HTTPS each new connection needs a TLS handshake
+ * as well.
+ * Run with {@code gradle benchmark -Pinclude=ConnectionBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Threads(4)
+@Fork(1)
+public class ConnectionBenchmark {
+
+    private static final String REPO = "benchmark/connections";
+    private static final byte[] COMMENTS = ("[{\"id\": 1, \"body\": \"Comment\", \"user\": {\"login\": \"user\"}}]")
+        .getBytes(StandardCharsets.UTF_8);
+
+    @Param({"true", "false"})
+    public boolean reuseConnections;
+
+    private HttpServer server;
+    private GitHubRepo repo;
+
+    /**
+     * A client which asks for every connection to be closed once its response has been read.
+     */
+    private static class ClosingClient extends GitHubClientExtended {
+        public ClosingClient(String hostname, int port, String scheme) {
+            super(hostname, port, scheme);
+        }
+
+        @Override
+        protected HttpURLConnection createConnection(String uri) throws IOException {
+            HttpURLConnection connection = super.createConnection(uri);
+            connection.setRequestProperty("Connection", "close");
+            return connection;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        // Otherwise small responses over a connection which is reused wait on delayed acknowledgements
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", ConnectionBenchmark::respond);
+        server.setExecutor(Executors.newFixedThreadPool(GitHubClientExtended.getMaxIdleConnections()));
+        server.start();
+        int port = server.getAddress().getPort();
+        repo = new GitHubRepo(reuseConnections
+            ? new GitHubClientExtended("localhost", port, "http")
+            : new ClosingClient("localhost", port, "http"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Benchmark
+    public List<Comment> getComments() {
+        return repo.getComments(REPO, 1);
+    }
+
+    private static void respond(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, COMMENTS.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(COMMENTS);
+        }
+    }
+}
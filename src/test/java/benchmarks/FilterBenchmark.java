@@ -0,0 +1,92 @@
+package benchmarks;
+
+import backend.resource.Model;
+import backend.resource.MultiModel;
+import backend.resource.TurboIssue;
+import filter.Parser;
+import filter.expression.FilterExpression;
+import filter.expression.Qualifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import prefs.Preferences;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Measures the time taken by a panel's filter pass over a large repository: evaluating a filter
+ * which looks up the labels, milestone and assignee of every issue, then sorting the matches by a
+ * label group. The lookups are also measured on their own. Run with {@code gradle benchmark -Pinclude=FilterBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FilterBenchmark {
+
+    private static final String REPO = "benchmark/filter";
+
+    @Param({"10000"})
+    public int issueCount;
+
+    private MultiModel models;
+    private List<TurboIssue> issues;
+    private FilterExpression filter;
+    private FilterExpression sortedFilter;
+    private Comparator<TurboIssue> sortOrder;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Model model = SyntheticModels.create(REPO, issueCount);
+        models = new MultiModel(new Preferences(true));
+        models.queuePendingRepository(REPO);
+        models.addPending(model);
+        models.setDefaultRepo(REPO);
+        issues = model.getIssues();
+
+        filter = Parser.parse("label:type.1 || milestone:V0.1 || assignee:user1");
+        sortedFilter = Parser.parse("label:type sort:type.2");
+        sortOrder = sortedFilter.find(qualifier -> qualifier.getName().equals(Qualifier.SORT)).get(0)
+            .getCompoundSortComparator(models, false);
+    }
+
+    @Benchmark
+    public int lookUpIssueResources() {
+        int found = 0;
+        for (TurboIssue issue : issues) {
+            found += models.getLabelsOfIssue(issue).size();
+            found += models.getMilestoneOfIssue(issue).isPresent() ? 1 : 0;
+            found += models.getAssigneeOfIssue(issue).isPresent() ? 1 : 0;
+        }
+        return found;
+    }
+
+    @Benchmark
+    public List<TurboIssue> filter() {
+        return issues.stream()
+            .filter(issue -> Qualifier.process(models, filter, issue))
+            .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<TurboIssue> filterAndSort() {
+        return issues.stream()
+            .filter(issue -> Qualifier.process(models, sortedFilter, issue))
+            .sorted(sortOrder)
+            .collect(Collectors.toList());
+    }
+}
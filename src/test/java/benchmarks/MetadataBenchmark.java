@@ -0,0 +1,103 @@
+package benchmarks;
+
+import backend.IssueMetadata;
+import backend.github.MetadataFetcher;
+import backend.stub.DummyRepo;
+import backend.stub.DummySource;
+import github.TurboIssueEvent;
+import org.eclipse.egit.github.core.Comment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Compares the time taken to download the metadata of a panel's worth of issues one request at a time,
+ * as it used to be, with that taken by a {@link MetadataFetcher}. Each request to the dummy repository
+ * takes a fixed time, standing in for a round trip to GitHub.
+ * Run with {@code gradle benchmark -Pinclude=MetadataBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MetadataBenchmark {
+
+    private static final String REPO = "benchmark/metadata";
+
+    @Param({"200"})
+    public int issueCount;
+
+    @Param({"5"})
+    public int latencyMillis;
+
+    @Param({"4", "8", "16"})
+    public int parallelism;
+
+    private DummyRepo repo;
+    private MetadataFetcher fetcher;
+    private List<Integer> issueIds;
+
+    /**
+     * A dummy repository which takes a while to answer requests for metadata.
+     */
+    private class SlowRepo extends DummyRepo {
+        @Override
+        public List<TurboIssueEvent> getEvents(String repoId, int issueId) {
+            delay();
+            return super.getEvents(repoId, issueId);
+        }
+
+        @Override
+        public List<Comment> getComments(String repoId, int issueId) {
+            delay();
+            return super.getComments(repoId, issueId);
+        }
+
+        private void delay() {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        repo = new SlowRepo();
+        fetcher = new MetadataFetcher(new DummySource(), parallelism);
+        issueIds = IntStream.rangeClosed(1, issueCount).boxed().collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public Map<Integer, IssueMetadata> serial() {
+        Map<Integer, IssueMetadata> result = new HashMap<>();
+        issueIds.forEach(id -> result.put(id,
+            new IssueMetadata(repo.getEvents(REPO, id), repo.getComments(REPO, id))));
+        return result;
+    }
+
+    @Benchmark
+    public Map<Integer, IssueMetadata> batched() throws ExecutionException, InterruptedException {
+        return fetcher.fetch(repo, REPO, issueIds).get();
+    }
+}
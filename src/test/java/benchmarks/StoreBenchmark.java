@@ -0,0 +1,82 @@
+package benchmarks;
+
+import backend.binary.BinaryStore;
+import backend.interfaces.RepoStore;
+import backend.json.JSONStore;
+import backend.resource.Model;
+import backend.resource.serialization.SerializableModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the time taken to load a repository from the JSON store and from the binary store.
+ * Run with {@code gradle benchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StoreBenchmark {
+
+    private static final String JSON_REPO = "benchmark/json";
+    private static final String BINARY_REPO = "benchmark/binary";
+
+    @Param({"1000", "10000"})
+    public int issueCount;
+
+    private JSONStore jsonStore;
+    private BinaryStore binaryStore;
+
+    @Setup(Level.Trial)
+    public void setup() throws ExecutionException, InterruptedException {
+        RepoStore.enableTestDirectory();
+        jsonStore = new JSONStore();
+        binaryStore = new BinaryStore();
+
+        jsonStore.saveRepository(JSON_REPO,
+                new SerializableModel(SyntheticModels.create(JSON_REPO, issueCount))).get();
+        binaryStore.saveRepository(BINARY_REPO,
+                new SerializableModel(SyntheticModels.create(BINARY_REPO, issueCount))).get();
+
+        System.out.printf("%nJSON store: %d bytes, binary store: %d bytes%n",
+                storeFile(JSON_REPO, RepoStore.JSON_EXTENSION).length(),
+                storeFile(BINARY_REPO, BinaryStore.BINARY_EXTENSION).length());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        storeFile(JSON_REPO, RepoStore.JSON_EXTENSION).delete();
+        storeFile(BINARY_REPO, BinaryStore.BINARY_EXTENSION).delete();
+    }
+
+    @Benchmark
+    public Model loadJson() throws ExecutionException, InterruptedException {
+        return jsonStore.loadRepository(JSON_REPO).get();
+    }
+
+    @Benchmark
+    public Model loadBinary() throws ExecutionException, InterruptedException {
+        return binaryStore.loadRepository(BINARY_REPO).get();
+    }
+
+    private static File storeFile(String repoId, String extension) {
+        return new File(RepoStore.TEST_DIRECTORY, RepoStore.escapeRepoName(repoId, extension));
+    }
+}
@@ -0,0 +1,86 @@
+package benchmarks;
+
+import backend.UpdateSignature;
+import backend.resource.Model;
+import backend.resource.TurboIssue;
+import backend.resource.TurboLabel;
+import backend.resource.TurboMilestone;
+import backend.resource.TurboUser;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * Generates deterministic models of realistic shape for the benchmarks.
+ */
+public final class SyntheticModels {
+
+    private static final int USER_COUNT = 50;
+    private static final int LABEL_COUNT = 40;
+    private static final int MILESTONE_COUNT = 20;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2015, 1, 1, 0, 0);
+
+    private SyntheticModels() {}
+
+    public static Model create(String repoId, int issueCount) {
+        Random random = new Random(issueCount);
+
+        List<TurboUser> users = new ArrayList<>();
+        for (int i = 0; i < USER_COUNT; i++) {
+            users.add(new TurboUser(repoId, "user" + i, "User " + i, "https://avatars.example.com/u/" + i));
+        }
+        List<TurboLabel> labels = new ArrayList<>();
+        for (int i = 0; i < LABEL_COUNT; i++) {
+            labels.add(new TurboLabel(repoId, String.format("%06x", random.nextInt(0xffffff)),
+                    "type." + i % 4 + "-label" + i));
+        }
+        List<TurboMilestone> milestones = new ArrayList<>();
+        for (int i = 1; i <= MILESTONE_COUNT; i++) {
+            TurboMilestone milestone = new TurboMilestone(repoId, i, "V0." + i);
+            milestone.setDueDate(Optional.of(LocalDate.of(2015, 1, 1).plusWeeks(i)));
+            milestone.setDescription("Milestone " + i);
+            milestone.setOpen(i > MILESTONE_COUNT / 2);
+            milestones.add(milestone);
+        }
+
+        List<TurboIssue> issues = new ArrayList<>();
+        for (int i = 1; i <= issueCount; i++) {
+            TurboIssue.Builder issue = new TurboIssue.Builder(repoId, i)
+                    .setTitle("Issue " + i + " needs some attention")
+                    .setCreator("user" + random.nextInt(USER_COUNT))
+                    .setCreatedAt(EPOCH.plusHours(i))
+                    .setPullRequest(random.nextInt(5) == 0)
+                    .setDescription(description(random))
+                    .setUpdatedAt(EPOCH.plusHours(i).plusMinutes(random.nextInt(10000)))
+                    .setCommentCount(random.nextInt(20))
+                    .setOpen(random.nextBoolean());
+            if (random.nextBoolean()) {
+                issue.setAssignee("user" + random.nextInt(USER_COUNT));
+            }
+            issue.setLabels(Arrays.asList(labels.get(random.nextInt(LABEL_COUNT)).getActualName(),
+                    labels.get(random.nextInt(LABEL_COUNT)).getActualName()));
+            if (random.nextBoolean()) {
+                issue.setMilestone(1 + random.nextInt(MILESTONE_COUNT));
+            }
+            issues.add(issue.build());
+        }
+
+        UpdateSignature signature = new UpdateSignature("issues", "labels", "milestones", "collaborators",
+                new Date(0));
+        return new Model(repoId, issues, labels, milestones, users, signature);
+    }
+
+    private static String description(Random random) {
+        StringBuilder description = new StringBuilder();
+        for (int i = random.nextInt(10); i >= 0; i--) {
+            description.append("Lorem ipsum dolor sit amet, consectetur adipiscing elit. ");
+        }
+        return description.toString();
+    }
+}
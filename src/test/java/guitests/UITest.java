@@ -41,11 +41,14 @@ public class UITest extends GuiTest {
     public static void clearTestFolder() {
         try {
             if (Files.exists(Paths.get(RepoStore.TEST_DIRECTORY))) {
-                Files.walk(Paths.get(RepoStore.TEST_DIRECTORY), 1)
+                Files.list(Paths.get(RepoStore.TEST_DIRECTORY))
                         .filter(Files::isRegularFile)
                         .filter(p ->
                                 getFileExtension(String.valueOf(p.getFileName())).equalsIgnoreCase("json") ||
-                                getFileExtension(String.valueOf(p.getFileName())).equalsIgnoreCase("json-err")
+                                getFileExtension(String.valueOf(p.getFileName())).equalsIgnoreCase("json-err") ||
+                                getFileExtension(String.valueOf(p.getFileName())).equalsIgnoreCase("bin") ||
+                                getFileExtension(String.valueOf(p.getFileName())).equalsIgnoreCase("journal") ||
+                                getFileExtension(String.valueOf(p.getFileName())).equalsIgnoreCase("metadata")
                         )
                         .forEach(p -> new File(p.toAbsolutePath().toString()).delete());
             }
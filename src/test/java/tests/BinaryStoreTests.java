@@ -0,0 +1,354 @@
+package tests;
+
+import backend.UpdateSignature;
+import backend.binary.BinaryStore;
+import backend.binary.Codec;
+import backend.interfaces.RepoStore;
+import backend.json.JSONStore;
+import backend.resource.Model;
+import backend.resource.TurboIssue;
+import backend.resource.serialization.SerializableModel;
+import benchmarks.SyntheticModels;
+import guitests.UITest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import ui.UI;
+import ui.components.StatusUIStub;
+import util.events.EventDispatcherStub;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BinaryStoreTests {
+
+    private static final String REPO = "binary/binary";
+
+    @BeforeClass
+    public static void setup() {
+        UI.events = new EventDispatcherStub();
+        UI.status = new StatusUIStub();
+    }
+
+    @Before
+    public void enableTestDirectory() {
+        RepoStore.enableTestDirectory();
+    }
+
+    @Test
+    public void testRoundTrip() throws ExecutionException, InterruptedException {
+        Model model = SyntheticModels.create(REPO, 100);
+        BinaryStore store = new BinaryStore();
+        assertFalse(store.saveRepository(REPO, new SerializableModel(model)).get());
+
+        assertEquals(model, store.loadRepository(REPO).get());
+        assertEquals(model, new BinaryStore().loadRepository(REPO).get());
+    }
+
+    @Test
+    public void testParallelLoads() throws ExecutionException, InterruptedException {
+        BinaryStore store = new BinaryStore();
+        List<Model> models = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Model model = SyntheticModels.create("parallel/repo" + i, 100 * (i + 1));
+            models.add(model);
+            store.saveRepository(model.getRepoId(), new SerializableModel(model));
+        }
+
+        List<CompletableFuture<Model>> loads = models.stream()
+                .map(model -> store.loadRepository(model.getRepoId()))
+                .collect(Collectors.toList());
+        for (int i = 0; i < models.size(); i++) {
+            // Each load is still ordered after the save of the same repository
+            assertEquals(models.get(i), loads.get(i).get());
+        }
+    }
+
+    @Test
+    public void testStoredRepos() throws ExecutionException, InterruptedException {
+        new BinaryStore().saveRepository(REPO, new SerializableModel(SyntheticModels.create(REPO, 10))).get();
+        new JSONStore().saveRepository("json/json",
+                new SerializableModel(SyntheticModels.create("json/json", 10))).get();
+
+        BinaryStore store = new BinaryStore();
+        assertEquals(2, store.getStoredRepos().size());
+        assertTrue(store.getStoredRepos().contains(REPO));
+        assertTrue(store.getStoredRepos().contains("json/json"));
+
+        // Wait for the migration which discovery started
+        store.loadRepository("json/json").get();
+    }
+
+    @Test
+    public void testMigrateFromJson() throws ExecutionException, InterruptedException {
+        Model model = SyntheticModels.create(REPO, 10);
+        new JSONStore().saveRepository(REPO, new SerializableModel(model)).get();
+
+        assertEquals(model, new BinaryStore().loadRepository(REPO).get());
+        assertFalse(storeFile(RepoStore.JSON_EXTENSION).exists());
+        assertTrue(storeFile(BinaryStore.BINARY_EXTENSION).exists());
+
+        assertEquals(model, new BinaryStore().loadRepository(REPO).get());
+    }
+
+    @Test
+    public void testStoredReposMigratesJson() throws ExecutionException, InterruptedException {
+        Model model = SyntheticModels.create(REPO, 10);
+        new JSONStore().saveRepository(REPO, new SerializableModel(model)).get();
+
+        BinaryStore store = new BinaryStore();
+        assertEquals(1, store.getStoredRepos().size());
+
+        // Loading joins the migration which discovery started
+        assertEquals(model, store.loadRepository(REPO).get());
+        assertFalse(storeFile(RepoStore.JSON_EXTENSION).exists());
+        assertEquals(1, new BinaryStore().getStoredRepos().size());
+    }
+
+    @Test
+    public void testHeaderlessSnapshotIsRebuilt() throws IOException, ExecutionException, InterruptedException {
+        Model model = SyntheticModels.create(REPO, 10);
+        new BinaryStore(Codec.NONE).saveRepository(REPO, new SerializableModel(model)).get();
+
+        // Rewrite as a version 1 snapshot, which has neither checksum, codec nor issue count
+        ByteBuffer current = ByteBuffer.wrap(Files.readAllBytes(storeFile(BinaryStore.BINARY_EXTENSION).toPath()));
+        ByteBuffer headerless = ByteBuffer.allocate(current.capacity() - 9);
+        headerless.putInt(current.getInt()).putInt(1);
+        current.getInt();
+        current.getInt();
+        current.get();
+        int repoIdLength = current.getInt();
+        headerless.putInt(repoIdLength);
+        for (int i = 0; i < repoIdLength; i++) {
+            headerless.put(current.get());
+        }
+        current.getInt();
+        headerless.put(current);
+        Files.write(storeFile(BinaryStore.BINARY_EXTENSION).toPath(), headerless.array());
+
+        BinaryStore store = new BinaryStore(Codec.NONE);
+        assertEquals(1, store.getStoredRepos().size());
+        assertEquals(model, store.loadRepository(REPO).get());
+        assertEquals(current.capacity(), storeFile(BinaryStore.BINARY_EXTENSION).length());
+    }
+
+    @Test
+    public void testCodecRoundTrip() throws ExecutionException, InterruptedException {
+        Model model = SyntheticModels.create(REPO, 1000);
+        long uncompressedSize = 0;
+        for (Codec codec : Codec.values()) {
+            BinaryStore store = new BinaryStore(codec);
+            assertFalse(store.saveRepository(REPO, new SerializableModel(model)).get());
+            assertEquals(model, new BinaryStore(codec).loadRepository(REPO).get());
+
+            long size = storeFile(BinaryStore.BINARY_EXTENSION).length();
+            if (codec == Codec.NONE) {
+                uncompressedSize = size;
+            } else {
+                assertTrue(size < uncompressedSize / 2);
+            }
+        }
+    }
+
+    @Test
+    public void testCodecChangeRebuildsSnapshot() throws ExecutionException, InterruptedException {
+        Model model = SyntheticModels.create(REPO, 100);
+        Model updated = update(model, 1);
+        BinaryStore uncompressed = new BinaryStore(Codec.NONE);
+        uncompressed.saveRepository(REPO, new SerializableModel(model)).get();
+        uncompressed.saveRepositoryChanges(REPO, model, updated).get();
+        long uncompressedSize = storeFile(BinaryStore.BINARY_EXTENSION).length();
+
+        // The journal is folded into the rewritten snapshot
+        BinaryStore compressed = new BinaryStore(Codec.BLOCK);
+        assertEquals(1, compressed.getStoredRepos().size());
+        assertEquals(updated, compressed.loadRepository(REPO).get());
+        assertFalse(storeFile(BinaryStore.JOURNAL_EXTENSION).exists());
+        assertTrue(storeFile(BinaryStore.BINARY_EXTENSION).length() < uncompressedSize);
+        assertEquals(updated, new BinaryStore(Codec.NONE).loadRepository(REPO).get());
+    }
+
+    @Test(expected = ExecutionException.class)
+    public void testChecksumMismatch() throws IOException, ExecutionException, InterruptedException {
+        new BinaryStore().saveRepository(REPO, new SerializableModel(SyntheticModels.create(REPO, 10))).get();
+        byte[] contents = Files.readAllBytes(storeFile(BinaryStore.BINARY_EXTENSION).toPath());
+        contents[contents.length - 1] ^= 1;
+        Files.write(storeFile(BinaryStore.BINARY_EXTENSION).toPath(), contents);
+        new BinaryStore().loadRepository(REPO).get();
+    }
+
+    @Test(expected = ExecutionException.class)
+    public void testCorruptedBinary() throws IOException, ExecutionException, InterruptedException {
+        Files.write(storeFile(BinaryStore.BINARY_EXTENSION).toPath(), "abcde".getBytes());
+        new BinaryStore().loadRepository(REPO).get();
+    }
+
+    @Test(expected = ExecutionException.class)
+    public void testTruncatedBinary() throws IOException, ExecutionException, InterruptedException {
+        new BinaryStore().saveRepository(REPO, new SerializableModel(SyntheticModels.create(REPO, 10))).get();
+        byte[] contents = Files.readAllBytes(storeFile(BinaryStore.BINARY_EXTENSION).toPath());
+        Files.write(storeFile(BinaryStore.BINARY_EXTENSION).toPath(),
+                Arrays.copyOf(contents, contents.length / 2));
+        new BinaryStore().loadRepository(REPO).get();
+    }
+
+    @Test(expected = ExecutionException.class)
+    public void testNonExistentBinary() throws ExecutionException, InterruptedException {
+        new BinaryStore().loadRepository("nonexist/nonexist").get();
+    }
+
+    @Test
+    public void testJournalAppend() throws ExecutionException, InterruptedException {
+        Model original = SyntheticModels.create(REPO, 100);
+        // Journal records are not compressed, so are compared against an uncompressed snapshot
+        BinaryStore store = new BinaryStore(Codec.NONE);
+        store.saveRepository(REPO, new SerializableModel(original)).get();
+        long snapshotSize = storeFile(BinaryStore.BINARY_EXTENSION).length();
+
+        Model previous = store.loadRepository(REPO).get();
+        Model updated = update(previous, 1);
+        assertFalse(store.saveRepositoryChanges(REPO, previous, updated).get());
+        Model twiceUpdated = update(updated, 2);
+        assertFalse(store.saveRepositoryChanges(REPO, updated, twiceUpdated).get());
+
+        // The snapshot is untouched; the changes are in the journal
+        assertEquals(snapshotSize, storeFile(BinaryStore.BINARY_EXTENSION).length());
+        assertTrue(storeFile(BinaryStore.JOURNAL_EXTENSION).length() > 0);
+        assertTrue(storeFile(BinaryStore.JOURNAL_EXTENSION).length() < snapshotSize / 10);
+
+        assertEquals(twiceUpdated, new BinaryStore(Codec.NONE).loadRepository(REPO).get());
+    }
+
+    @Test
+    public void testFullSaveSupersedesJournal() throws ExecutionException, InterruptedException {
+        BinaryStore store = new BinaryStore();
+        store.saveRepository(REPO, new SerializableModel(SyntheticModels.create(REPO, 10))).get();
+        Model previous = store.loadRepository(REPO).get();
+        Model updated = update(previous, 1);
+        store.saveRepositoryChanges(REPO, previous, updated).get();
+
+        Model replaced = update(SyntheticModels.create(REPO, 5), 2);
+        store.saveRepository(REPO, new SerializableModel(replaced)).get();
+
+        assertFalse(storeFile(BinaryStore.JOURNAL_EXTENSION).exists());
+        assertEquals(replaced, new BinaryStore().loadRepository(REPO).get());
+    }
+
+    @Test
+    public void testTornJournalRecord() throws IOException, ExecutionException, InterruptedException {
+        BinaryStore store = new BinaryStore();
+        store.saveRepository(REPO, new SerializableModel(SyntheticModels.create(REPO, 10))).get();
+        Model previous = store.loadRepository(REPO).get();
+        Model updated = update(previous, 1);
+        store.saveRepositoryChanges(REPO, previous, updated).get();
+        long journalSize = storeFile(BinaryStore.JOURNAL_EXTENSION).length();
+        store.saveRepositoryChanges(REPO, updated, update(updated, 2)).get();
+
+        // Simulate a crash halfway through appending the second record
+        File journal = storeFile(BinaryStore.JOURNAL_EXTENSION);
+        byte[] contents = Files.readAllBytes(journal.toPath());
+        Files.write(journal.toPath(), Arrays.copyOf(contents, (int) (journalSize + contents.length) / 2));
+
+        BinaryStore reopened = new BinaryStore();
+        Model loaded = reopened.loadRepository(REPO).get();
+        assertEquals(updated, loaded);
+        assertEquals(journalSize, journal.length());
+
+        // Later appends remain readable after the torn record is discarded
+        Model recovered = update(loaded, 3);
+        reopened.saveRepositoryChanges(REPO, loaded, recovered).get();
+        assertEquals(recovered, new BinaryStore().loadRepository(REPO).get());
+    }
+
+    @Test
+    public void testUnknownPreviousStateWritesSnapshot() throws ExecutionException, InterruptedException {
+        BinaryStore store = new BinaryStore();
+        Model previous = update(SyntheticModels.create(REPO, 10), 1);
+        Model updated = update(previous, 2);
+        assertFalse(store.saveRepositoryChanges(REPO, previous, updated).get());
+
+        assertFalse(storeFile(BinaryStore.JOURNAL_EXTENSION).exists());
+        assertEquals(updated, new BinaryStore().loadRepository(REPO).get());
+    }
+
+    @Test
+    public void testCompaction() throws ExecutionException, InterruptedException {
+        BinaryStore store = new BinaryStore();
+        store.saveRepository(REPO, new SerializableModel(SyntheticModels.create(REPO, 10))).get();
+        Model model = store.loadRepository(REPO).get();
+
+        // Each update rewrites every issue, so the journal soon outgrows the compaction threshold
+        for (int i = 1; i <= 100 && storeFile(BinaryStore.JOURNAL_EXTENSION).length() < 64 * 1024; i++) {
+            Model updated = rewriteAll(model, i);
+            store.saveRepositoryChanges(REPO, model, updated).get();
+            model = updated;
+        }
+        // Compaction is queued behind the last append; loading waits for it
+        assertEquals(model, store.loadRepository(REPO).get());
+        assertFalse(storeFile(BinaryStore.JOURNAL_EXTENSION).exists());
+        assertEquals(model, new BinaryStore().loadRepository(REPO).get());
+    }
+
+    /**
+     * Changes the title of one issue and adds another, as an update from GitHub would.
+     */
+    private static Model update(Model model, int generation) {
+        List<TurboIssue> issues = new ArrayList<>(model.getIssues());
+        TurboIssue changed = new TurboIssue.Builder(issues.get(0))
+                .setTitle("Changed in update " + generation)
+                .build();
+        issues.set(0, changed);
+        LocalDateTime createdAt = LocalDateTime.of(2015, 6, 1, 0, 0).plusDays(generation);
+        TurboIssue added = new TurboIssue.Builder(REPO, 1000 + generation)
+                .setTitle("Added in update " + generation)
+                .setCreator("user0")
+                .setCreatedAt(createdAt)
+                .setUpdatedAt(createdAt)
+                .build();
+        issues.add(added);
+        return new Model(REPO, issues, model.getLabels(), model.getMilestones(), model.getUsers(),
+                nextSignature(generation));
+    }
+
+    private static Model rewriteAll(Model model, int generation) {
+        List<TurboIssue> issues = model.getIssues().stream()
+                .map(issue -> new TurboIssue.Builder(issue)
+                        .setDescription(issue.getDescription() + " Edited " + generation + " times.")
+                        .build())
+                .collect(Collectors.toList());
+        return new Model(REPO, issues, model.getLabels(), model.getMilestones(), model.getUsers(),
+                nextSignature(generation));
+    }
+
+    private static UpdateSignature nextSignature(int generation) {
+        return new UpdateSignature("issues" + generation, "labels", "milestones", "collaborators",
+                new Date(generation * 1000L));
+    }
+
+    /**
+     * The store file of the test repository, creating the test directory if there is none yet.
+     */
+    private static File storeFile(String extension) {
+        return new File(RepoStore.getRepoPath(REPO, extension).get());
+    }
+
+    @After
+    public void cleanup() {
+        UITest.clearTestFolder();
+    }
+}
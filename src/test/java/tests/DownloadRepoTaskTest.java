@@ -0,0 +1,186 @@
+package tests;
+
+import backend.github.DownloadRepoTask;
+import backend.interfaces.RepoSource;
+import backend.resource.Model;
+import backend.resource.TurboIssue;
+import backend.resource.TurboLabel;
+import backend.stub.DummyRepo;
+import backend.stub.DummySource;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DownloadRepoTaskTest {
+
+    private static final String REPO = "test/repo";
+
+    private final RepoSource source = new DummySource();
+
+    /**
+     * A repository whose issues are only downloaded once they are allowed to be.
+     */
+    private static class SlowIssuesRepo extends DummyRepo {
+        final CountDownLatch issuesAllowed = new CountDownLatch(1);
+
+        @Override
+        public List<TurboIssue> getIssues(String repoId) {
+            try {
+                issuesAllowed.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return Arrays.asList(new TurboIssue(repoId, 1, "Issue"));
+        }
+
+        @Override
+        public List<TurboLabel> getLabels(String repoId) {
+            return Arrays.asList(new TurboLabel(repoId, "bug"));
+        }
+    }
+
+    @Test
+    public void provisionalModelBeforeIssues() throws ExecutionException, InterruptedException, TimeoutException {
+        SlowIssuesRepo repo = new SlowIssuesRepo();
+        CompletableFuture<Model> provisional = new CompletableFuture<>();
+        DownloadRepoTask task = new DownloadRepoTask(source, repo, REPO, provisional::complete);
+        source.addTask(task);
+
+        Model provisionalModel = provisional.get(10, TimeUnit.SECONDS);
+        assertTrue(provisionalModel.getIssues().isEmpty());
+        assertEquals(1, provisionalModel.getLabels().size());
+        assertFalse(task.response.isDone());
+
+        repo.issuesAllowed.countDown();
+        Model model = task.response.get(10, TimeUnit.SECONDS);
+        assertEquals(1, model.getIssues().size());
+        assertEquals(1, model.getLabels().size());
+    }
+
+    @Test
+    public void provisionalModelsWhileIssuesDownload() throws ExecutionException, InterruptedException {
+        int pageCount = 10;
+        DummyRepo repo = new DummyRepo() {
+            @Override
+            public List<TurboIssue> getIssues(String repoId, Consumer<List<TurboIssue>> pageHandler,
+                                              BooleanSupplier isCancelled) {
+                List<TurboIssue> issues = new ArrayList<>();
+                for (int i = 1; i <= pageCount; i++) {
+                    List<TurboIssue> page = Arrays.asList(new TurboIssue(repoId, i, "Issue"));
+                    issues.addAll(page);
+                    pageHandler.accept(page);
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+                return issues;
+            }
+        };
+        List<Model> provisionalModels = Collections.synchronizedList(new ArrayList<>());
+        DownloadRepoTask task = new DownloadRepoTask(source, repo, REPO, provisionalModels::add);
+        source.addTask(task);
+
+        assertEquals(pageCount, task.response.get().getIssues().size());
+
+        // Provisional models are throttled, but do show issues as they come in
+        assertFalse(provisionalModels.isEmpty());
+        assertTrue(provisionalModels.size() < pageCount);
+        assertTrue(provisionalModels.stream().anyMatch(model -> !model.getIssues().isEmpty()));
+        for (int i = 1; i < provisionalModels.size(); i++) {
+            assertTrue(provisionalModels.get(i).getIssues().size() >= provisionalModels.get(i - 1).getIssues().size());
+        }
+    }
+
+    @Test(expected = CancellationException.class)
+    public void cancelDownload() throws InterruptedException, ExecutionException, TimeoutException {
+        SlowIssuesRepo repo = new SlowIssuesRepo();
+        CompletableFuture<Model> provisional = new CompletableFuture<>();
+        DownloadRepoTask task = new DownloadRepoTask(source, repo, REPO, provisional::complete);
+        source.addTask(task);
+        provisional.get(10, TimeUnit.SECONDS);
+
+        task.response.cancel(false);
+        repo.issuesAllowed.countDown();
+
+        assertTrue(task.response.isCancelled());
+        task.response.get();
+    }
+
+    @Test
+    public void failedResourceFailsDownload() throws InterruptedException {
+        SlowIssuesRepo repo = new SlowIssuesRepo() {
+            @Override
+            public List<TurboLabel> getLabels(String repoId) {
+                throw new IllegalStateException();
+            }
+        };
+        List<Model> provisionalModels = new ArrayList<>();
+        DownloadRepoTask task = new DownloadRepoTask(source, repo, REPO, provisionalModels::add);
+        source.addTask(task);
+
+        try {
+            task.response.get(10, TimeUnit.SECONDS);
+            throw new AssertionError("Download did not fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        } catch (TimeoutException e) {
+            throw new AssertionError("Download did not fail while issues were still downloading");
+        } finally {
+            repo.issuesAllowed.countDown();
+        }
+        assertTrue(provisionalModels.isEmpty());
+    }
+
+    @Test
+    public void failedResourceStopsIssueDownload() throws InterruptedException {
+        CountDownLatch issueDownloadStarted = new CountDownLatch(1);
+        CountDownLatch issueDownloadStopped = new CountDownLatch(1);
+        DummyRepo repo = new DummyRepo() {
+            @Override
+            public List<TurboIssue> getIssues(String repoId, Consumer<List<TurboIssue>> pageHandler,
+                                              BooleanSupplier isCancelled) {
+                issueDownloadStarted.countDown();
+                // Keeps requesting pages until told the download is no longer wanted
+                long giveUpTime = System.currentTimeMillis() + 10000;
+                while (!isCancelled.getAsBoolean() && System.currentTimeMillis() < giveUpTime) {
+                    pageHandler.accept(new ArrayList<>());
+                }
+                if (isCancelled.getAsBoolean()) {
+                    issueDownloadStopped.countDown();
+                }
+                throw new CancellationException();
+            }
+
+            @Override
+            public List<TurboLabel> getLabels(String repoId) {
+                // Fails only once the issues are downloading, as otherwise they are never requested
+                try {
+                    issueDownloadStarted.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IllegalStateException();
+            }
+        };
+        source.addTask(new DownloadRepoTask(source, repo, REPO));
+
+        assertTrue(issueDownloadStopped.await(10, TimeUnit.SECONDS));
+    }
+}
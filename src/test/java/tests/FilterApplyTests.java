@@ -5,6 +5,7 @@ import backend.resource.*;
 import filter.QualifierApplicationException;
 import filter.expression.Conjunction;
 import filter.expression.Disjunction;
+import filter.expression.FilterExpression;
 import filter.expression.Negation;
 import filter.expression.Qualifier;
 import org.junit.Test;
@@ -21,13 +22,24 @@ public class FilterApplyTests {
 
     private static final String REPO = "test/test";
 
-    private final IModel empty;
+    private final MultiModel empty;
 
     public FilterApplyTests() {
         empty = new MultiModel(new Preferences(true));
         empty.setDefaultRepo(REPO);
     }
 
+    /**
+     * Applies a filter expression to an issue, returning the resulting issue.
+     */
+    private static TurboIssue apply(FilterExpression expr, TurboIssue issue, IModel model)
+        throws QualifierApplicationException {
+
+        TurboIssue.Builder builder = new TurboIssue.Builder(issue);
+        expr.applyTo(builder, model);
+        return builder.build();
+    }
+
     @Test
     public void label() {
         TurboIssue issue = new TurboIssue(REPO, 1, "");
@@ -36,7 +48,7 @@ public class FilterApplyTests {
 
         // Simplest successful case
         try {
-            new Qualifier("label", "aabb").applyTo(issue, TestUtils.modelWith(issue, label));
+            issue = apply(new Qualifier("label", "aabb"), issue, TestUtils.modelWith(issue, label));
             assertEquals(false, issue.getLabels().isEmpty());
             assertEquals("aabb", issue.getLabels().get(0));
         } catch (QualifierApplicationException e) {
@@ -53,7 +65,7 @@ public class FilterApplyTests {
             new ArrayList<>()));
 
         try {
-            new Qualifier("label", "aa").applyTo(issue, model);
+            issue = apply(new Qualifier("label", "aa"), issue, model);
             assertEquals(false, issue.getLabels().isEmpty());
             assertEquals("aabb", issue.getLabels().get(0));
         } catch (QualifierApplicationException e) {
@@ -70,19 +82,19 @@ public class FilterApplyTests {
             new ArrayList<>()));
 
         try {
-            new Qualifier("label", "bb").applyTo(issue, model);
+            apply(new Qualifier("label", "bb"), issue, model);
             fail();
         } catch (QualifierApplicationException ignored) {}
 
         // Non-existent label
         try {
-            new Qualifier("label", "dd").applyTo(issue, TestUtils.modelWith(issue, label));
+            apply(new Qualifier("label", "dd"), issue, TestUtils.modelWith(issue, label));
             fail();
         } catch (QualifierApplicationException ignored) {}
 
         // Non-string
         try {
-            new Qualifier("label", 1).applyTo(issue, TestUtils.modelWith(issue, label));
+            apply(new Qualifier("label", 1), issue, TestUtils.modelWith(issue, label));
             fail();
         } catch (QualifierApplicationException ignored) {}
     }
@@ -95,7 +107,7 @@ public class FilterApplyTests {
 
         // Simplest successful case
         try {
-            new Qualifier("milestone", "v1").applyTo(issue, TestUtils.modelWith(issue, milestone));
+            issue = apply(new Qualifier("milestone", "v1"), issue, TestUtils.modelWith(issue, milestone));
             assertEquals(true, issue.getMilestone().isPresent());
             assertEquals(Integer.valueOf(7), issue.getMilestone().get());
         } catch (QualifierApplicationException e) {
@@ -112,7 +124,7 @@ public class FilterApplyTests {
             new ArrayList<>()));
 
         try {
-            new Qualifier("milestone", "1").applyTo(issue, model);
+            issue = apply(new Qualifier("milestone", "1"), issue, model);
             assertEquals(true, issue.getMilestone().isPresent());
             assertEquals(Integer.valueOf(7), issue.getMilestone().get());
         } catch (QualifierApplicationException e) {
@@ -129,19 +141,19 @@ public class FilterApplyTests {
             new ArrayList<>()));
 
         try {
-            new Qualifier("milestone", "v").applyTo(issue, model);
+            apply(new Qualifier("milestone", "v"), issue, model);
             fail();
         } catch (QualifierApplicationException ignored) {}
 
         // Non-existent milestone
         try {
-            new Qualifier("milestone", "3").applyTo(issue, TestUtils.modelWith(issue, milestone));
+            apply(new Qualifier("milestone", "3"), issue, TestUtils.modelWith(issue, milestone));
             fail();
         } catch (QualifierApplicationException ignored) {}
 
         // Non-string
         try {
-            new Qualifier("milestone", 1).applyTo(issue, TestUtils.modelWith(issue, milestone));
+            apply(new Qualifier("milestone", 1), issue, TestUtils.modelWith(issue, milestone));
             fail();
         } catch (QualifierApplicationException ignored) {}
     }
@@ -154,7 +166,7 @@ public class FilterApplyTests {
 
         // Simplest successful case
         try {
-            new Qualifier("assignee", "aabb").applyTo(issue, TestUtils.modelWith(issue, assignee));
+            issue = apply(new Qualifier("assignee", "aabb"), issue, TestUtils.modelWith(issue, assignee));
             assertEquals(true, issue.getAssignee().isPresent());
             assertEquals("aabb", issue.getAssignee().get());
         } catch (QualifierApplicationException e) {
@@ -171,7 +183,7 @@ public class FilterApplyTests {
             new ArrayList<>(Arrays.asList(assignee, assignee2))));
 
         try {
-            new Qualifier("assignee", "aa").applyTo(issue, model);
+            issue = apply(new Qualifier("assignee", "aa"), issue, model);
             assertEquals(true, issue.getAssignee().isPresent());
             assertEquals("aabb", issue.getAssignee().get());
         } catch (QualifierApplicationException e) {
@@ -188,19 +200,19 @@ public class FilterApplyTests {
             new ArrayList<>(Arrays.asList(assignee, assignee2))));
 
         try {
-            new Qualifier("assignee", "bb").applyTo(issue, model);
+            apply(new Qualifier("assignee", "bb"), issue, model);
             fail();
         } catch (QualifierApplicationException ignored) {}
 
         // Non-existent assignee
         try {
-            new Qualifier("assignee", "dd").applyTo(issue, TestUtils.modelWith(issue, assignee));
+            apply(new Qualifier("assignee", "dd"), issue, TestUtils.modelWith(issue, assignee));
             fail();
         } catch (QualifierApplicationException ignored) {}
 
         // Non-string
         try {
-            new Qualifier("assignee", 1).applyTo(issue, TestUtils.modelWith(issue, assignee));
+            apply(new Qualifier("assignee", 1), issue, TestUtils.modelWith(issue, assignee));
             fail();
         } catch (QualifierApplicationException ignored) {}
     }
@@ -210,18 +222,18 @@ public class FilterApplyTests {
         TurboIssue issue = new TurboIssue(REPO, 1, "");
         assertEquals(true, issue.isOpen());
         try {
-            new Qualifier("state", "closed").applyTo(issue, empty);
+            issue = apply(new Qualifier("state", "closed"), issue, empty);
             assertEquals(false, issue.isOpen());
-            new Qualifier("state", "open").applyTo(issue, empty);
+            issue = apply(new Qualifier("state", "open"), issue, empty);
             assertEquals(true, issue.isOpen());
         } catch (QualifierApplicationException e) {
             fail();
         }
 
-        issue.setOpen(true);
+        issue = new TurboIssue.Builder(issue).setOpen(true).build();
         assertEquals(true, issue.isOpen());
         try {
-            new Qualifier("state", "something").applyTo(issue, empty);
+            apply(new Qualifier("state", "something"), issue, empty);
             fail();
         } catch (QualifierApplicationException ignored) {}
     }
@@ -242,7 +254,7 @@ public class FilterApplyTests {
             Qualifier c = new Qualifier("state", "closed");
             Conjunction all = new Conjunction(a, new Conjunction(b, c));
 
-            all.applyTo(issue, TestUtils.modelWith(issue, label, milestone));
+            issue = apply(all, issue, TestUtils.modelWith(issue, label, milestone));
 
             assertEquals(1, issue.getLabels().size());
             assertEquals("bug", issue.getLabels().get(0));
@@ -294,60 +306,60 @@ public class FilterApplyTests {
     public void invalidQualifiers() {
         TurboIssue issue = new TurboIssue(REPO, 1, "");
         try {
-            new Qualifier("title", "").applyTo(issue, empty);
+            apply(new Qualifier("title", ""), issue, empty);
             fail("title cannot be applied to issue");
         } catch (QualifierApplicationException ignored) {}
         try {
-            new Qualifier("desc", "").applyTo(issue, empty);
+            apply(new Qualifier("desc", ""), issue, empty);
             fail("desc cannot be applied to issue");
         } catch (QualifierApplicationException ignored) {}
         try {
-            new Qualifier("description", "").applyTo(issue, empty);
+            apply(new Qualifier("description", ""), issue, empty);
             fail("description cannot be applied to issue");
         } catch (QualifierApplicationException ignored) {}
         try {
-            new Qualifier("body", "").applyTo(issue, empty);
+            apply(new Qualifier("body", ""), issue, empty);
             fail("body cannot be applied to issue");
         } catch (QualifierApplicationException ignored) {}
         try {
-            new Qualifier("keyword", "").applyTo(issue, empty);
+            apply(new Qualifier("keyword", ""), issue, empty);
             fail("keyword cannot be applied to issue");
         } catch (QualifierApplicationException ignored) {}
         try {
-            new Qualifier("id", 1).applyTo(issue, empty);
+            apply(new Qualifier("id", 1), issue, empty);
             fail("id cannot be applied to issue");
         } catch (QualifierApplicationException ignored) {}
         try {
-            new Qualifier("created", LocalDate.now()).applyTo(issue, empty);
+            apply(new Qualifier("created", LocalDate.now()), issue, empty);
             fail("created cannot be applied to issue");
         } catch (QualifierApplicationException ignored) {}
         try {
-            new Qualifier("has", "").applyTo(issue, empty);
+            apply(new Qualifier("has", ""), issue, empty);
             fail("has cannot be applied to issue");
         } catch (QualifierApplicationException ignored) {}
         try {
-            new Qualifier("no", "").applyTo(issue, empty);
+            apply(new Qualifier("no", ""), issue, empty);
             fail("no cannot be applied to issue");
         } catch (QualifierApplicationException ignored) {}
         try {
             // Could potentially work, but this is the current behaviour
-            new Qualifier("is", "").applyTo(issue, empty);
+            apply(new Qualifier("is", ""), issue, empty);
             fail("is cannot be applied to issue");
         } catch (QualifierApplicationException ignored) {}
         try {
-            new Qualifier("author", "").applyTo(issue, empty);
+            apply(new Qualifier("author", ""), issue, empty);
             fail("author cannot be applied to issue");
         } catch (QualifierApplicationException ignored) {}
         try {
-            new Qualifier("creator", "").applyTo(issue, empty);
+            apply(new Qualifier("creator", ""), issue, empty);
             fail("creator cannot be applied to issue");
         } catch (QualifierApplicationException ignored) {}
         try {
-            new Qualifier("involves", "").applyTo(issue, empty);
+            apply(new Qualifier("involves", ""), issue, empty);
             fail("involves cannot be applied to issue");
         } catch (QualifierApplicationException ignored) {}
         try {
-            new Qualifier("user", "").applyTo(issue, empty);
+            apply(new Qualifier("user", ""), issue, empty);
             fail("user cannot be applied to issue");
         } catch (QualifierApplicationException ignored) {}
     }
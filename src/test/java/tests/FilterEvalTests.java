@@ -18,7 +18,7 @@ import static org.junit.Assert.fail;
 
 public class FilterEvalTests {
 
-    private final IModel empty;
+    private final MultiModel empty;
     private static final String REPO = "test/test";
 
     public FilterEvalTests() {
@@ -88,7 +88,7 @@ public class FilterEvalTests {
     @Test
     public void body() {
         TurboIssue issue = new TurboIssue(REPO, 1, "");
-        issue.setDescription("this is a test");
+        issue = new TurboIssue.Builder(issue).setDescription("this is a test").build();
         testForPresenceOfKeywords("body:", issue);
         testForPresenceOfKeywords("desc:", issue);
         testForPresenceOfKeywords("description:", issue);
@@ -97,7 +97,7 @@ public class FilterEvalTests {
     @Test
     public void in() {
         TurboIssue issue = new TurboIssue(REPO, 1, "");
-        issue.setDescription("this is a test");
+        issue = new TurboIssue.Builder(issue).setDescription("this is a test").build();
         testForPresenceOfKeywords("in:body ", issue);
 
         issue = new TurboIssue(REPO, 1, "this is a test");
@@ -114,7 +114,7 @@ public class FilterEvalTests {
         TurboMilestone milestone = new TurboMilestone(REPO, 1, "v1.0");
 
         TurboIssue issue = new TurboIssue(REPO, 1, "");
-        issue.setMilestone(milestone);
+        issue = new TurboIssue.Builder(issue).setMilestone(milestone).build();
 
         IModel model = TestUtils.modelWith(issue, milestone);
 
@@ -135,7 +135,7 @@ public class FilterEvalTests {
         TurboLabel label = TurboLabel.exclusive(REPO, "type", "bug");
 
         TurboIssue issue = new TurboIssue(REPO, 1, "");
-        issue.addLabel(label);
+        issue = new TurboIssue.Builder(issue).addLabel(label).build();
 
         IModel model = TestUtils.modelWith(issue, label);
 
@@ -159,7 +159,7 @@ public class FilterEvalTests {
         label = new TurboLabel(REPO, "bug");
 
         issue = new TurboIssue(REPO, 1, "");
-        issue.addLabel(label);
+        issue = new TurboIssue.Builder(issue).addLabel(label).build();
 
         model = TestUtils.modelWith(issue, label);
 
@@ -184,7 +184,7 @@ public class FilterEvalTests {
         TurboUser user = new TurboUser(REPO, "bob", "alice");
 
         TurboIssue issue = new TurboIssue(REPO, 1, "");
-        issue.setAssignee(user);
+        issue = new TurboIssue.Builder(issue).setAssignee(user).build();
 
         IModel model = TestUtils.modelWith(issue, user);
 
@@ -220,7 +220,7 @@ public class FilterEvalTests {
         TurboUser user = new TurboUser(REPO, "bob", "alice");
 
         TurboIssue issue = new TurboIssue(REPO, 1, "");
-        issue.setAssignee(user);
+        issue = new TurboIssue.Builder(issue).setAssignee(user).build();
 
         IModel model = TestUtils.modelWith(issue, user);
 
@@ -243,7 +243,7 @@ public class FilterEvalTests {
     @Test
     public void state() {
         TurboIssue issue = new TurboIssue(REPO, 1, "");
-        issue.setOpen(false);
+        issue = new TurboIssue.Builder(issue).setOpen(false).build();
         assertEquals(false, matches("state:open", issue));
         assertEquals(false, matches("state:o", issue));
         assertEquals(true, matches("state:closed", issue));
@@ -262,7 +262,7 @@ public class FilterEvalTests {
         assertEquals(false, matches("has:assignee", issue));
         assertEquals(false, matches("has:something", issue));
 
-        issue.addLabel(label);
+        issue = new TurboIssue.Builder(issue).addLabel(label).build();
         IModel model = TestUtils.modelWith(issue, label);
 
         assertEquals(true, Qualifier.process(model, Parser.parse("has:label"), issue));
@@ -270,7 +270,7 @@ public class FilterEvalTests {
         assertEquals(false, Qualifier.process(model, Parser.parse("has:assignee"), issue));
         assertEquals(false, matches("has:something", issue));
 
-        issue.setMilestone(milestone);
+        issue = new TurboIssue.Builder(issue).setMilestone(milestone).build();
         model = TestUtils.modelWith(issue, label, milestone);
 
         assertEquals(true, Qualifier.process(model, Parser.parse("has:label"), issue));
@@ -278,7 +278,7 @@ public class FilterEvalTests {
         assertEquals(false, Qualifier.process(model, Parser.parse("has:assignee"), issue));
         assertEquals(false, matches("has:something", issue));
 
-        issue.setAssignee(user);
+        issue = new TurboIssue.Builder(issue).setAssignee(user).build();
         model = TestUtils.modelWith(issue, label, milestone, user);
 
         assertEquals(true, Qualifier.process(model, Parser.parse("has:label"), issue));
@@ -300,7 +300,7 @@ public class FilterEvalTests {
         assertEquals(true, matches("no:assignee", issue));
         assertEquals(true, matches("no:something", issue));
 
-        issue.addLabel(label);
+        issue = new TurboIssue.Builder(issue).addLabel(label).build();
         IModel model = TestUtils.modelWith(issue, label);
 
         assertEquals(false, Qualifier.process(model, Parser.parse("no:label"), issue));
@@ -308,7 +308,7 @@ public class FilterEvalTests {
         assertEquals(true, Qualifier.process(model, Parser.parse("no:assignee"), issue));
         assertEquals(true, matches("no:something", issue));
 
-        issue.setMilestone(milestone);
+        issue = new TurboIssue.Builder(issue).setMilestone(milestone).build();
         model = TestUtils.modelWith(issue, label, milestone);
 
         assertEquals(false, Qualifier.process(model, Parser.parse("no:label"), issue));
@@ -316,7 +316,7 @@ public class FilterEvalTests {
         assertEquals(true, Qualifier.process(model, Parser.parse("no:assignee"), issue));
         assertEquals(true, matches("no:something", issue));
 
-        issue.setAssignee(user);
+        issue = new TurboIssue.Builder(issue).setAssignee(user).build();
         model = TestUtils.modelWith(issue, label, milestone, user);
 
         assertEquals(false, Qualifier.process(model, Parser.parse("no:label"), issue));
@@ -355,7 +355,7 @@ public class FilterEvalTests {
         assertEquals(false, matches("is:closed", issue));
         assertEquals(false, matches("is:merged", issue));
 
-        issue.setOpen(false);
+        issue = new TurboIssue.Builder(issue).setOpen(false).build();
 
         assertEquals(false, matches("is:open", issue));
         assertEquals(false, matches("is:unmerged", issue));
@@ -374,7 +374,7 @@ public class FilterEvalTests {
         assertEquals(false, matches("is:unmerged", issue));
         assertEquals(false, matches("is:merged", issue));
 
-        issue.setOpen(false);
+        issue = new TurboIssue.Builder(issue).setOpen(false).build();
 
         assertEquals(false, matches("is:open", issue));
         assertEquals(true, matches("is:closed", issue));
@@ -383,22 +383,22 @@ public class FilterEvalTests {
         assertEquals(false, matches("is:unmerged", issue));
         assertEquals(false, matches("is:merged", issue));
 
-        // Read status
+        // Read status, which is kept by the model rather than the issue
 
-        assertEquals(false, issue.isCurrentlyRead());
+        assertEquals(false, empty.getStateOfIssue(issue).isCurrentlyRead());
 
         assertEquals(true, matches("is:unread", issue));
         assertEquals(false, matches("is:read", issue));
 
-        issue.setMarkedReadAt(Optional.of(LocalDateTime.now()));
-
-        assertEquals(true, matches("is:unread", issue));
-        assertEquals(false, matches("is:read", issue));
-
-        issue.setIsCurrentlyRead(true);
+        empty.setMarkedReadAt(issue, Optional.of(LocalDateTime.now()));
 
         assertEquals(false, matches("is:unread", issue));
         assertEquals(true, matches("is:read", issue));
+
+        empty.setMarkedReadAt(issue, Optional.empty());
+
+        assertEquals(true, matches("is:unread", issue));
+        assertEquals(false, matches("is:read", issue));
     }
 
     @Test
@@ -418,7 +418,7 @@ public class FilterEvalTests {
         Qualifier.setCurrentTime(now);
 
         TurboIssue issue = new TurboIssue(REPO, 1, "");
-        issue.setUpdatedAt(now.minusDays(2));
+        issue = new TurboIssue.Builder(issue).setUpdatedAt(now.minusDays(2)).build();
 
         assertEquals(false, matches("updated:<24", issue));
         assertEquals(matches("updated:<24", issue),
@@ -427,7 +427,7 @@ public class FilterEvalTests {
         assertEquals(false, matches("updated:nondate", issue));
 
         issue = new TurboIssue(REPO, 1, "");
-        issue.setUpdatedAt(now.minusDays(1));
+        issue = new TurboIssue.Builder(issue).setUpdatedAt(now.minusDays(1)).build();
 
         assertEquals(true, matches("updated:<26", issue));
         assertEquals(matches("updated:<26", issue),
@@ -489,7 +489,7 @@ public class FilterEvalTests {
         List<TurboIssue> issues = new ArrayList<>();
         for (int i = 0; i < 5; i++) {
             TurboIssue issue = new TurboIssue(REPO, i, "");
-            issue.setUpdatedAt(LocalDateTime.of(2015, 6, 4 + i, 12, 0));
+            issue = new TurboIssue.Builder(issue).setUpdatedAt(LocalDateTime.of(2015, 6, 4 + i, 12, 0)).build();
             issues.add(issue);
         }
 
@@ -545,7 +545,7 @@ public class FilterEvalTests {
         List<TurboIssue> issues = new ArrayList<>();
         for (int i = 0; i < 8; i++) {
             TurboIssue issue = new TurboIssue(REPO, i, "");
-            issue.setCommentCount(i);
+            issue = new TurboIssue.Builder(issue).setCommentCount(i).build();
             issues.add(issue);
         }
 
@@ -590,17 +590,17 @@ public class FilterEvalTests {
             issues.add(new TurboIssue(REPO, i, ""));
         }
 
-        issues.get(0).getLabels().addAll(Arrays.asList("test.1"));
-        issues.get(1).getLabels().addAll(Arrays.asList("test.2"));
-        issues.get(2).getLabels().addAll(Arrays.asList("test.a"));
-        issues.get(3).getLabels().addAll(Arrays.asList("test.1", "test.2"));
-        issues.get(4).getLabels().addAll(Arrays.asList("test.a", "test.2"));
-        issues.get(5).getLabels().addAll(Arrays.asList("test.1", "test.2", "test.a"));
-        issues.get(6).getLabels().addAll(Arrays.asList("something"));
+        issues.set(0, issues.get(0).withLabels(Arrays.asList("test.1")));
+        issues.set(1, issues.get(1).withLabels(Arrays.asList("test.2")));
+        issues.set(2, issues.get(2).withLabels(Arrays.asList("test.a")));
+        issues.set(3, issues.get(3).withLabels(Arrays.asList("test.1", "test.2")));
+        issues.set(4, issues.get(4).withLabels(Arrays.asList("test.a", "test.2")));
+        issues.set(5, issues.get(5).withLabels(Arrays.asList("test.1", "test.2", "test.a")));
+        issues.set(6, issues.get(6).withLabels(Arrays.asList("something")));
         // issues.get(7) has no labels
 
         for (int i = 0; i < 8; i++) {
-            issues.get(i).setTitle(issues.get(i).getLabels().toString());
+            issues.set(i, new TurboIssue.Builder(issues.get(i)).setTitle(issues.get(i).getLabels().toString()).build());
         }
 
         // Construct model
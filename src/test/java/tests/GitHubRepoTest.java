@@ -0,0 +1,344 @@
+package tests;
+
+import backend.github.GitHubRepo;
+import backend.resource.TurboIssue;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import github.GitHubClientExtended;
+import github.IssueEventType;
+import github.TurboIssueEvent;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.eclipse.egit.github.core.Comment;
+import org.eclipse.egit.github.core.client.PagedRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import ui.UI;
+import util.events.EventDispatcherStub;
+import util.events.UpdateProgressEvent;
+import util.events.UpdateProgressEventHandler;
+import util.exceptions.IncompleteDownloadException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Downloads issues from a local server standing in for GitHub.
+ */
+public class GitHubRepoTest {
+
+    private static final String REPO = "test/repo";
+    private static final Pattern PAGE_PARAMETER = Pattern.compile("[?&]page=(\\d+)");
+
+    private HttpServer server;
+    private GitHubClientExtended client;
+    private GitHubRepo repo;
+
+    // The stand-in's state, set by each test
+    private volatile int issueCount;
+    private volatile int remainingRequests;
+    private volatile int failingPage = 0;
+    private final Set<Integer> requestedPages = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger unchangedResponses = new AtomicInteger();
+    private volatile String commentsETag = "comments-1";
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private volatile String eventsBody = "[]";
+    private final AtomicInteger compressedResponses = new AtomicInteger();
+
+    @BeforeClass
+    public static void initialise() {
+        UI.events = new EventDispatcherStub();
+    }
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::respond);
+        server.start();
+        client = new GitHubClientExtended("localhost", server.getAddress().getPort(), "http");
+        repo = new GitHubRepo(client);
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void getIssuesInPageOrder() {
+        issueCount = 5 * PagedRequest.PAGE_SIZE + 10;
+        remainingRequests = 5000;
+
+        List<TurboIssue> issues = repo.getIssues(REPO);
+
+        assertEquals(issueIds(1, issueCount), issues.stream().map(TurboIssue::getId).collect(Collectors.toList()));
+        assertEquals(6, requestedPages.size());
+    }
+
+    @Test
+    public void handPagesToHandler() {
+        issueCount = 3 * PagedRequest.PAGE_SIZE;
+        remainingRequests = 5000;
+        List<Integer> pageSizes = Collections.synchronizedList(new ArrayList<>());
+
+        repo.getIssues(REPO, page -> pageSizes.add(page.size()), () -> false);
+
+        assertEquals(Arrays.asList(PagedRequest.PAGE_SIZE, PagedRequest.PAGE_SIZE, PagedRequest.PAGE_SIZE),
+            pageSizes);
+    }
+
+    @Test
+    public void getSinglePage() {
+        issueCount = 10;
+        remainingRequests = 0;
+
+        assertEquals(issueIds(1, 10), repo.getIssues(REPO).stream()
+            .map(TurboIssue::getId)
+            .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void getIssuesWithinRateLimit() {
+        issueCount = 5 * PagedRequest.PAGE_SIZE;
+        remainingRequests = 2;
+
+        // Only some of the pages could be downloaded, and the rest would never be fetched by updates
+        try {
+            repo.getIssues(REPO);
+            fail("Issues are only partly downloaded");
+        } catch (IncompleteDownloadException ignored) {
+        }
+        assertEquals(1, requestedPages.size());
+
+        remainingRequests = 4;
+        assertEquals(5 * PagedRequest.PAGE_SIZE, repo.getIssues(REPO).size());
+    }
+
+    @Test
+    public void cancelIssueDownload() {
+        issueCount = 5 * PagedRequest.PAGE_SIZE;
+        remainingRequests = 5000;
+        AtomicBoolean isCancelled = new AtomicBoolean(false);
+
+        try {
+            repo.getIssues(REPO, page -> isCancelled.set(true), isCancelled::get);
+            fail("Cancelled download completed");
+        } catch (CancellationException ignored) {
+        }
+
+        // No further pages are requested once the download is cancelled
+        assertEquals(1, requestedPages.size());
+    }
+
+    @Test(expected = IncompleteDownloadException.class)
+    public void failOnMissingPage() {
+        issueCount = 4 * PagedRequest.PAGE_SIZE;
+        remainingRequests = 5000;
+        failingPage = 3;
+
+        repo.getIssues(REPO);
+    }
+
+    @Test
+    public void reportProgress() {
+        issueCount = 4 * PagedRequest.PAGE_SIZE;
+        remainingRequests = 5000;
+        List<UpdateProgressEvent> events = new ArrayList<>();
+        UpdateProgressEventHandler handler = e -> {
+            synchronized (events) {
+                events.add(e);
+            }
+        };
+        UI.events.registerEvent(handler);
+
+        repo.getIssues(REPO);
+        UI.events.unregisterEvent(handler);
+
+        List<Float> progress = events.stream()
+            .filter(e -> !e.done)
+            .map(e -> e.progress)
+            .sorted()
+            .collect(Collectors.toList());
+        assertEquals(4, progress.size());
+        assertEquals(0.25f, progress.get(0), 0.001f);
+        assertEquals(1f, progress.get(3), 0.001f);
+        assertTrue(events.get(events.size() - 1).done);
+    }
+
+    @Test
+    public void getUnchangedMetadata() throws IOException {
+        ImmutablePair<List<Comment>, String> comments = repo.getUpdatedComments(REPO, 1, null).get();
+        assertEquals("Comment", comments.left.get(0).getBody());
+        assertEquals("comments-1", comments.right);
+        ImmutablePair<List<TurboIssueEvent>, String> events = repo.getUpdatedEvents(REPO, 1, null).get();
+        assertTrue(events.left.isEmpty());
+        assertEquals("events-1", events.right);
+        assertEquals(0, unchangedResponses.get());
+
+        // Requests with the ETags just received find nothing changed
+        assertFalse(repo.getUpdatedComments(REPO, 1, comments.right).isPresent());
+        assertFalse(repo.getUpdatedEvents(REPO, 1, events.right).isPresent());
+        assertEquals(2, unchangedResponses.get());
+
+        commentsETag = "comments-2";
+        comments = repo.getUpdatedComments(REPO, 1, comments.right).get();
+        assertEquals("Comment", comments.left.get(0).getBody());
+        assertEquals("comments-2", comments.right);
+        assertEquals(2, unchangedResponses.get());
+    }
+
+    @Test
+    public void reportRateLimit() {
+        remainingRequests = 42;
+        List<String> rateLimits = Collections.synchronizedList(new ArrayList<>());
+        client.setRateLimitListener((resource, remaining, limit, resetTime) ->
+            rateLimits.add(String.format("%s %d/%d %d", resource, remaining, limit, resetTime)));
+
+        repo.getComments(REPO, 1);
+
+        assertEquals(Arrays.asList("core 42/5000 1500000000000"), rateLimits);
+    }
+
+    @Test
+    public void reuseConnection() throws IOException {
+        remainingRequests = 5000;
+
+        // Not-modified responses are left out, as the stand-in closes the connection after them
+        repo.getComments(REPO, 1);
+        repo.getEvents(REPO, 1);
+        client.getRateLimitResetTime();
+        repo.getComments(REPO, 2);
+
+        // Requests made one after another go over the same connection
+        assertEquals(1, clientPorts.size());
+    }
+
+    @Test
+    public void getCompressedEvents() {
+        eventsBody = "[{\"event\": \"labeled\", \"actor\": {\"login\": \"alice\"}, "
+            + "\"created_at\": \"2015-01-01T00:00:00Z\", \"label\": {\"name\": \"type.bug\", \"color\": \"ff0000\"}}, "
+            + "{\"event\": \"renamed\", \"actor\": {\"login\": \"bob\"}, "
+            + "\"created_at\": \"2015-01-02T00:00:00Z\", \"rename\": {\"from\": \"Old\", \"to\": \"New\"}}, "
+            + "{\"event\": \"assigned\", \"actor\": {\"login\": \"bob\"}, "
+            + "\"created_at\": \"2015-01-03T00:00:00Z\", \"assignee\": {\"login\": \"carol\"}}, "
+            + "{\"event\": \"closed\", \"actor\": {\"login\": \"alice\"}, "
+            + "\"created_at\": \"2015-01-04T00:00:00Z\"}]";
+
+        List<TurboIssueEvent> events = repo.getEvents(REPO, 1);
+
+        assertEquals(1, compressedResponses.get());
+        assertEquals(Arrays.asList(IssueEventType.Labeled, IssueEventType.Renamed, IssueEventType.Assigned,
+            IssueEventType.Closed), events.stream().map(TurboIssueEvent::getType).collect(Collectors.toList()));
+        assertEquals("alice", events.get(0).getActor().getLogin());
+        assertEquals("type.bug", events.get(0).getLabelName());
+        assertEquals("ff0000", events.get(0).getLabelColour());
+        assertEquals("Old", events.get(1).getRenamedFrom());
+        assertEquals("New", events.get(1).getRenamedTo());
+        assertEquals("carol", events.get(2).getAssignedUser().getLogin());
+        assertEquals(Date.from(Instant.parse("2015-01-04T00:00:00Z")), events.get(3).getDate());
+    }
+
+    private static List<Integer> issueIds(int first, int last) {
+        return IntStream.rangeClosed(first, last).boxed().collect(Collectors.toList());
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        String uri = exchange.getRequestURI().toString();
+        if (uri.endsWith("/rate_limit")) {
+            send(exchange, String.format("{\"rate\": {\"limit\": 5000, \"remaining\": %d, \"reset\": 0}}",
+                remainingRequests));
+            return;
+        }
+
+        if (uri.contains("/events") || uri.contains("/comments")) {
+            respondWithMetadata(exchange, uri.contains("/events") ? "events-1" : commentsETag,
+                uri.contains("/events") ? eventsBody : "[{\"body\": \"Comment\", \"user\": {\"login\": \"user\"}}]");
+            return;
+        }
+
+        Matcher pageParameter = PAGE_PARAMETER.matcher(uri);
+        int page = pageParameter.find() ? Integer.parseInt(pageParameter.group(1)) : 1;
+        requestedPages.add(page);
+        if (page == failingPage) {
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+            return;
+        }
+
+        int lastPage = (issueCount + PagedRequest.PAGE_SIZE - 1) / PagedRequest.PAGE_SIZE;
+        String pageUri = "http://localhost:" + server.getAddress().getPort() + "/api/v3/repos/" + REPO
+            + "/issues?per_page=" + PagedRequest.PAGE_SIZE + "&page=";
+        if (page < lastPage) {
+            exchange.getResponseHeaders().add("Link", String.format("<%s%d>; rel=\"next\", <%s%d>; rel=\"last\"",
+                pageUri, page + 1, pageUri, lastPage));
+        }
+
+        int first = (page - 1) * PagedRequest.PAGE_SIZE + 1;
+        int last = Math.min(page * PagedRequest.PAGE_SIZE, issueCount);
+        send(exchange, issueIds(first, last).stream()
+            .map(id -> String.format("{\"number\": %d, \"title\": \"Issue %d\", \"state\": \"open\", "
+                + "\"user\": {\"login\": \"user\"}, \"labels\": [], \"comments\": 0, "
+                + "\"created_at\": \"2015-01-01T00:00:00Z\", \"updated_at\": \"2015-01-01T00:00:00Z\"}", id, id))
+            .collect(Collectors.joining(", ", "[", "]")));
+    }
+
+    private void respondWithMetadata(HttpExchange exchange, String eTag, String body) throws IOException {
+        String quotedETag = "\"" + eTag + "\"";
+        if (quotedETag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            unchangedResponses.incrementAndGet();
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        exchange.getResponseHeaders().add("ETag", quotedETag);
+        send(exchange, body);
+    }
+
+    private void send(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.getResponseHeaders().add("X-RateLimit-Limit", "5000");
+        exchange.getResponseHeaders().add("X-RateLimit-Remaining", String.valueOf(remainingRequests));
+        exchange.getResponseHeaders().add("X-RateLimit-Reset", "1500000000");
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            compressedResponses.incrementAndGet();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+                out.write(bytes);
+            }
+            bytes = compressed.toByteArray();
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package tests;
+
+import backend.IssueMetadata;
+import backend.UpdateSignature;
+import backend.github.GraphQLSource;
+import backend.resource.Model;
+import backend.resource.TurboIssue;
+import backend.resource.TurboMilestone;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import github.GitHubClientExtended;
+import github.IssueEventType;
+import github.TurboIssueEvent;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import ui.UI;
+import util.events.EventDispatcherStub;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Downloads repositories through a local server standing in for GitHub's GraphQL API, which
+ * replays responses recorded in src/test/resources/graphql.
+ */
+public class GraphQLSourceTest {
+
+    private static final String REPO = "test/repo";
+
+    private HttpServer server;
+    private GraphQLSource source;
+
+    // The recorded responses to replay, in order, and the variables of the queries answered with them
+    private final Queue<String> responses = new ConcurrentLinkedQueue<>();
+    private final List<JsonObject> queries = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> restRequests = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeClass
+    public static void initialise() {
+        UI.events = new EventDispatcherStub();
+    }
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::respond);
+        server.start();
+        source = new GraphQLSource(new GitHubClientExtended("localhost", server.getAddress().getPort(), "http"));
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void downloadRepository() throws InterruptedException, ExecutionException, TimeoutException {
+        responses.addAll(Arrays.asList("download-1.json", "download-2.json"));
+        List<Model> provisionalModels = Collections.synchronizedList(new ArrayList<>());
+
+        Model model = source.downloadRepository(REPO, provisionalModels::add).get(10, TimeUnit.SECONDS);
+
+        assertEquals(Arrays.asList(1, 2, 3, 4), issueIds(model));
+        TurboIssue second = model.getIssueById(2).get();
+        assertEquals("Second issue", second.getTitle());
+        assertEquals("alice", second.getCreator());
+        assertTrue(second.isOpen());
+        assertEquals("bob", second.getAssignee().get());
+        assertEquals(Arrays.asList("type.bug"), second.getLabels());
+        assertEquals(1, (int) second.getMilestone().get());
+        assertEquals(1, second.getCommentCount());
+        assertEquals("", model.getIssueById(3).get().getDescription());
+
+        TurboIssue pullRequest = model.getIssueById(4).get();
+        assertTrue(pullRequest.isPullRequest());
+        assertFalse(pullRequest.isOpen());
+        assertEquals("ghost", pullRequest.getCreator());
+
+        assertEquals(Arrays.asList("type.bug", "type.feature"), model.getLabels().stream()
+            .map(label -> label.getActualName())
+            .collect(Collectors.toList()));
+        TurboMilestone milestone = model.getMilestoneById(1).get();
+        assertEquals("V1.0", milestone.getTitle());
+        assertEquals(1, milestone.getOpenIssues());
+        assertEquals(1, milestone.getClosedIssues());
+        assertEquals(2, model.getUsers().size());
+
+        // Only the issues have a second page to ask for
+        assertEquals(2, queries.size());
+        assertTrue(queries.get(0).get("hasMoreLabels").getAsBoolean());
+        assertEquals("issues-1", queries.get(1).get("issuesCursor").getAsString());
+        assertFalse(queries.get(1).get("hasMoreLabels").getAsBoolean());
+        assertFalse(queries.get(1).get("hasMorePullRequests").getAsBoolean());
+        assertFalse(queries.get(1).has("issuesSince"));
+
+        assertEquals(1, provisionalModels.size());
+        assertEquals(Arrays.asList(2, 3, 4), issueIds(provisionalModels.get(0)));
+    }
+
+    @Test
+    public void downloadMetadataWithIssues() throws InterruptedException, ExecutionException, TimeoutException {
+        responses.addAll(Arrays.asList("download-1.json", "download-2.json"));
+        source.downloadRepository(REPO, model -> {}).get(10, TimeUnit.SECONDS);
+
+        Map<Integer, IssueMetadata> metadata = source.downloadMetadata(REPO, Arrays.asList(2, 3, 4), new HashMap<>())
+            .get(10, TimeUnit.SECONDS);
+
+        IssueMetadata second = metadata.get(2);
+        assertEquals("I can reproduce this", second.getComments().get(0).getBody());
+        assertEquals("bob", second.getComments().get(0).getUser().getLogin());
+        List<TurboIssueEvent> events = second.getEvents();
+        assertEquals(Arrays.asList(IssueEventType.Labeled, IssueEventType.Assigned, IssueEventType.Renamed),
+            events.stream().map(TurboIssueEvent::getType).collect(Collectors.toList()));
+        assertEquals("ff0000", events.get(0).getLabelColour());
+        assertEquals("bob", events.get(1).getAssignedUser().getLogin());
+        assertEquals("Second", events.get(2).getRenamedFrom());
+        assertEquals("ghost", events.get(2).getActor().getLogin());
+        assertEquals(IssueEventType.Merged, metadata.get(4).getEvents().get(0).getType());
+
+        // The third issue has too many comments to have come with it
+        assertEquals("Comment over REST", metadata.get(3).getComments().get(0).getBody());
+        assertEquals(2, restRequests.size());
+        assertTrue(restRequests.stream().allMatch(path -> path.contains("/issues/3/")));
+    }
+
+    @Test
+    public void keepMetadataOfRecentlyUpdatedIssues()
+        throws InterruptedException, ExecutionException, TimeoutException {
+        source = new GraphQLSource(new GitHubClientExtended("localhost", server.getAddress().getPort(), "http"), 1);
+        responses.addAll(Arrays.asList("download-1.json", "download-2.json"));
+        source.downloadRepository(REPO, model -> {}).get(10, TimeUnit.SECONDS);
+
+        // Only the metadata of the most recently updated issue is kept; that of the others is downloaded
+        Map<Integer, IssueMetadata> metadata = source.downloadMetadata(REPO, Arrays.asList(2, 4), new HashMap<>())
+            .get(10, TimeUnit.SECONDS);
+        assertEquals("I can reproduce this", metadata.get(2).getComments().get(0).getBody());
+        assertTrue(metadata.get(4).getEvents().isEmpty());
+        assertFalse(restRequests.isEmpty());
+        assertTrue(restRequests.stream().allMatch(path -> path.contains("/issues/4/")));
+    }
+
+    @Test
+    public void updateModel() throws InterruptedException, ExecutionException, TimeoutException {
+        responses.addAll(Arrays.asList("download-1.json", "download-2.json"));
+        Model downloaded = source.downloadRepository(REPO, model -> {}).get(10, TimeUnit.SECONDS);
+        Date lastCheckTime = Date.from(Instant.parse("2015-06-15T00:00:00Z"));
+        Model model = new Model(REPO, downloaded.getIssues(), downloaded.getLabels(), downloaded.getMilestones(),
+            downloaded.getUsers(), new UpdateSignature(null, null, null, null, lastCheckTime));
+        queries.clear();
+        responses.add("update-1.json");
+
+        Model updated = source.updateModel(model).get(10, TimeUnit.SECONDS);
+
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), issueIds(updated));
+        assertEquals("Second issue, renamed", updated.getIssueById(2).get().getTitle());
+        assertFalse(updated.getIssueById(2).get().isOpen());
+        assertEquals(0, updated.getMilestoneById(1).get().getOpenIssues());
+        assertTrue(updated.getUpdateSignature().lastCheckTime.after(lastCheckTime));
+
+        // Pull requests are not asked for beyond the first one not updated since the last check
+        assertEquals(1, queries.size());
+        assertEquals("2015-06-15T00:00:00Z", queries.get(0).get("issuesSince").getAsString());
+
+        // Only the changed issues' metadata is replaced
+        Map<Integer, IssueMetadata> metadata = source.downloadMetadata(REPO, Arrays.asList(2, 4), new HashMap<>())
+            .get(10, TimeUnit.SECONDS);
+        assertEquals(IssueEventType.Closed, metadata.get(2).getEvents().get(0).getType());
+        assertEquals(IssueEventType.Merged, metadata.get(4).getEvents().get(0).getType());
+        assertTrue(restRequests.isEmpty());
+    }
+
+    @Test
+    public void failedQuery() throws InterruptedException, TimeoutException {
+        responses.add("not-found.json");
+
+        try {
+            source.downloadRepository(REPO, model -> {}).get(10, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause().getMessage().contains("Could not resolve to a Repository"));
+        }
+    }
+
+    private static List<Integer> issueIds(Model model) {
+        return model.getIssues().stream()
+            .map(TurboIssue::getId)
+            .sorted()
+            .collect(Collectors.toList());
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String body;
+        if (path.equals("/api/graphql")) {
+            String request = IOUtils.toString(exchange.getRequestBody(), StandardCharsets.UTF_8);
+            queries.add(new JsonParser().parse(request).getAsJsonObject().getAsJsonObject("variables"));
+            body = readResponse(responses.remove());
+        } else {
+            // The metadata of issues which did not come with them is downloaded as before
+            restRequests.add(path);
+            body = path.endsWith("/comments")
+                ? "[{\"id\": 201, \"body\": \"Comment over REST\", \"user\": {\"login\": \"carol\"}}]"
+                : "[]";
+        }
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String readResponse(String name) throws IOException {
+        try (InputStream stream = GraphQLSourceTest.class.getResourceAsStream("/graphql/" + name)) {
+            return IOUtils.toString(stream, StandardCharsets.UTF_8);
+        }
+    }
+}
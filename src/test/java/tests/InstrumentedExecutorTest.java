@@ -0,0 +1,97 @@
+package tests;
+
+import backend.github.UpdateModelTask;
+import backend.interfaces.RepoTask;
+import backend.interfaces.TaskRunner;
+import backend.resource.Model;
+import backend.stub.DummyRepo;
+import org.junit.After;
+import org.junit.Test;
+import util.InstrumentedExecutor;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class InstrumentedExecutorTest {
+
+    private static final String REPO = "test/repo";
+
+    private InstrumentedExecutor executor;
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void boundedNamedThreads() throws InterruptedException {
+        executor = new InstrumentedExecutor("Test", 2);
+        CountDownLatch released = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(5);
+        Set<String> threadNames = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < 5; i++) {
+            executor.execute(() -> {
+                threadNames.add(Thread.currentThread().getName());
+                try {
+                    released.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                finished.countDown();
+            });
+        }
+
+        waitFor(() -> executor.getActiveCount() == 2);
+        InstrumentedExecutor.Statistics statistics = executor.getStatistics();
+        assertEquals(2, statistics.activeCount);
+        assertEquals(2, statistics.poolSize);
+        assertEquals(3, statistics.queueDepth);
+
+        released.countDown();
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        waitFor(() -> executor.getStatistics().runTimes.getCount() == 5);
+        assertEquals(5, executor.getStatistics().waitTimes.getCount());
+        assertEquals(0, executor.getQueueDepth());
+        assertTrue(threadNames.size() <= 2);
+        assertTrue(threadNames.stream().allMatch(name -> name.startsWith("Test-")));
+    }
+
+    @Test
+    public void updateModelOnSingleThread() throws InterruptedException, ExecutionException, TimeoutException {
+        executor = new InstrumentedExecutor("Test", 1);
+        TaskRunner taskRunner = new TaskRunner() {
+            @Override
+            public <R> RepoTask<R> addTask(RepoTask<R> task) {
+                execute(task);
+                return task;
+            }
+
+            @Override
+            public void execute(Runnable r) {
+                executor.execute(r);
+            }
+        };
+
+        // The update would never finish if it held the only thread while waiting for its parts
+        UpdateModelTask task = new UpdateModelTask(taskRunner, new DummyRepo(), new Model(REPO));
+        taskRunner.addTask(task);
+
+        assertEquals(REPO, task.response.get(10, TimeUnit.SECONDS).getRepoId());
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline);
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+}
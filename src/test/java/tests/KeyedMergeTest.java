@@ -0,0 +1,182 @@
+package tests;
+
+import backend.UpdateSignature;
+import backend.resource.ChangeSet;
+import backend.resource.KeyedMerge;
+import backend.resource.Model;
+import backend.resource.ModelChanges;
+import backend.resource.MultiModel;
+import backend.resource.TurboIssue;
+import backend.resource.TurboLabel;
+import backend.resource.TurboMilestone;
+import backend.resource.TurboUser;
+import org.junit.Test;
+import prefs.Preferences;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class KeyedMergeTest {
+
+    private static final String REPO = "test/repo";
+
+    @Test
+    public void updateInPlaceOrAppend() {
+        List<TurboIssue> existing = issues(1, 2, 3);
+        TurboIssue unchanged = existing.get(0);
+
+        KeyedMerge.Result<TurboIssue> result = TurboIssue.reconcile(REPO, existing,
+            Arrays.asList(issue(3, "Third, renamed"), issue(5, "Fifth"), issue(4, "Fourth")));
+
+        assertEquals(Arrays.asList(1, 2, 3, 5, 4), ids(result.items));
+        assertSame(unchanged, result.items.get(0));
+        assertEquals("Third, renamed", result.items.get(2).getTitle());
+        assertEquals(Arrays.asList(5, 4), ids(result.changes.added));
+        assertEquals(Arrays.asList(3), ids(result.changes.changed));
+        assertTrue(result.changes.removed.isEmpty());
+
+        // The existing list is left alone
+        assertEquals("Issue 3", existing.get(2).getTitle());
+    }
+
+    @Test
+    public void reportOnlyRealChanges() {
+        List<TurboIssue> existing = issues(1, 2, 3);
+
+        KeyedMerge.Result<TurboIssue> result = TurboIssue.reconcile(REPO, existing,
+            Arrays.asList(new TurboIssue(existing.get(0)), issue(2, "Renamed"), issue(2, "Renamed again"),
+                issue(4, "New"), issue(4, "New, renamed")));
+
+        // Issues which are reported changed but are not, and issues changed twice, are reported once at most
+        assertEquals(Arrays.asList(2), ids(result.changes.changed));
+        assertEquals("Renamed again", result.changes.changed.get(0).getTitle());
+        assertEquals(Arrays.asList(4), ids(result.changes.added));
+        assertEquals("New, renamed", result.changes.added.get(0).getTitle());
+        assertEquals(4, result.items.size());
+    }
+
+    @Test
+    public void keepStateAcrossVersions() {
+        MultiModel models = new MultiModel(new Preferences(true));
+        models.queuePendingRepository(REPO);
+        List<TurboIssue> existing = issues(1, 2);
+        models.addPending(new Model(REPO, existing, new ArrayList<>(), new ArrayList<>(), new ArrayList<>()));
+        LocalDateTime readAt = LocalDateTime.of(2015, 1, 1, 0, 0);
+        models.setMarkedReadAt(existing.get(1), Optional.of(readAt));
+
+        List<TurboIssue> reconciled = TurboIssue.reconcile(REPO, existing, Arrays.asList(issue(2, "Renamed"))).items;
+
+        // State is kept by repo and id, so it belongs to the renamed issue too
+        assertEquals("Renamed", reconciled.get(1).getTitle());
+        assertEquals(readAt, models.getStateOfIssue(reconciled.get(1)).getMarkedReadAt().get());
+        assertTrue(models.getStateOfIssue(reconciled.get(1)).isCurrentlyRead());
+        assertFalse(models.getStateOfIssue(reconciled.get(0)).isCurrentlyRead());
+    }
+
+    @Test
+    public void diff() {
+        List<TurboLabel> before = Arrays.asList(new TurboLabel(REPO, "ffffff", "a"),
+            new TurboLabel(REPO, "ffffff", "b"), new TurboLabel(REPO, "ffffff", "c"));
+        List<TurboLabel> after = Arrays.asList(new TurboLabel(REPO, "000000", "c"),
+            new TurboLabel(REPO, "ffffff", "a"), new TurboLabel(REPO, "ffffff", "d"));
+
+        ChangeSet<TurboLabel> changes = KeyedMerge.LABELS.diff(before, after);
+
+        assertEquals(Arrays.asList("d"), names(changes.added));
+        assertEquals(Arrays.asList("c"), names(changes.changed));
+        assertEquals("000000", changes.changed.get(0).getColour());
+        assertEquals(Arrays.asList("b"), names(changes.removed));
+        assertTrue(KeyedMerge.LABELS.diff(after, after).isEmpty());
+    }
+
+    @Test
+    public void changesBetweenModels() {
+        Model before = new Model(REPO, issues(1, 2), new ArrayList<>(),
+            Arrays.asList(new TurboMilestone(REPO, 1, "V1")),
+            Arrays.asList(new TurboUser(REPO, "alice"), new TurboUser(REPO, "bob")), UpdateSignature.EMPTY);
+        Model after = new Model(REPO, Arrays.asList(before.getIssues().get(0), issue(2, "Renamed"), issue(3, "New")),
+            Arrays.asList(new TurboLabel(REPO, "bug")), before.getMilestones(),
+            Arrays.asList(new TurboUser(REPO, "alice", null)), UpdateSignature.EMPTY);
+
+        ModelChanges changes = ModelChanges.between(before, after);
+
+        assertEquals(Arrays.asList(3), ids(changes.issues.added));
+        assertEquals(Arrays.asList(2), ids(changes.issues.changed));
+        assertEquals(Arrays.asList("bug"), names(changes.labels.added));
+        assertTrue(changes.milestones.isEmpty());
+        assertEquals(1, changes.users.changed.size());
+        assertEquals("bob", changes.users.removed.get(0).getLoginName());
+        assertFalse(changes.isEmpty());
+        assertTrue(ModelChanges.between(after, after).isEmpty());
+    }
+
+    @Test
+    public void markChangedIssuesUnread() {
+        MultiModel models = new MultiModel(new Preferences(true));
+        models.queuePendingRepository(REPO);
+        List<TurboIssue> existing = issues(10, 20, 30);
+        models.addPending(new Model(REPO, existing, new ArrayList<>(), new ArrayList<>(), new ArrayList<>()));
+        LocalDateTime readAt = LocalDateTime.of(2015, 1, 1, 0, 0);
+        existing.forEach(issue -> models.setMarkedReadAt(issue, Optional.of(readAt)));
+
+        List<TurboIssue> updated = TurboIssue.reconcile(REPO, existing,
+            Arrays.asList(issue(20, "Renamed"), issue(40, "New"))).items;
+        models.replace(Arrays.asList(
+            new Model(REPO, updated, new ArrayList<>(), new ArrayList<>(), new ArrayList<>())));
+
+        // Issue ids need not be numbered from 1 without gaps
+        List<TurboIssue> issues = models.getIssues();
+        assertTrue(models.getStateOfIssue(issues.get(0)).isCurrentlyRead());
+        assertFalse(models.getStateOfIssue(issues.get(1)).isCurrentlyRead());
+        assertTrue(models.getStateOfIssue(issues.get(2)).isCurrentlyRead());
+        assertFalse(models.getStateOfIssue(issues.get(3)).isCurrentlyRead());
+
+        // The changed issue is unread, but when it was last read is kept
+        assertEquals(readAt, models.getStateOfIssue(issues.get(1)).getMarkedReadAt().get());
+    }
+
+    @Test
+    public void mergeLargeRepository() {
+        List<TurboIssue> existing = IntStream.rangeClosed(1, 30000)
+            .mapToObj(id -> issue(id, "Issue " + id))
+            .collect(Collectors.toList());
+        List<TurboIssue> changed = IntStream.rangeClosed(29001, 31000)
+            .mapToObj(id -> issue(id, "Changed " + id))
+            .collect(Collectors.toList());
+
+        KeyedMerge.Result<TurboIssue> result = TurboIssue.reconcile(REPO, existing, changed);
+
+        assertEquals(31000, result.items.size());
+        assertEquals(1000, result.changes.added.size());
+        assertEquals(1000, result.changes.changed.size());
+        assertEquals(31000, result.items.get(30999).getId());
+    }
+
+    private static TurboIssue issue(int id, String title) {
+        return new TurboIssue(REPO, id, title);
+    }
+
+    private static List<TurboIssue> issues(int... ids) {
+        return Arrays.stream(ids)
+            .mapToObj(id -> issue(id, "Issue " + id))
+            .collect(Collectors.toList());
+    }
+
+    private static List<Integer> ids(List<TurboIssue> issues) {
+        return issues.stream().map(TurboIssue::getId).collect(Collectors.toList());
+    }
+
+    private static List<String> names(List<TurboLabel> labels) {
+        return labels.stream().map(TurboLabel::getActualName).collect(Collectors.toList());
+    }
+}
@@ -64,11 +64,10 @@ public class LabelPickerLogicTests {
         assertEquals(3, getLabels(logic).size());
 
         // let's try starting with an issue with two exclusive labels in the same group
-        TurboIssue issue = new TurboIssue("dummy/dummy", 1, "Issue 1");
         ArrayList<String> labels = new ArrayList<>();
         labels.add("p.low");
         labels.add("p.mid");
-        issue.setLabels(labels);
+        TurboIssue issue = new TurboIssue("dummy/dummy", 1, "Issue 1").withLabels(labels);
         logic = prepareLogic(issue);
         // there should be two labels at first
         assertEquals(2, getLabels(logic).size());
@@ -79,8 +78,7 @@ public class LabelPickerLogicTests {
         assertEquals(true, logic.getResultList().get("p.low"));
 
         // let's try starting with an issue with two exclusive labels in the same group
-        issue = new TurboIssue("dummy/dummy", 1, "Issue 1");
-        issue.setLabels(labels);
+        issue = new TurboIssue("dummy/dummy", 1, "Issue 1").withLabels(labels);
         logic = prepareLogic(issue);
         // there should be two labels at first
         assertEquals(2, getLabels(logic).size());
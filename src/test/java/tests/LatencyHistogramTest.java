@@ -0,0 +1,43 @@
+package tests;
+
+import org.junit.Test;
+import util.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void latencyPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(0.5));
+
+        for (int i = 0; i < 90; i++) {
+            histogram.record(1, TimeUnit.MILLISECONDS);
+        }
+        for (int i = 0; i < 9; i++) {
+            histogram.record(100, TimeUnit.MILLISECONDS);
+        }
+        histogram.record(1, TimeUnit.HOURS);
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(2, histogram.getPercentile(0.5));
+        assertEquals(2, histogram.getPercentile(0.9));
+        assertEquals(128, histogram.getPercentile(0.99));
+        assertEquals(Long.MAX_VALUE, histogram.getPercentile(1));
+        assertEquals(90, histogram.getBucketCounts()[1]);
+    }
+
+    @Test
+    public void copy() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(3, TimeUnit.MILLISECONDS);
+        LatencyHistogram copy = new LatencyHistogram(histogram);
+        histogram.record(3, TimeUnit.MILLISECONDS);
+
+        assertEquals(1, copy.getCount());
+        assertEquals(4, copy.getPercentile(0.5));
+    }
+}
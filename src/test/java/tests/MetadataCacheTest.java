@@ -0,0 +1,118 @@
+package tests;
+
+import backend.IssueMetadata;
+import backend.MetadataCache;
+import backend.interfaces.RepoStore;
+import github.IssueEventType;
+import github.TurboIssueEvent;
+import guitests.UITest;
+import org.eclipse.egit.github.core.Comment;
+import org.eclipse.egit.github.core.User;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MetadataCacheTest {
+
+    private static final String REPO = "dummy/dummy";
+    private static final LocalDateTime UPDATED_AT = LocalDateTime.of(2015, 6, 1, 12, 0);
+
+    @Before
+    public void enableTestDirectory() {
+        RepoStore.enableTestDirectory();
+    }
+
+    private static IssueMetadata metadata() {
+        List<TurboIssueEvent> events = new ArrayList<>();
+        TurboIssueEvent event = new TurboIssueEvent(new User().setLogin("actor"), IssueEventType.Labeled,
+                new Date(1433160000000L));
+        event.setLabelName("type.bug");
+        events.add(event);
+        List<Comment> comments = new ArrayList<>();
+        comments.add(new Comment().setBody("A comment").setUser(new User().setLogin("commenter"))
+                .setCreatedAt(new Date(1433160060000L)));
+        return new IssueMetadata(events, comments);
+    }
+
+    private static Map<Integer, LocalDateTime> updateTimes(LocalDateTime updatedAt) {
+        Map<Integer, LocalDateTime> updateTimes = new HashMap<>();
+        updateTimes.put(1, updatedAt);
+        return updateTimes;
+    }
+
+    @Test
+    public void cacheUnchangedIssues() throws ExecutionException, InterruptedException {
+        MetadataCache cache = new MetadataCache(true);
+        assertTrue(cache.get(REPO, updateTimes(UPDATED_AT)).get().isEmpty());
+
+        Map<Integer, IssueMetadata> downloaded = new HashMap<>();
+        downloaded.put(1, metadata());
+        cache.put(REPO, downloaded, updateTimes(UPDATED_AT)).get();
+
+        assertEquals(1, cache.get(REPO, updateTimes(UPDATED_AT)).get().size());
+        assertTrue(cache.get(REPO, updateTimes(UPDATED_AT.plusMinutes(1))).get().isEmpty());
+    }
+
+    @Test
+    public void persistAcrossInstances() throws ExecutionException, InterruptedException {
+        Map<Integer, IssueMetadata> downloaded = new HashMap<>();
+        downloaded.put(1, metadata());
+        new MetadataCache(true).put(REPO, downloaded, updateTimes(UPDATED_AT)).get();
+
+        IssueMetadata cached = new MetadataCache(true).get(REPO, updateTimes(UPDATED_AT)).get().get(1);
+        TurboIssueEvent event = cached.getEvents().get(0);
+        assertEquals("actor", event.getActor().getLogin());
+        assertEquals(IssueEventType.Labeled, event.getType());
+        assertEquals("type.bug", event.getLabelName());
+        assertEquals(new Date(1433160000000L), event.getDate());
+        Comment comment = cached.getComments().get(0);
+        assertEquals("A comment", comment.getBody());
+        assertEquals("commenter", comment.getUser().getLogin());
+        assertEquals(new Date(1433160060000L), comment.getCreatedAt());
+    }
+
+    @Test
+    public void keepOutdatedMetadata() throws ExecutionException, InterruptedException {
+        IssueMetadata withETags = new IssueMetadata(metadata().getEvents(), metadata().getComments(),
+                "events-etag", "comments-etag");
+        Map<Integer, IssueMetadata> downloaded = new HashMap<>();
+        downloaded.put(1, withETags);
+        new MetadataCache(true).put(REPO, downloaded, updateTimes(UPDATED_AT)).get();
+
+        // Once the issue has been updated, its metadata is no longer current, but can still be
+        // downloaded again only if it has changed
+        MetadataCache cache = new MetadataCache(true);
+        assertTrue(cache.get(REPO, updateTimes(UPDATED_AT.plusMinutes(1))).get().isEmpty());
+        IssueMetadata outdated = cache.getOutdated(REPO, Arrays.asList(1, 2)).get().get(1);
+        assertEquals("events-etag", outdated.getEventsETag());
+        assertEquals("comments-etag", outdated.getCommentsETag());
+        assertEquals("A comment", outdated.getComments().get(0).getBody());
+        assertEquals(1, cache.getOutdated(REPO, Arrays.asList(1, 2)).get().size());
+    }
+
+    @Test
+    public void disabledCache() throws ExecutionException, InterruptedException {
+        MetadataCache cache = new MetadataCache(false);
+        Map<Integer, IssueMetadata> downloaded = new HashMap<>();
+        downloaded.put(1, metadata());
+        cache.put(REPO, downloaded, updateTimes(UPDATED_AT)).get();
+        assertTrue(cache.get(REPO, updateTimes(UPDATED_AT)).get().isEmpty());
+    }
+
+    @After
+    public void cleanup() {
+        UITest.clearTestFolder();
+    }
+}
@@ -0,0 +1,169 @@
+package tests;
+
+import backend.IssueMetadata;
+import backend.github.MetadataFetcher;
+import backend.stub.DummyRepo;
+import backend.stub.DummySource;
+import github.TurboIssueEvent;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.eclipse.egit.github.core.Comment;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MetadataFetcherTest {
+
+    private final DummySource source = new DummySource();
+
+    /**
+     * Records the order in which requests are made, and how many are made at once.
+     */
+    private static class RecordingRepo extends DummyRepo {
+        final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch firstRequestAllowed = new CountDownLatch(1);
+        final AtomicInteger requestsInProgress = new AtomicInteger();
+        final AtomicInteger mostRequestsInProgress = new AtomicInteger();
+
+        @Override
+        public List<TurboIssueEvent> getEvents(String repoId, int issueId) {
+            request(repoId);
+            return new ArrayList<>();
+        }
+
+        @Override
+        public List<Comment> getComments(String repoId, int issueId) {
+            request(repoId);
+            List<Comment> comments = new ArrayList<>();
+            comments.add(new Comment().setBody("Comment on #" + issueId));
+            return comments;
+        }
+
+        private void request(String repoId) {
+            int inProgress = requestsInProgress.incrementAndGet();
+            mostRequestsInProgress.accumulateAndGet(inProgress, Math::max);
+            try {
+                if (requests.isEmpty()) {
+                    requests.add(repoId);
+                    firstRequestAllowed.await();
+                } else {
+                    requests.add(repoId);
+                    Thread.sleep(5);
+                }
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            } finally {
+                requestsInProgress.decrementAndGet();
+            }
+        }
+    }
+
+    @Test
+    public void fetchMetadata() throws InterruptedException, ExecutionException, TimeoutException {
+        RecordingRepo repo = new RecordingRepo();
+        repo.firstRequestAllowed.countDown();
+        MetadataFetcher fetcher = new MetadataFetcher(source, 4);
+
+        Map<Integer, IssueMetadata> metadata = fetcher.fetch(repo, "test/repo", issueIds(20))
+            .get(10, TimeUnit.SECONDS);
+
+        assertEquals(20, metadata.size());
+        assertEquals("Comment on #7", metadata.get(7).getComments().get(0).getBody());
+        assertEquals(40, repo.requests.size());
+        assertTrue(repo.mostRequestsInProgress.get() > 1);
+        assertTrue(repo.mostRequestsInProgress.get() <= 4);
+    }
+
+    @Test
+    public void repositoriesTakeTurns() throws InterruptedException, ExecutionException, TimeoutException {
+        RecordingRepo repo = new RecordingRepo();
+        MetadataFetcher fetcher = new MetadataFetcher(source, 1);
+
+        CompletableFuture<Map<Integer, IssueMetadata>> busy = fetcher.fetch(repo, "busy/repo", issueIds(10));
+        CompletableFuture<Map<Integer, IssueMetadata>> quiet = fetcher.fetch(repo, "quiet/repo", issueIds(1));
+        repo.firstRequestAllowed.countDown();
+        busy.get(10, TimeUnit.SECONDS);
+        quiet.get(10, TimeUnit.SECONDS);
+
+        // The quiet repository's requests are not made after all of the busy one's
+        assertEquals(22, repo.requests.size());
+        assertTrue(repo.requests.lastIndexOf("quiet/repo") < 5);
+        assertEquals(1, repo.mostRequestsInProgress.get());
+    }
+
+    @Test
+    public void reusePreviousMetadata() throws InterruptedException, ExecutionException, TimeoutException {
+        RecordingRepo repo = new RecordingRepo() {
+            @Override
+            public Optional<ImmutablePair<List<Comment>, String>> getUpdatedComments(String repoId, int issueId,
+                                                                                   String eTag) {
+                // The comments on #1 have not changed since they were downloaded with this ETag
+                return "unchanged".equals(eTag)
+                    ? Optional.empty()
+                    : Optional.of(new ImmutablePair<>(getComments(repoId, issueId), "new"));
+            }
+        };
+        repo.firstRequestAllowed.countDown();
+        List<Comment> previousComments = new ArrayList<>();
+        previousComments.add(new Comment().setBody("Previous comment"));
+        Map<Integer, IssueMetadata> previous = new HashMap<>();
+        previous.put(1, new IssueMetadata(new ArrayList<>(), previousComments, null, "unchanged"));
+        previous.put(2, new IssueMetadata(new ArrayList<>(), previousComments, null, "changed"));
+
+        Map<Integer, IssueMetadata> metadata = new MetadataFetcher(source, 2)
+            .fetch(repo, "test/repo", issueIds(2), previous)
+            .get(10, TimeUnit.SECONDS);
+
+        assertEquals("Previous comment", metadata.get(1).getComments().get(0).getBody());
+        assertEquals("unchanged", metadata.get(1).getCommentsETag());
+        assertEquals("Comment on #2", metadata.get(2).getComments().get(0).getBody());
+        assertEquals("new", metadata.get(2).getCommentsETag());
+    }
+
+    @Test
+    public void leaveOutFailedIssues() throws InterruptedException, ExecutionException, TimeoutException {
+        RecordingRepo repo = new RecordingRepo() {
+            @Override
+            public Optional<ImmutablePair<List<Comment>, String>> getUpdatedComments(String repoId, int issueId,
+                                                                                   String eTag) throws IOException {
+                if (issueId == 2) {
+                    throw new IOException("Rate limit exceeded");
+                }
+                return super.getUpdatedComments(repoId, issueId, eTag);
+            }
+        };
+        repo.firstRequestAllowed.countDown();
+        Map<Integer, IssueMetadata> previous = new HashMap<>();
+        previous.put(2, new IssueMetadata(new ArrayList<>(), new ArrayList<>(), null, "unchanged"));
+
+        Map<Integer, IssueMetadata> metadata = new MetadataFetcher(source, 2)
+            .fetch(repo, "test/repo", issueIds(3), previous)
+            .get(10, TimeUnit.SECONDS);
+
+        // The issue whose comments could not be downloaded gets no metadata, rather than empty metadata
+        assertEquals(2, metadata.size());
+        assertFalse(metadata.containsKey(2));
+        assertEquals("Comment on #3", metadata.get(3).getComments().get(0).getBody());
+    }
+
+    private static List<Integer> issueIds(int count) {
+        return IntStream.rangeClosed(1, count).boxed().collect(Collectors.toList());
+    }
+}
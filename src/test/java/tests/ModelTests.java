@@ -10,7 +10,9 @@ import org.junit.Test;
 import java.util.*;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
 
 public class ModelTests {
 
@@ -46,23 +48,52 @@ public class ModelTests {
         modelCopyNotUpdated = new Model(modelEmptySig);
     }
 
+    @Test(expected = UnsupportedOperationException.class)
+    public void immutableIssues() {
+        new Model(modelUpdated).getIssues().add(new TurboIssue(REPO, 11, ""));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void immutableLabels() {
+        new Model(modelUpdated).getLabels().add(new TurboLabel(REPO, "aksdjl"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void immutableMilestones() {
+        new Model(modelUpdated).getMilestones().add(new TurboMilestone(REPO, 11, ""));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void immutableUsers() {
+        new Model(modelUpdated).getUsers().add(new TurboUser(REPO, ""));
+    }
+
     @Test
-    public void immutability() {
-        Model other = new Model(modelUpdated);
-        other.getIssues().add(new TurboIssue(REPO, 11, ""));
-        assertEquals(modelUpdated, other);
-
-        other = new Model(modelUpdated);
-        other.getLabels().add(new TurboLabel(REPO, "aksdjl"));
-        assertEquals(modelUpdated, other);
-
-        other = new Model(modelUpdated);
-        other.getMilestones().add(new TurboMilestone(REPO, 11, ""));
-        assertEquals(modelUpdated, other);
-
-        other = new Model(modelUpdated);
-        other.getUsers().add(new TurboUser(REPO, ""));
-        assertEquals(modelUpdated, other);
+    public void independentOfConstructorLists() {
+        List<TurboIssue> issues = new ArrayList<>(modelUpdated.getIssues());
+        Model model = new Model(REPO, issues, modelUpdated.getLabels(), modelUpdated.getMilestones(),
+            modelUpdated.getUsers(), modelUpdated.getUpdateSignature());
+        issues.add(new TurboIssue(REPO, 11, ""));
+
+        assertEquals(modelUpdated, model);
+        assertFalse(model.getIssueById(11).isPresent());
+    }
+
+    @Test
+    public void firstOfRepeatedKeysFound() {
+        TurboIssue first = new TurboIssue(REPO, 1, "First");
+        TurboMilestone milestone = new TurboMilestone(REPO, 1, "V1");
+        Model model = new Model(REPO, Arrays.asList(first, new TurboIssue(REPO, 1, "Second")),
+            Arrays.asList(new TurboLabel(REPO, "a"), new TurboLabel(REPO, "a")),
+            Arrays.asList(milestone, new TurboMilestone(REPO, 2, "V1")),
+            new ArrayList<>());
+
+        assertSame(first, model.getIssueById(1).get());
+        assertSame(model.getLabels().get(0), model.getLabelByActualName("a").get());
+        assertSame(milestone, model.getMilestoneByTitle("V1").get());
+        assertEquals(2, model.getMilestoneById(2).get().getId());
+        assertFalse(model.getIssueById(2).isPresent());
+        assertFalse(model.getUserByLogin("someone").isPresent());
     }
 
     @Test
@@ -267,4 +298,18 @@ public class ModelTests {
         assertEquals(Optional.<TurboUser>empty(), modelUpdated.getUserByLogin("User 11"));
         assertEquals("User 10", modelUpdated.getUserByLogin("User 10").get().getLoginName());
     }
+
+    @Test
+    public void changesFromPreviousModel() {
+        Model previous = new Model(REPO);
+        ModelChanges changes = ModelChanges.ofIssues(REPO, ChangeSet.empty());
+        Model updated = new Model(REPO, new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>(),
+            UpdateSignature.EMPTY, previous, changes);
+
+        // The changes are only known relative to the model which was updated
+        assertSame(changes, updated.getChangesFrom(previous).get());
+        assertFalse(updated.getChangesFrom(new Model(REPO)).isPresent());
+        assertFalse(previous.getChangesFrom(updated).isPresent());
+        assertEquals(previous, updated);
+    }
 }
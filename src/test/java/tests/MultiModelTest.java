@@ -1,9 +1,30 @@
 package tests;
 
+import backend.IssueMetadata;
+import backend.UpdateSignature;
+import backend.interfaces.IModel;
+import backend.resource.KeyedMerge;
+import backend.resource.Model;
+import backend.resource.ModelChanges;
+import backend.resource.ModelDelta;
 import backend.resource.MultiModel;
+import backend.resource.TurboIssue;
+import backend.resource.TurboLabel;
 import org.junit.Test;
 import prefs.Preferences;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -25,4 +46,274 @@ public class MultiModelTest {
         assertEquals(new MultiModel(new Preferences(true)).hashCode(), multiModel.hashCode());
     }
 
+    @Test
+    public void provisionalModel() {
+        Model provisional = new Model("test/repo", new ArrayList<>(),
+            Arrays.asList(new TurboLabel("test/repo", "bug")), new ArrayList<>(), new ArrayList<>(),
+            UpdateSignature.EMPTY);
+
+        // Only repositories which are still loading are shown provisionally
+        assertFalse(multiModel.addProvisional(provisional));
+        multiModel.queuePendingRepository("test/repo");
+        assertTrue(multiModel.addProvisional(provisional));
+        assertEquals(1, multiModel.getLabels().size());
+        assertTrue(multiModel.getModelById("test/repo").isPresent());
+        assertTrue(multiModel.toModels().isEmpty());
+
+        // The repository's model takes its place once it has loaded
+        multiModel.addPending(new Model("test/repo"));
+        assertTrue(multiModel.getLabels().isEmpty());
+        assertEquals(1, multiModel.toModels().size());
+        assertFalse(multiModel.addProvisional(provisional));
+    }
+
+    @Test
+    public void removePendingRepository() {
+        assertFalse(multiModel.removePending("test/repo"));
+        multiModel.queuePendingRepository("test/repo");
+        multiModel.addProvisional(new Model("test/repo", issues(1), new ArrayList<>(), new ArrayList<>(),
+            new ArrayList<>(), UpdateSignature.EMPTY));
+        multiModel.takeDelta();
+
+        // The provisional model is taken down along with the pending repository
+        assertTrue(multiModel.removePending("Test/Repo"));
+        assertFalse(multiModel.isRepositoryPending("test/repo"));
+        assertFalse(multiModel.getModelById("test/repo").isPresent());
+        assertTrue(multiModel.getIssues().isEmpty());
+        assertEquals(ids("test/repo", 1), multiModel.takeDelta().getIssueIds());
+
+        // The repository may then be opened again
+        multiModel.queuePendingRepository("test/repo");
+        assertTrue(multiModel.addProvisional(new Model("test/repo")));
+    }
+
+    @Test
+    public void deltaOfOpenedRepository() {
+        multiModel.queuePendingRepository("test/repo");
+        multiModel.addProvisional(new Model("test/repo", issues(1), new ArrayList<>(), new ArrayList<>(),
+            new ArrayList<>(), UpdateSignature.EMPTY));
+        multiModel.addPending(new Model("test/repo", issues(1, 2), Arrays.asList(new TurboLabel("test/repo", "bug")),
+            new ArrayList<>(), new ArrayList<>(), UpdateSignature.EMPTY));
+
+        ModelDelta delta = multiModel.takeDelta();
+        assertTrue(delta.isKnown());
+        assertFalse(delta.isOnlyIssues());
+        assertEquals(1, delta.getChanges().size());
+        assertEquals(2, delta.getChanges().get(0).issues.added.size());
+        assertEquals(ids("test/repo", 1, 2), delta.getIssueIds());
+
+        // The delta is only taken once
+        assertTrue(multiModel.takeDelta().isEmpty());
+    }
+
+    @Test
+    public void deltaOfUpdates() {
+        multiModel.queuePendingRepository("test/repo");
+        multiModel.addPending(new Model("test/repo", issues(1, 2, 3), new ArrayList<>(), new ArrayList<>(),
+            new ArrayList<>(), UpdateSignature.EMPTY));
+        multiModel.takeDelta();
+
+        List<TurboIssue> updated = new ArrayList<>(multiModel.get("test/repo").getIssues());
+        updated.remove(2);
+        updated.set(0, new TurboIssue("test/repo", 1, "Renamed"));
+        multiModel.replace(Arrays.asList(new Model("test/repo", updated, new ArrayList<>(), new ArrayList<>(),
+            new ArrayList<>(), UpdateSignature.EMPTY)));
+
+        Map<Integer, IssueMetadata> metadata = new HashMap<>();
+        metadata.put(2, new IssueMetadata());
+        multiModel.insertMetadata("test/repo", metadata, "user");
+
+        ModelDelta delta = multiModel.takeDelta();
+        assertTrue(delta.isOnlyIssues());
+        ModelChanges changes = delta.getChanges().get(0);
+        assertEquals(Arrays.asList(updated.get(0), updated.get(1)), changes.issues.changed);
+        assertEquals(3, changes.issues.removed.get(0).getId());
+        assertEquals(ids("test/repo", 1, 2, 3), delta.getIssueIds());
+
+        multiModel.replaceIssueLabels(updated.get(1), Arrays.asList("bug"));
+        assertEquals(ids("test/repo", 2), multiModel.takeDelta().getIssueIds());
+    }
+
+    @Test
+    public void deltaOfClosedRepository() {
+        multiModel.queuePendingRepository("test/repo");
+        multiModel.addPending(new Model("test/repo", issues(1), new ArrayList<>(), new ArrayList<>(),
+            new ArrayList<>(), UpdateSignature.EMPTY));
+        multiModel.takeDelta();
+
+        multiModel.replace(new ArrayList<>());
+
+        ModelDelta delta = multiModel.takeDelta();
+        assertEquals(1, delta.getChanges().get(0).issues.removed.size());
+        assertFalse(delta.followedBy(ModelDelta.unknown()).isOnlyIssues());
+        assertFalse(ModelDelta.unknown().isEmpty());
+    }
+
+    @Test
+    public void versions() {
+        long version = multiModel.getVersion();
+        multiModel.queuePendingRepository("test/repo");
+        assertTrue(multiModel.getVersion() > version);
+
+        version = multiModel.getVersion();
+        multiModel.takeDelta();
+        assertEquals(version, multiModel.getVersion());
+    }
+
+    @Test
+    public void readDuringReplace() throws InterruptedException {
+        multiModel.queuePendingRepository("test/repo1");
+        multiModel.queuePendingRepository("test/repo2");
+        multiModel.addPending(new Model("test/repo1", issues(1, 2), new ArrayList<>(), new ArrayList<>(),
+            new ArrayList<>(), UpdateSignature.EMPTY));
+        multiModel.addPending(new Model("test/repo2", issues(1, 2), new ArrayList<>(), new ArrayList<>(),
+            new ArrayList<>(), UpdateSignature.EMPTY));
+
+        AtomicBoolean isReplacing = new AtomicBoolean(true);
+        Thread replacer = new Thread(() -> {
+            for (int i = 0; i < 2000; i++) {
+                multiModel.replace(multiModel.toModels().stream()
+                    .map(Model::new)
+                    .collect(Collectors.toList()));
+            }
+            isReplacing.set(false);
+        });
+        replacer.start();
+
+        // Readers always see every repository, never one half-replaced
+        while (isReplacing.get()) {
+            assertEquals(4, multiModel.getIssues().size());
+            assertTrue(multiModel.getModelById("test/repo1").isPresent());
+            assertTrue(multiModel.getModelById("test/repo2").isPresent());
+        }
+        replacer.join();
+    }
+
+    @Test
+    public void stateOfIssues() {
+        multiModel.queuePendingRepository("test/repo");
+        multiModel.addPending(new Model("test/repo", issues(1, 2), new ArrayList<>(), new ArrayList<>(),
+            new ArrayList<>(), UpdateSignature.EMPTY));
+        TurboIssue issue = multiModel.get("test/repo").getIssues().get(0);
+
+        Map<Integer, IssueMetadata> metadata = new HashMap<>();
+        metadata.put(1, new IssueMetadata(new IssueMetadata(), LocalDateTime.of(2015, 1, 1, 0, 0), 1));
+        multiModel.insertMetadata("test/repo", metadata, "user");
+        multiModel.setMarkedReadAt(issue, Optional.of(LocalDateTime.of(2015, 1, 1, 0, 0)));
+
+        // Relabelling replaces the issue, leaving the one which was shown alone
+        multiModel.replaceIssueLabels(issue, Arrays.asList("bug"));
+        TurboIssue relabelled = multiModel.get("test/repo").getIssueById(1).get();
+        assertTrue(issue.getLabels().isEmpty());
+        assertEquals(Arrays.asList("bug"), relabelled.getLabels());
+
+        // State is kept by repo and id, so it carries over to the new issue
+        assertTrue(multiModel.getStateOfIssue(relabelled).isCurrentlyRead());
+        assertTrue(multiModel.getStateOfIssue(relabelled).getMetadata().isUpdated());
+        assertFalse(multiModel.getStateOfIssue(new TurboIssue("TEST/REPO", 2, "")).isCurrentlyRead());
+
+        multiModel.setMarkedReadAt(relabelled, Optional.empty());
+        assertFalse(multiModel.getStateOfIssue(issue).isCurrentlyRead());
+    }
+
+    @Test
+    public void deltaOfMarkingRead() {
+        multiModel.queuePendingRepository("test/repo");
+        multiModel.addPending(new Model("test/repo", issues(1, 2), new ArrayList<>(), new ArrayList<>(),
+            new ArrayList<>(), UpdateSignature.EMPTY));
+        multiModel.takeDelta();
+
+        // Marking an issue read or unread can change which panels show it
+        TurboIssue issue = multiModel.get("test/repo").getIssueById(2).get();
+        multiModel.setMarkedReadAt(issue, Optional.of(LocalDateTime.of(2015, 1, 1, 0, 0)));
+        ModelDelta delta = multiModel.takeDelta();
+        assertTrue(delta.isOnlyIssues());
+        assertEquals(ids("test/repo", 2), delta.getIssueIds());
+
+        multiModel.setMarkedReadAt(issue, Optional.empty());
+        assertEquals(ids("test/repo", 2), multiModel.takeDelta().getIssueIds());
+
+        // Issues of repositories which are not open are not taken to have changed
+        multiModel.setMarkedReadAt(new TurboIssue("other/repo", 1, ""), Optional.empty());
+        assertTrue(multiModel.takeDelta().isEmpty());
+    }
+
+    @Test
+    public void viewIsPinned() {
+        multiModel.queuePendingRepository("test/repo");
+        multiModel.addPending(new Model("test/repo", issues(1), new ArrayList<>(), new ArrayList<>(),
+            new ArrayList<>(), UpdateSignature.EMPTY));
+        multiModel.setDefaultRepo("test/repo");
+        IModel view = multiModel.getView();
+
+        // Later updates are not seen through a view taken before them
+        multiModel.replace(Arrays.asList(new Model("test/repo", issues(1, 2), new ArrayList<>(),
+            new ArrayList<>(), new ArrayList<>(), UpdateSignature.EMPTY)));
+        multiModel.setDefaultRepo("test/other");
+        assertEquals(1, view.getIssues().size());
+        assertEquals(1, view.getModelById("test/repo").get().getIssues().size());
+        assertEquals("test/repo", view.getDefaultRepo());
+        assertEquals(2, multiModel.getView().getIssues().size());
+    }
+
+    @Test
+    public void pruneStateOfIssues() {
+        multiModel.queuePendingRepository("test/repo");
+        multiModel.addPending(new Model("test/repo", issues(1, 2), new ArrayList<>(), new ArrayList<>(),
+            new ArrayList<>(), UpdateSignature.EMPTY));
+        Map<Integer, IssueMetadata> metadata = new HashMap<>();
+        metadata.put(1, new IssueMetadata(new IssueMetadata(), LocalDateTime.of(2015, 1, 1, 0, 0), 1));
+        metadata.put(2, new IssueMetadata(new IssueMetadata(), LocalDateTime.of(2015, 1, 1, 0, 0), 1));
+        multiModel.insertMetadata("test/repo", metadata, "user");
+
+        // The state of an issue goes with it
+        multiModel.replace(Arrays.asList(new Model("test/repo", issues(2), new ArrayList<>(), new ArrayList<>(),
+            new ArrayList<>(), UpdateSignature.EMPTY)));
+        assertFalse(multiModel.getStateOfIssue(new TurboIssue("test/repo", 1, "")).getMetadata().isUpdated());
+        assertTrue(multiModel.getStateOfIssue(new TurboIssue("test/repo", 2, "")).getMetadata().isUpdated());
+
+        // As does that of every issue of a repository which is closed
+        multiModel.replace(new ArrayList<>());
+        assertFalse(multiModel.getStateOfIssue(new TurboIssue("test/repo", 2, "")).getMetadata().isUpdated());
+    }
+
+    @Test
+    public void deltaOfReconciledUpdate() {
+        multiModel.queuePendingRepository("test/repo");
+        multiModel.addPending(new Model("test/repo", issues(1, 2), new ArrayList<>(), new ArrayList<>(),
+            new ArrayList<>(), UpdateSignature.EMPTY));
+        multiModel.takeDelta();
+
+        // The changes found while reconciling are taken as they are
+        Model existing = multiModel.get("test/repo");
+        KeyedMerge.Result<TurboIssue> issues = TurboIssue.reconcile("test/repo", existing.getIssues(),
+            Arrays.asList(new TurboIssue("test/repo", 2, "Renamed")));
+        multiModel.replace(Arrays.asList(new Model("test/repo", issues.items, new ArrayList<>(), new ArrayList<>(),
+            new ArrayList<>(), UpdateSignature.EMPTY, existing, ModelChanges.ofIssues("test/repo", issues.changes))));
+        assertEquals(ids("test/repo", 2), multiModel.takeDelta().getIssueIds());
+
+        // They are not if the model was replaced in the meantime, as they are relative to another
+        existing = multiModel.get("test/repo");
+        issues = TurboIssue.reconcile("test/repo", existing.getIssues(),
+            Arrays.asList(new TurboIssue("test/repo", 3, "New")));
+        multiModel.replaceIssueLabels(existing.getIssueById(1).get(), Arrays.asList("bug"));
+        multiModel.takeDelta();
+        multiModel.replace(Arrays.asList(new Model("test/repo", issues.items, new ArrayList<>(), new ArrayList<>(),
+            new ArrayList<>(), UpdateSignature.EMPTY, existing, ModelChanges.ofIssues("test/repo", issues.changes))));
+        assertEquals(ids("test/repo", 1, 3), multiModel.takeDelta().getIssueIds());
+    }
+
+    private static List<TurboIssue> issues(int... ids) {
+        List<TurboIssue> issues = new ArrayList<>();
+        for (int id : ids) {
+            issues.add(new TurboIssue("test/repo", id, "Issue " + id));
+        }
+        return issues;
+    }
+
+    private static Map<String, Set<Integer>> ids(String repoId, Integer... ids) {
+        Map<String, Set<Integer>> result = new HashMap<>();
+        result.put(repoId, new HashSet<>(Arrays.asList(ids)));
+        return result;
+    }
 }
@@ -28,9 +28,12 @@ public class RepositorySelectorPopulationTests {
     @Before
     public void clearTestDirectory() {
         try {
-            Files.walk(Paths.get(RepoStore.TEST_DIRECTORY), 1)
+            Files.list(Paths.get(RepoStore.TEST_DIRECTORY))
                     .filter(Files::isRegularFile)
-                    .filter(p -> getFileExtension(String.valueOf(p.getFileName())).equalsIgnoreCase("json"))
+                    .filter(p -> getFileExtension(String.valueOf(p.getFileName())).equalsIgnoreCase("json") ||
+                            getFileExtension(String.valueOf(p.getFileName())).equalsIgnoreCase("bin") ||
+                            getFileExtension(String.valueOf(p.getFileName())).equalsIgnoreCase("journal") ||
+                            getFileExtension(String.valueOf(p.getFileName())).equalsIgnoreCase("metadata"))
                     .forEach(p -> new File(p.toAbsolutePath().toString()).delete());
         } catch (IOException e) {
             e.printStackTrace();
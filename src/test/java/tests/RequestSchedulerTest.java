@@ -0,0 +1,147 @@
+package tests;
+
+import backend.github.RequestScheduler;
+import backend.github.RequestScheduler.Priority;
+import backend.interfaces.RepoTask;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RequestSchedulerTest {
+
+    private static final String RESOURCE = "core";
+
+    // The names of the tasks started, in order
+    private final List<String> started = Collections.synchronizedList(new ArrayList<>());
+
+    private final RequestScheduler scheduler = new RequestScheduler(Runnable::run);
+
+    private class NamedTask extends RepoTask<Boolean> {
+        public final String name;
+
+        public NamedTask(String name) {
+            super(null, null);
+            this.name = name;
+        }
+
+        @Override
+        public void run() {
+            started.add(name);
+        }
+    }
+
+    @Test
+    public void startInPriorityOrder() {
+        List<NamedTask> running = IntStream.range(0, RequestScheduler.MAX_TASKS_IN_PROGRESS)
+            .mapToObj(i -> new NamedTask("running " + i))
+            .collect(Collectors.toList());
+        running.forEach(task -> scheduler.schedule(task, Priority.BACKGROUND));
+        started.clear();
+
+        scheduler.schedule(new NamedTask("refresh"), Priority.BACKGROUND);
+        scheduler.schedule(new NamedTask("metadata"), Priority.VISIBLE);
+        scheduler.schedule(new NamedTask("label edit"), Priority.INTERACTIVE);
+
+        // Interactive tasks do not wait for a turn
+        assertEquals(Arrays.asList("label edit"), started);
+        assertEquals(2, scheduler.getQueueLength());
+
+        running.get(0).response.complete(true);
+        assertEquals(Arrays.asList("label edit", "metadata"), started);
+        running.get(1).response.complete(true);
+        assertEquals(Arrays.asList("label edit", "metadata", "refresh"), started);
+        assertEquals(0, scheduler.getQueueLength());
+    }
+
+    @Test
+    public void failedTaskGivesUpTurn() {
+        for (int i = 0; i < RequestScheduler.MAX_TASKS_IN_PROGRESS; i++) {
+            scheduler.schedule(new RepoTask<Boolean>(null, null) {
+                @Override
+                public void run() {
+                    throw new IllegalStateException();
+                }
+            }, Priority.BACKGROUND);
+        }
+
+        scheduler.schedule(new NamedTask("refresh"), Priority.BACKGROUND);
+
+        assertEquals(Arrays.asList("refresh"), started);
+    }
+
+    @Test
+    public void holdBackgroundTasksUntilReset() throws InterruptedException {
+        long resetTime = System.currentTimeMillis() + 1000;
+        // Only the reserve is left
+        scheduler.rateLimitUpdated(RESOURCE, 100, 5000, resetTime);
+
+        NamedTask refresh = new NamedTask("refresh");
+        scheduler.schedule(refresh, Priority.BACKGROUND);
+        scheduler.schedule(new NamedTask("metadata"), Priority.VISIBLE);
+        scheduler.schedule(new NamedTask("label edit"), Priority.INTERACTIVE);
+
+        assertEquals(Arrays.asList("metadata", "label edit"), started);
+        assertTrue(waitUntilStarted(refresh, 5000));
+        assertTrue(System.currentTimeMillis() >= resetTime);
+    }
+
+    @Test
+    public void holdVisibleTasksOnlyWhenExhausted() throws InterruptedException {
+        scheduler.rateLimitUpdated(RESOURCE, 0, 5000, System.currentTimeMillis() + 60000);
+
+        scheduler.schedule(new NamedTask("metadata"), Priority.VISIBLE);
+        scheduler.schedule(new NamedTask("label edit"), Priority.INTERACTIVE);
+        assertEquals(Arrays.asList("label edit"), started);
+
+        // The limit is found to have been reset early, e.g. by a rate limit check
+        scheduler.rateLimitUpdated(RESOURCE, 5000, 5000, System.currentTimeMillis() + 3600000);
+        assertEquals(Arrays.asList("label edit", "metadata"), started);
+    }
+
+    @Test
+    public void spreadOutBackgroundTasksWhenQuotaIsLow() throws InterruptedException {
+        // 10 requests over the reserve are left for the next 2 seconds, so one may go every 200ms
+        scheduler.rateLimitUpdated(RESOURCE, 110, 5000, System.currentTimeMillis() + 2000);
+
+        NamedTask first = new NamedTask("first");
+        NamedTask second = new NamedTask("second");
+        scheduler.schedule(first, Priority.BACKGROUND);
+        long firstStart = System.currentTimeMillis();
+        first.response.complete(true);
+        scheduler.schedule(second, Priority.BACKGROUND);
+
+        assertFalse(started.contains("second"));
+        assertTrue(waitUntilStarted(second, 5000));
+        assertTrue(System.currentTimeMillis() - firstStart >= 150);
+    }
+
+    @Test
+    public void ignoreLimitOnceReset() {
+        scheduler.rateLimitUpdated(RESOURCE, 0, 5000, System.currentTimeMillis() - 1000);
+
+        scheduler.schedule(new NamedTask("refresh"), Priority.BACKGROUND);
+
+        assertEquals(Arrays.asList("refresh"), started);
+    }
+
+    private boolean waitUntilStarted(NamedTask task, long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        while (!started.contains(task.name)) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        return true;
+    }
+}
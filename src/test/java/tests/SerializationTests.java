@@ -160,16 +160,19 @@ public class SerializationTests {
 
     @Test
     public void testSerializableIssueToString() {
-        TurboIssue turboIssue = new TurboIssue(TEST_REPO_ID, testIssue);
-        turboIssue.setDescription("test description");
+        TurboIssue turboIssue = new TurboIssue.Builder(new TurboIssue(TEST_REPO_ID, testIssue))
+            .setDescription("test description")
+            .build();
         SerializableIssue serializedIssue = new SerializableIssue(turboIssue);
 
         // Issue has no assignee and milestone
         assertEquals(String.format(FORMATTER_TEST_ISSUE_STRING, "", ""),
                      serializedIssue.toString());
 
-        turboIssue.setAssignee("test assignee");
-        turboIssue.setMilestone(1);
+        turboIssue = new TurboIssue.Builder(turboIssue)
+            .setAssignee("test assignee")
+            .setMilestone(1)
+            .build();
         serializedIssue = new SerializableIssue(turboIssue);
 
         // Issue has assignee and milestone
@@ -189,15 +192,17 @@ public class SerializationTests {
 
     @Test
     public void testSerializableModelToString() {
-        TurboIssue turboIssue1 = new TurboIssue(TEST_REPO_ID, testIssue);
-        turboIssue1.setTitle("test title 1");
-        turboIssue1.setDescription("test description 1");
-        turboIssue1.setAssignee("test assignee");
-        turboIssue1.setMilestone(1);
-
-        TurboIssue turboIssue2 = new TurboIssue(TEST_REPO_ID, testIssue);
-        turboIssue2.setTitle("test title 2");
-        turboIssue2.setDescription("test description");
+        TurboIssue turboIssue1 = new TurboIssue.Builder(new TurboIssue(TEST_REPO_ID, testIssue))
+            .setTitle("test title 1")
+            .setDescription("test description 1")
+            .setAssignee("test assignee")
+            .setMilestone(1)
+            .build();
+
+        TurboIssue turboIssue2 = new TurboIssue.Builder(new TurboIssue(TEST_REPO_ID, testIssue))
+            .setTitle("test title 2")
+            .setDescription("test description")
+            .build();
 
         List<TurboIssue> issues = new ArrayList<>();
         issues.add(turboIssue1);
@@ -16,6 +16,8 @@ import util.events.testevents.UpdateDummyRepoEvent;
 
 import java.io.File;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
@@ -121,6 +123,22 @@ public class StoreTests {
         assertEquals(10, model.getIssues().size());
     }
 
+    @Test
+    public void testLoadDeletedStoredRepo() throws InterruptedException, ExecutionException, TimeoutException {
+        RepoIO repoIO = new RepoIO(true, true);
+        repoIO.openRepository("dummy1/dummy1").get();
+        TestUtils.delay(1); // allow for file to be written
+
+        // The repository is listed as stored, but its file has since been deleted
+        RepoIO alternateIO = new RepoIO(true, true);
+        assertEquals(1, alternateIO.getStoredRepos().size());
+        UITest.clearTestFolder();
+
+        // Falls back to downloading it, which then has to be saved, without deadlocking the store
+        Model model = alternateIO.openRepository("dummy1/dummy1").get(30, TimeUnit.SECONDS);
+        assertEquals(10, model.getIssues().size());
+    }
+
     @After
     public void cleanup() {
         UITest.clearTestFolder();
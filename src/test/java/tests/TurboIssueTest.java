@@ -6,10 +6,14 @@ import org.eclipse.egit.github.core.Label;
 import org.eclipse.egit.github.core.User;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 
 public class TurboIssueTest {
 
@@ -31,4 +35,59 @@ public class TurboIssueTest {
         assertEquals("test label", turboIssue.getLabels().get(0));
     }
 
+    @Test
+    public void encodedDescriptionTest() {
+        TurboIssue encoded = new TurboIssue.Builder("dummy/dummy", 1)
+            .setTitle("title")
+            .setEncodedDescription("descripci\u00f3n".getBytes(StandardCharsets.UTF_8))
+            .build();
+        TurboIssue copy = new TurboIssue(encoded);
+        TurboIssue decoded = new TurboIssue.Builder(encoded).setDescription("descripci\u00f3n").build();
+
+        assertEquals(encoded, copy);
+        assertEquals(encoded, decoded);
+        assertEquals(decoded.hashCode(), encoded.hashCode());
+        assertEquals("descripci\u00f3n", copy.getDescription());
+
+        TurboIssue changed = new TurboIssue.Builder(copy).setDescription("changed").build();
+        assertNotEquals(encoded, changed);
+        assertEquals("descripci\u00f3n", encoded.getDescription());
+        assertEquals("descripci\u00f3n", copy.getDescription());
+    }
+
+    @Test
+    public void builderTest() {
+        TurboIssue issue = new TurboIssue("dummy/dummy", 1, "title");
+        List<String> labels = new ArrayList<>(Arrays.asList("bug"));
+        TurboIssue built = new TurboIssue.Builder(issue)
+            .setTitle("changed")
+            .setOpen(false)
+            .setLabels(labels)
+            .addLabel("feature")
+            .setAssignee("alice")
+            .setMilestone(2)
+            .build();
+
+        // The issue built from is left as it was
+        assertEquals("title", issue.getTitle());
+        assertEquals(true, issue.isOpen());
+        assertEquals(true, issue.getLabels().isEmpty());
+
+        assertEquals("changed", built.getTitle());
+        assertEquals(false, built.isOpen());
+        assertEquals(Arrays.asList("bug", "feature"), built.getLabels());
+        assertEquals("alice", built.getAssignee().get());
+        assertEquals(Integer.valueOf(2), built.getMilestone().get());
+        assertEquals(Arrays.asList("bug"), issue.withLabels(Arrays.asList("bug")).getLabels());
+
+        // Changing what an issue was built from does not change the issue
+        labels.add("other");
+        assertEquals(Arrays.asList("bug", "feature"), built.getLabels());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void labelsAreImmutableTest() {
+        new TurboIssue("dummy/dummy", 1, "title").withLabels(Arrays.asList("bug")).getLabels().add("feature");
+    }
+
 }
@@ -4,6 +4,10 @@ import static org.junit.Assert.*;
 import static util.Utility.*;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.time.LocalDateTime;
@@ -75,6 +79,32 @@ public class UtilityTest {
         assertEquals("HelloWorldThisIsATest", snakeCaseToCamelCase("hello_world_this_is_a_test"));
     }
 
+    @Test
+    public void writeFileAtomicallyTest() throws IOException {
+        Path directory = Files.createTempDirectory("utility");
+        Path file = directory.resolve("file");
+        writeFileAtomically(file, channel -> channel.write(ByteBuffer.wrap("original".getBytes())));
+        assertEquals("original", new String(Files.readAllBytes(file)));
+
+        // An interrupted write leaves the file untouched, with no temporary file behind
+        try {
+            writeFileAtomically(file, channel -> {
+                channel.write(ByteBuffer.wrap("partial".getBytes()));
+                throw new IOException();
+            });
+            fail();
+        } catch (IOException ignored) {}
+        assertEquals("original", new String(Files.readAllBytes(file)));
+        assertEquals(1, directory.toFile().list().length);
+
+        writeFileAtomically(file, channel -> channel.write(ByteBuffer.wrap("new".getBytes())));
+        assertEquals("new", new String(Files.readAllBytes(file)));
+        assertEquals(1, directory.toFile().list().length);
+
+        Files.delete(file);
+        Files.delete(directory);
+    }
+
     @Test(timeout = 5000)
     public void testGettingLookAndFeelOnLinux() {
         assertTrue(Utility.getUsableScreenDimensions().isPresent());
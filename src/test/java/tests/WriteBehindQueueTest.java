@@ -0,0 +1,131 @@
+package tests;
+
+import backend.WriteBehindQueue;
+import backend.interfaces.RepoStore;
+import backend.resource.Model;
+import backend.resource.TurboIssue;
+import backend.resource.serialization.SerializableModel;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class WriteBehindQueueTest {
+
+    private static final String REPO = "dummy/dummy";
+
+    /**
+     * Records the saves which reach it, reporting corruption if asked to.
+     */
+    private static class RecordingStore extends RepoStore {
+        public final List<ImmutablePair<Model, Model>> saves = new ArrayList<>();
+        public boolean isCorrupted = false;
+
+        @Override
+        public CompletableFuture<Model> loadRepository(String repoId) {
+            return CompletableFuture.completedFuture(new Model(repoId));
+        }
+
+        @Override
+        public CompletableFuture<Boolean> saveRepository(String repoId, SerializableModel model) {
+            return CompletableFuture.completedFuture(isCorrupted);
+        }
+
+        @Override
+        public synchronized CompletableFuture<Boolean> saveRepositoryChanges(String repoId, Model previous,
+                                                                             Model updated) {
+            saves.add(new ImmutablePair<>(previous, updated));
+            return CompletableFuture.completedFuture(isCorrupted);
+        }
+
+        @Override
+        public List<String> getStoredRepos() {
+            return new ArrayList<>();
+        }
+    }
+
+    private static Model model(int issueCount) {
+        List<TurboIssue> issues = new ArrayList<>();
+        for (int i = 1; i <= issueCount; i++) {
+            issues.add(new TurboIssue(REPO, i, "Issue " + i));
+        }
+        return new Model(REPO, issues, new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+    }
+
+    @Test
+    public void coalesceSaves() throws ExecutionException, InterruptedException {
+        RecordingStore store = new RecordingStore();
+        WriteBehindQueue queue = new WriteBehindQueue(store, 200);
+        Model first = model(1);
+        Model second = model(2);
+        Model third = model(3);
+
+        CompletableFuture<Boolean> firstSave = queue.save(first, second);
+        CompletableFuture<Boolean> secondSave = queue.save(second, third);
+        assertTrue(firstSave.isDone());
+        assertTrue(store.saves.isEmpty());
+
+        assertFalse(secondSave.get());
+        assertEquals(1, store.saves.size());
+        assertSame(first, store.saves.get(0).left);
+        assertSame(third, store.saves.get(0).right);
+    }
+
+    @Test
+    public void flushOnIdle() throws ExecutionException, InterruptedException {
+        RecordingStore store = new RecordingStore();
+        WriteBehindQueue queue = new WriteBehindQueue(store, 50);
+
+        queue.save(model(1), model(2)).get();
+        queue.save(model(2), model(3)).get();
+        assertEquals(2, store.saves.size());
+    }
+
+    @Test
+    public void flushAll() {
+        RecordingStore store = new RecordingStore();
+        WriteBehindQueue queue = new WriteBehindQueue(store, 60 * 60 * 1000);
+
+        CompletableFuture<Boolean> save = queue.save(model(1), model(2));
+        queue.save(new Model("other/repo"), new Model("other/repo"));
+        queue.flushAll();
+
+        assertTrue(save.isDone());
+        assertEquals(2, store.saves.size());
+    }
+
+    @Test
+    public void reportCorruption() throws ExecutionException, InterruptedException {
+        RecordingStore store = new RecordingStore();
+        store.isCorrupted = true;
+        WriteBehindQueue queue = new WriteBehindQueue(store, 0);
+
+        assertTrue(queue.save(model(1), model(2)).get());
+        assertEquals(Arrays.asList(1, 2), store.saves.get(0).right.getIssues().stream()
+                .map(TurboIssue::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void reportCorruptionOncePerWrite() throws ExecutionException, InterruptedException {
+        RecordingStore store = new RecordingStore();
+        store.isCorrupted = true;
+        WriteBehindQueue queue = new WriteBehindQueue(store, 200);
+
+        // Only the save which is written out reports the corruption
+        CompletableFuture<Boolean> firstSave = queue.save(model(1), model(2));
+        CompletableFuture<Boolean> secondSave = queue.save(model(2), model(3));
+        assertTrue(secondSave.get());
+        assertFalse(firstSave.get());
+        assertEquals(1, store.saves.size());
+    }
+}